@@ -0,0 +1,191 @@
+package com.walmart.sample.benchmarks;
+
+import com.walmart.sample.common.HoldRetentionPolicy;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.Venue;
+import com.walmart.sample.common.VenueException;
+import com.walmart.sample.ticketing.eventloop.EventLoopTicketService;
+import com.walmart.sample.ticketing.service.TicketServiceImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Compares the on-sale workload of {@link TicketServiceBenchmark} on a concurrent {@link TicketServiceImpl},
+ * where every caller changes the venue itself, and on an {@link EventLoopTicketService}, where every change is
+ * applied by a single writer thread and callers wait on a future.
+ *
+ * As in TicketServiceBenchmark a sold out service is swapped for a fresh one.
+ */
+@State(Scope.Group)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventLoopBenchmark {
+
+    /**
+     * How changes are applied to the venue, by the callers or by a single writer.
+     */
+    @Param({"concurrent", "eventLoop"})
+    private String mode;
+
+    /**
+     * Number of seats in the venue.
+     */
+    @Param({"10000", "100000"})
+    private int venueSize;
+
+    /**
+     * Number of seats held by each customer.
+     */
+    @Param({"4"})
+    private int partySize;
+
+    /**
+     * The concurrent service, set in concurrent mode.
+     */
+    private final AtomicReference<TicketServiceImpl> concurrentService = new AtomicReference<TicketServiceImpl>();
+
+    /**
+     * The event loop service, set in event loop mode.
+     */
+    private final AtomicReference<EventLoopTicketService> eventLoopService =
+        new AtomicReference<EventLoopTicketService>();
+
+    /**
+     * Creates the first service.
+     */
+    @Setup
+    public void setUp() {
+        if ("eventLoop".equals(mode)) {
+            eventLoopService.set(new EventLoopTicketService(newVenue()));
+        } else {
+            concurrentService.set(new TicketServiceImpl(newVenue()));
+        }
+    }
+
+    /**
+     * Stops the threads of the last service.
+     */
+    @TearDown
+    public void tearDown() {
+        if ("eventLoop".equals(mode)) {
+            eventLoopService.get().close();
+        } else {
+            concurrentService.get().getScheduler().shutdownNow();
+        }
+    }
+
+    /**
+     * Creates a fresh venue.
+     *
+     * @return the venue.
+     */
+    private Venue newVenue() {
+        return new Venue(VenueFixtures.seats(venueSize), new HoldRetentionPolicy(0, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Holds seats and optionally reserves them in the current mode, swapping in a fresh service on sell out.
+     *
+     * @param reserve true to reserve the hold.
+     * @return the hold.
+     */
+    private SeatHold hold(final boolean reserve) {
+        while (true) {
+            if ("eventLoop".equals(mode)) {
+                EventLoopTicketService service = eventLoopService.get();
+                try {
+                    SeatHold seatHold = service.findAndHoldSeats(partySize, VenueFixtures.customerEmail()).join();
+                    if (reserve) {
+                        service.reserveSeats(seatHold.getSeatHoldId(), VenueFixtures.customerEmail()).join();
+                    }
+                    return seatHold;
+                } catch (CompletionException e) {
+                    if (service.numSeatsAvailable() < partySize) {
+                        EventLoopTicketService fresh = new EventLoopTicketService(newVenue());
+                        if (eventLoopService.compareAndSet(service, fresh)) {
+                            service.close();
+                        } else {
+                            fresh.close();
+                        }
+                    }
+                }
+            } else {
+                TicketServiceImpl service = concurrentService.get();
+                try {
+                    SeatHold seatHold = service.findAndHoldSeats(partySize, VenueFixtures.customerEmail());
+                    if (reserve) {
+                        service.reserveSeats(seatHold.getSeatHoldId(), VenueFixtures.customerEmail());
+                    }
+                    return seatHold;
+                } catch (VenueException e) {
+                    if (service.numSeatsAvailable() < partySize) {
+                        TicketServiceImpl fresh = new TicketServiceImpl(newVenue());
+                        if (concurrentService.compareAndSet(service, fresh)) {
+                            service.getScheduler().shutdownNow();
+                        } else {
+                            fresh.getScheduler().shutdownNow();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checkout threads of the on-sale spike.
+     *
+     * @return the reserved hold.
+     */
+    @Benchmark
+    @Group("onSale")
+    @GroupThreads(4)
+    public SeatHold onSaleCheckout() {
+        return hold(true);
+    }
+
+    /**
+     * Customers of the on-sale spike who hold seats and abandon them to expire.
+     *
+     * @return the abandoned hold.
+     */
+    @Benchmark
+    @Group("onSale")
+    @GroupThreads(2)
+    public SeatHold onSaleAbandon() {
+        return hold(false);
+    }
+
+    /**
+     * Seat map polling of the on-sale spike.
+     *
+     * @return the number of available seats.
+     */
+    @Benchmark
+    @Group("onSale")
+    @GroupThreads(2)
+    public int onSaleSeatMap() {
+        return "eventLoop".equals(mode)
+            ? eventLoopService.get().numSeatsAvailable()
+            : concurrentService.get().numSeatsAvailable();
+    }
+}
@@ -0,0 +1,94 @@
+package com.walmart.sample.benchmarks;
+
+import com.walmart.sample.common.ReservationState;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.Venue;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link Venue} hold state transitions, updateSeatHoldState to reserve and cancelSeatHold to expire.
+ *
+ * A hold can only leave the HOLD state once, so every iteration runs a fixed batch of transitions over holds that
+ * are created before the iteration starts and the single shot time of the batch is reported.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = SeatHoldStateBenchmark.BATCH_SIZE)
+@Measurement(iterations = 20, batchSize = SeatHoldStateBenchmark.BATCH_SIZE)
+@Fork(1)
+public class SeatHoldStateBenchmark {
+
+    /**
+     * Number of transitions in each iteration.
+     */
+    static final int BATCH_SIZE = 10000;
+
+    /**
+     * Number of seats in each hold.
+     */
+    @Param({"1", "4", "8"})
+    private int partySize;
+
+    /**
+     * The venue of the holds.
+     */
+    private Venue venue;
+
+    /**
+     * Holds waiting for a transition.
+     */
+    private SeatHold[] seatHolds;
+
+    /**
+     * Next hold to transition.
+     */
+    private int next;
+
+    /**
+     * Holds a batch worth of seats in a fresh venue.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        venue = new Venue(VenueFixtures.seats(BATCH_SIZE * partySize));
+        seatHolds = new SeatHold[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            seatHolds[i] = venue.getAvailableSeats(VenueFixtures.CUSTOMER_EMAIL, partySize);
+        }
+        next = 0;
+    }
+
+    /**
+     * Reserves the next hold.
+     *
+     * @return whether the hold was reserved.
+     */
+    @Benchmark
+    public boolean updateSeatHoldState() {
+        return venue.updateSeatHoldState(seatHolds[next++], ReservationState.RESERVED);
+    }
+
+    /**
+     * Cancels the next hold, returning its seats.
+     *
+     * @return whether the hold was cancelled.
+     */
+    @Benchmark
+    public boolean cancelSeatHold() {
+        return venue.cancelSeatHold(seatHolds[next++]);
+    }
+}
@@ -0,0 +1,122 @@
+package com.walmart.sample.benchmarks;
+
+import com.walmart.sample.common.HoldRetentionPolicy;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.VenueException;
+import com.walmart.sample.ticketing.service.ShardedTicketService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Benchmarks the checkout flow of a {@link ShardedTicketService} as the number of shards grows.
+ *
+ * One shard is the unsharded venue behind a coordinator, compare it with more shards at the same -t to see how
+ * throughput scales. As in {@link TicketServiceBenchmark} a sold out service is swapped for a fresh one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShardedTicketServiceBenchmark {
+
+    /**
+     * Number of seats in the venue.
+     */
+    @Param({"10000", "100000"})
+    private int venueSize;
+
+    /**
+     * Number of shards the venue is split into.
+     */
+    @Param({"1", "2", "4", "8"})
+    private int shards;
+
+    /**
+     * Number of seats held by each customer.
+     */
+    @Param({"4"})
+    private int partySize;
+
+    /**
+     * The service being benchmarked, replaced when its venue sells out.
+     */
+    private final AtomicReference<ShardedTicketService> ticketService = new AtomicReference<ShardedTicketService>();
+
+    /**
+     * Creates the first service.
+     */
+    @Setup
+    public void setUp() {
+        ticketService.set(newTicketService());
+    }
+
+    /**
+     * Stops the expiration threads of the last service.
+     */
+    @TearDown
+    public void tearDown() {
+        ticketService.get().shutdown();
+    }
+
+    /**
+     * Creates a service for a fresh venue.
+     *
+     * @return the service.
+     */
+    private ShardedTicketService newTicketService() {
+        return new ShardedTicketService(VenueFixtures.seats(venueSize), new HoldRetentionPolicy(0, Integer.MAX_VALUE),
+            shards, 1);
+    }
+
+    /**
+     * Swaps in a fresh service if the current one has sold out.
+     *
+     * @param service the service that failed to hold seats.
+     */
+    private void replaceIfSoldOut(final ShardedTicketService service) {
+        // Shards sell out unevenly, a shard short of a party is enough to start over.
+        if (service.getShards().stream().allMatch(shard -> shard.numSeatsAvailable() >= partySize)) {
+            return;
+        }
+        ShardedTicketService fresh = newTicketService();
+        if (ticketService.compareAndSet(service, fresh)) {
+            service.shutdown();
+        } else {
+            fresh.shutdown();
+        }
+    }
+
+    /**
+     * Holds seats and reserves them, the checkout flow.
+     *
+     * @return the confirmation code.
+     */
+    @Benchmark
+    public String holdAndReserve() {
+        while (true) {
+            ShardedTicketService service = ticketService.get();
+            try {
+                SeatHold seatHold = service.findAndHoldSeats(partySize, VenueFixtures.customerEmail());
+                return service.reserveSeats(seatHold.getSeatHoldId(), VenueFixtures.customerEmail());
+            } catch (VenueException e) {
+                replaceIfSoldOut(service);
+            }
+        }
+    }
+}
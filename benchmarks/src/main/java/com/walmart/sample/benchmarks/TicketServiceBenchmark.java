@@ -0,0 +1,173 @@
+package com.walmart.sample.benchmarks;
+
+import com.walmart.sample.common.HoldRetentionPolicy;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.Venue;
+import com.walmart.sample.common.VenueException;
+import com.walmart.sample.ticketing.service.TicketServiceImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Benchmarks end to end {@link TicketServiceImpl} flows, holding seats and reserving them.
+ *
+ * Reservations are permanent, so when the venue sells out the thread that noticed swaps in a fresh service and the
+ * operation is retried. The cost of the swap is amortized over a full venue of reservations. Run with -t to vary the
+ * number of threads calling the service, the onSale group models an on-sale spike with checkout, abandoned holds and
+ * seat map polling competing for the same venue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TicketServiceBenchmark {
+
+    /**
+     * Number of seats in the venue.
+     */
+    @Param({"1000", "10000", "100000", "200000"})
+    private int venueSize;
+
+    /**
+     * Number of seats held by each customer.
+     */
+    @Param({"1", "4", "8"})
+    private int partySize;
+
+    /**
+     * The service being benchmarked, replaced when its venue sells out.
+     */
+    private final AtomicReference<TicketServiceImpl> ticketService = new AtomicReference<TicketServiceImpl>();
+
+    /**
+     * Creates the first service.
+     */
+    @Setup
+    public void setUp() {
+        ticketService.set(newTicketService());
+    }
+
+    /**
+     * Stops the expiration thread of the last service.
+     */
+    @TearDown
+    public void tearDown() {
+        ticketService.get().getScheduler().shutdownNow();
+    }
+
+    /**
+     * Creates a service for a fresh venue.
+     *
+     * @return the service.
+     */
+    private TicketServiceImpl newTicketService() {
+        return new TicketServiceImpl(new Venue(VenueFixtures.seats(venueSize),
+            new HoldRetentionPolicy(0, Integer.MAX_VALUE)));
+    }
+
+    /**
+     * Swaps in a fresh service if the current one has sold out.
+     *
+     * @param service the service that failed to hold seats.
+     */
+    private void replaceIfSoldOut(final TicketServiceImpl service) {
+        if (service.numSeatsAvailable() >= partySize) {
+            return;
+        }
+        TicketServiceImpl fresh = newTicketService();
+        if (ticketService.compareAndSet(service, fresh)) {
+            service.getScheduler().shutdownNow();
+        } else {
+            fresh.getScheduler().shutdownNow();
+        }
+    }
+
+    /**
+     * Holds seats and abandons them to expire.
+     *
+     * @return the abandoned hold.
+     */
+    @Benchmark
+    public SeatHold holdAndAbandon() {
+        while (true) {
+            TicketServiceImpl service = ticketService.get();
+            try {
+                return service.findAndHoldSeats(partySize, VenueFixtures.customerEmail());
+            } catch (VenueException e) {
+                replaceIfSoldOut(service);
+            }
+        }
+    }
+
+    /**
+     * Holds seats and reserves them, the checkout flow.
+     *
+     * @return the confirmation code.
+     */
+    @Benchmark
+    public String holdAndReserve() {
+        while (true) {
+            TicketServiceImpl service = ticketService.get();
+            try {
+                SeatHold seatHold = service.findAndHoldSeats(partySize, VenueFixtures.customerEmail());
+                return service.reserveSeats(seatHold.getSeatHoldId(), VenueFixtures.customerEmail());
+            } catch (VenueException e) {
+                replaceIfSoldOut(service);
+            }
+        }
+    }
+
+    /**
+     * Checkout threads of the on-sale spike.
+     *
+     * @return the confirmation code.
+     */
+    @Benchmark
+    @Group("onSale")
+    @GroupThreads(4)
+    public String onSaleCheckout() {
+        return holdAndReserve();
+    }
+
+    /**
+     * Customers of the on-sale spike who hold seats and abandon them to expire.
+     *
+     * @return the abandoned hold.
+     */
+    @Benchmark
+    @Group("onSale")
+    @GroupThreads(2)
+    public SeatHold onSaleAbandon() {
+        return holdAndAbandon();
+    }
+
+    /**
+     * Seat map polling of the on-sale spike.
+     *
+     * @return the number of available seats.
+     */
+    @Benchmark
+    @Group("onSale")
+    @GroupThreads(2)
+    public int onSaleSeatMap() {
+        return ticketService.get().numSeatsAvailable();
+    }
+}
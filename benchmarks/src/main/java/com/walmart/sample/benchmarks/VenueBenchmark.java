@@ -0,0 +1,91 @@
+package com.walmart.sample.benchmarks;
+
+import com.walmart.sample.common.AllocationMode;
+import com.walmart.sample.common.HoldRetentionPolicy;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.Venue;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link Venue} allocation path, holding seats and returning them with cancelSeatHold.
+ *
+ * Each operation holds a party and cancels it again, so the venue stays at a steady occupancy for the whole run. Half
+ * of the venue is held up front so allocation searches a partly sold venue, as it would during an on-sale.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VenueBenchmark {
+
+    /**
+     * Number of seats in the venue.
+     */
+    @Param({"1000", "10000", "100000", "200000"})
+    private int venueSize;
+
+    /**
+     * Number of seats held by each operation.
+     */
+    @Param({"1", "4", "8"})
+    private int partySize;
+
+    /**
+     * The venue being benchmarked.
+     */
+    private Venue venue;
+
+    /**
+     * Builds the venue and holds half of it.
+     */
+    @Setup
+    public void setUp() {
+        // Cancelled holds are evicted straight away, the run cancels millions of them.
+        venue = new Venue(VenueFixtures.seats(venueSize), new HoldRetentionPolicy(0, Integer.MAX_VALUE));
+        int prefilled = 0;
+        while (prefilled + partySize <= venueSize / 2) {
+            venue.getAvailableSeats(VenueFixtures.customerEmail(), partySize);
+            prefilled += partySize;
+        }
+    }
+
+    /**
+     * Holds the best available seats and cancels the hold.
+     *
+     * @return the cancelled hold.
+     */
+    @Benchmark
+    public SeatHold holdAndCancel() {
+        SeatHold seatHold = venue.getAvailableSeats(VenueFixtures.customerEmail(), partySize);
+        venue.cancelSeatHold(seatHold);
+        return seatHold;
+    }
+
+    /**
+     * Holds adjacent seats in one row and cancels the hold.
+     *
+     * @return the cancelled hold.
+     */
+    @Benchmark
+    public SeatHold holdTogetherAndCancel() {
+        SeatHold seatHold = venue.getAvailableSeats(VenueFixtures.customerEmail(), partySize,
+            AllocationMode.SEATS_TOGETHER);
+        venue.cancelSeatHold(seatHold);
+        return seatHold;
+    }
+}
@@ -0,0 +1,69 @@
+package com.walmart.sample.benchmarks;
+
+import com.walmart.sample.common.Seat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds seat maps shaped like real venues for the benchmarks.
+ */
+public final class VenueFixtures {
+
+    /**
+     * Seats in each row of a benchmark venue.
+     */
+    public static final int SEATS_PER_ROW = 100;
+
+    /**
+     * Rows sharing a seat quality, so a venue has a handful of quality tiers like a real price map.
+     */
+    public static final int ROWS_PER_TIER = 10;
+
+    /**
+     * Test email used by every customer.
+     */
+    public static final String CUSTOMER_EMAIL = "benchmark@test.com";
+
+    /**
+     * Email of each benchmark thread, so threads hold seats as different customers like real traffic does.
+     */
+    private static final ThreadLocal<String> THREAD_EMAIL =
+        ThreadLocal.withInitial(() -> "benchmark" + Thread.currentThread().threadId() + "@test.com");
+
+    /**
+     * Utility class.
+     */
+    private VenueFixtures() {
+    }
+
+    /**
+     * Finds the email of the calling benchmark thread.
+     *
+     * @return the customer email.
+     */
+    public static String customerEmail() {
+        return THREAD_EMAIL.get();
+    }
+
+    /**
+     * Builds the seats of a venue, lower rows are better.
+     *
+     * @param venueSize the number of seats.
+     * @return the seats.
+     */
+    public static List<Seat> seats(final int venueSize) {
+        List<Seat> seats = new ArrayList<Seat>(venueSize);
+        int rows = (venueSize + SEATS_PER_ROW - 1) / SEATS_PER_ROW;
+        for (int row = 1; row <= rows && seats.size() < venueSize; row++) {
+            for (int seatNumber = 1; seatNumber <= SEATS_PER_ROW && seats.size() < venueSize; seatNumber++) {
+                seats.add(Seat.builder()
+                    .rowNumber(row)
+                    .seatNumber(seatNumber)
+                    .seatQuality(rows / ROWS_PER_TIER - (row - 1) / ROWS_PER_TIER)
+                    .build());
+            }
+        }
+        return seats;
+    }
+}
@@ -0,0 +1,17 @@
+package com.walmart.sample.common;
+
+/**
+ * An enumeration of the ways seats can be chosen for a SeatHold.
+ */
+public enum AllocationMode {
+
+    /**
+     * The best available seats by quality, row and seat number, which may be spread across rows.
+     */
+    BEST_AVAILABLE,
+
+    /**
+     * Adjacent seats in a single row, from the best row that has enough of them.
+     */
+    SEATS_TOGETHER
+}
@@ -0,0 +1,100 @@
+package com.walmart.sample.common;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * The ConfirmationCodeGenerator creates the confirmation codes of a venue's seat holds.
+ *
+ * A code is {@link #CODE_BITS} bits from a cryptographically strong generator, written as {@link #CODE_LENGTH}
+ * characters of Crockford's base 32, so codes are fixed width, easy to read back and can't be guessed from the
+ * hold id or the customer. Each thread draws from one of several generators, chosen by its thread id, so threads
+ * creating holds at the same time rarely wait on the same generator.
+ */
+public class ConfirmationCodeGenerator {
+
+    /**
+     * Number of random bits in a code.
+     */
+    public static final int CODE_BITS = 80;
+
+    /**
+     * Number of bits written by each character.
+     */
+    private static final int CHARACTER_BITS = 5;
+
+    /**
+     * Number of characters in a code.
+     */
+    public static final int CODE_LENGTH = CODE_BITS / CHARACTER_BITS;
+
+    /**
+     * Number of characters written from each random draw.
+     */
+    private static final int HALF_LENGTH = CODE_LENGTH / 2;
+
+    /**
+     * Crockford's base 32 alphabet, without the letters easily mistaken for digits.
+     */
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    /**
+     * Generators drawn from by the threads creating codes.
+     */
+    private final SecureRandom[] generators;
+
+    /**
+     * Mask for finding the generator of a thread.
+     */
+    private final int mask;
+
+    /**
+     * Constructs a code generator with one generator per available processor, rounded up to a power of two.
+     *
+     * @throws VenueException when no strong random generator is available
+     */
+    public ConfirmationCodeGenerator() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int size = Integer.highestOneBit(processors);
+        if (size < processors) {
+            size <<= 1;
+        }
+        generators = new SecureRandom[size];
+        try {
+            for (int i = 0; i < size; i++) {
+                // DRBG instances are seeded once and keep no state shared with other instances.
+                generators[i] = SecureRandom.getInstance("DRBG");
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new VenueException("Unable to create a confirmation code generator.");
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Creates a new confirmation code from the calling thread's generator.
+     *
+     * @return the confirmation code.
+     */
+    public String nextCode() {
+        SecureRandom generator = generators[(int) Thread.currentThread().threadId() & mask];
+        char[] code = new char[CODE_LENGTH];
+        // Each half of the code is the low 40 bits of one draw.
+        encode(generator.nextLong(), code, 0);
+        encode(generator.nextLong(), code, HALF_LENGTH);
+        return new String(code);
+    }
+
+    /**
+     * Writes the low bits of a value as half of a code.
+     *
+     * @param bits   the value.
+     * @param code   the characters of the code.
+     * @param offset the first character written.
+     */
+    private static void encode(final long bits, final char[] code, final int offset) {
+        for (int i = 0; i < HALF_LENGTH; i++) {
+            code[offset + i] = ALPHABET[(int) (bits >>> ((HALF_LENGTH - 1 - i) * CHARACTER_BITS)) & 31];
+        }
+    }
+}
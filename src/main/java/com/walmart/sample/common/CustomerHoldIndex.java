@@ -0,0 +1,294 @@
+package com.walmart.sample.common;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The CustomerHoldIndex maps each customer's email to the ids of their seat holds and reservations.
+ *
+ * Every customer has an entry holding the ids as an open addressing set of primitive keys and the number of holds
+ * still in the HOLD state. The index is updated as holds are created, reserved, cancelled and evicted, each under
+ * the lock of the one customer's entry, so customers never contend with each other and admitting a new hold against
+ * the customer's limit is a single counter check. An entry is dropped once it has no ids and no active holds.
+ */
+public class CustomerHoldIndex {
+
+    /**
+     * Initial number of slots of a customer's id set.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * Key of an empty slot, seat hold ids start at 1.
+     */
+    private static final int EMPTY = 0;
+
+    /**
+     * Entries by customer email.
+     */
+    private final ConcurrentMap<String, CustomerHolds> customers = new ConcurrentHashMap<String, CustomerHolds>();
+
+    /**
+     * Counts a new hold against a customer's limit.
+     *
+     * @param customerEmail the email of the customer.
+     * @param maxHolds      the most holds a customer may have in the HOLD state.
+     * @return false if the customer already has the most holds allowed.
+     */
+    public boolean admit(final String customerEmail, final int maxHolds) {
+        while (true) {
+            CustomerHolds holds = customers.computeIfAbsent(customerEmail, email -> new CustomerHolds());
+            synchronized (holds) {
+                if (holds.removed) {
+                    continue;
+                }
+                if (holds.activeHolds >= maxHolds) {
+                    return false;
+                }
+                holds.activeHolds++;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back a hold counted by {@link #admit} that was never created.
+     *
+     * @param customerEmail the email of the customer.
+     */
+    public void abandon(final String customerEmail) {
+        CustomerHolds holds = customers.get(customerEmail);
+        synchronized (holds) {
+            holds.activeHolds--;
+            dropIfEmpty(customerEmail, holds);
+        }
+    }
+
+    /**
+     * Adds a seat hold admitted by {@link #admit}.
+     *
+     * @param seatHold the new seat hold.
+     */
+    public void held(final SeatHold seatHold) {
+        CustomerHolds holds = customers.get(seatHold.getCustomerEmail());
+        synchronized (holds) {
+            holds.add(seatHold.getSeatHoldId());
+        }
+    }
+
+    /**
+     * Records that a seat hold left the HOLD state, its id stays in the index.
+     *
+     * @param seatHold the reserved or cancelled seat hold.
+     */
+    public void released(final SeatHold seatHold) {
+        CustomerHolds holds = customers.get(seatHold.getCustomerEmail());
+        synchronized (holds) {
+            holds.activeHolds--;
+        }
+    }
+
+    /**
+     * Adds a reservation that was never held, such as one restored from a journal.
+     *
+     * @param seatHold the reservation.
+     */
+    public void restored(final SeatHold seatHold) {
+        while (true) {
+            CustomerHolds holds = customers.computeIfAbsent(seatHold.getCustomerEmail(), email -> new CustomerHolds());
+            synchronized (holds) {
+                if (!holds.removed) {
+                    holds.add(seatHold.getSeatHoldId());
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes an evicted seat hold.
+     *
+     * @param seatHold the evicted seat hold.
+     */
+    public void evicted(final SeatHold seatHold) {
+        CustomerHolds holds = customers.get(seatHold.getCustomerEmail());
+        if (holds != null) {
+            synchronized (holds) {
+                holds.remove(seatHold.getSeatHoldId());
+                dropIfEmpty(seatHold.getCustomerEmail(), holds);
+            }
+        }
+    }
+
+    /**
+     * Finds the ids of a customer's seat holds and reservations.
+     *
+     * @param customerEmail the email of the customer, may be null.
+     * @return the seat hold ids in ascending order, empty if the customer has none.
+     */
+    public int[] getSeatHoldIds(final String customerEmail) {
+        CustomerHolds holds = customerEmail == null ? null : customers.get(customerEmail);
+        if (holds == null) {
+            return new int[0];
+        }
+        int[] ids;
+        synchronized (holds) {
+            ids = new int[holds.size];
+            int next = 0;
+            for (int key : holds.keys) {
+                if (key != EMPTY) {
+                    ids[next++] = key;
+                }
+            }
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Finds the number of a customer's holds in the HOLD state.
+     *
+     * @param customerEmail the email of the customer, may be null.
+     * @return count of the active holds.
+     */
+    public int getActiveHolds(final String customerEmail) {
+        CustomerHolds holds = customerEmail == null ? null : customers.get(customerEmail);
+        if (holds == null) {
+            return 0;
+        }
+        synchronized (holds) {
+            return holds.activeHolds;
+        }
+    }
+
+    /**
+     * Finds the number of customers in the index.
+     *
+     * @return count of the customers.
+     */
+    public int getCustomerCount() {
+        return customers.size();
+    }
+
+    /**
+     * Drops a customer's entry once it is empty, caller holds the entry's lock.
+     *
+     * @param customerEmail the email of the customer.
+     * @param holds         the customer's entry.
+     */
+    private void dropIfEmpty(final String customerEmail, final CustomerHolds holds) {
+        if (holds.size == 0 && holds.activeHolds == 0) {
+            // Callers that found the entry before it was dropped see the flag and look it up again.
+            holds.removed = true;
+            customers.remove(customerEmail, holds);
+        }
+    }
+
+    /**
+     * Spreads sequential ids across the slots.
+     *
+     * @param key the seat hold id.
+     * @return the mixed hash.
+     */
+    private static int mix(final int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * The seat holds of one customer, guarded by the entry's monitor.
+     */
+    private static final class CustomerHolds {
+
+        /**
+         * Seat hold id of each slot.
+         */
+        private int[] keys = new int[INITIAL_CAPACITY];
+
+        /**
+         * Number of ids in the set.
+         */
+        private int size;
+
+        /**
+         * Number of the customer's holds in the HOLD state, including holds admitted but not yet created.
+         */
+        private int activeHolds;
+
+        /**
+         * Whether the entry has been dropped from the index.
+         */
+        private boolean removed;
+
+        /**
+         * Adds an id.
+         *
+         * @param key the seat hold id.
+         */
+        private void add(final int key) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int slot = findSlot(keys, key);
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+            }
+        }
+
+        /**
+         * Removes an id and shifts back the ids probed past it.
+         *
+         * @param key the seat hold id.
+         */
+        private void remove(final int key) {
+            int mask = keys.length - 1;
+            int hole = findSlot(keys, key);
+            if (keys[hole] == EMPTY) {
+                return;
+            }
+            for (int slot = (hole + 1) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+                int home = mix(keys[slot]) & mask;
+                // An id can fill the hole unless its home lies between the hole and where it sits now.
+                if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                    keys[hole] = keys[slot];
+                    hole = slot;
+                }
+            }
+            keys[hole] = EMPTY;
+            size--;
+        }
+
+        /**
+         * Moves every id to a larger set.
+         *
+         * @param capacity the new number of slots, a power of two.
+         */
+        private void resize(final int capacity) {
+            int[] old = keys;
+            keys = new int[capacity];
+            for (int key : old) {
+                if (key != EMPTY) {
+                    keys[findSlot(keys, key)] = key;
+                }
+            }
+        }
+
+        /**
+         * Finds the slot of an id, or the empty slot where it would be inserted.
+         *
+         * @param slots the slots.
+         * @param key   the seat hold id.
+         * @return the slot.
+         */
+        private static int findSlot(final int[] slots, final int key) {
+            int mask = slots.length - 1;
+            int slot = mix(key) & mask;
+            while (slots[slot] != EMPTY && slots[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.walmart.sample.common;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The HoldRequest class is one customer's request to hold seats within a batch.
+ */
+@Getter
+@Builder
+@ToString
+public class HoldRequest {
+
+    /**
+     * The number of seats to find and hold.
+     */
+    private int numSeats;
+
+    /**
+     * The customer making the request.
+     */
+    private String customerEmail;
+
+    /**
+     * How the seats are chosen, best available when not set.
+     */
+    private AllocationMode allocationMode;
+}
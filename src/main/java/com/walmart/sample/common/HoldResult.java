@@ -0,0 +1,38 @@
+package com.walmart.sample.common;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The HoldResult class is the outcome of one HoldRequest within a batch.
+ */
+@Getter
+@Builder
+@ToString
+public class HoldResult {
+
+    /**
+     * The request.
+     */
+    private HoldRequest request;
+
+    /**
+     * The seat hold, null when the request failed.
+     */
+    private SeatHold seatHold;
+
+    /**
+     * Why the request failed, null when it succeeded.
+     */
+    private String error;
+
+    /**
+     * Finds whether the request succeeded.
+     *
+     * @return true if the seats are held.
+     */
+    public boolean isSuccessful() {
+        return seatHold != null;
+    }
+}
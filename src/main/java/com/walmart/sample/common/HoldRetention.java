@@ -0,0 +1,333 @@
+package com.walmart.sample.common;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The HoldRetention bounds the seat holds a venue keeps once they stop being active.
+ *
+ * Cancelled holds stay in the venue's seat hold registry for the policy's grace window and are then evicted oldest
+ * first. Reserved holds leave the registry for a compact {@link ReservationStore}. The number of held and cancelled
+ * holds in the registry is capped, under pressure cancelled holds are evicted before their grace window ends and new
+ * holds are rejected once nothing is left to evict.
+ *
+ * The retention also keeps a {@link CustomerHoldIndex} of every customer's holds and reservations, updated at each
+ * of these steps, and rejects a new hold when the customer already has the policy's limit of holds.
+ */
+public class HoldRetention {
+
+    /**
+     * The retention policy.
+     */
+    private final HoldRetentionPolicy policy;
+
+    /**
+     * The venue's seat hold registry.
+     */
+    private final SeatHoldRegistry seatHoldRegistry;
+
+    /**
+     * Reserved seat holds.
+     */
+    private final ReservationStore reservations = new ReservationStore();
+
+    /**
+     * Seat holds and reservations by customer, which may be shared with other venues.
+     */
+    private final CustomerHoldIndex customerHolds;
+
+    /**
+     * Cancelled seat holds waiting for eviction, oldest first.
+     */
+    private final Queue<CancelledHold> cancelledHolds = new ConcurrentLinkedQueue<CancelledHold>();
+
+    /**
+     * Number of seat holds in the registry.
+     */
+    private final AtomicInteger retainedSeatHolds = new AtomicInteger();
+
+    /**
+     * Number of cancelled seat holds evicted.
+     */
+    private final AtomicLong evictedSeatHolds = new AtomicLong();
+
+    /**
+     * Number of seat holds rejected because the registry was full.
+     */
+    private final AtomicLong rejectedSeatHolds = new AtomicLong();
+
+    /**
+     * Number of seat holds rejected because the customer had the most holds allowed.
+     */
+    private final AtomicLong rejectedCustomerHolds = new AtomicLong();
+
+    /**
+     * Constructs the retention of a venue's seat holds.
+     *
+     * @param policy           the retention policy.
+     * @param seatHoldRegistry the venue's seat hold registry.
+     */
+    public HoldRetention(final HoldRetentionPolicy policy, final SeatHoldRegistry seatHoldRegistry) {
+        this(policy, seatHoldRegistry, new CustomerHoldIndex());
+    }
+
+    /**
+     * Constructs the retention of a venue's seat holds, counting holds against per customer limits shared with every
+     * venue using the same customer index.
+     *
+     * @param policy           the retention policy.
+     * @param seatHoldRegistry the venue's seat hold registry.
+     * @param customerHolds    seat holds and reservations by customer.
+     */
+    public HoldRetention(final HoldRetentionPolicy policy, final SeatHoldRegistry seatHoldRegistry,
+                         final CustomerHoldIndex customerHolds) {
+        this.policy = policy;
+        this.seatHoldRegistry = seatHoldRegistry;
+        this.customerHolds = customerHolds;
+    }
+
+    /**
+     * Counts a new seat hold against the customer's limit and makes room for it in the registry.
+     *
+     * @param customerEmail the email of the customer holding the seats.
+     * @throws VenueException when the email is missing, the customer has the most holds allowed or the registry is
+     *     full of held seats
+     */
+    public void admit(final String customerEmail) {
+        if (customerEmail == null || customerEmail.isEmpty()) {
+            throw new VenueException("Customer email is required to hold seats.");
+        }
+        if (!customerHolds.admit(customerEmail, policy.getMaxHoldsPerCustomer())) {
+            rejectedCustomerHolds.incrementAndGet();
+            throw new VenueException("Too many seat holds for " + customerEmail
+                + ", reserve or release a hold first.");
+        }
+        evictExpired();
+        while (true) {
+            int retained = retainedSeatHolds.get();
+            if (retained >= policy.getMaxSeatHolds()) {
+                if (!evictOldest()) {
+                    rejectedSeatHolds.incrementAndGet();
+                    customerHolds.abandon(customerEmail);
+                    throw new VenueException("Too many seat holds, try again later.");
+                }
+            } else if (retainedSeatHolds.compareAndSet(retained, retained + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gives back room taken by {@link #admit} for a hold that was never created.
+     *
+     * @param customerEmail the email of the customer.
+     */
+    public void abandon(final String customerEmail) {
+        retainedSeatHolds.decrementAndGet();
+        customerHolds.abandon(customerEmail);
+    }
+
+    /**
+     * Records a seat hold admitted by {@link #admit} once it is in the registry.
+     *
+     * @param seatHold the new seat hold.
+     */
+    public void held(final SeatHold seatHold) {
+        customerHolds.held(seatHold);
+    }
+
+    /**
+     * Records that a seat hold was cancelled, it will be evicted after the grace window.
+     *
+     * @param seatHold the cancelled seat hold.
+     */
+    public void cancelled(final SeatHold seatHold) {
+        customerHolds.released(seatHold);
+        cancelledHolds.add(new CancelledHold(seatHold.getSeatHoldId(), System.nanoTime()));
+        evictExpired();
+    }
+
+    /**
+     * Moves a reserved seat hold from the registry to the reservation store, or stores a restored reservation that
+     * was never in the registry.
+     *
+     * @param seatHold the reserved seat hold.
+     */
+    public void reserved(final SeatHold seatHold) {
+        reservations.put(seatHold);
+        if (seatHoldRegistry.remove(seatHold.getSeatHoldId()) != null) {
+            retainedSeatHolds.decrementAndGet();
+            customerHolds.released(seatHold);
+        } else {
+            customerHolds.restored(seatHold);
+        }
+    }
+
+    /**
+     * Finds a reservation that has been moved to the reservation store.
+     *
+     * @param seatHoldId the seat hold id.
+     * @param venue      the venue of the reservation.
+     * @param inventory  the inventory of the venue.
+     * @return a reserved seat hold, or null if there is no reservation for the id.
+     */
+    public SeatHold getReservation(final int seatHoldId, final Venue venue, final SeatInventory inventory) {
+        return reservations.get(seatHoldId, venue, inventory);
+    }
+
+    /**
+     * Finds a reservation by its confirmation code.
+     *
+     * @param confirmationCode the confirmation code.
+     * @param venue            the venue of the reservation.
+     * @param inventory        the inventory of the venue.
+     * @return a reserved seat hold, or null if there is no reservation with the code.
+     */
+    public SeatHold getReservation(final String confirmationCode, final Venue venue, final SeatInventory inventory) {
+        return reservations.get(confirmationCode, venue, inventory);
+    }
+
+    /**
+     * Finds the ids of a customer's seat holds and reservations, cancelled holds are included until they are evicted.
+     * A shared customer index includes the ids of the other venues sharing it.
+     *
+     * @param customerEmail the email of the customer.
+     * @return the seat hold ids in ascending order.
+     */
+    public int[] getSeatHoldIds(final String customerEmail) {
+        return customerHolds.getSeatHoldIds(customerEmail);
+    }
+
+    /**
+     * Finds the number of a customer's seat holds in the HOLD state.
+     *
+     * @param customerEmail the email of the customer.
+     * @return count of the customer's active holds.
+     */
+    public int getActiveHolds(final String customerEmail) {
+        return customerHolds.getActiveHolds(customerEmail);
+    }
+
+    /**
+     * Evicts cancelled seat holds whose grace window has passed.
+     *
+     * @return number of seat holds evicted.
+     */
+    public int evictExpired() {
+        long graceNanos = TimeUnit.MILLISECONDS.toNanos(policy.getCancelledGraceMillis());
+        long now = System.nanoTime();
+        int evicted = 0;
+        CancelledHold oldest = cancelledHolds.peek();
+        while (oldest != null && now - oldest.cancelledNanos >= graceNanos) {
+            if (cancelledHolds.remove(oldest)) {
+                evict(oldest);
+                evicted++;
+            }
+            oldest = cancelledHolds.peek();
+        }
+        return evicted;
+    }
+
+    /**
+     * Evicts the oldest cancelled seat hold regardless of its grace window.
+     *
+     * @return false if there are no cancelled seat holds to evict.
+     */
+    private boolean evictOldest() {
+        CancelledHold oldest = cancelledHolds.poll();
+        if (oldest == null) {
+            return false;
+        }
+        evict(oldest);
+        return true;
+    }
+
+    /**
+     * Removes a cancelled seat hold from the registry.
+     *
+     * @param cancelledHold the cancelled seat hold.
+     */
+    private void evict(final CancelledHold cancelledHold) {
+        SeatHold evicted = seatHoldRegistry.remove(cancelledHold.seatHoldId);
+        if (evicted != null) {
+            customerHolds.evicted(evicted);
+            retainedSeatHolds.decrementAndGet();
+            evictedSeatHolds.incrementAndGet();
+        }
+    }
+
+    /**
+     * Finds the number of held and cancelled seat holds kept.
+     *
+     * @return count of the retained seat holds.
+     */
+    public int getRetainedSeatHolds() {
+        return retainedSeatHolds.get();
+    }
+
+    /**
+     * Finds the number of reservations in the reservation store.
+     *
+     * @return count of the reservations.
+     */
+    public int getReservationCount() {
+        return reservations.size();
+    }
+
+    /**
+     * Finds the number of cancelled seat holds evicted.
+     *
+     * @return count of the evicted seat holds.
+     */
+    public long getEvictedSeatHolds() {
+        return evictedSeatHolds.get();
+    }
+
+    /**
+     * Finds the number of seat holds rejected because the cap was reached.
+     *
+     * @return count of the rejected seat holds.
+     */
+    public long getRejectedSeatHolds() {
+        return rejectedSeatHolds.get();
+    }
+
+    /**
+     * Finds the number of seat holds rejected because the customer had the most holds allowed.
+     *
+     * @return count of the rejected seat holds.
+     */
+    public long getRejectedCustomerHolds() {
+        return rejectedCustomerHolds.get();
+    }
+
+    /**
+     * A cancelled seat hold waiting for eviction.
+     */
+    private static final class CancelledHold {
+
+        /**
+         * The seat hold id.
+         */
+        private final int seatHoldId;
+
+        /**
+         * Time the hold was cancelled in nanoseconds.
+         */
+        private final long cancelledNanos;
+
+        /**
+         * Constructs a cancelled hold.
+         *
+         * @param seatHoldId     the seat hold id.
+         * @param cancelledNanos time the hold was cancelled in nanoseconds.
+         */
+        private CancelledHold(final int seatHoldId, final long cancelledNanos) {
+            this.seatHoldId = seatHoldId;
+            this.cancelledNanos = cancelledNanos;
+        }
+    }
+}
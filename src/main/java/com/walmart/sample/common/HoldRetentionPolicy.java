@@ -0,0 +1,67 @@
+package com.walmart.sample.common;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The HoldRetentionPolicy configures how long a venue keeps seat holds that are no longer active.
+ */
+@Getter
+@ToString
+public class HoldRetentionPolicy {
+
+    /**
+     * Default time cancelled holds are kept so late lookups still find them.
+     */
+    public static final long DEFAULT_CANCELLED_GRACE_MILLIS = 60000;
+
+    /**
+     * Default policy, cancelled holds are kept for the default grace window and holds are not capped, in total or
+     * per customer.
+     */
+    public static final HoldRetentionPolicy DEFAULT = new HoldRetentionPolicy(DEFAULT_CANCELLED_GRACE_MILLIS,
+        Integer.MAX_VALUE);
+
+    /**
+     * Time in milliseconds a cancelled hold is kept before it is evicted.
+     */
+    private final long cancelledGraceMillis;
+
+    /**
+     * Maximum number of held and cancelled seat holds kept, reserved holds are stored compactly and not counted.
+     */
+    private final int maxSeatHolds;
+
+    /**
+     * Maximum number of seat holds one customer may have in the HOLD state at once.
+     */
+    private final int maxHoldsPerCustomer;
+
+    /**
+     * Constructs a retention policy without a per customer limit.
+     *
+     * @param cancelledGraceMillis time in milliseconds a cancelled hold is kept before it is evicted.
+     * @param maxSeatHolds         maximum number of held and cancelled seat holds kept.
+     */
+    public HoldRetentionPolicy(final long cancelledGraceMillis, final int maxSeatHolds) {
+        this(cancelledGraceMillis, maxSeatHolds, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a retention policy.
+     *
+     * @param cancelledGraceMillis time in milliseconds a cancelled hold is kept before it is evicted.
+     * @param maxSeatHolds         maximum number of held and cancelled seat holds kept.
+     * @param maxHoldsPerCustomer  maximum number of seat holds one customer may have in the HOLD state at once.
+     */
+    public HoldRetentionPolicy(final long cancelledGraceMillis, final int maxSeatHolds,
+                               final int maxHoldsPerCustomer) {
+        if (cancelledGraceMillis < 0 || maxSeatHolds < 1 || maxHoldsPerCustomer < 1) {
+            throw new VenueException("Grace window can't be negative and at least 1 seat hold must be kept and "
+                + "allowed per customer.");
+        }
+        this.cancelledGraceMillis = cancelledGraceMillis;
+        this.maxSeatHolds = maxSeatHolds;
+        this.maxHoldsPerCustomer = maxHoldsPerCustomer;
+    }
+}
@@ -0,0 +1,14 @@
+package com.walmart.sample.common;
+
+/**
+ * A handle to the pending expiration of a SeatHold.
+ */
+public interface HoldTimeout {
+
+    /**
+     * Cancels the pending expiration.
+     *
+     * @return true if the expiration was pending and is now cancelled.
+     */
+    boolean cancel();
+}
@@ -0,0 +1,546 @@
+package com.walmart.sample.common;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The ReservationStore keeps reserved seat holds as packed records instead of SeatHold objects.
+ *
+ * Records are split into stripes by the hash of the seat hold id, each an open addressing table of primitive keys
+ * with its own lock, and the seats of a stripe's reservations are appended to one array of seat indexes, so a
+ * reservation costs a few array slots rather than a SeatHold, its seat list and a map entry. Confirmation codes are
+ * indexed in stripes of their own by the hash of the code, each mapping a code to its seat hold id. Like the
+ * {@link SeatHoldRegistry}, lookups by id or by code are optimistic reads that only take a stripe's read lock if a
+ * write raced them, so reserving and finding reservations only contend within one stripe.
+ */
+public class ReservationStore {
+
+    /**
+     * Number of low bits of the hash that pick the stripe.
+     */
+    private static final int STRIPE_BITS = 5;
+
+    /**
+     * Number of stripes.
+     */
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    /**
+     * Initial number of slots in each stripe.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Key of an empty slot, seat hold ids start at 1.
+     */
+    private static final int EMPTY = 0;
+
+    /**
+     * Stripes of the records, by seat hold id.
+     */
+    private final RecordStripe[] recordStripes = new RecordStripe[STRIPES];
+
+    /**
+     * Stripes of the confirmation code index, by code.
+     */
+    private final CodeStripe[] codeStripes = new CodeStripe[STRIPES];
+
+    /**
+     * Constructs an empty store.
+     */
+    public ReservationStore() {
+        for (int i = 0; i < STRIPES; i++) {
+            recordStripes[i] = new RecordStripe();
+            codeStripes[i] = new CodeStripe();
+        }
+    }
+
+    /**
+     * Stores a reserved seat hold.
+     *
+     * @param seatHold the reserved seat hold.
+     */
+    public void put(final SeatHold seatHold) {
+        int hash = mix(seatHold.getSeatHoldId());
+        RecordStripe recordStripe = recordStripes[hash & (STRIPES - 1)];
+        long stamp = recordStripe.lock.writeLock();
+        try {
+            recordStripe.put(hash >>> STRIPE_BITS, seatHold);
+        } finally {
+            recordStripe.lock.unlockWrite(stamp);
+        }
+
+        String confirmationCode = seatHold.getConfirmationCode();
+        if (confirmationCode != null) {
+            int codeHash = mix(confirmationCode.hashCode());
+            CodeStripe codeStripe = codeStripes[codeHash & (STRIPES - 1)];
+            stamp = codeStripe.lock.writeLock();
+            try {
+                codeStripe.put(codeHash >>> STRIPE_BITS, confirmationCode, seatHold.getSeatHoldId());
+            } finally {
+                codeStripe.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Finds a reservation and rebuilds its seat hold.
+     *
+     * @param seatHoldId the seat hold id.
+     * @param venue      the venue of the reservation, used to create its seats.
+     * @param inventory  the inventory of the venue.
+     * @return a reserved seat hold, or null if there is no reservation for the id.
+     */
+    public SeatHold get(final int seatHoldId, final Venue venue, final SeatInventory inventory) {
+        Reservation reservation = find(seatHoldId);
+        return reservation == null ? null : reservation.rebuild(venue, inventory);
+    }
+
+    /**
+     * Finds a reservation by confirmation code and rebuilds its seat hold.
+     *
+     * @param confirmationCode the confirmation code.
+     * @param venue            the venue of the reservation, used to create its seats.
+     * @param inventory        the inventory of the venue.
+     * @return a reserved seat hold, or null if there is no reservation with the code.
+     */
+    public SeatHold get(final String confirmationCode, final Venue venue, final SeatInventory inventory) {
+        if (confirmationCode == null) {
+            return null;
+        }
+        int hash = mix(confirmationCode.hashCode());
+        CodeStripe stripe = codeStripes[hash & (STRIPES - 1)];
+        long stamp = stripe.lock.tryOptimisticRead();
+        int seatHoldId = stripe.get(hash >>> STRIPE_BITS, confirmationCode);
+        if (!stripe.lock.validate(stamp)) {
+            stamp = stripe.lock.readLock();
+            try {
+                seatHoldId = stripe.get(hash >>> STRIPE_BITS, confirmationCode);
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        if (seatHoldId == EMPTY) {
+            return null;
+        }
+        Reservation reservation = find(seatHoldId);
+        // A restored reservation may have replaced the code its id was first stored with.
+        if (reservation == null || !confirmationCode.equals(reservation.confirmationCode)) {
+            return null;
+        }
+        return reservation.rebuild(venue, inventory);
+    }
+
+    /**
+     * Finds the record of a reservation.
+     *
+     * @param seatHoldId the seat hold id.
+     * @return the reservation, or null if there is no reservation for the id.
+     */
+    private Reservation find(final int seatHoldId) {
+        int hash = mix(seatHoldId);
+        RecordStripe stripe = recordStripes[hash & (STRIPES - 1)];
+        long stamp = stripe.lock.tryOptimisticRead();
+        Reservation reservation = stripe.get(seatHoldId, hash >>> STRIPE_BITS);
+        if (!stripe.lock.validate(stamp)) {
+            stamp = stripe.lock.readLock();
+            try {
+                reservation = stripe.get(seatHoldId, hash >>> STRIPE_BITS);
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        return reservation;
+    }
+
+    /**
+     * Finds the number of reservations stored.
+     *
+     * @return count of the reservations, which may be out of date by the time it is returned.
+     */
+    public int size() {
+        int size = 0;
+        for (RecordStripe stripe : recordStripes) {
+            long stamp = stripe.lock.readLock();
+            try {
+                size += stripe.size;
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Spreads sequential ids and string hashes across the stripes and slots.
+     *
+     * @param key the seat hold id or hash.
+     * @return the mixed hash.
+     */
+    private static int mix(final int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * One stripe of the records.
+     */
+    private static final class RecordStripe {
+
+        /**
+         * Lock guarding writes to the stripe, readers validate against it.
+         */
+        private final StampedLock lock = new StampedLock();
+
+        /**
+         * The slots of the stripe, replaced as a whole when the stripe grows so optimistic readers always see
+         * arrays of the same size.
+         */
+        private RecordTable table = new RecordTable(INITIAL_CAPACITY);
+
+        /**
+         * Seat indexes of the stripe's reservations, replaced by a larger copy when full.
+         */
+        private int[] seatPool = new int[INITIAL_CAPACITY];
+
+        /**
+         * Number of seat indexes used in the seat pool.
+         */
+        private int seatPoolSize;
+
+        /**
+         * Number of reservations in the stripe.
+         */
+        private int size;
+
+        /**
+         * Copies out a reservation, safe to call under an optimistic read since the probe is bounded by the table
+         * size and the seats are only copied when they lie within the seat pool.
+         *
+         * @param key  the seat hold id.
+         * @param hash the hash of the id within the stripe.
+         * @return the reservation, or null if absent.
+         */
+        private Reservation get(final int key, final int hash) {
+            RecordTable current = table;
+            int[] pool = seatPool;
+            int mask = current.keys.length - 1;
+            int slot = hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                int slotKey = current.keys[slot];
+                if (slotKey == key) {
+                    int offset = current.seatOffsets[slot];
+                    int count = current.seatCounts[slot];
+                    if (offset < 0 || count < 0 || offset > pool.length - count) {
+                        return null;
+                    }
+                    return new Reservation(key, current.customerEmails[slot], current.confirmationCodes[slot],
+                        Arrays.copyOfRange(pool, offset, offset + count));
+                }
+                if (slotKey == EMPTY) {
+                    return null;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * Adds or replaces a reservation, caller holds the write lock.
+         *
+         * @param hash     the hash of the id within the stripe.
+         * @param seatHold the reserved seat hold.
+         */
+        private void put(final int hash, final SeatHold seatHold) {
+            if ((size + 1) * 2 > table.keys.length) {
+                resize(table.keys.length * 2);
+            }
+            int[] seatIndexes = seatHold.getSeatIndexes();
+            if (seatPoolSize + seatIndexes.length > seatPool.length) {
+                seatPool = Arrays.copyOf(seatPool, Math.max(seatPool.length * 2, seatPoolSize + seatIndexes.length));
+            }
+            System.arraycopy(seatIndexes, 0, seatPool, seatPoolSize, seatIndexes.length);
+
+            int slot = findSlot(table, seatHold.getSeatHoldId(), hash);
+            if (table.keys[slot] == EMPTY) {
+                size++;
+            }
+            table.seatOffsets[slot] = seatPoolSize;
+            table.seatCounts[slot] = seatIndexes.length;
+            table.customerEmails[slot] = seatHold.getCustomerEmail();
+            table.confirmationCodes[slot] = seatHold.getConfirmationCode();
+            table.keys[slot] = seatHold.getSeatHoldId();
+            seatPoolSize += seatIndexes.length;
+        }
+
+        /**
+         * Moves every record to a larger table, caller holds the write lock.
+         *
+         * @param capacity the new number of slots, a power of two.
+         */
+        private void resize(final int capacity) {
+            RecordTable old = table;
+            RecordTable resized = new RecordTable(capacity);
+            for (int oldSlot = 0; oldSlot < old.keys.length; oldSlot++) {
+                if (old.keys[oldSlot] != EMPTY) {
+                    int slot = findSlot(resized, old.keys[oldSlot], mix(old.keys[oldSlot]) >>> STRIPE_BITS);
+                    resized.keys[slot] = old.keys[oldSlot];
+                    resized.seatOffsets[slot] = old.seatOffsets[oldSlot];
+                    resized.seatCounts[slot] = old.seatCounts[oldSlot];
+                    resized.customerEmails[slot] = old.customerEmails[oldSlot];
+                    resized.confirmationCodes[slot] = old.confirmationCodes[oldSlot];
+                }
+            }
+            table = resized;
+        }
+
+        /**
+         * Finds the slot of a key, or the empty slot where it would be inserted.
+         *
+         * @param slots the table.
+         * @param key   the seat hold id.
+         * @param hash  the hash of the id within the stripe.
+         * @return the slot.
+         */
+        private static int findSlot(final RecordTable slots, final int key, final int hash) {
+            int mask = slots.keys.length - 1;
+            int slot = hash & mask;
+            while (slots.keys[slot] != EMPTY && slots.keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * The slots of a record stripe.
+     */
+    private static final class RecordTable {
+
+        /**
+         * Seat hold id of each slot.
+         */
+        private final int[] keys;
+
+        /**
+         * Offset of each slot's seats in the stripe's seat pool.
+         */
+        private final int[] seatOffsets;
+
+        /**
+         * Number of seats of each slot.
+         */
+        private final int[] seatCounts;
+
+        /**
+         * Customer email of each slot.
+         */
+        private final String[] customerEmails;
+
+        /**
+         * Confirmation code of each slot.
+         */
+        private final String[] confirmationCodes;
+
+        /**
+         * Constructs an empty table.
+         *
+         * @param capacity the number of slots, a power of two.
+         */
+        private RecordTable(final int capacity) {
+            keys = new int[capacity];
+            seatOffsets = new int[capacity];
+            seatCounts = new int[capacity];
+            customerEmails = new String[capacity];
+            confirmationCodes = new String[capacity];
+        }
+    }
+
+    /**
+     * One stripe of the confirmation code index.
+     */
+    private static final class CodeStripe {
+
+        /**
+         * Lock guarding writes to the stripe, readers validate against it.
+         */
+        private final StampedLock lock = new StampedLock();
+
+        /**
+         * The slots of the stripe, replaced as a whole when the stripe grows.
+         */
+        private CodeTable table = new CodeTable(INITIAL_CAPACITY);
+
+        /**
+         * Number of codes in the stripe.
+         */
+        private int size;
+
+        /**
+         * Finds the seat hold id of a code, safe to call under an optimistic read since the probe is bounded by the
+         * table size.
+         *
+         * @param hash             the hash of the code within the stripe.
+         * @param confirmationCode the confirmation code.
+         * @return the seat hold id, or EMPTY if absent.
+         */
+        private int get(final int hash, final String confirmationCode) {
+            CodeTable current = table;
+            int mask = current.codes.length - 1;
+            int slot = hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                String code = current.codes[slot];
+                if (code == null) {
+                    return EMPTY;
+                }
+                if (confirmationCode.equals(code)) {
+                    return current.seatHoldIds[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return EMPTY;
+        }
+
+        /**
+         * Adds or replaces the seat hold id of a code, caller holds the write lock.
+         *
+         * @param hash             the hash of the code within the stripe.
+         * @param confirmationCode the confirmation code.
+         * @param seatHoldId       the seat hold id.
+         */
+        private void put(final int hash, final String confirmationCode, final int seatHoldId) {
+            if ((size + 1) * 2 > table.codes.length) {
+                resize(table.codes.length * 2);
+            }
+            int slot = findSlot(table, hash, confirmationCode);
+            if (table.codes[slot] == null) {
+                size++;
+            }
+            table.seatHoldIds[slot] = seatHoldId;
+            table.codes[slot] = confirmationCode;
+        }
+
+        /**
+         * Moves every code to a larger table, caller holds the write lock.
+         *
+         * @param capacity the new number of slots, a power of two.
+         */
+        private void resize(final int capacity) {
+            CodeTable old = table;
+            CodeTable resized = new CodeTable(capacity);
+            for (int oldSlot = 0; oldSlot < old.codes.length; oldSlot++) {
+                String code = old.codes[oldSlot];
+                if (code != null) {
+                    int slot = findSlot(resized, mix(code.hashCode()) >>> STRIPE_BITS, code);
+                    resized.codes[slot] = code;
+                    resized.seatHoldIds[slot] = old.seatHoldIds[oldSlot];
+                }
+            }
+            table = resized;
+        }
+
+        /**
+         * Finds the slot of a code, or the empty slot where it would be inserted.
+         *
+         * @param slots            the table.
+         * @param hash             the hash of the code within the stripe.
+         * @param confirmationCode the confirmation code.
+         * @return the slot.
+         */
+        private static int findSlot(final CodeTable slots, final int hash, final String confirmationCode) {
+            int mask = slots.codes.length - 1;
+            int slot = hash & mask;
+            while (slots.codes[slot] != null && !slots.codes[slot].equals(confirmationCode)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * The slots of a code stripe.
+     */
+    private static final class CodeTable {
+
+        /**
+         * Confirmation code of each slot, null for an empty slot.
+         */
+        private final String[] codes;
+
+        /**
+         * Seat hold id of each slot.
+         */
+        private final int[] seatHoldIds;
+
+        /**
+         * Constructs an empty table.
+         *
+         * @param capacity the number of slots, a power of two.
+         */
+        private CodeTable(final int capacity) {
+            codes = new String[capacity];
+            seatHoldIds = new int[capacity];
+        }
+    }
+
+    /**
+     * A reservation copied out of its stripe.
+     */
+    private static final class Reservation {
+
+        /**
+         * The seat hold id.
+         */
+        private final int seatHoldId;
+
+        /**
+         * The customer email.
+         */
+        private final String customerEmail;
+
+        /**
+         * The confirmation code.
+         */
+        private final String confirmationCode;
+
+        /**
+         * Inventory indexes of the reserved seats.
+         */
+        private final int[] seatIndexes;
+
+        /**
+         * Constructs a reservation.
+         *
+         * @param seatHoldId       the seat hold id.
+         * @param customerEmail    the customer email.
+         * @param confirmationCode the confirmation code.
+         * @param seatIndexes      inventory indexes of the reserved seats.
+         */
+        private Reservation(final int seatHoldId, final String customerEmail, final String confirmationCode,
+                            final int[] seatIndexes) {
+            this.seatHoldId = seatHoldId;
+            this.customerEmail = customerEmail;
+            this.confirmationCode = confirmationCode;
+            this.seatIndexes = seatIndexes;
+        }
+
+        /**
+         * Rebuilds the seat hold of the reservation.
+         *
+         * @param venue     the venue of the reservation, used to create its seats.
+         * @param inventory the inventory of the venue.
+         * @return the reserved seat hold.
+         */
+        private SeatHold rebuild(final Venue venue, final SeatInventory inventory) {
+            return SeatHold.builder()
+                .seatHoldId(seatHoldId)
+                .customerEmail(customerEmail)
+                .confirmationCode(confirmationCode)
+                .state(ReservationState.RESERVED)
+                .seats(inventory.getSeats(seatIndexes))
+                .seatIndexes(seatIndexes)
+                .venue(venue)
+                .build();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.walmart.sample.common;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The ReserveRequest class is one customer's request to commit a seat hold within a batch.
+ */
+@Getter
+@Builder
+@ToString
+public class ReserveRequest {
+
+    /**
+     * The seat hold identifier.
+     */
+    private int seatHoldId;
+
+    /**
+     * The customer the seat hold is assigned to.
+     */
+    private String customerEmail;
+}
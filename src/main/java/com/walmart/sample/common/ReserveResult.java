@@ -0,0 +1,38 @@
+package com.walmart.sample.common;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The ReserveResult class is the outcome of one ReserveRequest within a batch.
+ */
+@Getter
+@Builder
+@ToString
+public class ReserveResult {
+
+    /**
+     * The request.
+     */
+    private ReserveRequest request;
+
+    /**
+     * The reservation confirmation code, null when the request failed.
+     */
+    private String confirmationCode;
+
+    /**
+     * Why the request failed, null when it succeeded.
+     */
+    private String error;
+
+    /**
+     * Finds whether the request succeeded.
+     *
+     * @return true if the seats are reserved.
+     */
+    public boolean isSuccessful() {
+        return confirmationCode != null;
+    }
+}
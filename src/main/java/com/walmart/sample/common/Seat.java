@@ -29,4 +29,9 @@ public class Seat {
      */
     private int seatQuality;
 
+    /**
+     * The section of the seat, null if the venue is not divided into sections.
+     */
+    private String section;
+
 }
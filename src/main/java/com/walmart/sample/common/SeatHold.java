@@ -1,5 +1,6 @@
 package com.walmart.sample.common;
 
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -7,6 +8,8 @@ import lombok.Setter;
 import lombok.ToString;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * The SeatHold class maintains the registration information including customer, venue and seat information.
@@ -14,8 +17,8 @@ import java.util.List;
 @Getter
 @Setter
 @Builder
-@ToString
-@EqualsAndHashCode(exclude = { "venue", "seats" })
+@ToString(exclude = { "seatIndexes", "expiration" })
+@EqualsAndHashCode(exclude = { "venue", "seats", "seatIndexes", "expiration", "extensions" })
 public class SeatHold {
 
     /**
@@ -29,9 +32,16 @@ public class SeatHold {
     private String confirmationCode;
 
     /**
-     * The state of the seatHold.
+     * Updater for compare-and-set of the state.
      */
-    private ReservationState state;
+    private static final AtomicReferenceFieldUpdater<SeatHold, ReservationState> STATE =
+        AtomicReferenceFieldUpdater.newUpdater(SeatHold.class, ReservationState.class, "state");
+
+    /**
+     * The state of the seatHold, only changed through {@link #compareAndSetState}.
+     */
+    @Setter(AccessLevel.NONE)
+    private volatile ReservationState state;
 
     /**
      * The customer making the reservation.
@@ -47,4 +57,72 @@ public class SeatHold {
      * List of seats in reservation.
      */
     private List<Seat> seats;
+
+    /**
+     * Indexes of the seats within the venue's seat inventory.
+     */
+    private int[] seatIndexes;
+
+    /**
+     * The pending expiration of the hold, null once it has expired or been cancelled.
+     */
+    private volatile HoldTimeout expiration;
+
+    /**
+     * Updater for counting extensions.
+     */
+    private static final AtomicIntegerFieldUpdater<SeatHold> EXTENSIONS =
+        AtomicIntegerFieldUpdater.newUpdater(SeatHold.class, "extensions");
+
+    /**
+     * Number of times the expiration has been extended, only changed through {@link #tryExtend} and
+     * {@link #returnExtension}.
+     */
+    @Setter(AccessLevel.NONE)
+    private volatile int extensions;
+
+    /**
+     * Atomically sets the state if it is still the expected state.
+     *
+     * @param expected the expected current state.
+     * @param state    the new state.
+     * @return true if the state was changed.
+     */
+    public boolean compareAndSetState(final ReservationState expected, final ReservationState state) {
+        return STATE.compareAndSet(this, expected, state);
+    }
+
+    /**
+     * Counts an extension of the expiration if the hold has extensions left.
+     *
+     * @param maxExtensions the most extensions a hold may have.
+     * @return false if the hold has already been extended the most times allowed.
+     */
+    public boolean tryExtend(final int maxExtensions) {
+        int current = extensions;
+        while (current < maxExtensions) {
+            if (EXTENSIONS.compareAndSet(this, current, current + 1)) {
+                return true;
+            }
+            current = extensions;
+        }
+        return false;
+    }
+
+    /**
+     * Gives back an extension counted by {@link #tryExtend} whose expiration could not be pushed out.
+     */
+    public void returnExtension() {
+        EXTENSIONS.decrementAndGet(this);
+    }
+
+    /**
+     * Checks the hold belongs to a customer, without allocating.
+     *
+     * @param email the email of the customer.
+     * @return true if the hold was made by the customer.
+     */
+    public boolean isHeldBy(final String email) {
+        return customerEmail != null && customerEmail.equals(email);
+    }
 }
@@ -0,0 +1,146 @@
+package com.walmart.sample.common;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The SeatHoldIdAllocator hands out seat hold ids that are unique across every venue sharing it.
+ *
+ * Ids are handed to venues in blocks, and the venue owning each block is recorded in a two level table indexed by
+ * the block number, so the venue of any seat hold id is found in O(1) without a map lookup. A venue that is no longer
+ * used must have its blocks released with {@link #releaseBlocks(Venue)}, or the table keeps it reachable.
+ */
+public class SeatHoldIdAllocator {
+
+    /**
+     * Number of low bits of an id that are its offset within a block.
+     */
+    public static final int BLOCK_BITS = 10;
+
+    /**
+     * Number of ids in a block.
+     */
+    public static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+
+    /**
+     * Number of low bits of a block number that are its slot within a page of the owner table.
+     */
+    private static final int PAGE_BITS = 12;
+
+    /**
+     * Number of blocks in a page of the owner table.
+     */
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    /**
+     * Number of blocks in the id space, ids are positive ints.
+     */
+    private static final int MAX_BLOCKS = 1 << (Integer.SIZE - 1 - BLOCK_BITS);
+
+    /**
+     * Next block to hand out, block 0 is never used so no id is 0.
+     */
+    private final AtomicInteger nextBlock = new AtomicInteger(1);
+
+    /**
+     * Owner of each block, pages are created as blocks are handed out.
+     */
+    private final AtomicReferenceArray<AtomicReferenceArray<Venue>> owners =
+        new AtomicReferenceArray<AtomicReferenceArray<Venue>>(MAX_BLOCKS / PAGE_SIZE);
+
+    /**
+     * Hands out a block of ids to a venue.
+     *
+     * @param owner the venue the ids belong to.
+     * @return the block number, the first id of the block is the block number shifted by {@link #BLOCK_BITS}.
+     * @throws VenueException when every id has been handed out
+     */
+    public int allocateBlock(final Venue owner) {
+        int block = nextBlock.getAndIncrement();
+        if (block >= MAX_BLOCKS || block < 1) {
+            throw new VenueException("Seat hold ids exhausted.");
+        }
+        getPage(block).set(block & (PAGE_SIZE - 1), owner);
+        return block;
+    }
+
+    /**
+     * Hands a specific block of ids to a venue, used when seat holds are recovered with the ids they were given.
+     *
+     * The block is never handed out by {@link #allocateBlock(Venue)} afterwards.
+     *
+     * @param block the block number.
+     * @param owner the venue the ids belong to.
+     * @throws VenueException when the block belongs to another venue
+     */
+    public void claimBlock(final int block, final Venue owner) {
+        if (block >= MAX_BLOCKS || block < 1) {
+            throw new VenueException("Seat hold id block " + block + " is out of range.");
+        }
+        AtomicReferenceArray<Venue> page = getPage(block);
+        if (!page.compareAndSet(block & (PAGE_SIZE - 1), null, owner) && page.get(block & (PAGE_SIZE - 1)) != owner) {
+            throw new VenueException("Seat hold id block " + block + " belongs to another venue.");
+        }
+        int next = nextBlock.get();
+        while (next <= block && !nextBlock.compareAndSet(next, block + 1)) {
+            next = nextBlock.get();
+        }
+    }
+
+    /**
+     * Forgets the venue owning blocks of ids, so the table no longer keeps it reachable. Its ids are never handed
+     * out again and are no longer found to belong to any venue.
+     *
+     * Every block handed out so far is scanned, which is meant for the rare removal of a venue.
+     *
+     * @param owner the venue the ids belong to.
+     * @return number of blocks released.
+     */
+    public int releaseBlocks(final Venue owner) {
+        int released = 0;
+        int end = Math.min(nextBlock.get(), MAX_BLOCKS);
+        for (int pageIndex = 0; pageIndex <= (end - 1) >>> PAGE_BITS; pageIndex++) {
+            AtomicReferenceArray<Venue> page = owners.get(pageIndex);
+            if (page == null) {
+                continue;
+            }
+            for (int slot = 0; slot < PAGE_SIZE; slot++) {
+                if (page.get(slot) == owner && page.compareAndSet(slot, owner, null)) {
+                    released++;
+                }
+            }
+        }
+        return released;
+    }
+
+    /**
+     * Finds the page of the owner table holding a block, creating it if needed.
+     *
+     * @param block the block number.
+     * @return the page.
+     */
+    private AtomicReferenceArray<Venue> getPage(final int block) {
+        int pageIndex = block >>> PAGE_BITS;
+        AtomicReferenceArray<Venue> page = owners.get(pageIndex);
+        if (page == null) {
+            owners.compareAndSet(pageIndex, null, new AtomicReferenceArray<Venue>(PAGE_SIZE));
+            page = owners.get(pageIndex);
+        }
+        return page;
+    }
+
+    /**
+     * Finds the venue a seat hold id belongs to.
+     *
+     * @param seatHoldId the seat hold id.
+     * @return the venue, or null if the id was never handed out.
+     */
+    public Venue getOwner(final int seatHoldId) {
+        if (seatHoldId <= 0) {
+            return null;
+        }
+        int block = seatHoldId >>> BLOCK_BITS;
+        AtomicReferenceArray<Venue> page = owners.get(block >>> PAGE_BITS);
+        return page == null ? null : page.get(block & (PAGE_SIZE - 1));
+    }
+}
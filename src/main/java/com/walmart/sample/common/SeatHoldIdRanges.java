@@ -0,0 +1,100 @@
+package com.walmart.sample.common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The SeatHoldIdRanges hands out a venue's seat hold ids from ranges owned by groups of threads.
+ *
+ * Each thread draws ids from one of several ranges, chosen by its thread id, so threads creating holds at the same
+ * time increment different counters instead of all contending on one. A range is a block of
+ * {@link SeatHoldIdAllocator#BLOCK_SIZE} ids from the allocator, packed with the next offset into one long so
+ * drawing an id is a single compare-and-set. Ranges are padded onto separate cache lines.
+ *
+ * Ids are unique but not in creation order. A range is refilled by one thread at a time, threads that find it
+ * being refilled spin until the new block is in place, so no block is taken and then thrown away.
+ */
+public class SeatHoldIdRanges {
+
+    /**
+     * Number of longs between ranges, a cache line apart.
+     */
+    private static final int PADDING = 8;
+
+    /**
+     * Value of a range while one thread takes a new block for it.
+     */
+    private static final long REFILLING = -1L;
+
+    /**
+     * Allocator of the blocks of ids.
+     */
+    private final SeatHoldIdAllocator seatHoldIdAllocator;
+
+    /**
+     * Venue the ids belong to.
+     */
+    private final Venue owner;
+
+    /**
+     * Each range as its block number in the high 32 bits and the next offset in the low 32 bits, 0 if the range
+     * has no block yet.
+     */
+    private final AtomicLongArray ranges;
+
+    /**
+     * Mask for finding the range of a thread.
+     */
+    private final int mask;
+
+    /**
+     * Constructs ranges with one range per available processor, rounded up to a power of two.
+     *
+     * @param seatHoldIdAllocator allocator of the blocks of ids.
+     * @param owner               venue the ids belong to.
+     */
+    public SeatHoldIdRanges(final SeatHoldIdAllocator seatHoldIdAllocator, final Venue owner) {
+        this.seatHoldIdAllocator = seatHoldIdAllocator;
+        this.owner = owner;
+        int processors = Runtime.getRuntime().availableProcessors();
+        int size = Integer.highestOneBit(processors);
+        if (size < processors) {
+            size <<= 1;
+        }
+        ranges = new AtomicLongArray(size * PADDING);
+        mask = size - 1;
+    }
+
+    /**
+     * Hands out the next id of the calling thread's range, taking a new block when the range runs out.
+     *
+     * @return the seat hold id.
+     * @throws VenueException when every id has been handed out
+     */
+    public int nextId() {
+        int index = ((int) Thread.currentThread().threadId() & mask) * PADDING;
+        while (true) {
+            long range = ranges.get(index);
+            if (range == REFILLING) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int block = (int) (range >>> Integer.SIZE);
+            int offset = (int) range;
+            if (block != 0 && offset < SeatHoldIdAllocator.BLOCK_SIZE) {
+                if (ranges.compareAndSet(index, range, range + 1)) {
+                    return (block << SeatHoldIdAllocator.BLOCK_BITS) | offset;
+                }
+            } else if (ranges.compareAndSet(index, range, REFILLING)) {
+                int newBlock;
+                try {
+                    newBlock = seatHoldIdAllocator.allocateBlock(owner);
+                } catch (RuntimeException e) {
+                    ranges.set(index, range);
+                    throw e;
+                }
+                ranges.set(index, ((long) newBlock << Integer.SIZE) | 1);
+                return newBlock << SeatHoldIdAllocator.BLOCK_BITS;
+            }
+        }
+    }
+}
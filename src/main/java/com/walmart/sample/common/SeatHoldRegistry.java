@@ -0,0 +1,314 @@
+package com.walmart.sample.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The SeatHoldRegistry maps seat hold ids to the seat holds a venue keeps, without boxing the ids.
+ *
+ * The registry is split into stripes by the hash of the id, each an open addressing table of primitive int keys
+ * with linear probing, guarded by its own lock. Lookups are optimistic reads that only take the stripe's read lock
+ * if a write raced them, so reserving and expiring holds never contend with each other unless they land in the
+ * same stripe at the same moment. Removals shift later entries back instead of leaving tombstones, so a stripe
+ * never degrades under the churn of holds being created and reserved.
+ */
+public class SeatHoldRegistry {
+
+    /**
+     * Number of low bits of the hash that pick the stripe.
+     */
+    private static final int STRIPE_BITS = 5;
+
+    /**
+     * Number of stripes.
+     */
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    /**
+     * Initial number of slots in each stripe.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Key of an empty slot, seat hold ids start at 1.
+     */
+    private static final int EMPTY = 0;
+
+    /**
+     * The stripes.
+     */
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /**
+     * Constructs an empty registry.
+     */
+    public SeatHoldRegistry() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Registers a seat hold under its id, replacing any seat hold with the same id.
+     *
+     * @param seatHold the seat hold.
+     */
+    public void put(final SeatHold seatHold) {
+        int hash = mix(seatHold.getSeatHoldId());
+        Stripe stripe = stripes[hash & (STRIPES - 1)];
+        long stamp = stripe.lock.writeLock();
+        try {
+            stripe.put(seatHold.getSeatHoldId(), hash >>> STRIPE_BITS, seatHold);
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Finds a seat hold by id.
+     *
+     * @param seatHoldId the seat hold id.
+     * @return the seat hold, or null if none is registered under the id.
+     */
+    public SeatHold get(final int seatHoldId) {
+        int hash = mix(seatHoldId);
+        Stripe stripe = stripes[hash & (STRIPES - 1)];
+        long stamp = stripe.lock.tryOptimisticRead();
+        SeatHold seatHold = stripe.get(seatHoldId, hash >>> STRIPE_BITS);
+        if (!stripe.lock.validate(stamp)) {
+            stamp = stripe.lock.readLock();
+            try {
+                seatHold = stripe.get(seatHoldId, hash >>> STRIPE_BITS);
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        return seatHold;
+    }
+
+    /**
+     * Removes a seat hold by id.
+     *
+     * @param seatHoldId the seat hold id.
+     * @return the removed seat hold, or null if none was registered under the id.
+     */
+    public SeatHold remove(final int seatHoldId) {
+        int hash = mix(seatHoldId);
+        Stripe stripe = stripes[hash & (STRIPES - 1)];
+        long stamp = stripe.lock.writeLock();
+        try {
+            return stripe.remove(seatHoldId, hash >>> STRIPE_BITS);
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Finds the number of registered seat holds.
+     *
+     * @return count of the seat holds, which may be out of date by the time it is returned.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            long stamp = stripe.lock.readLock();
+            try {
+                size += stripe.size;
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Copies the registered seat holds, one stripe at a time.
+     *
+     * @return the seat holds, changes made while copying may or may not be included.
+     */
+    public List<SeatHold> values() {
+        List<SeatHold> seatHolds = new ArrayList<SeatHold>();
+        for (Stripe stripe : stripes) {
+            long stamp = stripe.lock.readLock();
+            try {
+                for (SeatHold seatHold : stripe.table.values) {
+                    if (seatHold != null) {
+                        seatHolds.add(seatHold);
+                    }
+                }
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        return seatHolds;
+    }
+
+    /**
+     * Spreads sequential ids across the stripes and slots.
+     *
+     * @param key the seat hold id.
+     * @return the mixed hash.
+     */
+    private static int mix(final int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * One stripe of the registry.
+     */
+    private static final class Stripe {
+
+        /**
+         * Lock guarding writes to the stripe, readers validate against it.
+         */
+        private final StampedLock lock = new StampedLock();
+
+        /**
+         * The slots of the stripe, replaced as a whole when the stripe grows so optimistic readers always see keys
+         * and values of the same size.
+         */
+        private Table table = new Table(INITIAL_CAPACITY);
+
+        /**
+         * Number of seat holds in the stripe.
+         */
+        private int size;
+
+        /**
+         * Finds a seat hold, safe to call under an optimistic read since the probe is bounded by the table size.
+         *
+         * @param key  the seat hold id.
+         * @param hash the hash of the id within the stripe.
+         * @return the seat hold, or null if absent.
+         */
+        private SeatHold get(final int key, final int hash) {
+            Table current = table;
+            int mask = current.keys.length - 1;
+            int slot = hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                int slotKey = current.keys[slot];
+                if (slotKey == key) {
+                    return current.values[slot];
+                }
+                if (slotKey == EMPTY) {
+                    return null;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * Adds or replaces a seat hold, caller holds the write lock.
+         *
+         * @param key      the seat hold id.
+         * @param hash     the hash of the id within the stripe.
+         * @param seatHold the seat hold.
+         */
+        private void put(final int key, final int hash, final SeatHold seatHold) {
+            if ((size + 1) * 2 > table.keys.length) {
+                resize(table.keys.length * 2);
+            }
+            int slot = findSlot(table, key, hash);
+            if (table.keys[slot] == EMPTY) {
+                size++;
+            }
+            table.values[slot] = seatHold;
+            table.keys[slot] = key;
+        }
+
+        /**
+         * Removes a seat hold and shifts back the entries probed past it, caller holds the write lock.
+         *
+         * @param key  the seat hold id.
+         * @param hash the hash of the id within the stripe.
+         * @return the removed seat hold, or null if absent.
+         */
+        private SeatHold remove(final int key, final int hash) {
+            int[] keys = table.keys;
+            SeatHold[] values = table.values;
+            int mask = keys.length - 1;
+            int hole = findSlot(table, key, hash);
+            if (keys[hole] == EMPTY) {
+                return null;
+            }
+            SeatHold removed = values[hole];
+            for (int slot = (hole + 1) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+                int home = (mix(keys[slot]) >>> STRIPE_BITS) & mask;
+                // An entry can fill the hole unless its home lies between the hole and where it sits now.
+                if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                    keys[hole] = keys[slot];
+                    values[hole] = values[slot];
+                    hole = slot;
+                }
+            }
+            keys[hole] = EMPTY;
+            values[hole] = null;
+            size--;
+            return removed;
+        }
+
+        /**
+         * Moves every entry to a larger table, caller holds the write lock.
+         *
+         * @param capacity the new number of slots, a power of two.
+         */
+        private void resize(final int capacity) {
+            Table old = table;
+            Table resized = new Table(capacity);
+            for (int oldSlot = 0; oldSlot < old.keys.length; oldSlot++) {
+                if (old.keys[oldSlot] != EMPTY) {
+                    int slot = findSlot(resized, old.keys[oldSlot], mix(old.keys[oldSlot]) >>> STRIPE_BITS);
+                    resized.keys[slot] = old.keys[oldSlot];
+                    resized.values[slot] = old.values[oldSlot];
+                }
+            }
+            table = resized;
+        }
+
+        /**
+         * Finds the slot of a key, or the empty slot where it would be inserted.
+         *
+         * @param slots the table.
+         * @param key   the seat hold id.
+         * @param hash  the hash of the id within the stripe.
+         * @return the slot.
+         */
+        private static int findSlot(final Table slots, final int key, final int hash) {
+            int mask = slots.keys.length - 1;
+            int slot = hash & mask;
+            while (slots.keys[slot] != EMPTY && slots.keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * The slots of a stripe.
+     */
+    private static final class Table {
+
+        /**
+         * Seat hold id of each slot.
+         */
+        private final int[] keys;
+
+        /**
+         * Seat hold of each slot.
+         */
+        private final SeatHold[] values;
+
+        /**
+         * Constructs an empty table.
+         *
+         * @param capacity the number of slots, a power of two.
+         */
+        private Table(final int capacity) {
+            keys = new int[capacity];
+            values = new SeatHold[capacity];
+        }
+    }
+}
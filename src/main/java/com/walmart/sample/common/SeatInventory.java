@@ -0,0 +1,1193 @@
+package com.walmart.sample.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The SeatInventory tracks which seats of a venue are available without a global lock.
+ *
+ * Seats are sorted once by {@link SeatPriorityComparator} and each seat is represented by one bit of a free seat
+ * bitset, lower bits being better seats. Seats are claimed all or nothing, the requested count is first reserved
+ * against the available counter and the bits are then claimed a word at a time with compare-and-set.
+ *
+ * Seat details are packed into primitive arrays indexed by the same position, a {@link Seat} is only created when
+ * a seat is handed out in a {@link SeatHold}.
+ *
+ * Requests for adjacent seats are answered from a {@link SeatRunIndex}, which is only built the first time it is
+ * needed so venues that never seat parties together don't pay to maintain it.
+ *
+ * Seats of the same quality form a tier, a contiguous range of the bitset ordered by row and seat. Each tier keeps
+ * a count of its available seats and a scan hint, the lowest word of the tier that may have an available seat, so
+ * the best seat overall or within a tier is found without scanning the words that are already sold out.
+ *
+ * Each row and each section also keeps a count of its available seats, updated with the tier counts on every claim
+ * and release, so availability by quality, section or row is read from a counter rather than counted from the
+ * bitset. Rows are numbered within their section.
+ */
+public class SeatInventory {
+
+    /**
+     * Number of seats tracked by each word of the bitset.
+     */
+    private static final int SEATS_PER_WORD = Long.SIZE;
+
+    /**
+     * Row number of each seat in priority order, the index is the seat's bit in the bitset.
+     */
+    private final int[] rowNumbers;
+
+    /**
+     * Seat number of each seat in priority order.
+     */
+    private final int[] seatNumbers;
+
+    /**
+     * Quality of each seat in priority order.
+     */
+    private final int[] seatQualities;
+
+    /**
+     * Section of each seat in priority order, as an index into sectionNames.
+     */
+    private final int[] sectionIds;
+
+    /**
+     * Name of each section, a venue without sections has the single section null.
+     */
+    private final String[] sectionNames;
+
+    /**
+     * Bitset of available seats, a set bit is an available seat.
+     */
+    private final AtomicLongArray freeSeats;
+
+    /**
+     * Number of available seats, never more than the number of set bits in freeSeats.
+     */
+    private final AtomicInteger availableCount;
+
+    /**
+     * Number of compare-and-set failures while claiming seats, a measure of contention between callers.
+     */
+    private final LongAdder failedClaimAttempts = new LongAdder();
+
+    /**
+     * First seat index of each quality tier, best tier first, followed by the number of seats.
+     */
+    private final int[] tierStarts;
+
+    /**
+     * Number of available seats in each tier, updated after the bitset changes so it may briefly lag behind it.
+     */
+    private final AtomicIntegerArray tierAvailable;
+
+    /**
+     * Row of each seat in priority order, as an index into rowAvailable.
+     */
+    private final int[] rowIds;
+
+    /**
+     * Row of each section and row number, keyed by the section in the high 32 bits and the row number in the low 32.
+     */
+    private final Map<Long, Integer> rowIdsByKey = new HashMap<Long, Integer>();
+
+    /**
+     * Number of available seats in each row, updated after the bitset changes so it may briefly lag behind it.
+     */
+    private final AtomicIntegerArray rowAvailable;
+
+    /**
+     * Number of available seats in each section, updated after the bitset changes so it may briefly lag behind it.
+     */
+    private final AtomicIntegerArray sectionAvailable;
+
+    /**
+     * Scan hint of each tier, the lowest word that may have an available seat of the tier in the low 32 bits and a
+     * version bumped by every release in the high 32 bits, so a scan that raced a release can't move the hint past
+     * the released seat.
+     */
+    private final AtomicLongArray tierScanHints;
+
+    /**
+     * Index of adjacent available seats, null until seats together are first requested.
+     */
+    private volatile SeatRunIndex runIndex;
+
+    /**
+     * Search of available seats by constraints, null until the first search.
+     */
+    private volatile SeatSearch seatSearch;
+
+    /**
+     * Constructs an inventory with all seats available.
+     *
+     * @param seats for the entire venue.
+     */
+    public SeatInventory(final List<Seat> seats) {
+        Seat[] seatsByPriority = seats.toArray(new Seat[seats.size()]);
+        Arrays.sort(seatsByPriority, new SeatPriorityComparator());
+
+        rowNumbers = new int[seatsByPriority.length];
+        seatNumbers = new int[seatsByPriority.length];
+        seatQualities = new int[seatsByPriority.length];
+        sectionIds = new int[seatsByPriority.length];
+        Map<String, Integer> sectionIdsByName = new HashMap<String, Integer>();
+        List<String> names = new ArrayList<String>();
+        for (int index = 0; index < seatsByPriority.length; index++) {
+            rowNumbers[index] = seatsByPriority[index].getRowNumber();
+            seatNumbers[index] = seatsByPriority[index].getSeatNumber();
+            seatQualities[index] = seatsByPriority[index].getSeatQuality();
+            Integer sectionId = sectionIdsByName.get(seatsByPriority[index].getSection());
+            if (sectionId == null) {
+                sectionId = names.size();
+                sectionIdsByName.put(seatsByPriority[index].getSection(), sectionId);
+                names.add(seatsByPriority[index].getSection());
+            }
+            sectionIds[index] = sectionId;
+        }
+        sectionNames = names.toArray(new String[names.size()]);
+
+        int words = (seatsByPriority.length + SEATS_PER_WORD - 1) / SEATS_PER_WORD;
+        freeSeats = new AtomicLongArray(words);
+        for (int word = 0; word < words; word++) {
+            int seatsInWord = Math.min(SEATS_PER_WORD, seatsByPriority.length - word * SEATS_PER_WORD);
+            freeSeats.set(word, seatsInWord == SEATS_PER_WORD ? -1L : (1L << seatsInWord) - 1);
+        }
+        availableCount = new AtomicInteger(seatsByPriority.length);
+
+        tierStarts = findTierStarts(seatQualities);
+        tierAvailable = new AtomicIntegerArray(tierStarts.length - 1);
+        tierScanHints = new AtomicLongArray(tierStarts.length - 1);
+        initTiers();
+        rowIds = findRowIds();
+        rowAvailable = new AtomicIntegerArray(rowIdsByKey.size());
+        sectionAvailable = new AtomicIntegerArray(this.sectionNames.length);
+        initRowsAndSections();
+    }
+
+    /**
+     * Constructs an inventory from seat details that are already in priority order, as read from a venue map.
+     *
+     * @param rowNumbers    row number of each seat in priority order.
+     * @param seatNumbers   seat number of each seat in priority order.
+     * @param seatQualities quality of each seat in priority order.
+     * @param sectionIds    section of each seat in priority order, as an index into sectionNames.
+     * @param sectionNames  name of each section.
+     * @param freeSeats     bitset of available seats, a set bit is an available seat.
+     * @throws VenueException when the arrays don't describe the same seats
+     */
+    SeatInventory(final int[] rowNumbers, final int[] seatNumbers, final int[] seatQualities, final int[] sectionIds,
+                  final String[] sectionNames, final long[] freeSeats) {
+        int words = (rowNumbers.length + SEATS_PER_WORD - 1) / SEATS_PER_WORD;
+        if (seatNumbers.length != rowNumbers.length || seatQualities.length != rowNumbers.length
+            || sectionIds.length != rowNumbers.length || freeSeats.length != words) {
+            throw new VenueException("Seat details and availability have different sizes.");
+        }
+        for (int sectionId : sectionIds) {
+            if (sectionId < 0 || sectionId >= sectionNames.length) {
+                throw new VenueException("Seat section " + sectionId + " does not exist.");
+            }
+        }
+        int seatsInLastWord = rowNumbers.length - (words - 1) * SEATS_PER_WORD;
+        if (words > 0 && seatsInLastWord < SEATS_PER_WORD && (freeSeats[words - 1] >>> seatsInLastWord) != 0) {
+            throw new VenueException("Availability includes seats that don't exist.");
+        }
+
+        this.rowNumbers = rowNumbers;
+        this.seatNumbers = seatNumbers;
+        this.seatQualities = seatQualities;
+        this.sectionIds = sectionIds;
+        this.sectionNames = sectionNames;
+        this.freeSeats = new AtomicLongArray(freeSeats);
+        int available = 0;
+        for (long bits : freeSeats) {
+            available += Long.bitCount(bits);
+        }
+        availableCount = new AtomicInteger(available);
+
+        tierStarts = findTierStarts(seatQualities);
+        tierAvailable = new AtomicIntegerArray(tierStarts.length - 1);
+        tierScanHints = new AtomicLongArray(tierStarts.length - 1);
+        initTiers();
+        rowIds = findRowIds();
+        rowAvailable = new AtomicIntegerArray(rowIdsByKey.size());
+        sectionAvailable = new AtomicIntegerArray(this.sectionNames.length);
+        initRowsAndSections();
+    }
+
+    /**
+     * Finds where each quality tier starts.
+     *
+     * @param seatQualities quality of each seat in priority order.
+     * @return first seat index of each tier, followed by the number of seats.
+     * @throws VenueException when the seats are not in priority order
+     */
+    private static int[] findTierStarts(final int[] seatQualities) {
+        int[] starts = new int[seatQualities.length + 1];
+        int tiers = 0;
+        for (int index = 0; index < seatQualities.length; index++) {
+            if (index == 0 || seatQualities[index] != seatQualities[index - 1]) {
+                if (index > 0 && seatQualities[index] > seatQualities[index - 1]) {
+                    throw new VenueException("Seats are not in priority order.");
+                }
+                starts[tiers++] = index;
+            }
+        }
+        starts[tiers] = seatQualities.length;
+        return Arrays.copyOf(starts, tiers + 1);
+    }
+
+    /**
+     * Counts the available seats of each tier and points each scan hint at the tier's first word.
+     */
+    private void initTiers() {
+        for (int tier = 0; tier < tierAvailable.length(); tier++) {
+            int available = 0;
+            for (int index = tierStarts[tier]; index < tierStarts[tier + 1]; index++) {
+                if (isAvailable(index)) {
+                    available++;
+                }
+            }
+            tierAvailable.set(tier, available);
+            tierScanHints.set(tier, tierStarts[tier] / SEATS_PER_WORD);
+        }
+    }
+
+    /**
+     * Numbers the rows of the seats, a row being the seats of one row number within one section.
+     *
+     * @return row of each seat in priority order.
+     */
+    private int[] findRowIds() {
+        int[] ids = new int[rowNumbers.length];
+        for (int index = 0; index < rowNumbers.length; index++) {
+            ids[index] = rowIdsByKey.computeIfAbsent(rowKey(sectionIds[index], rowNumbers[index]),
+                key -> rowIdsByKey.size());
+        }
+        return ids;
+    }
+
+    /**
+     * Counts the available seats of each row and section.
+     */
+    private void initRowsAndSections() {
+        for (int index = 0; index < rowIds.length; index++) {
+            if (isAvailable(index)) {
+                rowAvailable.incrementAndGet(rowIds[index]);
+                sectionAvailable.incrementAndGet(sectionIds[index]);
+            }
+        }
+    }
+
+    /**
+     * Finds the key of a row.
+     *
+     * @param sectionId the section of the row.
+     * @param rowNumber the row number.
+     * @return the key of the row.
+     */
+    private static long rowKey(final int sectionId, final int rowNumber) {
+        return ((long) sectionId << Integer.SIZE) | (rowNumber & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Claims the best available seats, either all of the requested seats are claimed or none are.
+     *
+     * @param count the number of seats to claim.
+     * @return the indexes of the claimed seats in priority order, or null if not enough seats are available.
+     */
+    public int[] claim(final int count) {
+        if (!reserveCount(count)) {
+            return null;
+        }
+        int[] claimed = claimReserved(count);
+        refreshRunIndex(claimed);
+        return claimed;
+    }
+
+    /**
+     * Claims the best available seats for several requests in one pass over the bitset.
+     *
+     * Each request is all or nothing, requests are reserved in order and those that don't fit are skipped. Better
+     * seats go to earlier requests.
+     *
+     * @param counts the number of seats of each request, requests of 0 seats are skipped.
+     * @return the indexes of the claimed seats of each request, null for requests that were skipped.
+     */
+    public int[][] claim(final int[] counts) {
+        int[][] claimed = new int[counts.length][];
+        int total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0 && reserveCount(counts[i])) {
+                claimed[i] = new int[counts[i]];
+                total += counts[i];
+            }
+        }
+
+        int[] all = claimReserved(total);
+        int next = 0;
+        for (int[] request : claimed) {
+            if (request != null) {
+                System.arraycopy(all, next, request, 0, request.length);
+                next += request.length;
+            }
+        }
+        refreshRunIndex(all);
+        return claimed;
+    }
+
+    /**
+     * Claims seats whose count is already reserved against the available counter.
+     *
+     * @param count the number of seats.
+     * @return the indexes of the claimed seats in priority order.
+     */
+    private int[] claimReserved(final int count) {
+        // The counter guarantees enough set bits exist, they may just move while we look for them. The first pass
+        // trusts the tier counts and scan hints, later passes scan every word.
+        int[] claimed = new int[count];
+        int found = 0;
+        boolean useHints = true;
+        while (found < count) {
+            for (int tier = 0; tier < tierAvailable.length() && found < count; tier++) {
+                if (!useHints || tierAvailable.get(tier) > 0) {
+                    found = claimFromTier(tier, false, claimed, found, useHints);
+                }
+            }
+            useHints = false;
+        }
+        Arrays.sort(claimed);
+        return claimed;
+    }
+
+    /**
+     * Claims available seats of a tier, moving its scan hint past the words found sold out.
+     *
+     * @param tier     the tier.
+     * @param tierOnly true to only claim seats of the tier, false to also claim better or worse seats that share a
+     *                 word with it.
+     * @param claimed  the claimed seat indexes.
+     * @param found    the number of seats already claimed.
+     * @param useHints true to start at the tier's scan hint rather than its first word.
+     * @return the number of seats claimed after this tier.
+     */
+    private int claimFromTier(final int tier, final boolean tierOnly, final int[] claimed, final int found,
+                              final boolean useHints) {
+        long scanHint = tierScanHints.get(tier);
+        int firstWord = tierStarts[tier] / SEATS_PER_WORD;
+        int lastWord = (tierStarts[tier + 1] - 1) / SEATS_PER_WORD;
+        int word = useHints ? Math.max(firstWord, (int) scanHint) : firstWord;
+        int soldOutWords = word;
+        int next = found;
+        for (; word <= lastWord && next < claimed.length; word++) {
+            next = claimFromWord(word, tierOnly ? tierMask(tier, word) : -1L, claimed, next);
+            if (soldOutWords == word && freeSeats.get(word) == 0) {
+                soldOutWords = word + 1;
+            }
+        }
+        if (soldOutWords > (int) scanHint) {
+            tierScanHints.compareAndSet(tier, scanHint, (scanHint & ~0xFFFFFFFFL) | soldOutWords);
+        }
+        return next;
+    }
+
+    /**
+     * Finds the bits of a word that belong to a tier.
+     *
+     * @param tier the tier.
+     * @param word the word of the bitset.
+     * @return the mask of the tier's bits.
+     */
+    private long tierMask(final int tier, final int word) {
+        int wordStart = word * SEATS_PER_WORD;
+        int low = Math.max(tierStarts[tier], wordStart) - wordStart;
+        int high = Math.min(tierStarts[tier + 1], wordStart + SEATS_PER_WORD) - wordStart;
+        long belowHigh = high == SEATS_PER_WORD ? -1L : (1L << high) - 1;
+        return belowHigh & ~((1L << low) - 1);
+    }
+
+    /**
+     * Claims the best available seats of one quality tier, all or nothing.
+     *
+     * @param tier  the tier.
+     * @param count the number of seats to claim.
+     * @return the indexes of the claimed seats in priority order, or null if the tier doesn't have enough seats.
+     */
+    public int[] claimInTier(final int tier, final int count) {
+        if (count > tierAvailable.get(tier) || !reserveCount(count)) {
+            return null;
+        }
+        int[] claimed = new int[count];
+        int found = claimFromTier(tier, true, claimed, 0, true);
+        if (found < count) {
+            // Seats of the tier were taken meanwhile, give back the ones we got.
+            int[] partial = Arrays.copyOf(claimed, found);
+            for (int index : partial) {
+                setBit(index);
+            }
+            addToCounts(partial, 1);
+            availableCount.addAndGet(count);
+            refreshRunIndex(partial);
+            return null;
+        }
+        refreshRunIndex(claimed);
+        return claimed;
+    }
+
+    /**
+     * Claims the best available run of adjacent seats in a single row, all or nothing.
+     *
+     * @param count the number of adjacent seats to claim.
+     * @return the indexes of the claimed seats in seat number order, or null if no row has enough adjacent seats.
+     */
+    public int[] claimTogether(final int count) {
+        if (!reserveCount(count)) {
+            return null;
+        }
+        int[] claimed = getRunIndex().claimRun(count);
+        if (claimed == null) {
+            availableCount.addAndGet(count);
+        }
+        return claimed;
+    }
+
+    /**
+     * Reserves a number of seats against the available counter.
+     *
+     * @param count the number of seats.
+     * @return true if enough seats were available.
+     */
+    private boolean reserveCount(final int count) {
+        int available;
+        do {
+            available = availableCount.get();
+            if (available < count) {
+                return false;
+            }
+        } while (!availableCount.compareAndSet(available, available - count));
+        return true;
+    }
+
+    /**
+     * Claims specific seats, either all are claimed or none are.
+     *
+     * @param indexes the indexes of the seats.
+     * @return true if every seat was available and is now claimed.
+     */
+    public boolean claimExact(final int[] indexes) {
+        if (!reserveCount(indexes.length)) {
+            return false;
+        }
+        if (!claimSeats(indexes)) {
+            availableCount.addAndGet(indexes.length);
+            return false;
+        }
+        refreshRunIndex(indexes);
+        return true;
+    }
+
+    /**
+     * Claims specific seats whose count is already reserved, either all are claimed or none are.
+     *
+     * @param indexes the indexes of the seats.
+     * @return true if every seat was claimed.
+     */
+    boolean claimSeats(final int[] indexes) {
+        for (int i = 0; i < indexes.length; i++) {
+            if (!clearBit(indexes[i])) {
+                for (int j = 0; j < i; j++) {
+                    setBit(indexes[j]);
+                }
+                return false;
+            }
+        }
+        addToCounts(indexes, -1);
+        return true;
+    }
+
+    /**
+     * Finds whether a seat is available.
+     *
+     * @param index the index of the seat.
+     * @return true if the seat is available.
+     */
+    public boolean isAvailable(final int index) {
+        return (freeSeats.get(index / SEATS_PER_WORD) & (1L << (index % SEATS_PER_WORD))) != 0;
+    }
+
+    /**
+     * Counts the available seats matching a query.
+     *
+     * @param query the constraints on the seats.
+     * @return count of the matching available seats.
+     */
+    public int getAvailableCount(final SeatQuery query) {
+        boolean anyRow = query.getMinRow() == null && query.getMaxRow() == null;
+        boolean oneRow = query.getMinRow() != null && query.getMinRow().equals(query.getMaxRow());
+        boolean anyQuality = query.getMinQuality() == null && query.getMaxQuality() == null;
+        // Queries on whole tiers, sections or rows are answered from the counters.
+        if (anyRow && query.getSection() == null) {
+            return getAvailableCountInQualities(query.getMinQuality(), query.getMaxQuality());
+        }
+        if (anyRow && anyQuality) {
+            return getAvailableCountInSection(query.getSection());
+        }
+        if (oneRow && anyQuality) {
+            return query.getSection() != null
+                ? getAvailableCountInRow(query.getSection(), query.getMinRow())
+                : getAvailableCountInRow(query.getMinRow());
+        }
+        return getSeatSearch().countAvailable(query);
+    }
+
+    /**
+     * Counts the available seats in a range of qualities from the tier counts.
+     *
+     * @param minQuality the lowest quality, unbounded when null.
+     * @param maxQuality the highest quality, unbounded when null.
+     * @return count of the available seats.
+     */
+    private int getAvailableCountInQualities(final Integer minQuality, final Integer maxQuality) {
+        if (minQuality == null && maxQuality == null) {
+            return getAvailableCount();
+        }
+        int available = 0;
+        for (int tier = 0; tier < tierAvailable.length(); tier++) {
+            int quality = getTierQuality(tier);
+            if ((minQuality == null || quality >= minQuality) && (maxQuality == null || quality <= maxQuality)) {
+                available += getAvailableCount(tier);
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Finds the number of available seats in a section.
+     *
+     * @param section the section.
+     * @return count of the available seats, 0 if the section does not exist.
+     */
+    public int getAvailableCountInSection(final String section) {
+        int sectionId = findSectionId(section);
+        return sectionId < 0 ? 0 : Math.max(0, sectionAvailable.get(sectionId));
+    }
+
+    /**
+     * Finds the number of available seats in a row of a section.
+     *
+     * @param section   the section.
+     * @param rowNumber the row number.
+     * @return count of the available seats, 0 if the row does not exist.
+     */
+    public int getAvailableCountInRow(final String section, final int rowNumber) {
+        int sectionId = findSectionId(section);
+        Integer rowId = sectionId < 0 ? null : rowIdsByKey.get(rowKey(sectionId, rowNumber));
+        return rowId == null ? 0 : Math.max(0, rowAvailable.get(rowId));
+    }
+
+    /**
+     * Finds the number of available seats with a row number across all sections.
+     *
+     * @param rowNumber the row number.
+     * @return count of the available seats.
+     */
+    public int getAvailableCountInRow(final int rowNumber) {
+        int available = 0;
+        for (int sectionId = 0; sectionId < sectionNames.length; sectionId++) {
+            Integer rowId = rowIdsByKey.get(rowKey(sectionId, rowNumber));
+            if (rowId != null) {
+                available += Math.max(0, rowAvailable.get(rowId));
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Finds the id of a section by name, venues have few sections so they are searched in order.
+     *
+     * @param section the section, null for the section of a venue without sections.
+     * @return the id of the section, -1 if it does not exist.
+     */
+    private int findSectionId(final String section) {
+        for (int sectionId = 0; sectionId < sectionNames.length; sectionId++) {
+            if (Objects.equals(sectionNames[sectionId], section)) {
+                return sectionId;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Claims the best available seats matching a query, all or nothing.
+     *
+     * @param query the constraints on the seats, including whether they must be adjacent.
+     * @param count the number of seats to claim.
+     * @return the indexes of the claimed seats, or null if not enough matching seats are available.
+     */
+    public int[] claim(final SeatQuery query, final int count) {
+        return getSeatSearch().claim(query, count);
+    }
+
+    /**
+     * Finds the seat search, building it on first use.
+     *
+     * @return the seat search.
+     */
+    private SeatSearch getSeatSearch() {
+        SeatSearch search = seatSearch;
+        if (search == null) {
+            synchronized (this) {
+                search = seatSearch;
+                if (search == null) {
+                    search = new SeatSearch(this);
+                    seatSearch = search;
+                }
+            }
+        }
+        return search;
+    }
+
+    /**
+     * Finds the run index, building it on first use.
+     *
+     * @return the run index.
+     */
+    private SeatRunIndex getRunIndex() {
+        SeatRunIndex index = runIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = runIndex;
+                if (index == null) {
+                    index = new SeatRunIndex(this);
+                    runIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Refreshes the run index after seats change, if it has been built.
+     *
+     * @param indexes the indexes of the seats that changed.
+     */
+    private void refreshRunIndex(final int[] indexes) {
+        SeatRunIndex index = runIndex;
+        if (index != null) {
+            index.refresh(indexes);
+        }
+    }
+
+    /**
+     * Claims as many of the lowest available bits in a word as still needed.
+     *
+     * @param word    the word of the bitset.
+     * @param mask    mask of the bits that may be claimed.
+     * @param claimed the claimed seat indexes.
+     * @param found   the number of seats already claimed.
+     * @return the number of seats claimed after this word.
+     */
+    private int claimFromWord(final int word, final long mask, final int[] claimed, final int found) {
+        long bits;
+        long taken;
+        while (true) {
+            bits = freeSeats.get(word);
+            if ((bits & mask) == 0) {
+                return found;
+            }
+            taken = lowestBits(bits & mask, claimed.length - found);
+            if (freeSeats.compareAndSet(word, bits, bits & ~taken)) {
+                break;
+            }
+            failedClaimAttempts.increment();
+        }
+
+        int next = found;
+        while (taken != 0) {
+            claimed[next++] = word * SEATS_PER_WORD + Long.numberOfTrailingZeros(taken);
+            taken &= taken - 1;
+        }
+        addToCounts(claimed, found, next, -1);
+        return next;
+    }
+
+    /**
+     * Adds to the available counts of the tiers, rows and sections of seats.
+     *
+     * @param indexes the indexes of the seats.
+     * @param delta   the change for each seat.
+     */
+    private void addToCounts(final int[] indexes, final int delta) {
+        addToCounts(indexes, 0, indexes.length, delta);
+    }
+
+    /**
+     * Adds to the available counts of the tiers, rows and sections of a range of seats, seats of one tier or row are
+     * usually adjacent so each counter is updated once per run of its seats.
+     *
+     * @param indexes the indexes of the seats.
+     * @param from    the first position in indexes.
+     * @param to      the position after the last in indexes.
+     * @param delta   the change for each seat.
+     */
+    private void addToCounts(final int[] indexes, final int from, final int to, final int delta) {
+        int tier = 0;
+        int tierStart = 0;
+        int tierEnd = 0;
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int index = indexes[i];
+            if (index < tierStart || index >= tierEnd) {
+                if (count > 0) {
+                    tierAvailable.addAndGet(tier, count * delta);
+                }
+                tier = findTierOf(index);
+                tierStart = tierStarts[tier];
+                tierEnd = tierStarts[tier + 1];
+                count = 0;
+            }
+            count++;
+        }
+        if (count > 0) {
+            tierAvailable.addAndGet(tier, count * delta);
+        }
+
+        int row = -1;
+        int rowCount = 0;
+        int section = -1;
+        int sectionCount = 0;
+        for (int i = from; i < to; i++) {
+            int index = indexes[i];
+            if (rowIds[index] != row) {
+                if (rowCount > 0) {
+                    rowAvailable.addAndGet(row, rowCount * delta);
+                }
+                row = rowIds[index];
+                rowCount = 0;
+            }
+            rowCount++;
+            if (sectionIds[index] != section) {
+                if (sectionCount > 0) {
+                    sectionAvailable.addAndGet(section, sectionCount * delta);
+                }
+                section = sectionIds[index];
+                sectionCount = 0;
+            }
+            sectionCount++;
+        }
+        if (rowCount > 0) {
+            rowAvailable.addAndGet(row, rowCount * delta);
+        }
+        if (sectionCount > 0) {
+            sectionAvailable.addAndGet(section, sectionCount * delta);
+        }
+    }
+
+    /**
+     * Finds the tier of a seat.
+     *
+     * @param index the index of the seat.
+     * @return the tier.
+     */
+    private int findTierOf(final int index) {
+        int low = 0;
+        int high = tierStarts.length - 2;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (tierStarts[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Moves the scan hint of a seat's tier back to the seat's word if it is past it, bumping its version.
+     *
+     * @param index the index of the seat that became available.
+     */
+    private void lowerScanHint(final int index) {
+        int tier = findTierOf(index);
+        int word = index / SEATS_PER_WORD;
+        long scanHint;
+        long lowered;
+        do {
+            scanHint = tierScanHints.get(tier);
+            long version = (scanHint >>> Integer.SIZE) + 1;
+            lowered = (version << Integer.SIZE) | Math.min((int) scanHint, word);
+        } while (!tierScanHints.compareAndSet(tier, scanHint, lowered));
+    }
+
+    /**
+     * Finds up to count of the lowest set bits.
+     *
+     * @param bits  the bits to select from.
+     * @param count the maximum number of bits.
+     * @return the selected bits.
+     */
+    private static long lowestBits(final long bits, final int count) {
+        if (Long.bitCount(bits) <= count) {
+            return bits;
+        }
+        long remaining = bits;
+        long selected = 0;
+        for (int i = 0; i < count; i++) {
+            long lowest = Long.lowestOneBit(remaining);
+            selected |= lowest;
+            remaining &= ~lowest;
+        }
+        return selected;
+    }
+
+    /**
+     * Returns previously claimed seats to the inventory.
+     *
+     * @param indexes the indexes of the claimed seats.
+     */
+    public void release(final int[] indexes) {
+        for (int index : indexes) {
+            if (!setBit(index)) {
+                throw new VenueException("Seat " + index + " is already available.");
+            }
+        }
+        // Bits are freed before the counters so the counters never promise seats that are not there.
+        addToCounts(indexes, 1);
+        availableCount.addAndGet(indexes.length);
+        refreshRunIndex(indexes);
+    }
+
+    /**
+     * Marks a seat available and makes sure its tier's scan hint is not past it.
+     *
+     * @param index the index of the seat.
+     * @return false if the seat was already available.
+     */
+    private boolean setBit(final int index) {
+        int word = index / SEATS_PER_WORD;
+        long bit = 1L << (index % SEATS_PER_WORD);
+        long bits;
+        do {
+            bits = freeSeats.get(word);
+            if ((bits & bit) != 0) {
+                return false;
+            }
+        } while (!freeSeats.compareAndSet(word, bits, bits | bit));
+        lowerScanHint(index);
+        return true;
+    }
+
+    /**
+     * Marks a seat unavailable.
+     *
+     * @param index the index of the seat.
+     * @return false if the seat was already unavailable.
+     */
+    private boolean clearBit(final int index) {
+        int word = index / SEATS_PER_WORD;
+        long bit = 1L << (index % SEATS_PER_WORD);
+        long bits;
+        do {
+            bits = freeSeats.get(word);
+            if ((bits & bit) == 0) {
+                return false;
+            }
+        } while (!freeSeats.compareAndSet(word, bits, bits & ~bit));
+        return true;
+    }
+
+    /**
+     * Creates the seat at an index.
+     *
+     * @param index the index of the seat.
+     * @return a new seat.
+     */
+    public Seat getSeat(final int index) {
+        return Seat.builder()
+            .rowNumber(rowNumbers[index])
+            .seatNumber(seatNumbers[index])
+            .seatQuality(seatQualities[index])
+            .section(sectionNames[sectionIds[index]])
+            .build();
+    }
+
+    /**
+     * Creates the seats at a set of indexes.
+     *
+     * @param indexes the indexes of the seats.
+     * @return new seats in the order of the indexes.
+     */
+    public List<Seat> getSeats(final int[] indexes) {
+        List<Seat> seats = new ArrayList<Seat>(indexes.length);
+        for (int index : indexes) {
+            seats.add(getSeat(index));
+        }
+        return seats;
+    }
+
+    /**
+     * Finds the row number of the seat at an index.
+     *
+     * @param index the index of the seat.
+     * @return the row number.
+     */
+    public int getRowNumber(final int index) {
+        return rowNumbers[index];
+    }
+
+    /**
+     * Finds the seat number of the seat at an index.
+     *
+     * @param index the index of the seat.
+     * @return the seat number.
+     */
+    public int getSeatNumber(final int index) {
+        return seatNumbers[index];
+    }
+
+    /**
+     * Finds the quality of the seat at an index.
+     *
+     * @param index the index of the seat.
+     * @return the seat quality.
+     */
+    public int getSeatQuality(final int index) {
+        return seatQualities[index];
+    }
+
+    /**
+     * Finds the number of available seats.
+     *
+     * @return count of the available seats.
+     */
+    public int getAvailableCount() {
+        return availableCount.get();
+    }
+
+    /**
+     * Finds the number of quality tiers.
+     *
+     * @return count of the tiers.
+     */
+    public int getTierCount() {
+        return tierAvailable.length();
+    }
+
+    /**
+     * Finds the seat quality of a tier.
+     *
+     * @param tier the tier, 0 is the best.
+     * @return the seat quality.
+     */
+    public int getTierQuality(final int tier) {
+        return seatQualities[tierStarts[tier]];
+    }
+
+    /**
+     * Finds the tier of a seat quality.
+     *
+     * @param seatQuality the seat quality.
+     * @return the tier, or -1 if no seat has the quality.
+     */
+    public int findTier(final int seatQuality) {
+        int low = 0;
+        int high = tierAvailable.length() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int quality = getTierQuality(middle);
+            if (quality == seatQuality) {
+                return middle;
+            } else if (quality > seatQuality) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the number of available seats of a tier.
+     *
+     * @param tier the tier.
+     * @return count of the available seats, which may briefly lag behind concurrent changes.
+     */
+    public int getAvailableCount(final int tier) {
+        return Math.max(0, tierAvailable.get(tier));
+    }
+
+    /**
+     * Finds the best tier with an available seat.
+     *
+     * @return the tier, -1 if no seat is available.
+     */
+    public int findBestAvailableTier() {
+        for (int tier = 0; tier < tierAvailable.length(); tier++) {
+            if (tierAvailable.get(tier) > 0) {
+                return tier;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the best available seat of a tier without claiming it.
+     *
+     * @param tier the tier.
+     * @return the index of the seat, or -1 if the tier is sold out.
+     */
+    public int findBestAvailable(final int tier) {
+        int lastWord = (tierStarts[tier + 1] - 1) / SEATS_PER_WORD;
+        for (int word = getScanHint(tier); word <= lastWord; word++) {
+            long bits = freeSeats.get(word) & tierMask(tier, word);
+            if (bits != 0) {
+                return word * SEATS_PER_WORD + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the number of compare-and-set failures while claiming seats.
+     *
+     * @return count of the failed claim attempts.
+     */
+    public long getFailedClaimAttempts() {
+        return failedClaimAttempts.sum();
+    }
+
+    /**
+     * Copies the bitset of available seats, words are read one at a time so concurrent changes may be partly seen.
+     *
+     * @return the bitset, a set bit is an available seat.
+     */
+    long[] copyFreeSeats() {
+        long[] copy = new long[freeSeats.length()];
+        for (int word = 0; word < copy.length; word++) {
+            copy[word] = freeSeats.get(word);
+        }
+        return copy;
+    }
+
+    /**
+     * Finds the row numbers of all seats, the array is shared and must not be changed.
+     *
+     * @return row number of each seat in priority order.
+     */
+    int[] getRowNumbers() {
+        return rowNumbers;
+    }
+
+    /**
+     * Finds the seat numbers of all seats, the array is shared and must not be changed.
+     *
+     * @return seat number of each seat in priority order.
+     */
+    int[] getSeatNumbers() {
+        return seatNumbers;
+    }
+
+    /**
+     * Finds the qualities of all seats, the array is shared and must not be changed.
+     *
+     * @return quality of each seat in priority order.
+     */
+    int[] getSeatQualities() {
+        return seatQualities;
+    }
+
+    /**
+     * Finds the sections of all seats, the array is shared and must not be changed.
+     *
+     * @return section of each seat in priority order, as an index into the section names.
+     */
+    int[] getSectionIds() {
+        return sectionIds;
+    }
+
+    /**
+     * Finds the rows of all seats, the array is shared and must not be changed.
+     *
+     * @return row of each seat in priority order, rows of the same number in different sections being different rows
+     *     and rows being numbered in the order of their best seat.
+     */
+    int[] getRowIds() {
+        return rowIds;
+    }
+
+    /**
+     * Finds the number of rows, counting a row number once per section it appears in.
+     *
+     * @return count of the rows.
+     */
+    int getRowCount() {
+        return rowAvailable.length();
+    }
+
+    /**
+     * Finds the names of the sections, the array is shared and must not be changed.
+     *
+     * @return name of each section.
+     */
+    String[] getSectionNames() {
+        return sectionNames;
+    }
+
+    /**
+     * Finds the section of the seat at an index.
+     *
+     * @param index the index of the seat.
+     * @return the section, null if the venue is not divided into sections.
+     */
+    public String getSection(final int index) {
+        return sectionNames[sectionIds[index]];
+    }
+
+    /**
+     * Finds the first seat of a tier.
+     *
+     * @param tier the tier, the number of tiers for the end of the last tier.
+     * @return the index of the tier's first seat.
+     */
+    int getTierStart(final int tier) {
+        return tierStarts[tier];
+    }
+
+    /**
+     * Finds the first word of a tier that may have an available seat.
+     *
+     * @param tier the tier.
+     * @return the word of the bitset.
+     */
+    int getScanHint(final int tier) {
+        return Math.max(tierStarts[tier] / SEATS_PER_WORD, (int) tierScanHints.get(tier));
+    }
+
+    /**
+     * Reads a word of the bitset of available seats.
+     *
+     * @param word the word.
+     * @return the bits of the word, a set bit is an available seat.
+     */
+    long getFreeSeats(final int word) {
+        return freeSeats.get(word);
+    }
+
+    /**
+     * Finds the total number of seats.
+     *
+     * @return count of all seats.
+     */
+    public int size() {
+        return rowNumbers.length;
+    }
+}
@@ -0,0 +1,54 @@
+package com.walmart.sample.common;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The SeatQuery class is the set of constraints a search for seats must satisfy, every unset constraint matches
+ * all seats.
+ */
+@Getter
+@Builder
+@ToString
+public class SeatQuery {
+
+    /**
+     * The lowest acceptable seat quality, unbounded when not set.
+     */
+    private Integer minQuality;
+
+    /**
+     * The highest acceptable seat quality, unbounded when not set.
+     */
+    private Integer maxQuality;
+
+    /**
+     * The lowest acceptable row number, unbounded when not set.
+     */
+    private Integer minRow;
+
+    /**
+     * The highest acceptable row number, unbounded when not set.
+     */
+    private Integer maxRow;
+
+    /**
+     * The section the seats must be in, any section when not set.
+     */
+    private String section;
+
+    /**
+     * How the seats are chosen, best available when not set.
+     */
+    private AllocationMode allocationMode;
+
+    /**
+     * Finds whether the query matches every seat.
+     *
+     * @return true if no constraint is set.
+     */
+    public boolean isUnconstrained() {
+        return minQuality == null && maxQuality == null && minRow == null && maxRow == null && section == null;
+    }
+}
@@ -0,0 +1,358 @@
+package com.walmart.sample.common;
+
+import java.util.Arrays;
+
+/**
+ * The SeatRunIndex finds runs of adjacent available seats within a row.
+ *
+ * Seats are laid out row by row, best row first, and by seat number within a row. A segment tree over that layout
+ * keeps the longest free run, free prefix and free suffix of every range, so the next run of enough adjacent seats
+ * is found in O(log seats). Runs never cross a row, a section or a gap in seat numbers.
+ *
+ * Runs are ranked by the total quality of their seats, ties going to the better row and lower seat numbers. Rows
+ * are laid out in the order of their best seat, so the search stops at the first row whose best seat can't make a
+ * better run than the one already found.
+ *
+ * The index is a view of the inventory bitset, {@link #refresh(int)} re-reads the bit of a seat after it changes.
+ */
+public class SeatRunIndex {
+
+    /**
+     * The inventory being indexed.
+     */
+    private final SeatInventory seatInventory;
+
+    /**
+     * Inventory index of the seat at each position of the layout.
+     */
+    private final int[] positionSeats;
+
+    /**
+     * Position in the layout of each inventory index.
+     */
+    private final int[] seatPositions;
+
+    /**
+     * Whether the seat at a position is adjacent to the seat at the next position.
+     */
+    private final boolean[] joinsNext;
+
+    /**
+     * Whether the seat at each position was available when its leaf was last read.
+     */
+    private final boolean[] free;
+
+    /**
+     * Quality of the best seat in the row of the seat at each position.
+     */
+    private final int[] rowBestQualities;
+
+    /**
+     * Longest free run within each tree node.
+     */
+    private final int[] longestRun;
+
+    /**
+     * Free run at the start of each tree node.
+     */
+    private final int[] prefixRun;
+
+    /**
+     * Free run at the end of each tree node.
+     */
+    private final int[] suffixRun;
+
+    /**
+     * Length of the free run that ends at the last node visited by {@link #findRun(int, int, int, int, int)}.
+     */
+    private int carryRun;
+
+    /**
+     * First position of the free run that ends at the last node visited.
+     */
+    private int carryStart;
+
+    /**
+     * Constructs the index from the current state of the inventory.
+     *
+     * @param seatInventory the inventory being indexed.
+     */
+    public SeatRunIndex(final SeatInventory seatInventory) {
+        this.seatInventory = seatInventory;
+        int size = seatInventory.size();
+
+        // Rows are keyed by section and row number and already numbered in the order of their best seat.
+        int[] rowRank = seatInventory.getRowIds();
+
+        Integer[] layout = new Integer[size];
+        for (int index = 0; index < size; index++) {
+            layout[index] = index;
+        }
+        Arrays.sort(layout, (seat1, seat2) -> rowRank[seat1] != rowRank[seat2]
+            ? Integer.compare(rowRank[seat1], rowRank[seat2])
+            : Integer.compare(seatInventory.getSeatNumber(seat1), seatInventory.getSeatNumber(seat2)));
+
+        positionSeats = new int[size];
+        seatPositions = new int[size];
+        joinsNext = new boolean[size];
+        free = new boolean[size];
+        rowBestQualities = new int[size];
+        for (int position = 0; position < size; position++) {
+            positionSeats[position] = layout[position];
+            seatPositions[layout[position]] = position;
+            if (position > 0) {
+                int previous = layout[position - 1];
+                joinsNext[position - 1] = rowRank[previous] == rowRank[layout[position]]
+                    && seatInventory.getSeatNumber(previous) + 1 == seatInventory.getSeatNumber(layout[position]);
+            }
+        }
+        // Spread the best seat of each row over the row's positions, back to its first seat and then forward.
+        for (int position = size - 1; position >= 0; position--) {
+            int quality = seatInventory.getSeatQuality(layout[position]);
+            boolean sameRow = position < size - 1 && rowRank[layout[position]] == rowRank[layout[position + 1]];
+            rowBestQualities[position] = sameRow ? Math.max(quality, rowBestQualities[position + 1]) : quality;
+        }
+        for (int position = 1; position < size; position++) {
+            if (rowRank[layout[position - 1]] == rowRank[layout[position]]) {
+                rowBestQualities[position] = rowBestQualities[position - 1];
+            }
+        }
+
+        int nodes = Math.max(1, 4 * size);
+        longestRun = new int[nodes];
+        prefixRun = new int[nodes];
+        suffixRun = new int[nodes];
+        if (size > 0) {
+            build(1, 0, size - 1);
+        }
+    }
+
+    /**
+     * Builds a tree node from the inventory.
+     *
+     * @param node  the tree node.
+     * @param start the first position of the node.
+     * @param end   the last position of the node.
+     */
+    private void build(final int node, final int start, final int end) {
+        if (start == end) {
+            free[start] = seatInventory.isAvailable(positionSeats[start]);
+            setLeaf(node, free[start]);
+            return;
+        }
+        int mid = (start + end) >>> 1;
+        build(2 * node, start, mid);
+        build(2 * node + 1, mid + 1, end);
+        merge(node, start, mid, end);
+    }
+
+    /**
+     * Re-reads the availability of a seat from the inventory.
+     *
+     * @param seatIndex the inventory index of the seat.
+     */
+    public synchronized void refresh(final int seatIndex) {
+        update(1, 0, positionSeats.length - 1, seatPositions[seatIndex]);
+    }
+
+    /**
+     * Re-reads the availability of seats from the inventory.
+     *
+     * @param seatIndexes the inventory indexes of the seats.
+     */
+    public synchronized void refresh(final int[] seatIndexes) {
+        for (int seatIndex : seatIndexes) {
+            update(1, 0, positionSeats.length - 1, seatPositions[seatIndex]);
+        }
+    }
+
+    /**
+     * Finds and claims the run of adjacent seats with the best total quality.
+     *
+     * The count must already be reserved against the inventory's available counter.
+     *
+     * @param count the number of adjacent seats.
+     * @return the inventory indexes of the claimed seats, or null if no row has enough adjacent seats.
+     */
+    public synchronized int[] claimRun(final int count) {
+        int[] run = new int[count];
+        while (longestRun[1] >= count) {
+            int start = findBestRun(count);
+            for (int i = 0; i < count; i++) {
+                run[i] = positionSeats[start + i];
+            }
+            if (seatInventory.claimSeats(run)) {
+                for (int i = 0; i < count; i++) {
+                    update(1, 0, positionSeats.length - 1, start + i);
+                }
+                return run;
+            }
+            // Another caller took one of the seats and has not refreshed it yet.
+            for (int i = 0; i < count; i++) {
+                update(1, 0, positionSeats.length - 1, start + i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the run of count adjacent free seats with the best total quality.
+     *
+     * Every free run long enough is scanned with a sliding sum until a row's best seat, counted count times, can no
+     * longer beat the best run found. Rows are laid out in the order of their best seat, so no later row can either.
+     *
+     * @param count the length of the run, at most the longest free run.
+     * @return the first position of the run.
+     */
+    private int findBestRun(final int count) {
+        int last = positionSeats.length - 1;
+        int best = -1;
+        long bestQuality = Long.MIN_VALUE;
+        int from = 0;
+        while (from <= last) {
+            carryRun = 0;
+            int runStart = findRun(1, 0, last, count, from);
+            if (runStart < 0) {
+                break;
+            }
+            if (best >= 0 && (long) rowBestQualities[runStart] * count <= bestQuality) {
+                break;
+            }
+            int runEnd = runStart;
+            while (runEnd < last && joinsNext[runEnd] && free[runEnd + 1]) {
+                runEnd++;
+            }
+
+            long quality = 0;
+            for (int position = runStart; position <= runEnd; position++) {
+                quality += seatInventory.getSeatQuality(positionSeats[position]);
+                if (position >= runStart + count) {
+                    quality -= seatInventory.getSeatQuality(positionSeats[position - count]);
+                }
+                if (position >= runStart + count - 1 && quality > bestQuality) {
+                    bestQuality = quality;
+                    best = position - count + 1;
+                }
+            }
+            from = runEnd + 1;
+        }
+        return best;
+    }
+
+    /**
+     * Finds the first position of the leftmost free run of at least count seats that starts at or after a position.
+     *
+     * Nodes are visited left to right, carrying the free run that ends at the last node visited, which must be
+     * cleared before the search.
+     *
+     * @param node  the tree node.
+     * @param start the first position of the node.
+     * @param end   the last position of the node.
+     * @param count the length of the run.
+     * @param from  the first position the run may start at.
+     * @return the first position of the run, or -1 if the node has no such run.
+     */
+    private int findRun(final int node, final int start, final int end, final int count, final int from) {
+        if (end < from) {
+            return -1;
+        }
+        if (start >= from) {
+            boolean joined = carryRun > 0 && joinsNext[start - 1];
+            if (joined && carryRun + prefixRun[node] >= count) {
+                return carryStart;
+            }
+            if (longestRun[node] >= count) {
+                return findRun(node, start, end, count);
+            }
+            if (joined && prefixRun[node] == end - start + 1) {
+                carryRun += end - start + 1;
+            } else {
+                carryRun = suffixRun[node];
+                carryStart = end - suffixRun[node] + 1;
+            }
+            return -1;
+        }
+        int mid = (start + end) >>> 1;
+        int found = findRun(2 * node, start, mid, count, from);
+        return found >= 0 ? found : findRun(2 * node + 1, mid + 1, end, count, from);
+    }
+
+    /**
+     * Finds the first position of the leftmost free run of at least count seats.
+     *
+     * @param node  the tree node, which must contain such a run.
+     * @param start the first position of the node.
+     * @param end   the last position of the node.
+     * @param count the length of the run.
+     * @return the first position of the run.
+     */
+    private int findRun(final int node, final int start, final int end, final int count) {
+        if (start == end) {
+            return start;
+        }
+        int mid = (start + end) >>> 1;
+        if (longestRun[2 * node] >= count) {
+            return findRun(2 * node, start, mid, count);
+        }
+        if (joinsNext[mid] && suffixRun[2 * node] + prefixRun[2 * node + 1] >= count) {
+            return mid - suffixRun[2 * node] + 1;
+        }
+        return findRun(2 * node + 1, mid + 1, end, count);
+    }
+
+    /**
+     * Updates the leaf of a position and its ancestors.
+     *
+     * @param node     the tree node.
+     * @param start    the first position of the node.
+     * @param end      the last position of the node.
+     * @param position the position being updated.
+     */
+    private void update(final int node, final int start, final int end, final int position) {
+        if (start == end) {
+            free[start] = seatInventory.isAvailable(positionSeats[start]);
+            setLeaf(node, free[start]);
+            return;
+        }
+        int mid = (start + end) >>> 1;
+        if (position <= mid) {
+            update(2 * node, start, mid, position);
+        } else {
+            update(2 * node + 1, mid + 1, end, position);
+        }
+        merge(node, start, mid, end);
+    }
+
+    /**
+     * Sets a leaf node.
+     *
+     * @param node      the tree node.
+     * @param available whether the seat is available.
+     */
+    private void setLeaf(final int node, final boolean available) {
+        int run = available ? 1 : 0;
+        longestRun[node] = run;
+        prefixRun[node] = run;
+        suffixRun[node] = run;
+    }
+
+    /**
+     * Combines the runs of two child nodes.
+     *
+     * @param node  the tree node.
+     * @param start the first position of the node.
+     * @param mid   the last position of the left child.
+     * @param end   the last position of the node.
+     */
+    private void merge(final int node, final int start, final int mid, final int end) {
+        int left = 2 * node;
+        int right = 2 * node + 1;
+        int bridge = joinsNext[mid] ? suffixRun[left] + prefixRun[right] : 0;
+
+        longestRun[node] = Math.max(Math.max(longestRun[left], longestRun[right]), bridge);
+        prefixRun[node] = prefixRun[left] == mid - start + 1 && joinsNext[mid]
+            ? prefixRun[left] + prefixRun[right] : prefixRun[left];
+        suffixRun[node] = suffixRun[right] == end - mid && joinsNext[mid]
+            ? suffixRun[right] + suffixRun[left] : suffixRun[right];
+    }
+}
@@ -0,0 +1,335 @@
+package com.walmart.sample.common;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The SeatSearch finds available seats of a {@link SeatInventory} that match a {@link SeatQuery}.
+ *
+ * The inventory is sorted by quality, row and seat, so a quality range is a run of whole tiers and a row range is
+ * a contiguous slice of each tier found by binary search. Sections are not contiguous, each section has a bitmask
+ * over the inventory bitset that is built the first time the section is searched. A search only reads the words
+ * of its slices, starting from each tier's scan hint, and masks them with the section, so its cost depends on the
+ * size of the slices rather than of the venue.
+ *
+ * Matching seats are claimed with {@link SeatInventory#claimExact(int[])}, a search that loses a race for one of
+ * its seats simply searches again.
+ */
+public class SeatSearch {
+
+    /**
+     * Number of seats tracked by each word of the bitset.
+     */
+    private static final int SEATS_PER_WORD = Long.SIZE;
+
+    /**
+     * The inventory being searched.
+     */
+    private final SeatInventory seatInventory;
+
+    /**
+     * Bitmask of the seats of each section, a set bit is a seat of the section.
+     */
+    private final Map<String, long[]> sectionMasks = new ConcurrentHashMap<String, long[]>();
+
+    /**
+     * Constructs a search over an inventory.
+     *
+     * @param seatInventory the inventory being searched.
+     */
+    public SeatSearch(final SeatInventory seatInventory) {
+        this.seatInventory = seatInventory;
+    }
+
+    /**
+     * Counts the available seats matching a query.
+     *
+     * @param query the constraints on the seats.
+     * @return count of the matching available seats.
+     */
+    public int countAvailable(final SeatQuery query) {
+        if (query.getSection() != null && !hasSection(query.getSection())) {
+            return 0;
+        }
+        return collect(findSlices(query), findSectionMask(query), null);
+    }
+
+    /**
+     * Claims the best available seats matching a query, all or nothing.
+     *
+     * @param query the constraints on the seats, including whether they must be adjacent.
+     * @param count the number of seats to claim.
+     * @return the indexes of the claimed seats, or null if not enough matching seats are available.
+     */
+    public int[] claim(final SeatQuery query, final int count) {
+        if (query.getAllocationMode() == AllocationMode.SEATS_TOGETHER) {
+            return claimTogether(query, count);
+        }
+        if (query.isUnconstrained()) {
+            return seatInventory.claim(count);
+        }
+        if (query.getSection() != null && !hasSection(query.getSection())) {
+            return null;
+        }
+        int[] slices = findSlices(query);
+        long[] sectionMask = findSectionMask(query);
+        int[] found = new int[count];
+        while (true) {
+            if (collect(slices, sectionMask, found) < count) {
+                return null;
+            }
+            if (seatInventory.claimExact(found)) {
+                return found;
+            }
+            if (seatInventory.getAvailableCount() < count) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Claims the best available run of adjacent seats matching a query in a single row, all or nothing.
+     *
+     * @param query the constraints on the seats.
+     * @param count the number of adjacent seats to claim.
+     * @return the indexes of the claimed seats in seat number order, or null if no row has enough matching seats.
+     */
+    private int[] claimTogether(final SeatQuery query, final int count) {
+        if (query.isUnconstrained()) {
+            return seatInventory.claimTogether(count);
+        }
+        if (query.getSection() != null && !hasSection(query.getSection())) {
+            return null;
+        }
+        int[] slices = findSlices(query);
+        long[] sectionMask = findSectionMask(query);
+        while (true) {
+            int[] run = findRun(slices, sectionMask, count);
+            if (run == null) {
+                return null;
+            }
+            if (seatInventory.claimExact(run)) {
+                return run;
+            }
+            if (seatInventory.getAvailableCount() < count) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Finds the best row with a run of adjacent matching seats, rows are ranked by their best matching seat and a
+     * row is the seats of one row number within one section.
+     *
+     * @param slices      the slices of the inventory matching the query.
+     * @param sectionMask the bitmask of the query's section, or null for any section.
+     * @param count       the number of adjacent seats.
+     * @return the indexes of the run in seat number order, or null if no row has enough adjacent seats.
+     */
+    private int[] findRun(final int[] slices, final long[] sectionMask, final int count) {
+        int[] candidates = new int[collect(slices, sectionMask, null)];
+        int found = collect(slices, sectionMask, candidates);
+        if (found < count) {
+            return null;
+        }
+
+        // Rank the rows by their first candidate, the candidates are in priority order.
+        int[] rowIds = seatInventory.getRowIds();
+        int[] rowRanks = new int[seatInventory.getRowCount()];
+        Arrays.fill(rowRanks, -1);
+        int[] candidateRanks = new int[found];
+        int rankCount = 0;
+        for (int i = 0; i < found; i++) {
+            int rowId = rowIds[candidates[i]];
+            if (rowRanks[rowId] < 0) {
+                rowRanks[rowId] = rankCount++;
+            }
+            candidateRanks[i] = rowRanks[rowId];
+        }
+
+        // Bucket the candidates by row rank, each packed as its seat number over its index so a sort of a bucket
+        // orders it by seat number.
+        int[] rowStarts = new int[rankCount + 1];
+        for (int i = 0; i < found; i++) {
+            rowStarts[candidateRanks[i] + 1]++;
+        }
+        for (int rank = 0; rank < rankCount; rank++) {
+            rowStarts[rank + 1] += rowStarts[rank];
+        }
+        long[] seats = new long[found];
+        int[] next = Arrays.copyOf(rowStarts, rankCount);
+        for (int i = 0; i < found; i++) {
+            seats[next[candidateRanks[i]]++] =
+                ((long) seatInventory.getSeatNumber(candidates[i]) << Integer.SIZE) | candidates[i];
+        }
+
+        for (int rank = 0; rank < rankCount; rank++) {
+            int rowStart = rowStarts[rank];
+            int rowEnd = rowStarts[rank + 1];
+            if (rowEnd - rowStart < count) {
+                continue;
+            }
+            Arrays.sort(seats, rowStart, rowEnd);
+            for (int start = rowStart; start + count <= rowEnd; start++) {
+                int end = start + count - 1;
+                if ((seats[end] >> Integer.SIZE) - (seats[start] >> Integer.SIZE) == count - 1) {
+                    int[] run = new int[count];
+                    for (int i = 0; i < count; i++) {
+                        run[i] = (int) seats[start + i];
+                    }
+                    return run;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the slices of the inventory whose quality and row match a query, best slice first.
+     *
+     * @param query the constraints on the seats.
+     * @return the tier, first seat index and end seat index of each slice, packed three to a slice.
+     */
+    private int[] findSlices(final SeatQuery query) {
+        int[] rowNumbers = seatInventory.getRowNumbers();
+        int[] slices = new int[seatInventory.getTierCount() * 3];
+        int sliceCount = 0;
+        for (int tier = 0; tier < seatInventory.getTierCount(); tier++) {
+            int quality = seatInventory.getTierQuality(tier);
+            if (query.getMaxQuality() != null && quality > query.getMaxQuality()) {
+                continue;
+            }
+            if (query.getMinQuality() != null && quality < query.getMinQuality()) {
+                // Tiers are ordered best quality first.
+                break;
+            }
+            int start = seatInventory.getTierStart(tier);
+            int end = seatInventory.getTierStart(tier + 1);
+            if (query.getMinRow() != null) {
+                start = firstRowAbove(rowNumbers, start, end, query.getMinRow() - 1L);
+            }
+            if (query.getMaxRow() != null) {
+                end = firstRowAbove(rowNumbers, start, end, query.getMaxRow());
+            }
+            if (start < end) {
+                slices[sliceCount++] = tier;
+                slices[sliceCount++] = start;
+                slices[sliceCount++] = end;
+            }
+        }
+        return Arrays.copyOf(slices, sliceCount);
+    }
+
+    /**
+     * Finds the first seat of a slice sorted by row whose row number is above a bound.
+     *
+     * @param rowNumbers the row number of each seat.
+     * @param start      the first seat index of the slice.
+     * @param end        the end seat index of the slice.
+     * @param rowNumber  the bound.
+     * @return the index of the seat, or end if every row is at or below the bound.
+     */
+    private static int firstRowAbove(final int[] rowNumbers, final int start, final int end, final long rowNumber) {
+        int low = start;
+        int high = end;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (rowNumbers[middle] <= rowNumber) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Collects the available seats of slices in priority order.
+     *
+     * @param slices      the slices, as returned by {@link #findSlices(SeatQuery)}.
+     * @param sectionMask the bitmask of the seats to include, or null for every seat.
+     * @param found       the array the seat indexes are written to until it is full, or null to only count them.
+     * @return the number of seats collected.
+     */
+    private int collect(final int[] slices, final long[] sectionMask, final int[] found) {
+        int count = 0;
+        for (int slice = 0; slice < slices.length; slice += 3) {
+            int start = slices[slice + 1];
+            int end = slices[slice + 2];
+            int lastWord = (end - 1) / SEATS_PER_WORD;
+            for (int word = Math.max(start / SEATS_PER_WORD, seatInventory.getScanHint(slices[slice]));
+                 word <= lastWord; word++) {
+                long bits = seatInventory.getFreeSeats(word) & sliceMask(word, start, end);
+                if (sectionMask != null) {
+                    bits &= sectionMask[word];
+                }
+                if (found == null) {
+                    count += Long.bitCount(bits);
+                    continue;
+                }
+                while (bits != 0) {
+                    if (count == found.length) {
+                        return count;
+                    }
+                    found[count++] = word * SEATS_PER_WORD + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the bits of a word that fall within a slice.
+     *
+     * @param word  the word of the bitset.
+     * @param start the first seat index of the slice.
+     * @param end   the end seat index of the slice.
+     * @return the mask of the slice's bits.
+     */
+    private static long sliceMask(final int word, final int start, final int end) {
+        int low = Math.max(0, start - word * SEATS_PER_WORD);
+        int high = Math.min(SEATS_PER_WORD, end - word * SEATS_PER_WORD);
+        long mask = high == SEATS_PER_WORD ? -1L : (1L << high) - 1;
+        return mask & (-1L << low);
+    }
+
+    /**
+     * Finds whether any seat is in a section.
+     *
+     * @param section the section.
+     * @return true if the section has seats.
+     */
+    private boolean hasSection(final String section) {
+        for (String sectionName : seatInventory.getSectionNames()) {
+            if (section.equals(sectionName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the bitmask of the query's section, building it on first use.
+     *
+     * @param query the constraints on the seats.
+     * @return the bitmask, or null if the query accepts any section.
+     */
+    private long[] findSectionMask(final SeatQuery query) {
+        if (query.getSection() == null) {
+            return null;
+        }
+        return sectionMasks.computeIfAbsent(query.getSection(), section -> {
+            int[] sectionIds = seatInventory.getSectionIds();
+            String[] sectionNames = seatInventory.getSectionNames();
+            long[] mask = new long[(sectionIds.length + SEATS_PER_WORD - 1) / SEATS_PER_WORD];
+            for (int index = 0; index < sectionIds.length; index++) {
+                if (section.equals(sectionNames[sectionIds[index]])) {
+                    mask[index / SEATS_PER_WORD] |= 1L << index;
+                }
+            }
+            return mask;
+        });
+    }
+}
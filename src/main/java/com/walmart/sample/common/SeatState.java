@@ -0,0 +1,22 @@
+package com.walmart.sample.common;
+
+/**
+ * An enumeration of the states that a seat can have.
+ */
+public enum SeatState {
+
+    /**
+     * The seat can be held.
+     */
+    AVAILABLE,
+
+    /**
+     * The seat is part of a SeatHold that has not been reserved yet.
+     */
+    HELD,
+
+    /**
+     * The seat is part of a reserved SeatHold.
+     */
+    RESERVED
+}
@@ -0,0 +1,338 @@
+package com.walmart.sample.common;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The SeatWaitlist queues the hold requests of a venue that could not be satisfied when they were made.
+ *
+ * Requests wait in one FIFO queue per party size, so a large party at the front never blocks smaller parties that
+ * the freed seats would fit. When seats are freed the oldest request that fits is served first, repeatedly, until
+ * no waiting request fits what is left. A request is settled exactly once, either by being given seats or by
+ * giving up, through a compare-and-set, so a timeout racing a handoff never loses or duplicates seats.
+ */
+public class SeatWaitlist {
+
+    /**
+     * Lock guarding the queues.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Waiting requests by party size, oldest first, guarded by the lock.
+     */
+    private final Map<Integer, ArrayDeque<WaitingRequest>> queues = new HashMap<Integer, ArrayDeque<WaitingRequest>>();
+
+    /**
+     * Order of the next request, guarded by the lock.
+     */
+    private long nextSequence;
+
+    /**
+     * Number of requests waiting that have not been settled.
+     */
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /**
+     * Number of requests given seats after waiting.
+     */
+    private final AtomicLong servedRequests = new AtomicLong();
+
+    /**
+     * Number of requests that gave up waiting.
+     */
+    private final AtomicLong abandonedRequests = new AtomicLong();
+
+    /**
+     * Checks for requests waiting for seats, without taking the lock.
+     *
+     * @return true if at least one request is waiting.
+     */
+    public boolean hasWaitingRequests() {
+        return waiting.get() > 0;
+    }
+
+    /**
+     * Queues a request.
+     *
+     * @param customerEmail the email of the customer.
+     * @param numSeats      the number of seats requested.
+     * @return the waiting request.
+     */
+    public WaitingRequest add(final String customerEmail, final int numSeats) {
+        lock.lock();
+        try {
+            WaitingRequest request = new WaitingRequest(customerEmail, numSeats, nextSequence++);
+            queues.computeIfAbsent(numSeats, size -> new ArrayDeque<WaitingRequest>()).addLast(request);
+            waiting.incrementAndGet();
+            return request;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Settles a request that is about to be given seats.
+     *
+     * @param request the waiting request.
+     * @return false if the request has already been settled.
+     */
+    boolean serve(final WaitingRequest request) {
+        if (!settle(request)) {
+            return false;
+        }
+        servedRequests.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Settles a request that gives up waiting, it is dropped from its queue when next reached.
+     *
+     * @param request the waiting request.
+     * @return false if the request has already been settled.
+     */
+    public boolean abandon(final WaitingRequest request) {
+        if (!settle(request)) {
+            return false;
+        }
+        abandonedRequests.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Hands freed seats to the oldest waiting requests they fit, best seats first.
+     *
+     * @param freedSeats the inventory indexes of the freed seats.
+     * @param served     the list the served requests are added to, each with its seat indexes set.
+     * @return the seats no waiting request took.
+     */
+    int[] handOff(final int[] freedSeats, final List<WaitingRequest> served) {
+        int[] seats = freedSeats.clone();
+        // Inventory indexes are in priority order.
+        Arrays.sort(seats);
+        int next = 0;
+        lock.lock();
+        try {
+            WaitingRequest request = takeOldestFitting(seats.length - next);
+            while (request != null) {
+                if (serve(request)) {
+                    request.seatIndexes = Arrays.copyOfRange(seats, next, next + request.numSeats);
+                    next += request.numSeats;
+                    served.add(request);
+                }
+                request = takeOldestFitting(seats.length - next);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return Arrays.copyOfRange(seats, next, seats.length);
+    }
+
+    /**
+     * Serves the oldest waiting requests that the available seats of an inventory fit.
+     *
+     * @param seatInventory the inventory.
+     * @param served        the list the served requests are added to, each with its seat indexes set.
+     */
+    void serveFrom(final SeatInventory seatInventory, final List<WaitingRequest> served) {
+        lock.lock();
+        try {
+            while (true) {
+                WaitingRequest request = peekOldestFitting(seatInventory.getAvailableCount());
+                if (request == null) {
+                    return;
+                }
+                int[] seatIndexes = seatInventory.claim(request.numSeats);
+                if (seatIndexes == null) {
+                    // Lost the seats to another caller, the next release serves the request.
+                    return;
+                }
+                queues.get(request.numSeats).pollFirst();
+                if (serve(request)) {
+                    request.seatIndexes = seatIndexes;
+                    served.add(request);
+                } else {
+                    seatInventory.release(seatIndexes);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the oldest unsettled request that fits, caller holds the lock.
+     *
+     * @param seats the number of seats available.
+     * @return the request, or null if no waiting request fits.
+     */
+    private WaitingRequest takeOldestFitting(final int seats) {
+        WaitingRequest oldest = peekOldestFitting(seats);
+        if (oldest != null) {
+            queues.get(oldest.numSeats).pollFirst();
+        }
+        return oldest;
+    }
+
+    /**
+     * Finds the oldest unsettled request that fits, dropping settled requests from the front of the queues, caller
+     * holds the lock.
+     *
+     * @param seats the number of seats available.
+     * @return the request, or null if no waiting request fits.
+     */
+    private WaitingRequest peekOldestFitting(final int seats) {
+        WaitingRequest oldest = null;
+        Iterator<ArrayDeque<WaitingRequest>> iterator = queues.values().iterator();
+        while (iterator.hasNext()) {
+            ArrayDeque<WaitingRequest> queue = iterator.next();
+            while (!queue.isEmpty() && queue.peekFirst().settled.get()) {
+                queue.pollFirst();
+            }
+            if (queue.isEmpty()) {
+                iterator.remove();
+            } else {
+                WaitingRequest head = queue.peekFirst();
+                if (head.numSeats <= seats && (oldest == null || head.sequence < oldest.sequence)) {
+                    oldest = head;
+                }
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * Settles a request.
+     *
+     * @param request the waiting request.
+     * @return false if the request has already been settled.
+     */
+    private boolean settle(final WaitingRequest request) {
+        if (!request.settled.compareAndSet(false, true)) {
+            return false;
+        }
+        waiting.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Finds the number of requests waiting for seats.
+     *
+     * @return count of the waiting requests.
+     */
+    public int getWaitingRequests() {
+        return waiting.get();
+    }
+
+    /**
+     * Finds the number of requests given seats after waiting.
+     *
+     * @return count of the served requests.
+     */
+    public long getServedRequests() {
+        return servedRequests.get();
+    }
+
+    /**
+     * Finds the number of requests that gave up waiting.
+     *
+     * @return count of the abandoned requests.
+     */
+    public long getAbandonedRequests() {
+        return abandonedRequests.get();
+    }
+
+    /**
+     * A hold request waiting for seats.
+     */
+    public static final class WaitingRequest {
+
+        /**
+         * The email of the customer.
+         */
+        private final String customerEmail;
+
+        /**
+         * The number of seats requested.
+         */
+        private final int numSeats;
+
+        /**
+         * Order the request was queued in.
+         */
+        private final long sequence;
+
+        /**
+         * Whether the request has been served or abandoned.
+         */
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        /**
+         * The seat hold the request is completed with.
+         */
+        private final CompletableFuture<SeatHold> future = new CompletableFuture<SeatHold>();
+
+        /**
+         * The inventory indexes of the seats given to the request, set when it is served.
+         */
+        private int[] seatIndexes;
+
+        /**
+         * Constructs a waiting request.
+         *
+         * @param customerEmail the email of the customer.
+         * @param numSeats      the number of seats requested.
+         * @param sequence      order the request was queued in.
+         */
+        private WaitingRequest(final String customerEmail, final int numSeats, final long sequence) {
+            this.customerEmail = customerEmail;
+            this.numSeats = numSeats;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Finds the email of the customer.
+         *
+         * @return the customer email.
+         */
+        public String getCustomerEmail() {
+            return customerEmail;
+        }
+
+        /**
+         * Finds the number of seats requested.
+         *
+         * @return the number of seats.
+         */
+        public int getNumSeats() {
+            return numSeats;
+        }
+
+        /**
+         * Finds the future completed with the request's seat hold.
+         *
+         * @return the future.
+         */
+        public CompletableFuture<SeatHold> getFuture() {
+            return future;
+        }
+
+        /**
+         * Finds the seats given to the request.
+         *
+         * @return the inventory indexes of the seats, null until the request is served.
+         */
+        int[] getSeatIndexes() {
+            return seatIndexes;
+        }
+    }
+}
@@ -3,11 +3,12 @@ package com.walmart.sample.common;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.PriorityBlockingQueue;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -17,24 +18,44 @@ import java.util.concurrent.ConcurrentHashMap;
 public class Venue {
 
     /**
-     * Priority queue for available seats.
+     * Lock-free inventory of all seats and their availability.
      */
-    private PriorityBlockingQueue<Seat> availableSeats;
+    private SeatInventory seatInventory;
 
     /**
-     * All seats for the venue.
+     * Seat holds that are held or recently cancelled, by id.
      */
-    private List<Seat> seats;
+    private SeatHoldRegistry seatHoldRegistry;
 
     /**
-     * Seat holds.
+     * Allocator of unique seatHold ids, which may be shared with other venues.
      */
-    private Map<Integer, SeatHold> seatHoldHash;
+    private SeatHoldIdAllocator seatHoldIdAllocator;
 
     /**
-     * Unique Id counter for seatHold.
+     * Ranges of ids drawn from by the threads creating seatHolds.
      */
-    private AtomicInteger seatHoldIdCounter;
+    private SeatHoldIdRanges seatHoldIdRanges;
+
+    /**
+     * Retention of seat holds that are no longer active.
+     */
+    private HoldRetention holdRetention;
+
+    /**
+     * Hold requests waiting for seats to be freed.
+     */
+    private final SeatWaitlist seatWaitlist = new SeatWaitlist();
+
+    /**
+     * Listeners told about every change to the seat holds, replaced as a whole when a listener is added or removed.
+     */
+    private volatile VenueListener[] venueListeners = new VenueListener[0];
+
+    /**
+     * Generator of confirmation codes, shared by every venue.
+     */
+    private static final ConfirmationCodeGenerator CONFIRMATION_CODES = new ConfirmationCodeGenerator();
 
     /**
      * Venue Hold Policy.
@@ -42,26 +63,212 @@ public class Venue {
     public static final int HOLD_EXPIRATION_SECONDS = 3;
 
     /**
-     * Constructs a venue and initializes the seats.
+     * Number of times a hold's expiration may be extended by another HOLD_EXPIRATION_SECONDS.
+     */
+    public static final int MAX_HOLD_EXTENSIONS = 2;
+
+    /**
+     * Constructs a venue and initializes the seats, the seats are packed into the inventory and not retained.
      *
      * @param seats for the entire venue.
      */
     public Venue(final List<Seat> seats) {
-        this.seats = seats;
-        availableSeats = new PriorityBlockingQueue<Seat>(seats.size(), new SeatPriorityComparator());
-        availableSeats.addAll(seats);
-        seatHoldIdCounter = new AtomicInteger();
-        seatHoldHash = new ConcurrentHashMap<Integer, SeatHold>();
+        this(seats, HoldRetentionPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructs a venue with a seat hold retention policy.
+     *
+     * @param seats for the entire venue.
+     * @param retentionPolicy how long seat holds are kept once they are no longer active.
+     */
+    public Venue(final List<Seat> seats, final HoldRetentionPolicy retentionPolicy) {
+        this(seats, retentionPolicy, new SeatHoldIdAllocator());
+    }
+
+    /**
+     * Constructs a venue whose seatHold ids are unique across every venue sharing the id allocator.
+     *
+     * @param seats for the entire venue.
+     * @param retentionPolicy how long seat holds are kept once they are no longer active.
+     * @param seatHoldIdAllocator allocator of unique seatHold ids.
+     */
+    public Venue(final List<Seat> seats, final HoldRetentionPolicy retentionPolicy,
+                 final SeatHoldIdAllocator seatHoldIdAllocator) {
+        this(new SeatInventory(seats), retentionPolicy, seatHoldIdAllocator);
+    }
+
+    /**
+     * Constructs a venue over an existing seat inventory, such as one read from a {@link VenueMap}.
+     *
+     * @param seatInventory the inventory of the venue's seats, owned by the venue from now on.
+     * @param retentionPolicy how long seat holds are kept once they are no longer active.
+     * @param seatHoldIdAllocator allocator of unique seatHold ids.
+     */
+    public Venue(final SeatInventory seatInventory, final HoldRetentionPolicy retentionPolicy,
+                 final SeatHoldIdAllocator seatHoldIdAllocator) {
+        this(seatInventory, retentionPolicy, seatHoldIdAllocator, new CustomerHoldIndex());
+    }
+
+    /**
+     * Constructs a venue whose customers' holds count against the retention policy's per customer limit together
+     * with their holds in every venue sharing the customer index, such as the other shards of one event.
+     *
+     * @param seats for the entire venue.
+     * @param retentionPolicy how long seat holds are kept once they are no longer active.
+     * @param seatHoldIdAllocator allocator of unique seatHold ids.
+     * @param customerHolds index of every customer's seat holds and reservations, which may be shared.
+     */
+    public Venue(final List<Seat> seats, final HoldRetentionPolicy retentionPolicy,
+                 final SeatHoldIdAllocator seatHoldIdAllocator, final CustomerHoldIndex customerHolds) {
+        this(new SeatInventory(seats), retentionPolicy, seatHoldIdAllocator, customerHolds);
     }
 
     /**
-     * Find seatHolds for a venue.
+     * Constructs a venue over an existing seat inventory with a customer index that may be shared.
+     *
+     * @param seatInventory the inventory of the venue's seats, owned by the venue from now on.
+     * @param retentionPolicy how long seat holds are kept once they are no longer active.
+     * @param seatHoldIdAllocator allocator of unique seatHold ids.
+     * @param customerHolds index of every customer's seat holds and reservations, which may be shared.
+     */
+    private Venue(final SeatInventory seatInventory, final HoldRetentionPolicy retentionPolicy,
+                  final SeatHoldIdAllocator seatHoldIdAllocator, final CustomerHoldIndex customerHolds) {
+        this.seatInventory = seatInventory;
+        this.seatHoldIdAllocator = seatHoldIdAllocator;
+        seatHoldIdRanges = new SeatHoldIdRanges(seatHoldIdAllocator, this);
+        seatHoldRegistry = new SeatHoldRegistry();
+        holdRetention = new HoldRetention(retentionPolicy, seatHoldRegistry, customerHolds);
+    }
+
+    /**
+     * Find seatHolds for a venue, reserved seatHolds are rebuilt from the reservation store.
      *
      * @param seatHoldId    Id of seatHold
-     * @return seatHold
+     * @return seatHold, or null if unknown or evicted
      */
     public SeatHold getSeatHold(final int seatHoldId) {
-        return seatHoldHash.get(seatHoldId);
+        SeatHold seatHold = seatHoldRegistry.get(seatHoldId);
+        if (seatHold == null) {
+            seatHold = holdRetention.getReservation(seatHoldId, this, seatInventory);
+        }
+        return seatHold;
+    }
+
+    /**
+     * Find a customer's seatHolds and reservations, cancelled seatHolds are included until they are evicted.
+     *
+     * @param customerEmail the email of the customer.
+     * @return the customer's seatHolds ordered by id
+     */
+    public List<SeatHold> getSeatHolds(final String customerEmail) {
+        int[] seatHoldIds = holdRetention.getSeatHoldIds(customerEmail);
+        List<SeatHold> seatHolds = new ArrayList<SeatHold>(seatHoldIds.length);
+        for (int seatHoldId : seatHoldIds) {
+            SeatHold seatHold = getSeatHold(seatHoldId);
+            // A hold evicted since the ids were read, or one of another venue sharing the index, is skipped.
+            if (seatHold != null) {
+                seatHolds.add(seatHold);
+            }
+        }
+        return seatHolds;
+    }
+
+    /**
+     * Find a reservation by its confirmation code.
+     *
+     * @param confirmationCode the confirmation code given when the seats were reserved.
+     * @return the reserved seatHold, or null if no reservation has the code
+     */
+    public SeatHold getReservation(final String confirmationCode) {
+        return holdRetention.getReservation(confirmationCode, this, seatInventory);
+    }
+
+    /**
+     * Finds the inventory of the venue's seats.
+     *
+     * @return the seat inventory.
+     */
+    SeatInventory getSeatInventory() {
+        return seatInventory;
+    }
+
+    /**
+     * Finds the seat holds kept in the seat hold registry, which are held or recently cancelled.
+     *
+     * @return a copy of the seat holds.
+     */
+    Collection<SeatHold> getSeatHolds() {
+        return seatHoldRegistry.values();
+    }
+
+    /**
+     * Finds the retention of seat holds, including its eviction and rejection metrics.
+     *
+     * @return the hold retention.
+     */
+    public HoldRetention getHoldRetention() {
+        return holdRetention;
+    }
+
+    /**
+     * Finds the hold requests waiting for seats, including their metrics.
+     *
+     * @return the seat waitlist.
+     */
+    public SeatWaitlist getSeatWaitlist() {
+        return seatWaitlist;
+    }
+
+    /**
+     * Adds a listener told about every change to the seat holds.
+     *
+     * @param venueListener the listener.
+     */
+    public synchronized void addVenueListener(final VenueListener venueListener) {
+        VenueListener[] listeners = Arrays.copyOf(venueListeners, venueListeners.length + 1);
+        listeners[listeners.length - 1] = venueListener;
+        venueListeners = listeners;
+    }
+
+    /**
+     * Removes a listener added by {@link #addVenueListener}.
+     *
+     * @param venueListener the listener.
+     */
+    public synchronized void removeVenueListener(final VenueListener venueListener) {
+        List<VenueListener> listeners = new ArrayList<VenueListener>(Arrays.asList(venueListeners));
+        listeners.remove(venueListener);
+        venueListeners = listeners.toArray(new VenueListener[0]);
+    }
+
+    /**
+     * Restores a reservation with the id, confirmation code and seats it was originally given.
+     *
+     * @param seatHoldId the seat hold id.
+     * @param customerEmail the email of the customer.
+     * @param confirmationCode the confirmation code.
+     * @param seatIndexes the inventory indexes of the reserved seats.
+     * @return the reserved seat hold.
+     * @throws VenueException when a seat is no longer available or the id belongs to another venue
+     */
+    public SeatHold restoreReservation(final int seatHoldId, final String customerEmail,
+                                       final String confirmationCode, final int[] seatIndexes) {
+        seatHoldIdAllocator.claimBlock(seatHoldId >>> SeatHoldIdAllocator.BLOCK_BITS, this);
+        if (!seatInventory.claimExact(seatIndexes)) {
+            throw new VenueException("Seats of reservation " + seatHoldId + " are not available.");
+        }
+        SeatHold seatHold = SeatHold.builder()
+            .customerEmail(customerEmail)
+            .seats(seatInventory.getSeats(seatIndexes))
+            .seatIndexes(seatIndexes)
+            .venue(this)
+            .state(ReservationState.RESERVED)
+            .seatHoldId(seatHoldId)
+            .confirmationCode(confirmationCode)
+            .build();
+        holdRetention.reserved(seatHold);
+        return seatHold;
     }
 
     /**
@@ -73,31 +280,286 @@ public class Venue {
      * @throws VenueException when fails to retrieve requested seats
      */
     public final SeatHold getAvailableSeats(final String customerEmail, final int seatsRequested) {
+        return getAvailableSeats(customerEmail, seatsRequested, AllocationMode.BEST_AVAILABLE);
+    }
+
+    /**
+     * Retrieves available seats chosen by an allocation mode.
+     *
+     * @param customerEmail the email of customer requesting seat.
+     * @param seatsRequested the number of seats requested.
+     * @param allocationMode how the seats are chosen.
+     * @return seats    available seats
+     * @throws VenueException when fails to retrieve requested seats
+     */
+    public final SeatHold getAvailableSeats(final String customerEmail, final int seatsRequested,
+                                            final AllocationMode allocationMode) {
 
         // Verify at least one seat is being requested
         if (seatsRequested < 1) {
             throw new VenueException("Must request at least 1 seat.");
         }
+        if (seatsRequested > seatInventory.getAvailableCount()) {
+            throw new VenueException("Number of tickets requested exceeds available tickets.");
+        }
+        holdRetention.admit(customerEmail);
+
+        // Claims all requested seats or none, concurrent callers can't leave each other short.
+        int[] seatIndexes;
+        if (allocationMode == AllocationMode.SEATS_TOGETHER) {
+            seatIndexes = seatInventory.claimTogether(seatsRequested);
+            if (seatIndexes == null) {
+                holdRetention.abandon(customerEmail);
+                throw new VenueException("Number of adjacent seats requested exceeds available seats together.");
+            }
+        } else {
+            seatIndexes = seatInventory.claim(seatsRequested);
+            if (seatIndexes == null) {
+                holdRetention.abandon(customerEmail);
+                throw new VenueException("Number of tickets requested exceeds available tickets.");
+            }
+        }
+        return createSeatHold(customerEmail, seatIndexes);
+    }
+
+    /**
+     * Retrieves the best available seats, or waits for seats to be freed when there are not enough.
+     *
+     * A waiting request is counted against the customer's holds and is handed seats directly as holds are
+     * cancelled or expire, before they return to the inventory. Seats handed to a waiting request are the best of
+     * the freed seats rather than the best of the venue, and the hold's expiration is left to the caller.
+     *
+     * @param customerEmail the email of customer requesting seat.
+     * @param seatsRequested the number of seats requested.
+     * @param maxWaitMillis how long to wait for seats to be freed.
+     * @return future of the seatHold, completed exceptionally with a VenueException if no seats were freed in time
+     * @throws VenueException when the request can never be satisfied or the customer can't hold more seats
+     */
+    public final CompletableFuture<SeatHold> getAvailableSeatsOrWait(final String customerEmail,
+                                                                     final int seatsRequested,
+                                                                     final long maxWaitMillis) {
+        if (seatsRequested < 1) {
+            throw new VenueException("Must request at least 1 seat.");
+        }
+        if (seatsRequested > seatInventory.size()) {
+            throw new VenueException("Number of tickets requested exceeds the seats of the venue.");
+        }
+        holdRetention.admit(customerEmail);
+        if (!seatWaitlist.hasWaitingRequests()) {
+            int[] seatIndexes = seatInventory.claim(seatsRequested);
+            if (seatIndexes != null) {
+                return CompletableFuture.completedFuture(createSeatHold(customerEmail, seatIndexes));
+            }
+        }
+
+        SeatWaitlist.WaitingRequest request = seatWaitlist.add(customerEmail, seatsRequested);
+        // Seats released before the request was queued did not see it, serve it from the inventory.
+        List<SeatWaitlist.WaitingRequest> served = new ArrayList<SeatWaitlist.WaitingRequest>();
+        seatWaitlist.serveFrom(seatInventory, served);
+        completeServed(served);
+
+        // The deadline's timer is cancelled and dropped from the delay queue as soon as the request completes, so
+        // requests that are served don't leave timers behind.
+        CompletableFuture<Void> deadline =
+            new CompletableFuture<Void>().orTimeout(maxWaitMillis, TimeUnit.MILLISECONDS);
+        deadline.whenComplete((ignored, e) -> {
+            if (e != null && seatWaitlist.abandon(request)) {
+                holdRetention.abandon(customerEmail);
+                request.getFuture().completeExceptionally(
+                    new VenueException("Timed out on the waitlist, try again later."));
+            }
+        });
+        request.getFuture().whenComplete((seatHold, e) -> {
+            deadline.complete(null);
+            // A caller cancelling the future gives up its place.
+            if (e != null && seatWaitlist.abandon(request)) {
+                holdRetention.abandon(customerEmail);
+            }
+        });
+        return request.getFuture();
+    }
+
+    /**
+     * Returns seats to the inventory, handing them to waiting requests first.
+     *
+     * @param seatIndexes the inventory indexes of the freed seats.
+     */
+    private void releaseSeats(final int[] seatIndexes) {
+        if (!seatWaitlist.hasWaitingRequests()) {
+            seatInventory.release(seatIndexes);
+            // A request queued while the seats were released is served below.
+            if (!seatWaitlist.hasWaitingRequests()) {
+                return;
+            }
+        } else {
+            List<SeatWaitlist.WaitingRequest> served = new ArrayList<SeatWaitlist.WaitingRequest>();
+            seatInventory.release(seatWaitlist.handOff(seatIndexes, served));
+            completeServed(served);
+        }
+        // Requests the freed seats did not fit may fit the seats now available.
+        List<SeatWaitlist.WaitingRequest> served = new ArrayList<SeatWaitlist.WaitingRequest>();
+        seatWaitlist.serveFrom(seatInventory, served);
+        completeServed(served);
+    }
 
-        List<Seat> seats = new ArrayList<Seat>();
-        if (seatsRequested > availableSeats.size()) {
+    /**
+     * Creates the seat holds of waiting requests that were given seats and completes their futures.
+     *
+     * @param served the served requests.
+     */
+    private void completeServed(final List<SeatWaitlist.WaitingRequest> served) {
+        for (SeatWaitlist.WaitingRequest request : served) {
+            SeatHold seatHold = createSeatHold(request.getCustomerEmail(), request.getSeatIndexes());
+            if (!request.getFuture().complete(seatHold)) {
+                // The caller cancelled the future after the seats were handed over.
+                cancelSeatHold(seatHold);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the best available seats of one seat quality.
+     *
+     * @param customerEmail the email of customer requesting seat.
+     * @param seatsRequested the number of seats requested.
+     * @param seatQuality the quality of the seats.
+     * @return seats    best available seats of the quality
+     * @throws VenueException when fails to retrieve requested seats
+     */
+    public final SeatHold getAvailableSeatsInTier(final String customerEmail, final int seatsRequested,
+                                                  final int seatQuality) {
+        if (seatsRequested < 1) {
+            throw new VenueException("Must request at least 1 seat.");
+        }
+        int tier = seatInventory.findTier(seatQuality);
+        if (tier < 0 || seatsRequested > seatInventory.getAvailableCount(tier)) {
+            throw new VenueException("Number of tickets requested exceeds available tickets of quality "
+                + seatQuality + ".");
+        }
+        holdRetention.admit(customerEmail);
+        int[] seatIndexes = seatInventory.claimInTier(tier, seatsRequested);
+        if (seatIndexes == null) {
+            holdRetention.abandon(customerEmail);
+            throw new VenueException("Number of tickets requested exceeds available tickets of quality "
+                + seatQuality + ".");
+        }
+        return createSeatHold(customerEmail, seatIndexes);
+    }
+
+    /**
+     * Retrieves the best available seats matching a query.
+     *
+     * @param customerEmail the email of customer requesting seat.
+     * @param seatsRequested the number of seats requested.
+     * @param query the constraints on the seats, including how they are chosen.
+     * @return seats    best available seats matching the query
+     * @throws VenueException when fails to retrieve requested seats
+     */
+    public final SeatHold getAvailableSeats(final String customerEmail, final int seatsRequested,
+                                            final SeatQuery query) {
+        if (seatsRequested < 1) {
+            throw new VenueException("Must request at least 1 seat.");
+        }
+        if (seatsRequested > seatInventory.getAvailableCount()) {
             throw new VenueException("Number of tickets requested exceeds available tickets.");
         }
-        availableSeats.drainTo(seats, seatsRequested);
+        holdRetention.admit(customerEmail);
+        int[] seatIndexes = seatInventory.claim(query, seatsRequested);
+        if (seatIndexes == null) {
+            holdRetention.abandon(customerEmail);
+            throw new VenueException("Number of tickets requested exceeds available tickets matching the search.");
+        }
+        return createSeatHold(customerEmail, seatIndexes);
+    }
+
+    /**
+     * Retrieves available seats for a batch of requests in a single pass over the inventory.
+     *
+     * Each request is held all or nothing, a request that can't be satisfied fails without affecting the others.
+     *
+     * @param holdRequests the requests.
+     * @return the result of each request, in the order of the requests.
+     */
+    public final List<HoldResult> getAvailableSeats(final List<HoldRequest> holdRequests) {
+        HoldResult[] results = new HoldResult[holdRequests.size()];
+        int[] counts = new int[holdRequests.size()];
+
+        for (int i = 0; i < results.length; i++) {
+            HoldRequest holdRequest = holdRequests.get(i);
+            if (holdRequest.getNumSeats() < 1) {
+                results[i] = failedHold(holdRequest, "Must request at least 1 seat.");
+            } else if (holdRequest.getAllocationMode() == AllocationMode.SEATS_TOGETHER) {
+                // Adjacent seats come from the run index one request at a time.
+                try {
+                    results[i] = HoldResult.builder().request(holdRequest).seatHold(getAvailableSeats(
+                        holdRequest.getCustomerEmail(), holdRequest.getNumSeats(), AllocationMode.SEATS_TOGETHER))
+                        .build();
+                } catch (VenueException e) {
+                    results[i] = failedHold(holdRequest, e.getMessage());
+                }
+            } else {
+                try {
+                    holdRetention.admit(holdRequest.getCustomerEmail());
+                    counts[i] = holdRequest.getNumSeats();
+                } catch (VenueException e) {
+                    results[i] = failedHold(holdRequest, e.getMessage());
+                }
+            }
+        }
+
+        int[][] claimed = seatInventory.claim(counts);
+        for (int i = 0; i < results.length; i++) {
+            if (counts[i] > 0) {
+                if (claimed[i] == null) {
+                    holdRetention.abandon(holdRequests.get(i).getCustomerEmail());
+                    results[i] = failedHold(holdRequests.get(i), "Number of tickets requested exceeds available tickets.");
+                } else {
+                    results[i] = HoldResult.builder().request(holdRequests.get(i))
+                        .seatHold(createSeatHold(holdRequests.get(i).getCustomerEmail(), claimed[i])).build();
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Builds the result of a failed hold request.
+     *
+     * @param holdRequest the request.
+     * @param error why the request failed.
+     * @return the failed result.
+     */
+    private static HoldResult failedHold(final HoldRequest holdRequest, final String error) {
+        return HoldResult.builder().request(holdRequest).error(error).build();
+    }
+
+    /**
+     * Creates and registers a seat hold for claimed seats.
+     *
+     * @param customerEmail the email of customer holding the seats.
+     * @param seatIndexes the inventory indexes of the claimed seats.
+     * @return the seat hold.
+     */
+    private SeatHold createSeatHold(final String customerEmail, final int[] seatIndexes) {
+        List<Seat> seats = seatInventory.getSeats(seatIndexes);
 
-        int seatHoldId = seatHoldIdCounter.incrementAndGet();
+        int seatHoldId = seatHoldIdRanges.nextId();
 
-        //TODO for simplicity made confirmation code a concatenation of hold code and email.
         SeatHold seatHold = SeatHold.builder()
             .customerEmail(customerEmail)
             .seats(seats)
+            .seatIndexes(seatIndexes)
             .venue(this)
             .state(ReservationState.HOLD)
             .seatHoldId(seatHoldId)
-            .confirmationCode(customerEmail + seatHoldId)
+            .confirmationCode(CONFIRMATION_CODES.nextCode())
             .build();
 
-        seatHoldHash.put(seatHold.getSeatHoldId(), seatHold);
+        for (VenueListener listener : venueListeners) {
+            listener.seatHoldCreated(seatHold);
+        }
+        seatHoldRegistry.put(seatHold);
+        holdRetention.held(seatHold);
 
         return seatHold;
     }
@@ -108,13 +570,14 @@ public class Venue {
      * @param seatHoldId    The id of the SeatHold
      * @param customerEmail The customer email
      * @param state         The target state
-     * @return boolean value it atomic replace occured.
+     * @return boolean value it atomic replace occured, false if the hold belongs to another customer.
      */
     public final boolean updateSeatHoldState(final int seatHoldId, final String customerEmail, final ReservationState state) {
-        log.debug("Updating seat hold " + seatHoldId + " state to " + state);
+        log.debug("Updating seat hold {} state to {}", seatHoldId, state);
 
-        SeatHold originalSeatHold = seatHoldHash.get(seatHoldId);
-        return updateSeatHoldState(originalSeatHold, state);
+        SeatHold originalSeatHold = seatHoldRegistry.get(seatHoldId);
+        return originalSeatHold != null && originalSeatHold.isHeldBy(customerEmail)
+            && updateSeatHoldState(originalSeatHold, state);
     }
 
     /**
@@ -124,49 +587,249 @@ public class Venue {
      * @return boolean value if seat cancelled.
      */
     public final boolean cancelSeatHold(final SeatHold seatHold) {
-        log.debug("Cancelling seatHold " + seatHold.getSeatHoldId());
+        log.debug("Cancelling seatHold {}", seatHold.getSeatHoldId());
 
-        boolean seatHoldCancelled = updateSeatHoldState(seatHold, ReservationState.CANCELLED);
+        boolean seatHoldCancelled = changeSeatHoldState(seatHold, ReservationState.CANCELLED);
 
-        // updateSeatHoldState can fail when seatHold is reserved before expiration.
+        // changeSeatHoldState can fail when seatHold is reserved before expiration.
         if (seatHoldCancelled) {
-            log.debug("Canceled seatHold " + seatHold.getSeatHoldId());
-            availableSeats.addAll(seatHold.getSeats());
+            log.debug("Canceled seatHold {}", seatHold.getSeatHoldId());
+            // Listeners hear of the cancellation before the seats can be held again.
+            notifyCancelled(Collections.singletonList(seatHold));
+            releaseSeats(seatHold.getSeatIndexes());
         }
         return seatHoldCancelled;
     }
 
+    /**
+     * Cancel SeatHolds in bulk, returning all of their seats to the inventory at once.
+     *
+     * @param seatHolds    The seat holds being cancelled.
+     * @return number of seat holds cancelled.
+     */
+    public final int cancelSeatHolds(final List<SeatHold> seatHolds) {
+        List<SeatHold> cancelled = new ArrayList<SeatHold>(seatHolds.size());
+        int seatCount = 0;
+        for (SeatHold seatHold : seatHolds) {
+            // changeSeatHoldState can fail when seatHold is reserved before expiration.
+            if (changeSeatHoldState(seatHold, ReservationState.CANCELLED)) {
+                cancelled.add(seatHold);
+                seatCount += seatHold.getSeatIndexes().length;
+            }
+        }
+
+        int[] seatIndexes = new int[seatCount];
+        int next = 0;
+        for (SeatHold seatHold : cancelled) {
+            System.arraycopy(seatHold.getSeatIndexes(), 0, seatIndexes, next, seatHold.getSeatIndexes().length);
+            next += seatHold.getSeatIndexes().length;
+        }
+        if (!cancelled.isEmpty()) {
+            notifyCancelled(cancelled);
+        }
+        releaseSeats(seatIndexes);
+        log.debug("Canceled {} of {} seatHolds", cancelled.size(), seatHolds.size());
+        return cancelled.size();
+    }
+
     /**
      * Updates the SeatHold State Atomically.
      *
-     * @param originalSeatHold  The id of the SeatHold
+     * Only a seatHold in the HOLD state can be reserved or cancelled, so when a reservation and an expiration race
+     * exactly one of them wins the compare-and-set.
+     *
+     * @param originalSeatHold  The SeatHold
      * @param state             The target state
-     * @return boolean value it atomic replace occured.
+     * @return boolean value if the state was changed.
      */
     public final boolean updateSeatHoldState(final SeatHold originalSeatHold, final ReservationState state) {
+        if (state == ReservationState.RESERVED) {
+            return reserveSeatHold(originalSeatHold);
+        }
+        if (!changeSeatHoldState(originalSeatHold, state)) {
+            return false;
+        }
+        if (state == ReservationState.CANCELLED) {
+            notifyCancelled(Collections.singletonList(originalSeatHold));
+        }
+        return true;
+    }
 
-        log.debug("Updating seatHold state of " + originalSeatHold.getSeatHoldId() + " from " + originalSeatHold.getState() + " to " + state);
-        if (state == ReservationState.RESERVED && originalSeatHold.getState() == ReservationState.CANCELLED) {
+    /**
+     * Reserves a SeatHold once every listener has accepted the reservation.
+     *
+     * The reservation is only moved to the reservation store after the listeners return, so when one of them throws,
+     * a journal that could not make the reservation durable for instance, the hold is cancelled instead, every
+     * listener hears of the cancellation and the seats are released before the failure reaches the caller.
+     *
+     * @param seatHold  The SeatHold
+     * @return boolean value if the hold was reserved, false if it was no longer held.
+     */
+    private boolean reserveSeatHold(final SeatHold seatHold) {
+        if (!seatHold.compareAndSetState(ReservationState.HOLD, ReservationState.RESERVED)) {
+            log.debug("Failed to set state of {} to {}", seatHold.getSeatHoldId(), ReservationState.RESERVED);
             return false;
-        } else {
-            SeatHold seatHold = SeatHold.builder()
-                .seatHoldId(originalSeatHold.getSeatHoldId())
-                .customerEmail(originalSeatHold.getCustomerEmail())
-                .confirmationCode(originalSeatHold.getConfirmationCode())
-                .seats(originalSeatHold.getSeats())
-                .state(state)
-                .venue(originalSeatHold.getVenue()).build();
-
-            // Concurrent Hashmap only replaces if original state is same
-            if (seatHoldHash.replace(seatHold.getSeatHoldId(), originalSeatHold, seatHold)) {
-                originalSeatHold.setState(state);
-                log.debug("Successfully set state of " + originalSeatHold.getSeatHoldId() + " to " + state);
-                return true;
-            } else {
-                log.debug("Failed to set state of " + originalSeatHold.getSeatHoldId() + " to " + state);
-                return false;
+        }
+        try {
+            for (VenueListener listener : venueListeners) {
+                listener.seatHoldReserved(seatHold);
             }
+        } catch (RuntimeException e) {
+            log.warn("Rolling back reservation of seatHold {}", seatHold.getSeatHoldId(), e);
+            seatHold.compareAndSetState(ReservationState.RESERVED, ReservationState.CANCELLED);
+            holdRetention.cancelled(seatHold);
+            notifyCancelled(Collections.singletonList(seatHold));
+            releaseSeats(seatHold.getSeatIndexes());
+            throw e;
+        }
+        log.debug("Successfully set state of {} to {}", seatHold.getSeatHoldId(), ReservationState.RESERVED);
+        holdRetention.reserved(seatHold);
+        return true;
+    }
+
+    /**
+     * Changes the SeatHold State Atomically without telling the listeners.
+     *
+     * @param originalSeatHold  The SeatHold
+     * @param state             The target state
+     * @return boolean value if the state was changed.
+     */
+    private boolean changeSeatHoldState(final SeatHold originalSeatHold, final ReservationState state) {
+        if (!originalSeatHold.compareAndSetState(ReservationState.HOLD, state)) {
+            log.debug("Failed to set state of {} to {}", originalSeatHold.getSeatHoldId(), state);
+            return false;
+        }
+        log.debug("Successfully set state of {} to {}", originalSeatHold.getSeatHoldId(), state);
+        if (state == ReservationState.CANCELLED) {
+            holdRetention.cancelled(originalSeatHold);
         }
+        return true;
+    }
+
+    /**
+     * Tells the listeners that seat holds were cancelled.
+     *
+     * @param seatHolds the cancelled seat holds.
+     */
+    private void notifyCancelled(final List<SeatHold> seatHolds) {
+        for (VenueListener listener : venueListeners) {
+            listener.seatHoldsCancelled(seatHolds);
+        }
+    }
+
+    /**
+     * Finds the number of compare-and-set failures while claiming seats, a measure of contention between callers.
+     *
+     * @return count of the failed claim attempts.
+     */
+    public long getFailedClaimAttempts() {
+        return seatInventory.getFailedClaimAttempts();
+    }
+
+    /**
+     * Finds the number of available seats of one seat quality.
+     *
+     * @param seatQuality the quality of the seats.
+     * @return count of the available seats of the quality.
+     */
+    public int getNumberOfAvailableSeats(final int seatQuality) {
+        int tier = seatInventory.findTier(seatQuality);
+        return tier < 0 ? 0 : seatInventory.getAvailableCount(tier);
+    }
+
+    /**
+     * Finds the number of available seats matching a query.
+     *
+     * @param query the constraints on the seats.
+     * @return count of the available seats matching the query.
+     */
+    public int getNumberOfAvailableSeats(final SeatQuery query) {
+        return seatInventory.getAvailableCount(query);
+    }
+
+    /**
+     * Finds the number of available seats in a section.
+     *
+     * @param section the section.
+     * @return count of the available seats of the section.
+     */
+    public int getNumberOfAvailableSeatsInSection(final String section) {
+        return seatInventory.getAvailableCountInSection(section);
+    }
+
+    /**
+     * Finds the number of available seats in a row of a section.
+     *
+     * @param section   the section.
+     * @param rowNumber the row number.
+     * @return count of the available seats of the row.
+     */
+    public int getNumberOfAvailableSeatsInRow(final String section, final int rowNumber) {
+        return seatInventory.getAvailableCountInRow(section, rowNumber);
+    }
+
+    /**
+     * Finds the quality of the best available seat.
+     *
+     * @return the seat quality, Integer.MIN_VALUE if no seat is available.
+     */
+    public int getBestAvailableQuality() {
+        int tier = seatInventory.findBestAvailableTier();
+        return tier < 0 ? Integer.MIN_VALUE : seatInventory.getTierQuality(tier);
+    }
+
+    /**
+     * Finds the best available seat of one seat quality without holding it.
+     *
+     * @param seatQuality the quality of the seat.
+     * @return the seat, or null if no seat of the quality is available.
+     */
+    public Seat getBestAvailableSeat(final int seatQuality) {
+        int tier = seatInventory.findTier(seatQuality);
+        int index = tier < 0 ? -1 : seatInventory.findBestAvailable(tier);
+        return index < 0 ? null : seatInventory.getSeat(index);
+    }
+
+    /**
+     * Finds a seat by its index in the venue, the order of seats in {@link #getSeatStates()}.
+     *
+     * @param seatIndex the index of the seat.
+     * @return the seat.
+     */
+    public Seat getSeat(final int seatIndex) {
+        return seatInventory.getSeat(seatIndex);
+    }
+
+    /**
+     * Finds the state of every seat, seats that are not available and not part of a held seatHold are reserved.
+     *
+     * The states are read seat by seat while holds change, a listener added before the call hears of every change
+     * the result may have missed.
+     *
+     * @return the state of each seat by its index in the venue.
+     */
+    public SeatState[] getSeatStates() {
+        SeatState[] states = new SeatState[seatInventory.size()];
+        for (int index = 0; index < states.length; index++) {
+            states[index] = seatInventory.isAvailable(index) ? SeatState.AVAILABLE : SeatState.RESERVED;
+        }
+        for (SeatHold seatHold : seatHoldRegistry.values()) {
+            if (seatHold.getState() == ReservationState.HOLD) {
+                for (int index : seatHold.getSeatIndexes()) {
+                    states[index] = SeatState.HELD;
+                }
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Finds the number of seats in the venue.
+     *
+     * @return count of all seats.
+     */
+    public int getNumberOfSeats() {
+        return seatInventory.size();
     }
 
     /**
@@ -175,7 +838,7 @@ public class Venue {
      * @return count of the available seats.
      */
     public int getNumberOfAvailableSeats() {
-        return availableSeats.size();
+        return seatInventory.getAvailableCount();
     }
 
 }
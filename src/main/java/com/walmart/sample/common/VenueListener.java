@@ -0,0 +1,34 @@
+package com.walmart.sample.common;
+
+import java.util.List;
+
+/**
+ * The VenueListener is told about every change to a venue's seat holds.
+ *
+ * Listeners are called on the thread making the change, after the change has won its compare-and-set, so they see
+ * the changes of one seat hold in order.
+ */
+public interface VenueListener {
+
+    /**
+     * Called when a seat hold is created, before it can be found by id.
+     *
+     * @param seatHold the new seat hold.
+     */
+    void seatHoldCreated(SeatHold seatHold);
+
+    /**
+     * Called when a seat hold is reserved, before the reservation is confirmed to the caller. Throwing rolls the
+     * reservation back, the hold is cancelled and every listener hears of the cancellation.
+     *
+     * @param seatHold the reserved seat hold.
+     */
+    void seatHoldReserved(SeatHold seatHold);
+
+    /**
+     * Called when seat holds are cancelled.
+     *
+     * @param seatHolds the cancelled seat holds.
+     */
+    void seatHoldsCancelled(List<SeatHold> seatHolds);
+}
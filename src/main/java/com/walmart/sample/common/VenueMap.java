@@ -0,0 +1,244 @@
+package com.walmart.sample.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * The VenueMap is a compact binary file of a venue's seats and which of them are available.
+ *
+ * Seats are stored in priority order as arrays of row numbers, seat numbers, qualities and sections, followed by
+ * the bitset of available seats, the section names and a CRC32 of everything before it. Loading a venue is a few bulk
+ * copies out of a memory mapping, no {@link Seat} objects are created and nothing is sorted.
+ *
+ * Only seat availability is stored, not the seat holds themselves. Seats on hold are written as available, since
+ * a hold does not outlive the venue that made it, and reserved seats are written as unavailable.
+ */
+public final class VenueMap {
+
+    /**
+     * Marks the start of a venue map file.
+     */
+    private static final int MAGIC = 0x564d4150;
+
+    /**
+     * Version of the venue map format. Version 2 added sections, version 1 maps are not loaded and have to be written
+     * again.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Size of the magic, version, seat count, word count, section count and section name size at the start of the
+     * file.
+     */
+    private static final int HEADER_BYTES = 6 * Integer.BYTES;
+
+    /**
+     * Length written in place of a section name that is null.
+     */
+    private static final int NULL_NAME = -1;
+
+    /**
+     * Not instantiated.
+     */
+    private VenueMap() {
+    }
+
+    /**
+     * Writes the seats of a venue and their availability.
+     *
+     * The venue can keep taking requests while it is written, but holds and reservations made meanwhile may or may
+     * not be reflected in the file.
+     *
+     * @param venue the venue.
+     * @param path  the venue map file, replaced atomically.
+     * @throws VenueException when the file can not be written
+     */
+    public static void write(final Venue venue, final Path path) {
+        SeatInventory seatInventory = venue.getSeatInventory();
+        long[] freeSeats = seatInventory.copyFreeSeats();
+        for (SeatHold seatHold : venue.getSeatHolds()) {
+            if (seatHold.getState() == ReservationState.HOLD) {
+                for (int seatIndex : seatHold.getSeatIndexes()) {
+                    freeSeats[seatIndex / Long.SIZE] |= 1L << (seatIndex % Long.SIZE);
+                }
+            }
+        }
+
+        int seatCount = seatInventory.size();
+        String[] sectionNames = seatInventory.getSectionNames();
+        byte[][] encodedNames = new byte[sectionNames.length][];
+        int namesBytes = 0;
+        for (int section = 0; section < sectionNames.length; section++) {
+            if (sectionNames[section] != null) {
+                encodedNames[section] = sectionNames[section].getBytes(StandardCharsets.UTF_8);
+                namesBytes += encodedNames[section].length;
+            }
+            namesBytes += Integer.BYTES;
+        }
+        int dataBytes = HEADER_BYTES + 4 * Integer.BYTES * seatCount + Long.BYTES * freeSeats.length + namesBytes;
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, dataBytes + Long.BYTES);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(seatCount).putInt(freeSeats.length)
+                .putInt(sectionNames.length).putInt(namesBytes);
+            putInts(buffer, seatInventory.getRowNumbers());
+            putInts(buffer, seatInventory.getSeatNumbers());
+            putInts(buffer, seatInventory.getSeatQualities());
+            putInts(buffer, seatInventory.getSectionIds());
+            buffer.asLongBuffer().put(freeSeats);
+            buffer.position(buffer.position() + Long.BYTES * freeSeats.length);
+            for (byte[] encodedName : encodedNames) {
+                if (encodedName == null) {
+                    buffer.putInt(NULL_NAME);
+                } else {
+                    buffer.putInt(encodedName.length).put(encodedName);
+                }
+            }
+            buffer.putLong(checksum(buffer, dataBytes));
+            buffer.force();
+        } catch (IOException e) {
+            throw new VenueException("Unable to write venue map " + path + ": " + e.getMessage());
+        }
+        try {
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new VenueException("Unable to write venue map " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads a venue with the default retention policy and its own seat hold ids.
+     *
+     * @param path                the venue map file.
+     * @param restoreAvailability true to keep the seats that were unavailable when the map was written unavailable,
+     *                            false to make every seat available, as needed before reservations are recovered
+     *                            from a journal.
+     * @return the venue.
+     * @throws VenueException when the file can not be read or is not a valid venue map
+     */
+    public static Venue load(final Path path, final boolean restoreAvailability) {
+        return load(path, restoreAvailability, HoldRetentionPolicy.DEFAULT, new SeatHoldIdAllocator());
+    }
+
+    /**
+     * Loads a venue.
+     *
+     * @param path                the venue map file.
+     * @param restoreAvailability true to keep the seats that were unavailable when the map was written unavailable,
+     *                            false to make every seat available.
+     * @param retentionPolicy     how long seat holds are kept once they are no longer active.
+     * @param seatHoldIdAllocator allocator of unique seatHold ids.
+     * @return the venue.
+     * @throws VenueException when the file can not be read or is not a valid venue map
+     */
+    public static Venue load(final Path path, final boolean restoreAvailability,
+                             final HoldRetentionPolicy retentionPolicy, final SeatHoldIdAllocator seatHoldIdAllocator) {
+        return new Venue(read(path, restoreAvailability), retentionPolicy, seatHoldIdAllocator);
+    }
+
+    /**
+     * Reads the seat inventory of a venue map.
+     *
+     * @param path                the venue map file.
+     * @param restoreAvailability true to keep the seats that were unavailable when the map was written unavailable.
+     * @return the seat inventory.
+     * @throws VenueException when the file can not be read or is not a valid venue map
+     */
+    static SeatInventory read(final Path path, final boolean restoreAvailability) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new VenueException("File " + path + " is not a venue map.");
+            }
+            int seatCount = buffer.getInt();
+            int words = buffer.getInt();
+            int sectionCount = buffer.getInt();
+            int namesBytes = buffer.getInt();
+            long dataBytes = HEADER_BYTES + 4L * Integer.BYTES * seatCount + (long) Long.BYTES * words + namesBytes;
+            if (seatCount < 0 || words != (seatCount + Long.SIZE - 1) / Long.SIZE || sectionCount < 0
+                || namesBytes < (long) Integer.BYTES * sectionCount || buffer.capacity() != dataBytes + Long.BYTES) {
+                throw new VenueException("Venue map " + path + " is truncated.");
+            }
+            if (buffer.getLong((int) dataBytes) != checksum(buffer, (int) dataBytes)) {
+                throw new VenueException("Venue map " + path + " is corrupt.");
+            }
+
+            int[] rowNumbers = getInts(buffer, seatCount);
+            int[] seatNumbers = getInts(buffer, seatCount);
+            int[] seatQualities = getInts(buffer, seatCount);
+            int[] sectionIds = getInts(buffer, seatCount);
+            long[] freeSeats = new long[words];
+            if (restoreAvailability) {
+                buffer.asLongBuffer().get(freeSeats);
+            } else {
+                for (int word = 0; word < words; word++) {
+                    int seatsInWord = Math.min(Long.SIZE, seatCount - word * Long.SIZE);
+                    freeSeats[word] = seatsInWord == Long.SIZE ? -1L : (1L << seatsInWord) - 1;
+                }
+            }
+            buffer.position(buffer.position() + Long.BYTES * words);
+            String[] sectionNames = new String[sectionCount];
+            for (int section = 0; section < sectionCount; section++) {
+                int length = buffer.getInt();
+                if (length != NULL_NAME) {
+                    byte[] encodedName = new byte[length];
+                    buffer.get(encodedName);
+                    sectionNames[section] = new String(encodedName, StandardCharsets.UTF_8);
+                }
+            }
+            return new SeatInventory(rowNumbers, seatNumbers, seatQualities, sectionIds, sectionNames, freeSeats);
+        } catch (IOException e) {
+            throw new VenueException("Unable to read venue map " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes ints in bulk and moves past them.
+     *
+     * @param buffer the buffer.
+     * @param values the ints.
+     */
+    private static void putInts(final ByteBuffer buffer, final int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + Integer.BYTES * values.length);
+    }
+
+    /**
+     * Reads ints in bulk and moves past them.
+     *
+     * @param buffer the buffer.
+     * @param count  number of ints.
+     * @return the ints.
+     */
+    private static int[] getInts(final ByteBuffer buffer, final int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + Integer.BYTES * count);
+        return values;
+    }
+
+    /**
+     * Computes the checksum of the start of a buffer.
+     *
+     * @param buffer the buffer.
+     * @param length number of bytes covered by the checksum.
+     * @return the checksum.
+     */
+    private static long checksum(final ByteBuffer buffer, final int length) {
+        ByteBuffer data = buffer.duplicate();
+        data.position(0);
+        data.limit(length);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+}
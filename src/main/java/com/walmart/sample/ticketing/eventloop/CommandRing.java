@@ -0,0 +1,180 @@
+package com.walmart.sample.ticketing.eventloop;
+
+import com.walmart.sample.common.VenueException;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The CommandRing is a bounded ring of commands written by many threads and run by a single consumer.
+ *
+ * A producer claims the next sequence with a compare-and-set, waits while the ring is full, writes its command into
+ * the slot of the sequence and then publishes the slot by storing the sequence in the slot's published marker. The
+ * consumer runs the commands strictly in sequence order, a slot being ready once its marker holds the sequence the
+ * consumer expects, so commands claimed at the same time but published out of order are still run in order and a
+ * slow producer never lets a later lap overwrite its slot.
+ *
+ * Closing sets the high bit of the claim sequence, so no command is claimed after the ring is closed and the
+ * consumer knows exactly how many commands it still has to run.
+ */
+public class CommandRing {
+
+    /**
+     * Bit of the claim sequence set once the ring is closed.
+     */
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    /**
+     * Commands by slot, written before the slot is published.
+     */
+    private final Runnable[] commands;
+
+    /**
+     * Sequence last published in each slot.
+     */
+    private final AtomicLongArray published;
+
+    /**
+     * Mask for finding the slot of a sequence.
+     */
+    private final int mask;
+
+    /**
+     * Next sequence to be claimed by a producer, with the closed bit.
+     */
+    private final AtomicLong claimSequence = new AtomicLong();
+
+    /**
+     * Next sequence to be run by the consumer, producers wait on it when the ring is full.
+     */
+    private final AtomicLong consumedSequence = new AtomicLong();
+
+    /**
+     * Constructs a ring.
+     *
+     * @param capacity number of slots, rounded up to a power of two.
+     * @throws VenueException when the capacity is not positive
+     */
+    public CommandRing(final int capacity) {
+        if (capacity < 1) {
+            throw new VenueException("Ring capacity must be positive.");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        commands = new Runnable[size];
+        published = new AtomicLongArray(size);
+        for (int slot = 0; slot < size; slot++) {
+            published.set(slot, -1L);
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Adds a command, waiting while the ring is full.
+     *
+     * @param command the command.
+     * @return false if the ring is closed.
+     */
+    public boolean publish(final Runnable command) {
+        long sequence;
+        do {
+            sequence = claimSequence.get();
+            if ((sequence & CLOSED) != 0) {
+                return false;
+            }
+        } while (!claimSequence.compareAndSet(sequence, sequence + 1));
+
+        // The slot is free once the consumer has run the command a lap behind.
+        while (sequence - consumedSequence.get() >= commands.length) {
+            LockSupport.parkNanos(1);
+        }
+        int slot = (int) sequence & mask;
+        commands[slot] = command;
+        published.set(slot, sequence);
+        return true;
+    }
+
+    /**
+     * Runs the published commands in order, consumer only.
+     *
+     * @param maxCommands the most commands to run.
+     * @return the number of commands run.
+     */
+    public int drain(final int maxCommands) {
+        long next = consumedSequence.get();
+        int ran = 0;
+        while (ran < maxCommands) {
+            int slot = (int) next & mask;
+            if (published.get(slot) != next) {
+                break;
+            }
+            Runnable command = commands[slot];
+            commands[slot] = null;
+            // Frees the slot before running so a producer waiting on a full ring isn't held up by the command.
+            consumedSequence.set(++next);
+            ran++;
+            command.run();
+        }
+        return ran;
+    }
+
+    /**
+     * Checks whether the next command is ready to run, consumer only.
+     *
+     * @return true if the next command has been published.
+     */
+    public boolean hasPublished() {
+        long next = consumedSequence.get();
+        return published.get((int) next & mask) == next;
+    }
+
+    /**
+     * Stops accepting commands, those already claimed are still run.
+     */
+    public void close() {
+        long sequence;
+        do {
+            sequence = claimSequence.get();
+        } while ((sequence & CLOSED) == 0 && !claimSequence.compareAndSet(sequence, sequence | CLOSED));
+    }
+
+    /**
+     * Checks whether the ring is closed and every command claimed before closing has run.
+     *
+     * @return true if the consumer has nothing left to run.
+     */
+    public boolean isDrained() {
+        long sequence = claimSequence.get();
+        return (sequence & CLOSED) != 0 && consumedSequence.get() == (sequence & ~CLOSED);
+    }
+
+    /**
+     * Finds the number of slots.
+     *
+     * @return the capacity of the ring.
+     */
+    public int getCapacity() {
+        return commands.length;
+    }
+
+    /**
+     * Finds the number of commands claimed and not yet run.
+     *
+     * @return count of the pending commands.
+     */
+    public long getPendingCommands() {
+        return (claimSequence.get() & ~CLOSED) - consumedSequence.get();
+    }
+
+    /**
+     * Finds the number of commands run.
+     *
+     * @return count of the commands run.
+     */
+    public long getCompletedCommands() {
+        return consumedSequence.get();
+    }
+}
@@ -0,0 +1,229 @@
+package com.walmart.sample.ticketing.eventloop;
+
+import com.walmart.sample.common.AllocationMode;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.SeatQuery;
+import com.walmart.sample.common.Venue;
+import com.walmart.sample.common.VenueException;
+import com.walmart.sample.ticketing.metrics.TicketMetrics;
+import com.walmart.sample.ticketing.service.HoldExpirationService;
+import com.walmart.sample.ticketing.service.TicketServiceImpl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * A ticket service that applies every change to its venue on a single writer thread.
+ *
+ * Holds, reservations, releases, extensions and hold expirations are submitted to a {@link VenueEventLoop} and
+ * applied one at a time by its writer, so the venue's seat inventory is only ever changed by one thread and its
+ * compare-and-set loops never retry. Callers get a future that the writer completes, reads of the available seat
+ * counts don't go through the loop.
+ *
+ * Futures are completed on the writer thread, so dependent stages added with the non async methods also run there
+ * and hold up every other request, use the async variants for anything more than handing off the result.
+ */
+@Slf4j
+public class EventLoopTicketService implements AutoCloseable {
+
+    /**
+     * The ticket service run by the writer thread.
+     */
+    private final TicketServiceImpl ticketService;
+
+    /**
+     * The event loop the changes are applied on.
+     */
+    private final VenueEventLoop eventLoop;
+
+    /**
+     * Scheduler running the hold expiration wheel, expired holds are cancelled on the event loop.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Creates an event loop ticket service with the default ring capacity.
+     *
+     * @param venue the venue.
+     */
+    public EventLoopTicketService(final Venue venue) {
+        this(venue, VenueEventLoop.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an event loop ticket service.
+     *
+     * @param venue    the venue.
+     * @param capacity number of requests that can wait for the writer before submitters wait.
+     */
+    public EventLoopTicketService(final Venue venue, final int capacity) {
+        eventLoop = new VenueEventLoop("venue-event-loop", capacity);
+        scheduler = Executors.newScheduledThreadPool(1);
+        HoldExpirationService holdExpirationService = new HoldExpirationService(
+            HoldExpirationService.DEFAULT_TICK_MILLIS, HoldExpirationService.DEFAULT_WHEEL_SIZE, eventLoop);
+        ticketService = new TicketServiceImpl(venue, holdExpirationService);
+        holdExpirationService.start(scheduler);
+    }
+
+    /**
+     * The number of seats in the venue that are neither held nor reserved, read without going through the loop.
+     *
+     * @return the number of tickets available in the venue
+     */
+    public int numSeatsAvailable() {
+        return ticketService.numSeatsAvailable();
+    }
+
+    /**
+     * Find the number of available seats matching a search, read without going through the loop.
+     *
+     * @param query the constraints on the seats
+     * @return number of matching available seats
+     */
+    public int numSeatsAvailable(final SeatQuery query) {
+        return ticketService.numSeatsAvailable(query);
+    }
+
+    /**
+     * Find and hold the best available seats for a customer.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return the future SeatHold, failed with a VenueException if the seats can't be held
+     */
+    public CompletableFuture<SeatHold> findAndHoldSeats(final int numSeats, final String customerEmail) {
+        return submit(() -> ticketService.findAndHoldSeats(numSeats, customerEmail));
+    }
+
+    /**
+     * Find and hold seats for a customer, chosen by an allocation mode.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param allocationMode how the seats are chosen
+     * @return the future SeatHold, failed with a VenueException if the seats can't be held
+     */
+    public CompletableFuture<SeatHold> findAndHoldSeats(final int numSeats, final String customerEmail,
+                                                        final AllocationMode allocationMode) {
+        return submit(() -> ticketService.findAndHoldSeats(numSeats, customerEmail, allocationMode));
+    }
+
+    /**
+     * Find and hold the best available seats matching a search for a customer.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param query the constraints on the seats and how they are chosen
+     * @return the future SeatHold, failed with a VenueException if the seats can't be held
+     */
+    public CompletableFuture<SeatHold> findAndHoldSeats(final int numSeats, final String customerEmail,
+                                                        final SeatQuery query) {
+        return submit(() -> ticketService.findAndHoldSeats(numSeats, customerEmail, query));
+    }
+
+    /**
+     * Commit seats held for a specific customer.
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     * @return the future confirmation code, failed with a VenueException if the hold can't be reserved
+     */
+    public CompletableFuture<String> reserveSeats(final int seatHoldId, final String customerEmail) {
+        return submit(() -> ticketService.reserveSeats(seatHoldId, customerEmail));
+    }
+
+    /**
+     * Release seats held for a specific customer, returning them to the venue at once.
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     * @return the future completed once the seats are released, failed with a VenueException if they can't be
+     */
+    public CompletableFuture<Void> releaseHold(final int seatHoldId, final String customerEmail) {
+        return submit(() -> {
+            ticketService.releaseHold(seatHoldId, customerEmail);
+            return null;
+        });
+    }
+
+    /**
+     * Push out the expiration of seats held for a specific customer to a full hold period from now.
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     * @return the future completed once the hold is extended, failed with a VenueException if it can't be
+     */
+    public CompletableFuture<Void> extendHold(final int seatHoldId, final String customerEmail) {
+        return submit(() -> {
+            ticketService.extendHold(seatHoldId, customerEmail);
+            return null;
+        });
+    }
+
+    /**
+     * Find the seat holds and reservations of a customer.
+     *
+     * @param customerEmail unique identifier for the customer
+     * @return the future list of the customer's held, reserved and recently cancelled SeatHolds
+     */
+    public CompletableFuture<List<SeatHold>> findSeatHolds(final String customerEmail) {
+        return submit(() -> ticketService.findSeatHolds(customerEmail));
+    }
+
+    /**
+     * Submits a request to the writer thread.
+     *
+     * @param request the request.
+     * @param <T>     the type of the request's result.
+     * @return the future result of the request.
+     */
+    private <T> CompletableFuture<T> submit(final Supplier<T> request) {
+        CompletableFuture<T> result = new CompletableFuture<T>();
+        try {
+            eventLoop.execute(() -> {
+                try {
+                    result.complete(request.get());
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new VenueException("Ticket event loop is closed."));
+        }
+        return result;
+    }
+
+    /**
+     * Finds the counters and latencies of the service.
+     *
+     * @return the metrics.
+     */
+    public TicketMetrics getMetrics() {
+        return ticketService.getMetrics();
+    }
+
+    /**
+     * Finds the event loop the changes are applied on.
+     *
+     * @return the event loop.
+     */
+    public VenueEventLoop getEventLoop() {
+        return eventLoop;
+    }
+
+    /**
+     * Stops the hold expiration wheel, then waits for the requests already accepted to be applied.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        eventLoop.close();
+        log.debug("Closed venue event loop after {} commands", eventLoop.getCompletedCommands());
+    }
+}
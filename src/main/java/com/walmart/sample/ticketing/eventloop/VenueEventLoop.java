@@ -0,0 +1,168 @@
+package com.walmart.sample.ticketing.eventloop;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The VenueEventLoop runs every command submitted to it on one dedicated writer thread, in submission order.
+ *
+ * Commands wait in a {@link CommandRing}. The writer runs them in batches and, once the ring is empty, spins for a
+ * while before parking, so a busy loop picks up new commands without a context switch and an idle loop costs no
+ * CPU. A producer only unparks the writer when the writer has said it is about to park, and the writer checks the
+ * ring again after saying so, so a command published while the writer parks is never left waiting.
+ */
+@Slf4j
+public class VenueEventLoop implements Executor, AutoCloseable {
+
+    /**
+     * Default number of slots in the ring.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Most commands run between checks of the ring's state.
+     */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * Number of empty checks of the ring before the writer parks.
+     */
+    private static final int SPIN_TRIES = 1000;
+
+    /**
+     * Longest the writer parks before checking the ring again.
+     */
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The commands waiting to run.
+     */
+    private final CommandRing ring;
+
+    /**
+     * The writer thread.
+     */
+    private final Thread writer;
+
+    /**
+     * Whether the writer is parked or about to park.
+     */
+    private volatile boolean parked;
+
+    /**
+     * Constructs and starts an event loop with the default capacity.
+     *
+     * @param name the name of the writer thread.
+     */
+    public VenueEventLoop(final String name) {
+        this(name, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs and starts an event loop.
+     *
+     * @param name     the name of the writer thread.
+     * @param capacity number of commands that can wait before submitters wait, rounded up to a power of two.
+     */
+    public VenueEventLoop(final String name, final int capacity) {
+        ring = new CommandRing(capacity);
+        writer = Thread.ofPlatform().name(name).daemon().unstarted(this::runCommands);
+        writer.start();
+    }
+
+    /**
+     * Submits a command to run on the writer thread, a command submitted from the writer itself runs at once.
+     *
+     * @param command the command.
+     * @throws RejectedExecutionException when the event loop is closed
+     */
+    @Override
+    public void execute(final Runnable command) {
+        if (Thread.currentThread() == writer) {
+            command.run();
+            return;
+        }
+        if (!ring.publish(command)) {
+            throw new RejectedExecutionException("Venue event loop is closed.");
+        }
+        if (parked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Runs commands until the loop is closed and every accepted command has run.
+     */
+    private void runCommands() {
+        int idle = 0;
+        while (true) {
+            int ran;
+            try {
+                ran = ring.drain(BATCH_SIZE);
+            } catch (RuntimeException e) {
+                log.warn("Command failed on venue event loop {}", writer.getName(), e);
+                ran = 1;
+            }
+            if (ran > 0) {
+                idle = 0;
+            } else if (ring.isDrained()) {
+                return;
+            } else if (++idle < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                parked = true;
+                if (!ring.hasPublished()) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                parked = false;
+            }
+        }
+    }
+
+    /**
+     * Checks whether the calling thread is the writer.
+     *
+     * @return true when called from the writer thread.
+     */
+    public boolean inEventLoop() {
+        return Thread.currentThread() == writer;
+    }
+
+    /**
+     * Finds the number of commands waiting to run.
+     *
+     * @return count of the pending commands.
+     */
+    public long getPendingCommands() {
+        return ring.getPendingCommands();
+    }
+
+    /**
+     * Finds the number of commands run.
+     *
+     * @return count of the commands run.
+     */
+    public long getCompletedCommands() {
+        return ring.getCompletedCommands();
+    }
+
+    /**
+     * Stops accepting commands and waits for the writer to run those already accepted.
+     */
+    @Override
+    public void close() {
+        ring.close();
+        LockSupport.unpark(writer);
+        if (!inEventLoop()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
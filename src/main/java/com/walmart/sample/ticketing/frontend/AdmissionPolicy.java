@@ -0,0 +1,108 @@
+package com.walmart.sample.ticketing.frontend;
+
+import com.walmart.sample.common.VenueException;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The AdmissionPolicy configures how many requests a {@link TicketFrontEnd} serves at once, how many may wait and
+ * for how long, and how often each customer may make a request.
+ */
+@Getter
+@ToString
+public class AdmissionPolicy {
+
+    /**
+     * Default number of requests served at once, enough to keep every core busy with seat claims.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 2 * Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Default number of requests allowed to wait for their turn.
+     */
+    public static final int DEFAULT_MAX_WAITING_REQUESTS = 10000;
+
+    /**
+     * Default time a request may wait for its turn.
+     */
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 2000;
+
+    /**
+     * Default sustained number of requests per second of one customer.
+     */
+    public static final double DEFAULT_CUSTOMER_REQUESTS_PER_SECOND = 5;
+
+    /**
+     * Default number of requests a customer may make at once after being idle.
+     */
+    public static final int DEFAULT_CUSTOMER_BURST = 10;
+
+    /**
+     * Default number of customers tracked before idle customers are forgotten.
+     */
+    public static final int DEFAULT_MAX_TRACKED_CUSTOMERS = 100000;
+
+    /**
+     * Default policy.
+     */
+    public static final AdmissionPolicy DEFAULT = new AdmissionPolicy(DEFAULT_MAX_CONCURRENT_REQUESTS,
+        DEFAULT_MAX_WAITING_REQUESTS, DEFAULT_MAX_WAIT_MILLIS, DEFAULT_CUSTOMER_REQUESTS_PER_SECOND,
+        DEFAULT_CUSTOMER_BURST, DEFAULT_MAX_TRACKED_CUSTOMERS);
+
+    /**
+     * Maximum number of requests served at once.
+     */
+    private final int maxConcurrentRequests;
+
+    /**
+     * Maximum number of requests waiting for their turn, later requests are rejected.
+     */
+    private final int maxWaitingRequests;
+
+    /**
+     * Maximum time in milliseconds a request waits for its turn before it is rejected.
+     */
+    private final long maxWaitMillis;
+
+    /**
+     * Sustained number of requests per second allowed for one customer.
+     */
+    private final double customerRequestsPerSecond;
+
+    /**
+     * Number of requests a customer may make at once after being idle.
+     */
+    private final int customerBurst;
+
+    /**
+     * Number of customers tracked before idle customers are forgotten.
+     */
+    private final int maxTrackedCustomers;
+
+    /**
+     * Constructs an admission policy.
+     *
+     * @param maxConcurrentRequests     maximum number of requests served at once.
+     * @param maxWaitingRequests        maximum number of requests waiting for their turn.
+     * @param maxWaitMillis             maximum time in milliseconds a request waits for its turn.
+     * @param customerRequestsPerSecond sustained number of requests per second allowed for one customer.
+     * @param customerBurst             number of requests a customer may make at once after being idle.
+     * @param maxTrackedCustomers       number of customers tracked before idle customers are forgotten.
+     */
+    public AdmissionPolicy(final int maxConcurrentRequests, final int maxWaitingRequests, final long maxWaitMillis,
+                           final double customerRequestsPerSecond, final int customerBurst,
+                           final int maxTrackedCustomers) {
+        if (maxConcurrentRequests < 1 || maxWaitingRequests < 0 || maxWaitMillis < 0
+            || !(customerRequestsPerSecond > 0) || customerBurst < 1 || maxTrackedCustomers < 1) {
+            throw new VenueException("Concurrent requests, customer rate, burst and tracked customers must be "
+                + "positive, and waiting requests and wait time must not be negative.");
+        }
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.maxWaitingRequests = maxWaitingRequests;
+        this.maxWaitMillis = maxWaitMillis;
+        this.customerRequestsPerSecond = customerRequestsPerSecond;
+        this.customerBurst = customerBurst;
+        this.maxTrackedCustomers = maxTrackedCustomers;
+    }
+}
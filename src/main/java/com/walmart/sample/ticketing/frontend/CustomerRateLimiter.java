@@ -0,0 +1,111 @@
+package com.walmart.sample.ticketing.frontend;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The CustomerRateLimiter limits how often each customer may make a request.
+ *
+ * Each customer has a token bucket kept as a single theoretical arrival time, the generic cell rate algorithm: a
+ * request is allowed if the customer's next arrival time is no more than a burst ahead of now, and then moves it one
+ * emission interval further. Allowing a request is one compare-and-set on the customer's own counter.
+ *
+ * A customer whose arrival time has passed has a full bucket and is indistinguishable from a new customer, so once
+ * more customers than the limit are tracked those customers are forgotten.
+ */
+public class CustomerRateLimiter {
+
+    /**
+     * Minimum time between sweeps of idle customers.
+     */
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Time in nanoseconds one request takes out of a customer's allowance.
+     */
+    private final long emissionIntervalNanos;
+
+    /**
+     * How far in nanoseconds a customer's arrival time may run ahead of now.
+     */
+    private final long toleranceNanos;
+
+    /**
+     * Number of customers tracked before idle customers are forgotten.
+     */
+    private final int maxTrackedCustomers;
+
+    /**
+     * Theoretical arrival time of each customer's next request.
+     */
+    private final Map<String, AtomicLong> arrivalTimes = new ConcurrentHashMap<String, AtomicLong>();
+
+    /**
+     * Time of the last sweep of idle customers.
+     */
+    private final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime());
+
+    /**
+     * Constructs a rate limiter.
+     *
+     * @param requestsPerSecond   sustained number of requests per second allowed for one customer.
+     * @param burst               number of requests a customer may make at once after being idle.
+     * @param maxTrackedCustomers number of customers tracked before idle customers are forgotten.
+     */
+    public CustomerRateLimiter(final double requestsPerSecond, final int burst, final int maxTrackedCustomers) {
+        emissionIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond));
+        toleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.maxTrackedCustomers = maxTrackedCustomers;
+    }
+
+    /**
+     * Takes one request out of a customer's allowance.
+     *
+     * @param customerEmail unique identifier for the customer.
+     * @return false if the customer has made too many requests and must wait.
+     */
+    public boolean tryAcquire(final String customerEmail) {
+        long nowNanos = System.nanoTime();
+        AtomicLong arrivalTime = arrivalTimes.computeIfAbsent(customerEmail, email -> new AtomicLong(nowNanos));
+        while (true) {
+            long current = arrivalTime.get();
+            long start = current - nowNanos < 0 ? nowNanos : current;
+            if (start - nowNanos > toleranceNanos) {
+                return false;
+            }
+            if (arrivalTime.compareAndSet(current, start + emissionIntervalNanos)) {
+                break;
+            }
+        }
+        if (arrivalTimes.size() > maxTrackedCustomers) {
+            sweep(nowNanos);
+        }
+        return true;
+    }
+
+    /**
+     * Finds the number of customers being tracked.
+     *
+     * @return count of the customers.
+     */
+    public int getTrackedCustomers() {
+        return arrivalTimes.size();
+    }
+
+    /**
+     * Forgets the customers whose allowance is full, at most once per sweep interval.
+     *
+     * A customer forgotten while making a request starts again with a full allowance, at worst one extra burst.
+     *
+     * @param nowNanos the current time.
+     */
+    private void sweep(final long nowNanos) {
+        long lastSweep = lastSweepNanos.get();
+        if (nowNanos - lastSweep < SWEEP_INTERVAL_NANOS || !lastSweepNanos.compareAndSet(lastSweep, nowNanos)) {
+            return;
+        }
+        arrivalTimes.values().removeIf(arrivalTime -> arrivalTime.get() - nowNanos <= 0);
+    }
+}
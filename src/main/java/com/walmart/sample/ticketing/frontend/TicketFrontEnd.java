@@ -0,0 +1,237 @@
+package com.walmart.sample.ticketing.frontend;
+
+import com.walmart.sample.common.AllocationMode;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.SeatQuery;
+import com.walmart.sample.common.VenueException;
+import com.walmart.sample.ticketing.metrics.LatencyHistogram;
+import com.walmart.sample.ticketing.service.TicketService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The TicketFrontEnd admits requests to a {@link TicketService} under overload.
+ *
+ * Every request runs on its own virtual thread, so a caller is never blocked and waiting requests cost a few
+ * hundred bytes rather than a platform thread. A request first takes from its customer's rate limit, which rejects
+ * a customer retrying in a tight loop before it can crowd out others, then waits its turn in a fair
+ * {@link WaitingRoom} that bounds how many requests reach the venue at once. Requests that can't be served in time
+ * are rejected with a {@link VenueException}, keeping the latency of admitted requests bounded.
+ */
+@Slf4j
+public class TicketFrontEnd implements AutoCloseable {
+
+    /**
+     * The ticket service requests are admitted to.
+     */
+    private final TicketService ticketService;
+
+    /**
+     * Executor running each request on a new virtual thread.
+     */
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Limits how often each customer may make a request.
+     */
+    private final CustomerRateLimiter rateLimiter;
+
+    /**
+     * Bounds the number of requests served at once.
+     */
+    private final WaitingRoom waitingRoom;
+
+    /**
+     * Number of requests rejected by a customer's rate limit.
+     */
+    private final LongAdder rateLimited = new LongAdder();
+
+    /**
+     * Time in nanoseconds admitted requests waited for their turn.
+     */
+    private final LatencyHistogram waitLatency = new LatencyHistogram();
+
+    /**
+     * Constructs a front end with the default admission policy.
+     *
+     * @param ticketService the ticket service requests are admitted to.
+     */
+    public TicketFrontEnd(final TicketService ticketService) {
+        this(ticketService, AdmissionPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructs a front end.
+     *
+     * @param ticketService the ticket service requests are admitted to.
+     * @param policy        the admission policy.
+     */
+    public TicketFrontEnd(final TicketService ticketService, final AdmissionPolicy policy) {
+        this.ticketService = ticketService;
+        rateLimiter = new CustomerRateLimiter(policy.getCustomerRequestsPerSecond(), policy.getCustomerBurst(),
+            policy.getMaxTrackedCustomers());
+        waitingRoom = new WaitingRoom(policy.getMaxConcurrentRequests(), policy.getMaxWaitingRequests(),
+            policy.getMaxWaitMillis());
+    }
+
+    /**
+     * The number of seats in the venue that are neither held nor reserved, answered without admission since it
+     * doesn't change the venue.
+     *
+     * @return the number of tickets available in the venue
+     */
+    public int numSeatsAvailable() {
+        return ticketService.numSeatsAvailable();
+    }
+
+    /**
+     * Find and hold the best available seats for a customer.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return the future SeatHold, failed with a VenueException if the request is rejected or can't be held
+     */
+    public CompletableFuture<SeatHold> findAndHoldSeats(final int numSeats, final String customerEmail) {
+        return submit(customerEmail, () -> ticketService.findAndHoldSeats(numSeats, customerEmail));
+    }
+
+    /**
+     * Find and hold seats for a customer, chosen by an allocation mode.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param allocationMode how the seats are chosen
+     * @return the future SeatHold, failed with a VenueException if the request is rejected or can't be held
+     */
+    public CompletableFuture<SeatHold> findAndHoldSeats(final int numSeats, final String customerEmail,
+                                                        final AllocationMode allocationMode) {
+        return submit(customerEmail, () -> ticketService.findAndHoldSeats(numSeats, customerEmail, allocationMode));
+    }
+
+    /**
+     * Find and hold the best available seats matching a search for a customer.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param query the constraints on the seats and how they are chosen
+     * @return the future SeatHold, failed with a VenueException if the request is rejected or can't be held
+     */
+    public CompletableFuture<SeatHold> findAndHoldSeats(final int numSeats, final String customerEmail,
+                                                        final SeatQuery query) {
+        return submit(customerEmail, () -> ticketService.findAndHoldSeats(numSeats, customerEmail, query));
+    }
+
+    /**
+     * Commit seats held for a specific customer.
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     * @return the future confirmation code, failed with a VenueException if the request is rejected or fails
+     */
+    public CompletableFuture<String> reserveSeats(final int seatHoldId, final String customerEmail) {
+        return submit(customerEmail, () -> ticketService.reserveSeats(seatHoldId, customerEmail));
+    }
+
+    /**
+     * Admits a request of a customer and runs it on a virtual thread once it has a turn.
+     *
+     * @param customerEmail unique identifier for the customer, a request without one fails without being admitted
+     * @param request       the request.
+     * @param <T>           the type of the request's result.
+     * @return the future result of the request.
+     */
+    private <T> CompletableFuture<T> submit(final String customerEmail, final Supplier<T> request) {
+        if (customerEmail == null || customerEmail.isEmpty()) {
+            return CompletableFuture.failedFuture(new VenueException("Customer email is required."));
+        }
+        if (!rateLimiter.tryAcquire(customerEmail)) {
+            rateLimited.increment();
+            log.debug("Rate limited request of {}", customerEmail);
+            return CompletableFuture.failedFuture(
+                new VenueException("Too many requests from " + customerEmail + ", try again later."));
+        }
+        CompletableFuture<T> result = new CompletableFuture<T>();
+        try {
+            executor.execute(() -> {
+                long startNanos = System.nanoTime();
+                try {
+                    waitingRoom.enter();
+                } catch (VenueException e) {
+                    result.completeExceptionally(e);
+                    return;
+                }
+                waitLatency.recordSince(startNanos);
+                try {
+                    result.complete(request.get());
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    waitingRoom.leave();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new VenueException("Ticket front end is closed."));
+        }
+        return result;
+    }
+
+    /**
+     * Finds the number of requests rejected by a customer's rate limit.
+     *
+     * @return count of the rate limited requests.
+     */
+    public long getRateLimitedRequests() {
+        return rateLimited.sum();
+    }
+
+    /**
+     * Finds the number of requests rejected because the waiting room was full.
+     *
+     * @return count of the rejected requests.
+     */
+    public long getWaitingRoomRejections() {
+        return waitingRoom.getRejected();
+    }
+
+    /**
+     * Finds the number of requests rejected because they waited too long for their turn.
+     *
+     * @return count of the timed out requests.
+     */
+    public long getWaitingRoomTimeouts() {
+        return waitingRoom.getTimedOut();
+    }
+
+    /**
+     * Finds the number of requests waiting for their turn.
+     *
+     * @return count of the waiting requests.
+     */
+    public int getWaitingRequests() {
+        return waitingRoom.getWaiting();
+    }
+
+    /**
+     * Finds how long admitted requests waited for their turn.
+     *
+     * @return histogram of the wait in nanoseconds.
+     */
+    public LatencyHistogram getWaitLatency() {
+        return waitLatency;
+    }
+
+    /**
+     * Stops admitting requests and waits for the admitted ones to finish.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,120 @@
+package com.walmart.sample.ticketing.frontend;
+
+import com.walmart.sample.common.VenueException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The WaitingRoom bounds the number of requests served at once and queues the rest in arrival order.
+ *
+ * Turns are permits of a fair semaphore, so requests are served first come first served and a request never
+ * overtakes one that has waited longer. The queue itself is bounded in length and in waiting time, a request that
+ * finds the room full or waits too long is rejected rather than adding to the tail latency of everyone behind it.
+ */
+public class WaitingRoom {
+
+    /**
+     * Turns to be served, one per request served at once.
+     */
+    private final Semaphore turns;
+
+    /**
+     * Maximum number of requests waiting for a turn.
+     */
+    private final int maxWaiting;
+
+    /**
+     * Maximum time in nanoseconds a request waits for a turn.
+     */
+    private final long maxWaitNanos;
+
+    /**
+     * Number of requests waiting for a turn.
+     */
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /**
+     * Number of requests rejected because the room was full.
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Number of requests rejected because they waited too long.
+     */
+    private final LongAdder timedOut = new LongAdder();
+
+    /**
+     * Constructs a waiting room.
+     *
+     * @param maxConcurrent maximum number of requests served at once.
+     * @param maxWaiting    maximum number of requests waiting for a turn.
+     * @param maxWaitMillis maximum time in milliseconds a request waits for a turn.
+     */
+    public WaitingRoom(final int maxConcurrent, final int maxWaiting, final long maxWaitMillis) {
+        turns = new Semaphore(maxConcurrent, true);
+        this.maxWaiting = maxWaiting;
+        maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    }
+
+    /**
+     * Waits for a turn, every successful call must be followed by {@link #leave()}.
+     *
+     * @throws VenueException when the room is full, the wait is too long or the thread is interrupted
+     */
+    public void enter() {
+        if (waiting.incrementAndGet() > maxWaiting && turns.availablePermits() == 0) {
+            waiting.decrementAndGet();
+            rejected.increment();
+            throw new VenueException("Waiting room is full, try again later.");
+        }
+        try {
+            // A timed acquire, unlike tryAcquire(), honours the fairness of the semaphore even with no wait.
+            if (!turns.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                timedOut.increment();
+                throw new VenueException("Timed out in the waiting room, try again later.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VenueException("Interrupted in the waiting room.");
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Gives up a turn to the next waiting request.
+     */
+    public void leave() {
+        turns.release();
+    }
+
+    /**
+     * Finds the number of requests waiting for a turn.
+     *
+     * @return count of the waiting requests.
+     */
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    /**
+     * Finds the number of requests rejected because the room was full.
+     *
+     * @return count of the rejected requests.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Finds the number of requests rejected because they waited too long.
+     *
+     * @return count of the timed out requests.
+     */
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+}
@@ -0,0 +1,68 @@
+package com.walmart.sample.ticketing.journal;
+
+import com.walmart.sample.common.VenueException;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The JournalPolicy configures the segment size, group commit interval and snapshot frequency of a
+ * {@link VenueJournal}.
+ */
+@Getter
+@ToString
+public class JournalPolicy {
+
+    /**
+     * Default size of a segment file.
+     */
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * Default time between flushes when no reservation is waiting.
+     */
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 10;
+
+    /**
+     * Default number of full segments that trigger a snapshot.
+     */
+    public static final int DEFAULT_SEGMENTS_PER_SNAPSHOT = 4;
+
+    /**
+     * Default policy.
+     */
+    public static final JournalPolicy DEFAULT = new JournalPolicy(DEFAULT_SEGMENT_BYTES,
+        DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_SEGMENTS_PER_SNAPSHOT);
+
+    /**
+     * Size in bytes of each memory mapped segment file.
+     */
+    private final int segmentBytes;
+
+    /**
+     * Time in milliseconds between flushes when no reservation is waiting for one.
+     */
+    private final long flushIntervalMillis;
+
+    /**
+     * Number of full segments that are folded into a new snapshot.
+     */
+    private final int segmentsPerSnapshot;
+
+    /**
+     * Constructs a journal policy.
+     *
+     * @param segmentBytes        size in bytes of each segment file.
+     * @param flushIntervalMillis time in milliseconds between flushes when no reservation is waiting for one.
+     * @param segmentsPerSnapshot number of full segments that are folded into a new snapshot.
+     */
+    public JournalPolicy(final int segmentBytes, final long flushIntervalMillis, final int segmentsPerSnapshot) {
+        if (segmentBytes < JournalSegment.MIN_SEGMENT_BYTES || flushIntervalMillis < 1 || segmentsPerSnapshot < 1) {
+            throw new VenueException("Segments must be at least " + JournalSegment.MIN_SEGMENT_BYTES
+                + " bytes, and the flush interval and segments per snapshot must be positive.");
+        }
+        this.segmentBytes = segmentBytes;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.segmentsPerSnapshot = segmentsPerSnapshot;
+    }
+}
@@ -0,0 +1,309 @@
+package com.walmart.sample.ticketing.journal;
+
+import com.walmart.sample.common.SeatHold;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A change to a venue's seat holds, as written to the journal.
+ *
+ * Each record is framed by its length and a CRC32 of its body, so a record torn by a crash is detected and ends
+ * the replay of its segment. A held record carries everything needed to rebuild the hold, reserved and cancelled
+ * records only carry seat hold ids. Bodies are padded with zeros to a multiple of four bytes so every frame starts
+ * on an int boundary of the segment.
+ */
+@Getter
+final class JournalRecord {
+
+    /**
+     * Type of a record of a new seat hold.
+     */
+    static final byte HELD = 1;
+
+    /**
+     * Type of a record of a reserved seat hold.
+     */
+    static final byte RESERVED = 2;
+
+    /**
+     * Type of a record of cancelled seat holds.
+     */
+    static final byte CANCELLED = 3;
+
+    /**
+     * Size of the length and checksum in front of each record.
+     */
+    static final int FRAME_BYTES = 2 * Integer.BYTES;
+
+    /**
+     * Type of the record.
+     */
+    private final byte type;
+
+    /**
+     * Ids of the seat holds the record is about, a single id unless the record is of cancelled holds.
+     */
+    private final int[] seatHoldIds;
+
+    /**
+     * Customer email of a held record.
+     */
+    private final String customerEmail;
+
+    /**
+     * Confirmation code of a held record.
+     */
+    private final String confirmationCode;
+
+    /**
+     * Inventory indexes of the seats of a held record.
+     */
+    private final int[] seatIndexes;
+
+    /**
+     * UTF-8 customer email of a held record, set by {@link #encodedBytes}.
+     */
+    @Getter(AccessLevel.NONE)
+    private byte[] emailBytes;
+
+    /**
+     * UTF-8 confirmation code of a held record, set by {@link #encodedBytes}.
+     */
+    @Getter(AccessLevel.NONE)
+    private byte[] codeBytes;
+
+    /**
+     * Constructs a record.
+     *
+     * @param type             type of the record.
+     * @param seatHoldIds      ids of the seat holds.
+     * @param customerEmail    customer email of a held record.
+     * @param confirmationCode confirmation code of a held record.
+     * @param seatIndexes      inventory indexes of the seats of a held record.
+     */
+    JournalRecord(final byte type, final int[] seatHoldIds, final String customerEmail, final String confirmationCode,
+                  final int[] seatIndexes) {
+        this.type = type;
+        this.seatHoldIds = seatHoldIds;
+        this.customerEmail = customerEmail;
+        this.confirmationCode = confirmationCode;
+        this.seatIndexes = seatIndexes;
+    }
+
+    /**
+     * Creates the record of a new seat hold.
+     *
+     * @param seatHold the seat hold.
+     * @return the record.
+     */
+    static JournalRecord held(final SeatHold seatHold) {
+        return new JournalRecord(HELD, new int[] { seatHold.getSeatHoldId() }, seatHold.getCustomerEmail(),
+            seatHold.getConfirmationCode(), seatHold.getSeatIndexes());
+    }
+
+    /**
+     * Creates the record of a reserved seat hold.
+     *
+     * @param seatHold the seat hold.
+     * @return the record.
+     */
+    static JournalRecord reserved(final SeatHold seatHold) {
+        return new JournalRecord(RESERVED, new int[] { seatHold.getSeatHoldId() }, null, null, null);
+    }
+
+    /**
+     * Creates the record of cancelled seat holds.
+     *
+     * @param seatHolds the seat holds.
+     * @return the record.
+     */
+    static JournalRecord cancelled(final List<SeatHold> seatHolds) {
+        int[] seatHoldIds = new int[seatHolds.size()];
+        for (int i = 0; i < seatHoldIds.length; i++) {
+            seatHoldIds[i] = seatHolds.get(i).getSeatHoldId();
+        }
+        return cancelled(seatHoldIds);
+    }
+
+    /**
+     * Creates the record of cancelled seat holds.
+     *
+     * @param seatHoldIds the seat hold ids.
+     * @return the record.
+     */
+    static JournalRecord cancelled(final int[] seatHoldIds) {
+        return new JournalRecord(CANCELLED, seatHoldIds, null, null, null);
+    }
+
+    /**
+     * Finds the id of the seat hold of a held or reserved record.
+     *
+     * @return the seat hold id.
+     */
+    int getSeatHoldId() {
+        return seatHoldIds[0];
+    }
+
+    /**
+     * Finds the size of the record with its frame and padding, encoding its strings for {@link #encode}.
+     *
+     * @return the size in bytes, a multiple of four.
+     */
+    int encodedBytes() {
+        if (type == HELD && emailBytes == null) {
+            emailBytes = customerEmail.getBytes(StandardCharsets.UTF_8);
+            codeBytes = confirmationCode.getBytes(StandardCharsets.UTF_8);
+        }
+        return FRAME_BYTES + bodyBytes();
+    }
+
+    /**
+     * Finds the size of the body with its padding, once the strings are encoded.
+     *
+     * @return the size in bytes, a multiple of four.
+     */
+    private int bodyBytes() {
+        int bodyBytes = 1;
+        if (type == HELD) {
+            bodyBytes += Integer.BYTES * (4 + seatIndexes.length) + emailBytes.length + codeBytes.length;
+        } else {
+            bodyBytes += Integer.BYTES * (1 + seatHoldIds.length);
+        }
+        return (bodyBytes + Integer.BYTES - 1) & -Integer.BYTES;
+    }
+
+    /**
+     * Writes the checksum and body of the record at an offset of a buffer, leaving the length for the caller to
+     * publish once the rest of the record is written.
+     *
+     * @param buffer the buffer, with {@link #encodedBytes} bytes of zeros at the offset.
+     * @param offset the offset of the frame.
+     * @return the length of the body.
+     */
+    int encode(final ByteBuffer buffer, final int offset) {
+        int bodyBytes = encodedBytes() - FRAME_BYTES;
+        int next = offset + FRAME_BYTES;
+        buffer.put(next++, type);
+        if (type == HELD) {
+            buffer.putInt(next, getSeatHoldId());
+            next = putBytes(buffer, next + Integer.BYTES, emailBytes);
+            next = putBytes(buffer, next, codeBytes);
+            putInts(buffer, next, seatIndexes);
+        } else {
+            putInts(buffer, next, seatHoldIds);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset + FRAME_BYTES, bodyBytes));
+        buffer.putInt(offset + Integer.BYTES, (int) crc.getValue());
+        return bodyBytes;
+    }
+
+    /**
+     * Decodes the record at the position of a buffer and moves past it.
+     *
+     * @param buffer the buffer.
+     * @return the record, or null if the buffer holds no complete, intact record at its position.
+     */
+    static JournalRecord decode(final ByteBuffer buffer) {
+        if (buffer.remaining() < FRAME_BYTES) {
+            return null;
+        }
+        int start = buffer.position();
+        int bodyBytes = buffer.getInt(start);
+        int checksum = buffer.getInt(start + Integer.BYTES);
+        if (bodyBytes <= 0 || bodyBytes > buffer.remaining() - FRAME_BYTES) {
+            return null;
+        }
+        ByteBuffer body = buffer.duplicate();
+        body.position(start + FRAME_BYTES);
+        body.limit(start + FRAME_BYTES + bodyBytes);
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+
+        JournalRecord record;
+        try {
+            byte type = body.get();
+            if (type == HELD) {
+                int seatHoldId = body.getInt();
+                String customerEmail = getString(body);
+                String confirmationCode = getString(body);
+                record = new JournalRecord(HELD, new int[] { seatHoldId }, customerEmail, confirmationCode,
+                    getInts(body));
+            } else if (type == RESERVED || type == CANCELLED) {
+                record = new JournalRecord(type, getInts(body), null, null, null);
+            } else {
+                return null;
+            }
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            // Only possible for a body that passed its checksum by chance.
+            return null;
+        }
+        buffer.position(start + FRAME_BYTES + bodyBytes);
+        return record;
+    }
+
+    /**
+     * Writes length prefixed bytes.
+     *
+     * @param buffer the buffer.
+     * @param index  the index to write at.
+     * @param bytes  the bytes.
+     * @return the index after the bytes.
+     */
+    private static int putBytes(final ByteBuffer buffer, final int index, final byte[] bytes) {
+        buffer.putInt(index, bytes.length);
+        buffer.put(index + Integer.BYTES, bytes);
+        return index + Integer.BYTES + bytes.length;
+    }
+
+    /**
+     * Writes length prefixed ints.
+     *
+     * @param buffer the buffer.
+     * @param index  the index to write at.
+     * @param values the ints.
+     */
+    private static void putInts(final ByteBuffer buffer, final int index, final int[] values) {
+        buffer.putInt(index, values.length);
+        for (int i = 0; i < values.length; i++) {
+            buffer.putInt(index + Integer.BYTES * (i + 1), values[i]);
+        }
+    }
+
+    /**
+     * Reads a length prefixed UTF-8 string.
+     *
+     * @param buffer the buffer.
+     * @return the string.
+     */
+    private static String getString(final ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads length prefixed ints.
+     *
+     * @param buffer the buffer.
+     * @return the ints.
+     */
+    private static int[] getInts(final ByteBuffer buffer) {
+        int[] values = new int[buffer.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.getInt();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,236 @@
+package com.walmart.sample.ticketing.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A fixed size, memory mapped file of journal records.
+ *
+ * Appending a record is a copy into the mapping, the operating system writes it back on its own schedule and
+ * {@link #force()} makes everything appended so far durable. A new file reads as zeros, so the first zero length
+ * marks the end of the records.
+ *
+ * Appends don't lock. Each one claims its bytes with a getAndAdd on the claimed offset, writes its record there and
+ * publishes it by storing the record's length last with release semantics. The flusher scans forward over the
+ * published lengths, so it only ever forces a prefix of complete records. The first claim that does not fit marks
+ * where the segment ends.
+ */
+class JournalSegment implements Closeable {
+
+    /**
+     * Smallest allowed segment size.
+     */
+    static final int MIN_SEGMENT_BYTES = 4096;
+
+    /**
+     * Prefix of segment file names.
+     */
+    static final String PREFIX = "journal-";
+
+    /**
+     * Suffix of segment file names.
+     */
+    static final String SUFFIX = ".log";
+
+    /**
+     * Ordered access to the record lengths in the mapping.
+     */
+    private static final VarHandle LENGTH = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    /**
+     * Sequence number of the segment, segments are replayed in sequence order.
+     */
+    private final long sequence;
+
+    /**
+     * The segment file.
+     */
+    private final Path path;
+
+    /**
+     * The channel the file is mapped from.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The mapping of the file, only written at absolute offsets.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Offset after the last claimed record, past the end of the file once a claim did not fit.
+     */
+    private final AtomicLong claimed = new AtomicLong();
+
+    /**
+     * Number of bytes of the records appended and published.
+     */
+    private final AtomicLong appended = new AtomicLong();
+
+    /**
+     * Offset of the first claim that did not fit, which is the end of the records, Long.MAX_VALUE until then.
+     */
+    private final AtomicLong end = new AtomicLong(Long.MAX_VALUE);
+
+    /**
+     * Offset after the published records the flusher has scanned, only used by the flusher.
+     */
+    private int scanned;
+
+    /**
+     * Maps a segment file.
+     *
+     * @param sequence sequence number of the segment.
+     * @param path     the segment file.
+     * @param channel  the channel of the file.
+     * @param buffer   the mapping of the file.
+     */
+    private JournalSegment(final long sequence, final Path path, final FileChannel channel,
+                           final MappedByteBuffer buffer) {
+        this.sequence = sequence;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Creates a new, empty segment.
+     *
+     * @param path     the segment file, which must not exist.
+     * @param sequence sequence number of the segment.
+     * @param size     size of the file in bytes.
+     * @return the segment, open for appending.
+     * @throws IOException when the file can not be created or mapped
+     */
+    static JournalSegment create(final Path path, final long sequence, final int size) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        return new JournalSegment(sequence, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+    }
+
+    /**
+     * Replays the intact records of a segment file, stopping at the end of the records or at a torn record.
+     *
+     * @param path     the segment file.
+     * @param consumer consumer of the records, in the order they were appended.
+     * @return number of records replayed.
+     * @throws IOException when the file can not be read
+     */
+    static int replay(final Path path, final Consumer<JournalRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int records = 0;
+            JournalRecord record = JournalRecord.decode(buffer);
+            while (record != null) {
+                consumer.accept(record);
+                records++;
+                record = JournalRecord.decode(buffer);
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Appends a record, any number of threads may append at once.
+     *
+     * @param record the record.
+     * @return the offset after the record, or -1 if the segment has no room for it.
+     */
+    long append(final JournalRecord record) {
+        int size = record.encodedBytes();
+        long offset = claimed.getAndAdd(size);
+        if (offset + size > buffer.capacity()) {
+            end.accumulateAndGet(offset, Math::min);
+            return -1;
+        }
+        int bodyBytes = record.encode(buffer, (int) offset);
+        LENGTH.setRelease(buffer, (int) offset, bodyBytes);
+        appended.addAndGet(size);
+        return offset + size;
+    }
+
+    /**
+     * Waits for the appends still writing into the segment, once an append found it full.
+     */
+    void awaitAppends() {
+        // The end only moves down, to the first claim that did not fit, and every claim before it fits.
+        while (appended.get() < end.get()) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Scans forward over the records published since the last scan, only called by the flusher.
+     *
+     * Appends that claimed their bytes before the scan started are still copying their records, so the scan waits
+     * for them rather than stopping at the first record that is not published yet.
+     *
+     * @return the offset after the records published without a gap.
+     */
+    int scanPublished() {
+        long claimedEnd = claimed.get();
+        while (scanned < Math.min(claimedEnd, end.get()) && scanned + JournalRecord.FRAME_BYTES <= buffer.capacity()) {
+            int bodyBytes = (int) LENGTH.getAcquire(buffer, scanned);
+            if (bodyBytes == 0) {
+                Thread.onSpinWait();
+            } else {
+                scanned += JournalRecord.FRAME_BYTES + bodyBytes;
+            }
+        }
+        return scanned;
+    }
+
+    /**
+     * Writes every record appended so far to the file.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Finds the sequence number of the segment.
+     *
+     * @return the sequence number.
+     */
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Finds the segment file.
+     *
+     * @return the path of the file.
+     */
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * Finds the file name of a segment.
+     *
+     * @param sequence sequence number of the segment.
+     * @return the file name.
+     */
+    static String fileName(final long sequence) {
+        return String.format("%s%020d%s", PREFIX, sequence, SUFFIX);
+    }
+
+    /**
+     * Closes the channel, the mapping stays valid until it is garbage collected.
+     *
+     * @throws IOException when the channel can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
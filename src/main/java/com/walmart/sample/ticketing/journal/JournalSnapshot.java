@@ -0,0 +1,169 @@
+package com.walmart.sample.ticketing.journal;
+
+import com.walmart.sample.common.VenueException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A compact image of a venue's reservations and pending holds at a segment boundary of the journal.
+ *
+ * A snapshot named for sequence n holds the state after every segment before n, so recovery reads the latest
+ * snapshot and replays only the segments from n on. Snapshots are written to a temporary file and renamed into
+ * place, and end with a CRC32 of their contents.
+ */
+final class JournalSnapshot {
+
+    /**
+     * Prefix of snapshot file names.
+     */
+    static final String PREFIX = "snapshot-";
+
+    /**
+     * Suffix of snapshot file names.
+     */
+    static final String SUFFIX = ".snap";
+
+    /**
+     * Marks the start of a snapshot file.
+     */
+    private static final int MAGIC = 0x56534e50;
+
+    /**
+     * Version of the snapshot format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Not instantiated.
+     */
+    private JournalSnapshot() {
+    }
+
+    /**
+     * Finds the file name of a snapshot.
+     *
+     * @param sequence sequence number of the first segment not included in the snapshot.
+     * @return the file name.
+     */
+    static String fileName(final long sequence) {
+        return String.format("%s%020d%s", PREFIX, sequence, SUFFIX);
+    }
+
+    /**
+     * Writes a snapshot.
+     *
+     * @param path      the snapshot file, replaced atomically.
+     * @param seatCount number of seats of the venue.
+     * @param state     the state to write.
+     * @throws IOException when the file can not be written
+     */
+    static void write(final Path path, final int seatCount, final JournalState state) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (BufferedOutputStream fileOutput = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+            DataOutputStream output = new DataOutputStream(new CheckedOutputStream(fileOutput, crc));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(seatCount);
+            writeRecords(output, state.getReservations());
+            writeRecords(output, state.getPendingHolds());
+            output.flush();
+            new DataOutputStream(fileOutput).writeLong(crc.getValue());
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads a snapshot.
+     *
+     * @param path      the snapshot file.
+     * @param seatCount number of seats of the venue being recovered.
+     * @return the state in the snapshot.
+     * @throws IOException when the file can not be read
+     * @throws VenueException when the snapshot is corrupt or belongs to a venue of a different size
+     */
+    static JournalState read(final Path path, final int seatCount) throws IOException {
+        CRC32 crc = new CRC32();
+        try (BufferedInputStream fileInput = new BufferedInputStream(Files.newInputStream(path))) {
+            DataInputStream input = new DataInputStream(new CheckedInputStream(fileInput, crc));
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new VenueException("Snapshot " + path + " is not a venue snapshot.");
+            }
+            int snapshotSeatCount = input.readInt();
+            if (snapshotSeatCount != seatCount) {
+                throw new VenueException("Snapshot " + path + " belongs to a venue with " + snapshotSeatCount
+                    + " seats.");
+            }
+            JournalState state = new JournalState();
+            int reservations = input.readInt();
+            for (int i = 0; i < reservations; i++) {
+                state.addReservation(readRecord(input));
+            }
+            int pendingHolds = input.readInt();
+            for (int i = 0; i < pendingHolds; i++) {
+                state.addPendingHold(readRecord(input));
+            }
+            long checksum = crc.getValue();
+            if (new DataInputStream(fileInput).readLong() != checksum) {
+                throw new VenueException("Snapshot " + path + " is corrupt.");
+            }
+            return state;
+        }
+    }
+
+    /**
+     * Writes held records.
+     *
+     * @param output  the output.
+     * @param records the held records.
+     * @throws IOException when the records can not be written
+     */
+    private static void writeRecords(final DataOutputStream output, final Collection<JournalRecord> records)
+        throws IOException {
+        output.writeInt(records.size());
+        for (JournalRecord record : records) {
+            output.writeInt(record.getSeatHoldId());
+            output.writeUTF(record.getCustomerEmail());
+            output.writeUTF(record.getConfirmationCode());
+            output.writeInt(record.getSeatIndexes().length);
+            for (int seatIndex : record.getSeatIndexes()) {
+                output.writeInt(seatIndex);
+            }
+        }
+    }
+
+    /**
+     * Reads a held record.
+     *
+     * @param input the input.
+     * @return the held record.
+     * @throws IOException when the record can not be read
+     */
+    private static JournalRecord readRecord(final DataInputStream input) throws IOException {
+        int seatHoldId = input.readInt();
+        String customerEmail = input.readUTF();
+        String confirmationCode = input.readUTF();
+        int[] seatIndexes = new int[input.readInt()];
+        for (int i = 0; i < seatIndexes.length; i++) {
+            seatIndexes[i] = input.readInt();
+        }
+        return new JournalRecord(JournalRecord.HELD, new int[] { seatHoldId }, customerEmail, confirmationCode,
+            seatIndexes);
+    }
+}
@@ -0,0 +1,86 @@
+package com.walmart.sample.ticketing.journal;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The seat holds of a venue as rebuilt from a snapshot and the journal records after it.
+ *
+ * Only holds that are still pending and holds that were reserved are kept, cancelled holds are dropped as soon as
+ * their cancellation is applied. A reservation is only cancelled when it was rolled back because its record could
+ * not be flushed.
+ */
+class JournalState {
+
+    /**
+     * Held records of the seat holds that are neither reserved nor cancelled, in the order they were held.
+     */
+    private final Map<Integer, JournalRecord> pendingHolds = new LinkedHashMap<Integer, JournalRecord>();
+
+    /**
+     * Held records of the reserved seat holds, in the order they were held.
+     */
+    private final Map<Integer, JournalRecord> reservations = new LinkedHashMap<Integer, JournalRecord>();
+
+    /**
+     * Applies a record.
+     *
+     * @param record the record.
+     */
+    void apply(final JournalRecord record) {
+        switch (record.getType()) {
+            case JournalRecord.HELD:
+                pendingHolds.put(record.getSeatHoldId(), record);
+                break;
+            case JournalRecord.RESERVED:
+                JournalRecord held = pendingHolds.remove(record.getSeatHoldId());
+                if (held != null) {
+                    reservations.put(held.getSeatHoldId(), held);
+                }
+                break;
+            default:
+                for (int seatHoldId : record.getSeatHoldIds()) {
+                    pendingHolds.remove(seatHoldId);
+                    reservations.remove(seatHoldId);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Adds a pending hold read from a snapshot.
+     *
+     * @param held the held record.
+     */
+    void addPendingHold(final JournalRecord held) {
+        pendingHolds.put(held.getSeatHoldId(), held);
+    }
+
+    /**
+     * Adds a reservation read from a snapshot.
+     *
+     * @param held the held record of the reservation.
+     */
+    void addReservation(final JournalRecord held) {
+        reservations.put(held.getSeatHoldId(), held);
+    }
+
+    /**
+     * Finds the held records of the pending holds.
+     *
+     * @return the held records, in the order they were held.
+     */
+    Collection<JournalRecord> getPendingHolds() {
+        return pendingHolds.values();
+    }
+
+    /**
+     * Finds the held records of the reservations.
+     *
+     * @return the held records, in the order they were held.
+     */
+    Collection<JournalRecord> getReservations() {
+        return reservations.values();
+    }
+}
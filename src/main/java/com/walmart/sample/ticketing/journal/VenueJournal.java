@@ -0,0 +1,536 @@
+package com.walmart.sample.ticketing.journal;
+
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.Venue;
+import com.walmart.sample.common.VenueException;
+import com.walmart.sample.common.VenueListener;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The VenueJournal is a write-ahead journal of a venue's seat holds, so reservations survive a restart.
+ *
+ * Every hold, reservation and cancellation is appended to a memory mapped segment file by the thread making the
+ * change, which only costs an atomic claim of its bytes and a copy, a lock is only taken to move to a new segment.
+ * A flusher thread forces the segment to disk every flush interval, and reserving threads wait for the flush
+ * covering their record, so concurrent reservations share one fsync. Full segments are folded into a snapshot of the
+ * reservations in the background, so recovery reads the latest snapshot and replays only the segments written after
+ * it.
+ *
+ * Holds that were pending when the journal stopped are not restored, their seats are available again after
+ * recovery and a cancellation is journaled for them.
+ */
+@Slf4j
+public class VenueJournal implements VenueListener, Closeable {
+
+    /**
+     * Directory of the segment and snapshot files.
+     */
+    private final Path directory;
+
+    /**
+     * The journal policy.
+     */
+    private final JournalPolicy policy;
+
+    /**
+     * The venue being journaled.
+     */
+    private final Venue venue;
+
+    /**
+     * Segment records are appended to, only replaced under the journal's monitor.
+     */
+    private volatile JournalSegment segment;
+
+    /**
+     * Whether the journal is closed, only set under the journal's monitor.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Lock the flusher and the threads waiting for it coordinate on, a lock rather than a monitor so reserving
+     * virtual threads unmount while they wait for a flush instead of pinning their carrier thread.
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Signalled when a thread requests a flush or the journal is closing.
+     */
+    private final Condition flushWanted = flushLock.newCondition();
+
+    /**
+     * Signalled after every flush.
+     */
+    private final Condition flushed = flushLock.newCondition();
+
+    /**
+     * Position up to which records are on disk, guarded by flushLock.
+     */
+    private long durablePosition;
+
+    /**
+     * Number of flushes that forced the segment or failed to, guarded by flushLock.
+     */
+    private long flushes;
+
+    /**
+     * Whether a thread is waiting for a flush, guarded by flushLock.
+     */
+    private boolean flushRequested;
+
+    /**
+     * Whether the flusher should stop after its next flush, guarded by flushLock.
+     */
+    private boolean stopping;
+
+    /**
+     * Whether the flusher has made its last flush, guarded by flushLock.
+     */
+    private boolean stopped;
+
+    /**
+     * Failure of the last flush, null if it succeeded.
+     */
+    private volatile RuntimeException flushFailure;
+
+    /**
+     * Failure every flush ends with instead of forcing the segment, null unless set by {@link #failFlushes}.
+     */
+    private volatile RuntimeException injectedFlushFailure;
+
+    /**
+     * Thread that forces appended records to disk.
+     */
+    private final Thread flusher;
+
+    /**
+     * Thread that folds full segments into snapshots.
+     */
+    private final ExecutorService compactor;
+
+    /**
+     * Monitor serializing snapshots.
+     */
+    private final Object compactionLock = new Object();
+
+    /**
+     * Sequence of the first segment not included in the latest snapshot, 0 if there is no snapshot.
+     */
+    private volatile long snapshotSequence;
+
+    /**
+     * Constructs a journal appending to a new segment.
+     *
+     * @param directory        directory of the segment and snapshot files.
+     * @param policy           the journal policy.
+     * @param venue            the venue being journaled.
+     * @param sequence         sequence of the new segment.
+     * @param snapshotSequence sequence of the first segment not included in the latest snapshot.
+     * @throws IOException when the segment can not be created
+     */
+    private VenueJournal(final Path directory, final JournalPolicy policy, final Venue venue, final long sequence,
+                         final long snapshotSequence) throws IOException {
+        this.directory = directory;
+        this.policy = policy;
+        this.venue = venue;
+        this.snapshotSequence = snapshotSequence;
+        segment = JournalSegment.create(directory.resolve(JournalSegment.fileName(sequence)), sequence,
+            policy.getSegmentBytes());
+        durablePosition = position(sequence, 0);
+
+        flusher = new Thread(this::flushLoop, "venue-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "venue-journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens the journal in a directory, restores its reservations into a venue and journals the venue from then on.
+     *
+     * @param directory directory of the segment and snapshot files, created if needed.
+     * @param policy    the journal policy.
+     * @param venue     a venue with the same seats as the journaled venue and no seat holds.
+     * @return the journal, attached to the venue.
+     * @throws VenueException when the journal can not be read or belongs to a different venue
+     */
+    public static VenueJournal open(final Path directory, final JournalPolicy policy, final Venue venue) {
+        try {
+            Files.createDirectories(directory);
+            long snapshotSequence = 0;
+            for (long sequence : listSequences(directory, JournalSnapshot.PREFIX, JournalSnapshot.SUFFIX)) {
+                snapshotSequence = Math.max(snapshotSequence, sequence);
+            }
+            JournalState state = snapshotSequence == 0 ? new JournalState() : JournalSnapshot.read(
+                directory.resolve(JournalSnapshot.fileName(snapshotSequence)), venue.getNumberOfSeats());
+
+            long nextSequence = snapshotSequence;
+            int records = 0;
+            for (long sequence : listSequences(directory, JournalSegment.PREFIX, JournalSegment.SUFFIX)) {
+                Path path = directory.resolve(JournalSegment.fileName(sequence));
+                if (sequence < snapshotSequence) {
+                    // Left behind by a snapshot that was interrupted before it cleaned up.
+                    Files.delete(path);
+                } else {
+                    records += JournalSegment.replay(path, state::apply);
+                    nextSequence = sequence + 1;
+                }
+            }
+
+            for (JournalRecord reservation : state.getReservations()) {
+                venue.restoreReservation(reservation.getSeatHoldId(), reservation.getCustomerEmail(),
+                    reservation.getConfirmationCode(), reservation.getSeatIndexes());
+            }
+            VenueJournal journal = new VenueJournal(directory, policy, venue, nextSequence, snapshotSequence);
+            Collection<JournalRecord> pendingHolds = state.getPendingHolds();
+            if (!pendingHolds.isEmpty()) {
+                int[] seatHoldIds = new int[pendingHolds.size()];
+                int next = 0;
+                for (JournalRecord held : pendingHolds) {
+                    seatHoldIds[next++] = held.getSeatHoldId();
+                }
+                journal.append(JournalRecord.cancelled(seatHoldIds));
+            }
+            venue.addVenueListener(journal);
+            log.info("Recovered {} reservations from {} journal records in {}, {} pending holds lapsed",
+                state.getReservations().size(), records, directory, pendingHolds.size());
+            return journal;
+        } catch (IOException e) {
+            throw new VenueException("Unable to open journal " + directory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Journals a new seat hold.
+     *
+     * @param seatHold the new seat hold.
+     */
+    @Override
+    public void seatHoldCreated(final SeatHold seatHold) {
+        append(JournalRecord.held(seatHold));
+    }
+
+    /**
+     * Journals a reservation and waits until it is on disk, the venue rolls the reservation back when this throws.
+     *
+     * @param seatHold the reserved seat hold.
+     * @throws VenueException when the reservation can not be flushed
+     */
+    @Override
+    public void seatHoldReserved(final SeatHold seatHold) {
+        awaitDurable(append(JournalRecord.reserved(seatHold)));
+    }
+
+    /**
+     * Journals cancelled seat holds.
+     *
+     * @param seatHolds the cancelled seat holds.
+     */
+    @Override
+    public void seatHoldsCancelled(final List<SeatHold> seatHolds) {
+        append(JournalRecord.cancelled(seatHolds));
+    }
+
+    /**
+     * Appends a record to the current segment, moving to a new segment when it is full.
+     *
+     * @param record the record.
+     * @return the position after the record.
+     */
+    private long append(final JournalRecord record) {
+        if (record.encodedBytes() > policy.getSegmentBytes()) {
+            throw new VenueException("Journal record of " + record.encodedBytes() + " bytes is larger than a segment.");
+        }
+        while (true) {
+            if (closed) {
+                throw new VenueException("Journal " + directory + " is closed.");
+            }
+            JournalSegment current = segment;
+            long end = current.append(record);
+            if (end >= 0) {
+                return position(current.getSequence(), end);
+            }
+            roll(current);
+        }
+    }
+
+    /**
+     * Forces a full segment to disk and starts the next one, unless another thread already did.
+     *
+     * @param full the full segment.
+     */
+    private synchronized void roll(final JournalSegment full) {
+        if (segment != full || closed) {
+            return;
+        }
+        long sequence = full.getSequence() + 1;
+        full.awaitAppends();
+        try {
+            full.force();
+            full.close();
+            segment = JournalSegment.create(directory.resolve(JournalSegment.fileName(sequence)), sequence,
+                policy.getSegmentBytes());
+        } catch (IOException e) {
+            throw new VenueException("Unable to start journal segment " + sequence + ": " + e.getMessage());
+        }
+        if (sequence - snapshotSequence >= policy.getSegmentsPerSnapshot()) {
+            compactor.execute(this::compactQuietly);
+        }
+    }
+
+    /**
+     * Waits until the records up to a position are on disk, requesting a flush instead of waiting for the next one.
+     *
+     * @param position the position after the record.
+     */
+    private void awaitDurable(final long position) {
+        flushLock.lock();
+        try {
+            // A flush that failed before this thread started waiting doesn't fail its record, the next one may succeed.
+            long startFlushes = flushes;
+            while (durablePosition < position) {
+                if (flushes > startFlushes && flushFailure != null) {
+                    throw new VenueException("Unable to flush journal " + directory + ": "
+                        + flushFailure.getMessage());
+                }
+                if (stopped) {
+                    throw new VenueException("Journal " + directory + " closed before the record was flushed.");
+                }
+                flushRequested = true;
+                flushWanted.signal();
+                try {
+                    flushed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new VenueException("Interrupted waiting for journal " + directory + ".");
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Run method of the flusher, flushes every flush interval or as soon as a thread is waiting.
+     */
+    private void flushLoop() {
+        long intervalMillis = policy.getFlushIntervalMillis();
+        while (true) {
+            boolean stop;
+            flushLock.lock();
+            try {
+                if (!flushRequested && !stopping) {
+                    try {
+                        flushWanted.await(intervalMillis, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        stopping = true;
+                    }
+                }
+                flushRequested = false;
+                stop = stopping;
+            } finally {
+                flushLock.unlock();
+            }
+            flush();
+            if (stop) {
+                flushLock.lock();
+                try {
+                    stopped = true;
+                    flushed.signalAll();
+                } finally {
+                    flushLock.unlock();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Forces every record appended so far to disk and wakes the threads waiting for them.
+     */
+    private void flush() {
+        JournalSegment current = segment;
+        long target = position(current.getSequence(), current.scanPublished());
+        flushLock.lock();
+        try {
+            if (target <= durablePosition) {
+                return;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        try {
+            if (injectedFlushFailure != null) {
+                throw injectedFlushFailure;
+            }
+            // Earlier segments were forced when they filled up.
+            current.force();
+            flushFailure = null;
+        } catch (RuntimeException e) {
+            log.error("Unable to flush journal {}", directory, e);
+            flushFailure = e;
+        }
+        flushLock.lock();
+        try {
+            if (flushFailure == null) {
+                durablePosition = Math.max(durablePosition, target);
+            }
+            flushes++;
+            flushed.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Makes every later flush fail as if the segment could not be forced, or flush normally again when null.
+     *
+     * @param failure the failure of the flushes.
+     */
+    void failFlushes(final RuntimeException failure) {
+        injectedFlushFailure = failure;
+    }
+
+    /**
+     * Folds every full segment into a new snapshot and deletes the segments and the previous snapshot.
+     *
+     * @throws VenueException when the snapshot can not be written
+     */
+    public void compact() {
+        synchronized (compactionLock) {
+            long endSequence = segment.getSequence();
+            long startSequence = snapshotSequence;
+            if (endSequence <= startSequence) {
+                return;
+            }
+            try {
+                Path previousSnapshot = startSequence == 0 ? null
+                    : directory.resolve(JournalSnapshot.fileName(startSequence));
+                JournalState state = previousSnapshot == null ? new JournalState()
+                    : JournalSnapshot.read(previousSnapshot, venue.getNumberOfSeats());
+                List<Path> compacted = new ArrayList<Path>();
+                for (long sequence : listSequences(directory, JournalSegment.PREFIX, JournalSegment.SUFFIX)) {
+                    if (sequence < endSequence) {
+                        Path path = directory.resolve(JournalSegment.fileName(sequence));
+                        JournalSegment.replay(path, state::apply);
+                        compacted.add(path);
+                    }
+                }
+                JournalSnapshot.write(directory.resolve(JournalSnapshot.fileName(endSequence)),
+                    venue.getNumberOfSeats(), state);
+                snapshotSequence = endSequence;
+
+                if (previousSnapshot != null) {
+                    Files.deleteIfExists(previousSnapshot);
+                }
+                for (Path path : compacted) {
+                    Files.deleteIfExists(path);
+                }
+                log.debug("Snapshot of {} reservations replaces {} journal segments", state.getReservations().size(),
+                    compacted.size());
+            } catch (IOException e) {
+                throw new VenueException("Unable to write snapshot of journal " + directory + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Compacts in the background, logging failures since there is no caller to report them to.
+     */
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (VenueException e) {
+            log.error("Journal compaction failed", e);
+        }
+    }
+
+    /**
+     * Detaches the journal from the venue, flushes every record and stops the background threads.
+     *
+     * @throws IOException when the segment can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            venue.removeVenueListener(this);
+            closed = true;
+        }
+        flushLock.lock();
+        try {
+            stopping = true;
+            flushWanted.signal();
+        } finally {
+            flushLock.unlock();
+        }
+        try {
+            flusher.join();
+            compactor.shutdown();
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            segment.close();
+        }
+    }
+
+    /**
+     * Finds the position of an offset in a segment, positions increase across segments.
+     *
+     * @param sequence sequence number of the segment.
+     * @param offset   offset in the segment.
+     * @return the position.
+     */
+    private static long position(final long sequence, final long offset) {
+        return (sequence << Integer.SIZE) | offset;
+    }
+
+    /**
+     * Finds the sequence numbers of the files in a directory.
+     *
+     * @param directory the directory.
+     * @param prefix    prefix of the file names.
+     * @param suffix    suffix of the file names.
+     * @return the sequence numbers in increasing order.
+     * @throws IOException when the directory can not be read
+     */
+    private static List<Long> listSequences(final Path directory, final String prefix, final String suffix)
+        throws IOException {
+        List<Long> sequences = new ArrayList<Long>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    sequences.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring unexpected journal file {}", file);
+                }
+            }
+        }
+        Collections.sort(sequences);
+        return sequences;
+    }
+}
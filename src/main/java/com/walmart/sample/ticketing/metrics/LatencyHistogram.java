@@ -0,0 +1,156 @@
+package com.walmart.sample.ticketing.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with log-linear buckets, in the style of HdrHistogram.
+ *
+ * Values below {@link #SUB_BUCKETS} have a bucket each, larger values share a bucket with values that agree in
+ * their highest {@link #SUB_BUCKET_BITS} bits, so every recorded value is reported within about 6% of its true value
+ * at a fixed cost of one atomic increment.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Number of significant bits kept for each value.
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * Number of buckets before values start sharing buckets.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Number of buckets added for each power of two.
+     */
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    /**
+     * Number of buckets needed to cover every positive long.
+     */
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS + SUB_BUCKETS;
+
+    /**
+     * Count of values in each bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Count of all values.
+     */
+    private final LongAdder totalCount = new LongAdder();
+
+    /**
+     * Sum of all values.
+     */
+    private final LongAdder totalSum = new LongAdder();
+
+    /**
+     * Largest value.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value.
+     *
+     * @param value the value, negative values are recorded as 0.
+     */
+    public void record(final long value) {
+        long recorded = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(recorded));
+        totalCount.increment();
+        totalSum.add(recorded);
+        long currentMax = max.get();
+        while (recorded > currentMax && !max.compareAndSet(currentMax, recorded)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Records the time since a start time.
+     *
+     * @param startNanos the start time from {@link System#nanoTime()}.
+     */
+    public void recordSince(final long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Finds the number of values recorded.
+     *
+     * @return count of the values.
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Finds the mean of the values recorded.
+     *
+     * @return the mean, 0 if nothing has been recorded.
+     */
+    public double getMean() {
+        long count = totalCount.sum();
+        return count == 0 ? 0 : (double) totalSum.sum() / count;
+    }
+
+    /**
+     * Finds the largest value recorded.
+     *
+     * @return the largest value.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Finds the value at a percentile.
+     *
+     * @param percentile the percentile, between 0 and 100.
+     * @return the highest value of the bucket holding the percentile, 0 if nothing has been recorded.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        long count = totalCount.sum();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * Math.min(100, percentile) / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Finds the bucket of a value.
+     *
+     * @param value the value, not negative.
+     * @return the bucket.
+     */
+    private static int bucketOf(final long value) {
+        int shift = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * Finds the highest value that falls in a bucket.
+     *
+     * @param bucket the bucket.
+     * @return the highest value.
+     */
+    private static long highestValueOf(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long subBucket = bucket - shift * HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,400 @@
+package com.walmart.sample.ticketing.metrics;
+
+import com.walmart.sample.common.Venue;
+import com.walmart.sample.common.VenueException;
+import com.walmart.sample.ticketing.service.HoldExpirationService;
+
+import lombok.Getter;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms of one ticket service.
+ *
+ * Recording is lock-free and allocation free, a {@link LongAdder} increment or a {@link LatencyHistogram} record,
+ * so the metrics can stay on during an on-sale. Gauges read the venue and the hold expiration service when queried.
+ */
+public class TicketMetrics implements TicketMetricsMXBean {
+
+    /**
+     * JMX domain the metrics are registered under.
+     */
+    public static final String JMX_DOMAIN = "com.walmart.sample.ticketing";
+
+    /**
+     * The venue of the ticket service.
+     */
+    private final Venue venue;
+
+    /**
+     * The hold expiration service of the ticket service, possibly shared with other ticket services.
+     */
+    private final HoldExpirationService holdExpirationService;
+
+    /**
+     * Number of seat holds created.
+     */
+    private final LongAdder holdsCreated = new LongAdder();
+
+    /**
+     * Number of hold requests that failed.
+     */
+    private final LongAdder holdsFailed = new LongAdder();
+
+    /**
+     * Number of seat holds reserved.
+     */
+    private final LongAdder reservations = new LongAdder();
+
+    /**
+     * Number of reserve requests that failed.
+     */
+    private final LongAdder reservationsFailed = new LongAdder();
+
+    /**
+     * Number of seat holds released by their customer.
+     */
+    private final LongAdder holdsReleased = new LongAdder();
+
+    /**
+     * Number of seat hold expirations extended.
+     */
+    private final LongAdder holdsExtended = new LongAdder();
+
+    /**
+     * Latency of holding seats in nanoseconds.
+     */
+    @Getter
+    private final LatencyHistogram holdLatency = new LatencyHistogram();
+
+    /**
+     * Latency of reserving seats in nanoseconds.
+     */
+    @Getter
+    private final LatencyHistogram reserveLatency = new LatencyHistogram();
+
+    /**
+     * Name the metrics are registered under, null when not registered.
+     */
+    private ObjectName objectName;
+
+    /**
+     * Constructs the metrics of a ticket service.
+     *
+     * @param venue                 the venue of the ticket service.
+     * @param holdExpirationService the hold expiration service of the ticket service.
+     */
+    public TicketMetrics(final Venue venue, final HoldExpirationService holdExpirationService) {
+        this.venue = venue;
+        this.holdExpirationService = holdExpirationService;
+    }
+
+    /**
+     * Records a seat hold created.
+     *
+     * @param startNanos the start time of the request from {@link System#nanoTime()}.
+     */
+    public void holdCreated(final long startNanos) {
+        holdLatency.recordSince(startNanos);
+        holdsCreated.increment();
+    }
+
+    /**
+     * Records seat holds created in a batch, batches are not timed.
+     *
+     * @param count number of seat holds created.
+     */
+    public void holdsCreated(final int count) {
+        holdsCreated.add(count);
+    }
+
+    /**
+     * Records failed hold requests.
+     *
+     * @param count number of failed requests.
+     */
+    public void holdsFailed(final int count) {
+        holdsFailed.add(count);
+    }
+
+    /**
+     * Records a seat hold reserved.
+     *
+     * @param startNanos the start time of the request from {@link System#nanoTime()}.
+     */
+    public void reserved(final long startNanos) {
+        reserveLatency.recordSince(startNanos);
+        reservations.increment();
+    }
+
+    /**
+     * Records a failed reserve request.
+     */
+    public void reserveFailed() {
+        reservationsFailed.increment();
+    }
+
+    /**
+     * Records a seat hold released by its customer.
+     */
+    public void holdReleased() {
+        holdsReleased.increment();
+    }
+
+    /**
+     * Records a seat hold expiration extended.
+     */
+    public void holdExtended() {
+        holdsExtended.increment();
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server.
+     *
+     * @param name name of the ticket service, unique in the JVM.
+     * @throws VenueException when the metrics can not be registered
+     */
+    public synchronized void register(final String name) {
+        try {
+            ObjectName registeredName = new ObjectName(JMX_DOMAIN + ":type=TicketMetrics,name="
+                + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, registeredName);
+            objectName = registeredName;
+        } catch (JMException e) {
+            throw new VenueException("Unable to register metrics " + name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server, if registered.
+     */
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new VenueException("Unable to unregister metrics " + objectName + ": " + e.getMessage());
+        } finally {
+            objectName = null;
+        }
+    }
+
+    /**
+     * Finds the number of seat holds created.
+     *
+     * @return count of the seat holds.
+     */
+    @Override
+    public long getHoldsCreated() {
+        return holdsCreated.sum();
+    }
+
+    /**
+     * Finds the number of hold requests that failed.
+     *
+     * @return count of the failed holds.
+     */
+    @Override
+    public long getHoldsFailed() {
+        return holdsFailed.sum();
+    }
+
+    /**
+     * Finds the number of seat holds reserved.
+     *
+     * @return count of the reservations.
+     */
+    @Override
+    public long getReservations() {
+        return reservations.sum();
+    }
+
+    /**
+     * Finds the number of reserve requests that failed.
+     *
+     * @return count of the failed reservations.
+     */
+    @Override
+    public long getReservationsFailed() {
+        return reservationsFailed.sum();
+    }
+
+    /**
+     * Finds the number of seat holds released by their customer.
+     *
+     * @return count of the released seat holds.
+     */
+    @Override
+    public long getHoldsReleased() {
+        return holdsReleased.sum();
+    }
+
+    /**
+     * Finds the number of seat hold expirations extended.
+     *
+     * @return count of the extensions.
+     */
+    @Override
+    public long getHoldsExtended() {
+        return holdsExtended.sum();
+    }
+
+    /**
+     * Finds the number of seat holds cancelled by expiration.
+     *
+     * @return count of the expired seat holds.
+     */
+    @Override
+    public long getExpiredSeatHolds() {
+        return holdExpirationService.getExpiredSeatHolds();
+    }
+
+    /**
+     * Finds the number of seat holds waiting to expire.
+     *
+     * @return count of the pending expirations.
+     */
+    @Override
+    public long getPendingExpirations() {
+        return holdExpirationService.getPendingExpirations();
+    }
+
+    /**
+     * Finds the number of available seats.
+     *
+     * @return count of the available seats.
+     */
+    @Override
+    public int getAvailableSeats() {
+        return venue.getNumberOfAvailableSeats();
+    }
+
+    /**
+     * Finds the number of compare-and-set failures while claiming seats.
+     *
+     * @return count of the failed claim attempts.
+     */
+    @Override
+    public long getFailedClaimAttempts() {
+        return venue.getFailedClaimAttempts();
+    }
+
+    /**
+     * Finds the mean latency of holding seats.
+     *
+     * @return the mean latency.
+     */
+    @Override
+    public double getHoldLatencyMean() {
+        return holdLatency.getMean();
+    }
+
+    /**
+     * Finds the median latency of holding seats.
+     *
+     * @return the median latency.
+     */
+    @Override
+    public long getHoldLatencyP50() {
+        return holdLatency.getValueAtPercentile(50);
+    }
+
+    /**
+     * Finds the 99th percentile latency of holding seats.
+     *
+     * @return the 99th percentile latency.
+     */
+    @Override
+    public long getHoldLatencyP99() {
+        return holdLatency.getValueAtPercentile(99);
+    }
+
+    /**
+     * Finds the highest latency of holding seats.
+     *
+     * @return the highest latency.
+     */
+    @Override
+    public long getHoldLatencyMax() {
+        return holdLatency.getMax();
+    }
+
+    /**
+     * Finds the mean latency of reserving seats.
+     *
+     * @return the mean latency.
+     */
+    @Override
+    public double getReserveLatencyMean() {
+        return reserveLatency.getMean();
+    }
+
+    /**
+     * Finds the median latency of reserving seats.
+     *
+     * @return the median latency.
+     */
+    @Override
+    public long getReserveLatencyP50() {
+        return reserveLatency.getValueAtPercentile(50);
+    }
+
+    /**
+     * Finds the 99th percentile latency of reserving seats.
+     *
+     * @return the 99th percentile latency.
+     */
+    @Override
+    public long getReserveLatencyP99() {
+        return reserveLatency.getValueAtPercentile(99);
+    }
+
+    /**
+     * Finds the highest latency of reserving seats.
+     *
+     * @return the highest latency.
+     */
+    @Override
+    public long getReserveLatencyMax() {
+        return reserveLatency.getMax();
+    }
+
+    /**
+     * Finds the median delay between a hold's expiration time and its expiration.
+     *
+     * @return the median expiration lag.
+     */
+    @Override
+    public long getExpirationLagP50() {
+        return holdExpirationService.getExpirationLag().getValueAtPercentile(50);
+    }
+
+    /**
+     * Finds the 99th percentile delay between a hold's expiration time and its expiration.
+     *
+     * @return the 99th percentile expiration lag.
+     */
+    @Override
+    public long getExpirationLagP99() {
+        return holdExpirationService.getExpirationLag().getValueAtPercentile(99);
+    }
+
+    /**
+     * Finds the highest delay between a hold's expiration time and its expiration.
+     *
+     * @return the highest expiration lag.
+     */
+    @Override
+    public long getExpirationLagMax() {
+        return holdExpirationService.getExpirationLag().getMax();
+    }
+}
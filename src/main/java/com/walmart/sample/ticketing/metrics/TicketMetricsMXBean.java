@@ -0,0 +1,156 @@
+package com.walmart.sample.ticketing.metrics;
+
+/**
+ * The management interface of {@link TicketMetrics}, exported over JMX.
+ *
+ * Latencies are in nanoseconds.
+ */
+public interface TicketMetricsMXBean {
+
+    /**
+     * Finds the number of seat holds created.
+     *
+     * @return count of the seat holds.
+     */
+    long getHoldsCreated();
+
+    /**
+     * Finds the number of hold requests that failed.
+     *
+     * @return count of the failed holds.
+     */
+    long getHoldsFailed();
+
+    /**
+     * Finds the number of seat holds reserved.
+     *
+     * @return count of the reservations.
+     */
+    long getReservations();
+
+    /**
+     * Finds the number of reserve requests that failed.
+     *
+     * @return count of the failed reservations.
+     */
+    long getReservationsFailed();
+
+    /**
+     * Finds the number of seat holds released by their customer.
+     *
+     * @return count of the released seat holds.
+     */
+    long getHoldsReleased();
+
+    /**
+     * Finds the number of seat hold expirations extended.
+     *
+     * @return count of the extensions.
+     */
+    long getHoldsExtended();
+
+    /**
+     * Finds the number of seat holds cancelled by expiration.
+     *
+     * @return count of the expired seat holds.
+     */
+    long getExpiredSeatHolds();
+
+    /**
+     * Finds the number of seat holds waiting to expire.
+     *
+     * @return count of the pending expirations.
+     */
+    long getPendingExpirations();
+
+    /**
+     * Finds the number of available seats.
+     *
+     * @return count of the available seats.
+     */
+    int getAvailableSeats();
+
+    /**
+     * Finds the number of compare-and-set failures while claiming seats.
+     *
+     * @return count of the failed claim attempts.
+     */
+    long getFailedClaimAttempts();
+
+    /**
+     * Finds the mean latency of holding seats.
+     *
+     * @return the mean latency.
+     */
+    double getHoldLatencyMean();
+
+    /**
+     * Finds the median latency of holding seats.
+     *
+     * @return the median latency.
+     */
+    long getHoldLatencyP50();
+
+    /**
+     * Finds the 99th percentile latency of holding seats.
+     *
+     * @return the 99th percentile latency.
+     */
+    long getHoldLatencyP99();
+
+    /**
+     * Finds the highest latency of holding seats.
+     *
+     * @return the highest latency.
+     */
+    long getHoldLatencyMax();
+
+    /**
+     * Finds the mean latency of reserving seats.
+     *
+     * @return the mean latency.
+     */
+    double getReserveLatencyMean();
+
+    /**
+     * Finds the median latency of reserving seats.
+     *
+     * @return the median latency.
+     */
+    long getReserveLatencyP50();
+
+    /**
+     * Finds the 99th percentile latency of reserving seats.
+     *
+     * @return the 99th percentile latency.
+     */
+    long getReserveLatencyP99();
+
+    /**
+     * Finds the highest latency of reserving seats.
+     *
+     * @return the highest latency.
+     */
+    long getReserveLatencyMax();
+
+    /**
+     * Finds the median delay between a hold's expiration time and its expiration.
+     *
+     * @return the median expiration lag.
+     */
+    long getExpirationLagP50();
+
+    /**
+     * Finds the 99th percentile delay between a hold's expiration time and its expiration.
+     *
+     * @return the 99th percentile expiration lag.
+     */
+    long getExpirationLagP99();
+
+    /**
+     * Finds the highest delay between a hold's expiration time and its expiration.
+     *
+     * @return the highest expiration lag.
+     */
+    long getExpirationLagMax();
+}
@@ -0,0 +1,245 @@
+package com.walmart.sample.ticketing.replay;
+
+import com.walmart.sample.common.AllocationMode;
+import com.walmart.sample.common.SeatQuery;
+import com.walmart.sample.common.VenueException;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The AllocationLogReader reads back the records of an allocation log written by an {@link AllocationRecorder}.
+ *
+ * A record cut short at the end of the log, left by a recorder that was not closed, is treated as the end of the log.
+ */
+@Slf4j
+public class AllocationLogReader implements Closeable {
+
+    /**
+     * Size of the read buffer.
+     */
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * The log being read.
+     */
+    private final DataInputStream input;
+
+    /**
+     * Customer emails by dictionary id.
+     */
+    private final List<String> customers = new ArrayList<String>();
+
+    /**
+     * Constructs a reader positioned after the header.
+     *
+     * @param input the log being read.
+     */
+    private AllocationLogReader(final DataInputStream input) {
+        this.input = input;
+    }
+
+    /**
+     * Opens an allocation log.
+     *
+     * @param path the log file.
+     * @return the reader.
+     * @throws VenueException when the file can't be read or is not an allocation log
+     */
+    public static AllocationLogReader open(final Path path) {
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_BYTES));
+            if (input.readInt() != AllocationRecorder.MAGIC) {
+                throw new VenueException("Not an allocation log: " + path);
+            }
+            int version = input.readInt();
+            if (version != AllocationRecorder.VERSION) {
+                throw new VenueException("Unsupported allocation log version " + version + ": " + path);
+            }
+            return new AllocationLogReader(input);
+        } catch (IOException e) {
+            closeQuietly(input);
+            throw new VenueException("Unable to open allocation log " + path + ": " + e.getMessage());
+        } catch (VenueException e) {
+            closeQuietly(input);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the record, or null at the end of the log.
+     * @throws VenueException when the log can't be read or holds an unknown record
+     */
+    public AllocationRecord next() {
+        try {
+            int type = input.read();
+            if (type < 0) {
+                return null;
+            }
+            long timestampMicros = readVarint();
+            switch (type) {
+                case AllocationRecord.HOLD:
+                case AllocationRecord.QUERY_HOLD:
+                    return readHold((byte) type, timestampMicros);
+                case AllocationRecord.RESERVE:
+                case AllocationRecord.EXTEND:
+                    String customerEmail = readCustomer();
+                    int seatHoldId = (int) readVarint();
+                    return new AllocationRecord((byte) type, timestampMicros, customerEmail, 0, null, null,
+                        seatHoldId, input.readBoolean(), null);
+                case AllocationRecord.CANCEL:
+                    int[] seatHoldIds = new int[(int) readVarint()];
+                    for (int i = 0; i < seatHoldIds.length; i++) {
+                        seatHoldIds[i] = (int) readVarint();
+                    }
+                    return new AllocationRecord(AllocationRecord.CANCEL, timestampMicros, null, 0, null, null, 0,
+                        true, seatHoldIds);
+                default:
+                    throw new VenueException("Unknown allocation record type " + type);
+            }
+        } catch (EOFException e) {
+            log.warn("Allocation log ends with a partial record");
+            return null;
+        } catch (IOException e) {
+            throw new VenueException("Unable to read allocation log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the fields of a hold record.
+     *
+     * @param type            type of the record.
+     * @param timestampMicros time the record was written, in microseconds since recording started.
+     * @return the record.
+     * @throws IOException when the log can't be read
+     */
+    private AllocationRecord readHold(final byte type, final long timestampMicros) throws IOException {
+        String customerEmail = readCustomer();
+        int numSeats = (int) readVarint();
+        int mode = input.readUnsignedByte();
+        if (mode >= AllocationMode.values().length) {
+            throw new VenueException("Unknown allocation mode " + mode);
+        }
+        AllocationMode allocationMode = AllocationMode.values()[mode];
+        int seatHoldId = (int) readVarint();
+        SeatQuery query = null;
+        if (type == AllocationRecord.QUERY_HOLD) {
+            query = SeatQuery.builder()
+                .minQuality(readOptional())
+                .maxQuality(readOptional())
+                .minRow(readOptional())
+                .maxRow(readOptional())
+                .section(readString())
+                .allocationMode(allocationMode)
+                .build();
+        }
+        return new AllocationRecord(type, timestampMicros, customerEmail, numSeats, allocationMode, query,
+            seatHoldId, seatHoldId != 0, null);
+    }
+
+    /**
+     * Reads a customer dictionary id, and the email the first time the id appears.
+     *
+     * @return email of the customer.
+     * @throws IOException when the log can't be read
+     */
+    private String readCustomer() throws IOException {
+        int id = (int) readVarint();
+        if (id < customers.size()) {
+            return customers.get(id);
+        }
+        if (id != customers.size()) {
+            throw new VenueException("Unknown customer " + id + " in allocation log");
+        }
+        String customerEmail = readString();
+        customers.add(customerEmail);
+        return customerEmail;
+    }
+
+    /**
+     * Reads a string written as its UTF-8 length plus one followed by its bytes.
+     *
+     * @return the string, or null.
+     * @throws IOException when the log can't be read
+     */
+    private String readString() throws IOException {
+        long length = readVarint();
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) (length - 1)];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads an optional number written zig-zag encoded plus one.
+     *
+     * @return the number, or null.
+     * @throws IOException when the log can't be read
+     */
+    private Integer readOptional() throws IOException {
+        long value = readVarint();
+        if (value == 0) {
+            return null;
+        }
+        long zigZag = value - 1;
+        return (int) ((zigZag >>> 1) ^ -(zigZag & 1));
+    }
+
+    /**
+     * Reads a number written seven bits at a time, low bits first.
+     *
+     * @return the number.
+     * @throws IOException when the log can't be read
+     */
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int next = input.readUnsignedByte();
+            value |= (long) (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new VenueException("Malformed number in allocation log");
+    }
+
+    /**
+     * Closes a stream, ignoring failures.
+     *
+     * @param input the stream, may be null.
+     */
+    private static void closeQuietly(final DataInputStream input) {
+        if (input != null) {
+            try {
+                input.close();
+            } catch (IOException e) {
+                log.debug("Unable to close allocation log", e);
+            }
+        }
+    }
+
+    /**
+     * Closes the log.
+     *
+     * @throws IOException when the log can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+}
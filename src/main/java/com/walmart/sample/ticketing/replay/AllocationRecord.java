@@ -0,0 +1,117 @@
+package com.walmart.sample.ticketing.replay;
+
+import com.walmart.sample.common.AllocationMode;
+import com.walmart.sample.common.SeatQuery;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A request or cancellation that reached a venue, as written to an allocation log.
+ *
+ * Hold records carry the customer, the number of seats, the allocation mode and the id of the hold that was
+ * created, 0 if the hold failed, plus the constraints of a query hold. Reserve and extend records carry the
+ * customer, the hold id and whether the request succeeded. Cancel records carry the ids of holds that were released
+ * or expired.
+ */
+@Getter
+@ToString
+public final class AllocationRecord {
+
+    /**
+     * Type of a record of a hold request.
+     */
+    public static final byte HOLD = 1;
+
+    /**
+     * Type of a record of a reserve request.
+     */
+    public static final byte RESERVE = 2;
+
+    /**
+     * Type of a record of an extend request.
+     */
+    public static final byte EXTEND = 3;
+
+    /**
+     * Type of a record of cancelled holds, released by their customer or expired.
+     */
+    public static final byte CANCEL = 4;
+
+    /**
+     * Type of a record of a hold request constrained by a search.
+     */
+    public static final byte QUERY_HOLD = 5;
+
+    /**
+     * Type of the record.
+     */
+    private final byte type;
+
+    /**
+     * Time the request was made, in microseconds since recording started.
+     */
+    private final long timestampMicros;
+
+    /**
+     * Email of the customer, null for a cancel record.
+     */
+    private final String customerEmail;
+
+    /**
+     * Number of seats requested by a hold record.
+     */
+    private final int numSeats;
+
+    /**
+     * How the seats of a hold record were chosen.
+     */
+    private final AllocationMode allocationMode;
+
+    /**
+     * The constraints of a query hold record, null for other records.
+     */
+    private final SeatQuery query;
+
+    /**
+     * Id of the hold created, reserved or extended, 0 for a failed hold.
+     */
+    private final int seatHoldId;
+
+    /**
+     * Whether the request succeeded.
+     */
+    private final boolean successful;
+
+    /**
+     * Ids of the holds of a cancel record.
+     */
+    private final int[] seatHoldIds;
+
+    /**
+     * Constructs a record.
+     *
+     * @param type            type of the record.
+     * @param timestampMicros time the request was made, in microseconds since recording started.
+     * @param customerEmail   email of the customer.
+     * @param numSeats        number of seats requested by a hold record.
+     * @param allocationMode  how the seats of a hold record were chosen.
+     * @param query           the constraints of a query hold record.
+     * @param seatHoldId      id of the hold created, reserved or extended.
+     * @param successful      whether the request succeeded.
+     * @param seatHoldIds     ids of the holds of a cancel record.
+     */
+    AllocationRecord(final byte type, final long timestampMicros, final String customerEmail, final int numSeats,
+                     final AllocationMode allocationMode, final SeatQuery query, final int seatHoldId,
+                     final boolean successful, final int[] seatHoldIds) {
+        this.type = type;
+        this.timestampMicros = timestampMicros;
+        this.customerEmail = customerEmail;
+        this.numSeats = numSeats;
+        this.allocationMode = allocationMode;
+        this.query = query;
+        this.seatHoldId = seatHoldId;
+        this.successful = successful;
+        this.seatHoldIds = seatHoldIds;
+    }
+}
@@ -0,0 +1,393 @@
+package com.walmart.sample.ticketing.replay;
+
+import com.walmart.sample.common.AllocationMode;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.SeatQuery;
+import com.walmart.sample.common.VenueException;
+import com.walmart.sample.common.VenueListener;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The AllocationRecorder writes the requests reaching a venue to a compact binary allocation log.
+ *
+ * The log starts with {@link #MAGIC} and {@link #VERSION}, followed by one record per request in the order the
+ * requests completed. A record is its type, the time it was written in microseconds since recording started and its
+ * fields, every number written as a variable length integer so most take one or two bytes. Customers are written as
+ * an id into a dictionary of the emails seen so far, an email being written out in full only the first time it
+ * appears.
+ *
+ * Records are appended under a short lock into a buffered stream. Cancellations are heard as a {@link VenueListener},
+ * so holds released by their customer and holds that expired are both recorded.
+ */
+@Slf4j
+public class AllocationRecorder implements VenueListener, Closeable {
+
+    /**
+     * First bytes of an allocation log, "ALOG".
+     */
+    static final int MAGIC = 0x414C4F47;
+
+    /**
+     * Version of the log format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Size of the write buffer.
+     */
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * Lock guarding the stream and the dictionary, a lock rather than a monitor so recording virtual threads don't
+     * pin their carrier thread.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * The log being written, guarded by the lock.
+     */
+    private final DataOutputStream output;
+
+    /**
+     * Id of each customer email written so far, guarded by the lock.
+     */
+    private final Map<String, Integer> customerIds = new HashMap<String, Integer>();
+
+    /**
+     * Time recording started in nanoseconds.
+     */
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Number of records written, guarded by the lock.
+     */
+    private long records;
+
+    /**
+     * Whether the recorder is closed, guarded by the lock.
+     */
+    private boolean closed;
+
+    /**
+     * Constructs a recorder writing to a stream.
+     *
+     * @param output the log being written.
+     */
+    private AllocationRecorder(final DataOutputStream output) {
+        this.output = output;
+    }
+
+    /**
+     * Creates a new allocation log.
+     *
+     * @param path the log file, replaced if it exists.
+     * @return the recorder.
+     * @throws VenueException when the file can't be written
+     */
+    public static AllocationRecorder create(final Path path) {
+        try {
+            DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path), BUFFER_BYTES));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            return new AllocationRecorder(output);
+        } catch (IOException e) {
+            throw new VenueException("Unable to create allocation log " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records a hold request.
+     *
+     * @param customerEmail  email of the customer.
+     * @param numSeats       number of seats requested.
+     * @param allocationMode how the seats were chosen.
+     * @param seatHold       the hold created, null if the request failed.
+     */
+    public void held(final String customerEmail, final int numSeats, final AllocationMode allocationMode,
+                     final SeatHold seatHold) {
+        lock.lock();
+        try {
+            if (startRecord(AllocationRecord.HOLD)) {
+                writeHold(customerEmail, numSeats, allocationMode, seatHold);
+            }
+        } catch (IOException e) {
+            failed(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a hold request constrained by a search.
+     *
+     * @param customerEmail email of the customer.
+     * @param numSeats      number of seats requested.
+     * @param query         the constraints on the seats and how they were chosen.
+     * @param seatHold      the hold created, null if the request failed.
+     */
+    public void held(final String customerEmail, final int numSeats, final SeatQuery query, final SeatHold seatHold) {
+        lock.lock();
+        try {
+            if (startRecord(AllocationRecord.QUERY_HOLD)) {
+                writeHold(customerEmail, numSeats, query.getAllocationMode(), seatHold);
+                writeOptional(query.getMinQuality());
+                writeOptional(query.getMaxQuality());
+                writeOptional(query.getMinRow());
+                writeOptional(query.getMaxRow());
+                writeString(query.getSection());
+            }
+        } catch (IOException e) {
+            failed(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a reserve request.
+     *
+     * @param customerEmail email of the customer.
+     * @param seatHoldId    id of the hold.
+     * @param successful    whether the hold was reserved.
+     */
+    public void reserved(final String customerEmail, final int seatHoldId, final boolean successful) {
+        writeHoldRequest(AllocationRecord.RESERVE, customerEmail, seatHoldId, successful);
+    }
+
+    /**
+     * Records an extend request.
+     *
+     * @param customerEmail email of the customer.
+     * @param seatHoldId    id of the hold.
+     * @param successful    whether the hold was extended.
+     */
+    public void extended(final String customerEmail, final int seatHoldId, final boolean successful) {
+        writeHoldRequest(AllocationRecord.EXTEND, customerEmail, seatHoldId, successful);
+    }
+
+    /**
+     * Holds are recorded with their request, nothing to do.
+     *
+     * @param seatHold the new seat hold.
+     */
+    @Override
+    public void seatHoldCreated(final SeatHold seatHold) {
+    }
+
+    /**
+     * Reservations are recorded with their request, nothing to do.
+     *
+     * @param seatHold the reserved seat hold.
+     */
+    @Override
+    public void seatHoldReserved(final SeatHold seatHold) {
+    }
+
+    /**
+     * Records released or expired seat holds.
+     *
+     * @param seatHolds the cancelled seat holds.
+     */
+    @Override
+    public void seatHoldsCancelled(final List<SeatHold> seatHolds) {
+        lock.lock();
+        try {
+            if (startRecord(AllocationRecord.CANCEL)) {
+                writeVarint(seatHolds.size());
+                for (SeatHold seatHold : seatHolds) {
+                    writeVarint(seatHold.getSeatHoldId());
+                }
+            }
+        } catch (IOException e) {
+            failed(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a reserve or extend record.
+     *
+     * @param type          type of the record.
+     * @param customerEmail email of the customer.
+     * @param seatHoldId    id of the hold.
+     * @param successful    whether the request succeeded.
+     */
+    private void writeHoldRequest(final byte type, final String customerEmail, final int seatHoldId,
+                                  final boolean successful) {
+        lock.lock();
+        try {
+            if (startRecord(type)) {
+                writeCustomer(customerEmail);
+                writeVarint(seatHoldId);
+                output.writeBoolean(successful);
+            }
+        } catch (IOException e) {
+            failed(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the type and timestamp of a record, caller holds the lock.
+     *
+     * @param type type of the record.
+     * @return false if the recorder is closed.
+     * @throws IOException when the log can't be written
+     */
+    private boolean startRecord(final byte type) throws IOException {
+        if (closed) {
+            return false;
+        }
+        output.writeByte(type);
+        writeVarint(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+        records++;
+        return true;
+    }
+
+    /**
+     * Writes the fields common to the hold records, caller holds the lock.
+     *
+     * @param customerEmail  email of the customer.
+     * @param numSeats       number of seats requested.
+     * @param allocationMode how the seats were chosen, best available when null.
+     * @param seatHold       the hold created, null if the request failed.
+     * @throws IOException when the log can't be written
+     */
+    private void writeHold(final String customerEmail, final int numSeats, final AllocationMode allocationMode,
+                           final SeatHold seatHold) throws IOException {
+        writeCustomer(customerEmail);
+        writeVarint(numSeats);
+        output.writeByte((allocationMode == null ? AllocationMode.BEST_AVAILABLE : allocationMode).ordinal());
+        writeVarint(seatHold == null ? 0 : seatHold.getSeatHoldId());
+    }
+
+    /**
+     * Writes the dictionary id of a customer, followed by the email the first time it is seen, caller holds the
+     * lock.
+     *
+     * @param customerEmail email of the customer.
+     * @throws IOException when the log can't be written
+     */
+    private void writeCustomer(final String customerEmail) throws IOException {
+        Integer id = customerIds.get(customerEmail);
+        if (id != null) {
+            writeVarint(id);
+            return;
+        }
+        writeVarint(customerIds.size());
+        writeString(customerEmail);
+        customerIds.put(customerEmail, customerIds.size());
+    }
+
+    /**
+     * Writes a string as its UTF-8 length plus one followed by its bytes, 0 for null, caller holds the lock.
+     *
+     * @param value the string.
+     * @throws IOException when the log can't be written
+     */
+    private void writeString(final String value) throws IOException {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length + 1L);
+        output.write(bytes);
+    }
+
+    /**
+     * Writes an optional number zig-zag encoded plus one, 0 for null, caller holds the lock.
+     *
+     * @param value the number.
+     * @throws IOException when the log can't be written
+     */
+    private void writeOptional(final Integer value) throws IOException {
+        writeVarint(value == null ? 0 : (((long) value << 1) ^ ((long) value >> 63)) + 1);
+    }
+
+    /**
+     * Writes a non negative number seven bits at a time, low bits first, caller holds the lock.
+     *
+     * @param value the number.
+     * @throws IOException when the log can't be written
+     */
+    private void writeVarint(final long value) throws IOException {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            output.writeByte((int) (remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        output.writeByte((int) remaining);
+    }
+
+    /**
+     * Stops recording after a write failed, requests are never failed because they could not be recorded.
+     *
+     * @param e the failure.
+     */
+    private void failed(final IOException e) {
+        log.warn("Stopped recording allocations after a write failed", e);
+        closed = true;
+    }
+
+    /**
+     * Finds the number of records written.
+     *
+     * @return count of the records.
+     */
+    public long getRecords() {
+        lock.lock();
+        try {
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes out the buffered records.
+     *
+     * @throws IOException when the log can't be written
+     */
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            output.flush();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops recording and closes the log.
+     *
+     * @throws IOException when the log can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            output.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.walmart.sample.ticketing.replay;
+
+import com.walmart.sample.common.AllocationMode;
+import com.walmart.sample.common.HoldRequest;
+import com.walmart.sample.common.HoldResult;
+import com.walmart.sample.common.ReserveRequest;
+import com.walmart.sample.common.ReserveResult;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.SeatQuery;
+import com.walmart.sample.common.VenueException;
+import com.walmart.sample.ticketing.service.TicketService;
+import com.walmart.sample.ticketing.service.TicketServiceImpl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A ticket service that records every hold, reserve and extend request to an allocation log before returning.
+ *
+ * Releases and expirations reach the log through the recorder listening to the venue. Holds made in a batch are
+ * recorded one by one in the order of the batch, so replaying them holds seats one request at a time, which can pick
+ * different seats than the single pass of the batch did.
+ */
+public class RecordingTicketService implements TicketService, Closeable {
+
+    /**
+     * The service handling the requests.
+     */
+    private final TicketServiceImpl ticketService;
+
+    /**
+     * The recorder of the requests.
+     */
+    private final AllocationRecorder recorder;
+
+    /**
+     * Creates a recording ticket service and registers the recorder with the service's venue.
+     *
+     * @param ticketService the service handling the requests.
+     * @param recorder      the recorder of the requests.
+     */
+    public RecordingTicketService(final TicketServiceImpl ticketService, final AllocationRecorder recorder) {
+        this.ticketService = ticketService;
+        this.recorder = recorder;
+        ticketService.getVenue().addVenueListener(recorder);
+    }
+
+    /**
+     * The number of seats in the venue that are neither held nor reserved.
+     *
+     * @return the number of tickets available in the venue
+     */
+    @Override
+    public int numSeatsAvailable() {
+        return ticketService.numSeatsAvailable();
+    }
+
+    /**
+     * Find and hold the best available seats for a customer.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold object identifying the specific seats and related information
+     */
+    @Override
+    public SeatHold findAndHoldSeats(final int numSeats, final String customerEmail) {
+        return findAndHoldSeats(numSeats, customerEmail, AllocationMode.BEST_AVAILABLE);
+    }
+
+    /**
+     * Find and hold seats for a customer, chosen by an allocation mode.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param allocationMode how the seats are chosen
+     * @return a SeatHold object identifying the specific seats and related information
+     */
+    @Override
+    public SeatHold findAndHoldSeats(final int numSeats, final String customerEmail,
+                                     final AllocationMode allocationMode) {
+        try {
+            SeatHold seatHold = ticketService.findAndHoldSeats(numSeats, customerEmail, allocationMode);
+            recorder.held(customerEmail, numSeats, allocationMode, seatHold);
+            return seatHold;
+        } catch (VenueException e) {
+            recorder.held(customerEmail, numSeats, allocationMode, null);
+            throw e;
+        }
+    }
+
+    /**
+     * Find and hold the best available seats for a customer, or join the waitlist when there are not enough.
+     * The hold is recorded when the waitlist is left, holding the seats or giving up.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param maxWaitMillis how long to wait for seats to be freed
+     * @return a future of the SeatHold, failing with a VenueException if no seats were freed in time
+     */
+    @Override
+    public CompletableFuture<SeatHold> findAndHoldSeatsOrWait(final int numSeats, final String customerEmail,
+                                                              final long maxWaitMillis) {
+        return ticketService.findAndHoldSeatsOrWait(numSeats, customerEmail, maxWaitMillis)
+            .whenComplete((seatHold, e) ->
+                recorder.held(customerEmail, numSeats, AllocationMode.BEST_AVAILABLE, seatHold));
+    }
+
+    /**
+     * Find the number of available seats matching a search.
+     *
+     * @param query the constraints on the seats
+     * @return number of matching available seats
+     */
+    @Override
+    public int numSeatsAvailable(final SeatQuery query) {
+        return ticketService.numSeatsAvailable(query);
+    }
+
+    /**
+     * Find and hold the best available seats matching a search for a customer.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param query the constraints on the seats and how they are chosen
+     * @return a SeatHold object identifying the specific seats and related information
+     */
+    @Override
+    public SeatHold findAndHoldSeats(final int numSeats, final String customerEmail, final SeatQuery query) {
+        try {
+            SeatHold seatHold = ticketService.findAndHoldSeats(numSeats, customerEmail, query);
+            recorder.held(customerEmail, numSeats, query, seatHold);
+            return seatHold;
+        } catch (VenueException e) {
+            recorder.held(customerEmail, numSeats, query, null);
+            throw e;
+        }
+    }
+
+    /**
+     * Commit seats held for a specific customer.
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     * @return a reservation confirmation code
+     */
+    @Override
+    public String reserveSeats(final int seatHoldId, final String customerEmail) {
+        try {
+            String confirmationCode = ticketService.reserveSeats(seatHoldId, customerEmail);
+            recorder.reserved(customerEmail, seatHoldId, true);
+            return confirmationCode;
+        } catch (VenueException e) {
+            recorder.reserved(customerEmail, seatHoldId, false);
+            throw e;
+        }
+    }
+
+    /**
+     * Release seats held for a specific customer, the released hold is recorded by the venue listener.
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     */
+    @Override
+    public void releaseHold(final int seatHoldId, final String customerEmail) {
+        ticketService.releaseHold(seatHoldId, customerEmail);
+    }
+
+    /**
+     * Push out the expiration of seats held for a specific customer to a full hold period from now.
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     */
+    @Override
+    public void extendHold(final int seatHoldId, final String customerEmail) {
+        try {
+            ticketService.extendHold(seatHoldId, customerEmail);
+            recorder.extended(customerEmail, seatHoldId, true);
+        } catch (VenueException e) {
+            recorder.extended(customerEmail, seatHoldId, false);
+            throw e;
+        }
+    }
+
+    /**
+     * Find the seat holds and reservations of a customer.
+     *
+     * @param customerEmail unique identifier for the customer
+     * @return the customer's held, reserved and recently cancelled SeatHolds
+     */
+    @Override
+    public List<SeatHold> findSeatHolds(final String customerEmail) {
+        return ticketService.findSeatHolds(customerEmail);
+    }
+
+    /**
+     * Find and hold seats for many customers in a single pass over the venue.
+     *
+     * @param holdRequests the requests, each held all or nothing
+     * @return the result of each request, in the order of the requests
+     */
+    @Override
+    public List<HoldResult> findAndHoldSeatsBatch(final List<HoldRequest> holdRequests) {
+        List<HoldResult> holdResults = ticketService.findAndHoldSeatsBatch(holdRequests);
+        for (HoldResult holdResult : holdResults) {
+            HoldRequest holdRequest = holdResult.getRequest();
+            recorder.held(holdRequest.getCustomerEmail(), holdRequest.getNumSeats(), holdRequest.getAllocationMode(),
+                holdResult.getSeatHold());
+        }
+        return holdResults;
+    }
+
+    /**
+     * Commit seats held for many customers.
+     *
+     * @param reserveRequests the requests, each reserved independently
+     * @return the result of each request, in the order of the requests
+     */
+    @Override
+    public List<ReserveResult> reserveSeatsBatch(final List<ReserveRequest> reserveRequests) {
+        List<ReserveResult> reserveResults = ticketService.reserveSeatsBatch(reserveRequests);
+        for (ReserveResult reserveResult : reserveResults) {
+            ReserveRequest reserveRequest = reserveResult.getRequest();
+            recorder.reserved(reserveRequest.getCustomerEmail(), reserveRequest.getSeatHoldId(),
+                reserveResult.isSuccessful());
+        }
+        return reserveResults;
+    }
+
+    /**
+     * Finds the service handling the requests.
+     *
+     * @return the ticket service.
+     */
+    public TicketServiceImpl getTicketService() {
+        return ticketService;
+    }
+
+    /**
+     * Stops recording and closes the allocation log, the ticket service keeps running.
+     *
+     * @throws IOException when the log can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        ticketService.getVenue().removeVenueListener(recorder);
+        recorder.close();
+    }
+}
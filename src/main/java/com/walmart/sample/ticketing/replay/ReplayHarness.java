@@ -0,0 +1,215 @@
+package com.walmart.sample.ticketing.replay;
+
+import com.walmart.sample.common.HoldRetentionPolicy;
+import com.walmart.sample.common.ReservationState;
+import com.walmart.sample.common.Seat;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.Venue;
+import com.walmart.sample.common.VenueException;
+import com.walmart.sample.ticketing.metrics.LatencyHistogram;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The ReplayHarness drives a fresh venue with the requests of an allocation log, for load testing and for
+ * reproducing a seat layout.
+ *
+ * Records are applied one at a time in the order of the log, either as fast as possible or at the recorded pace
+ * scaled by a speed factor. Holds go straight to the venue, so hold ids are mapped from the recorded ones to the
+ * replayed ones, and expirations are applied when their cancel record is reached rather than by a timer, which makes
+ * a replay deterministic. A log recorded from a single caller reproduces its seat layout exactly, a log recorded from
+ * concurrent callers is replayed in the order the requests completed.
+ */
+@Slf4j
+public class ReplayHarness {
+
+    /**
+     * Speed factor replaying the log without waiting between records.
+     */
+    public static final double AS_FAST_AS_POSSIBLE = 0;
+
+    /**
+     * Seats of the venues replayed against.
+     */
+    private final List<Seat> seats;
+
+    /**
+     * How long the replayed venues keep seat holds that are no longer active.
+     */
+    private final HoldRetentionPolicy retentionPolicy;
+
+    /**
+     * Creates a harness replaying against venues of the given seats.
+     *
+     * @param seats seats of the venue the log was recorded on.
+     */
+    public ReplayHarness(final List<Seat> seats) {
+        this(seats, HoldRetentionPolicy.DEFAULT);
+    }
+
+    /**
+     * Creates a harness replaying against venues of the given seats and retention policy.
+     *
+     * @param seats           seats of the venue the log was recorded on.
+     * @param retentionPolicy how long the replayed venues keep seat holds that are no longer active.
+     */
+    public ReplayHarness(final List<Seat> seats, final HoldRetentionPolicy retentionPolicy) {
+        this.seats = seats;
+        this.retentionPolicy = retentionPolicy;
+    }
+
+    /**
+     * Replays an allocation log against a fresh venue.
+     *
+     * @param path  the allocation log.
+     * @param speed how many times faster than recorded to replay, {@link #AS_FAST_AS_POSSIBLE} to not wait.
+     * @return the report of the replay.
+     * @throws VenueException when the log can't be read or the replay is interrupted
+     */
+    public ReplayReport replay(final Path path, final double speed) {
+        if (speed < 0) {
+            throw new VenueException("Replay speed must not be negative.");
+        }
+        Venue venue = new Venue(seats, retentionPolicy);
+        Map<Integer, SeatHold> seatHolds = new HashMap<Integer, SeatHold>();
+        LatencyHistogram latency = new LatencyHistogram();
+        long holds = 0;
+        long reservations = 0;
+        long extensions = 0;
+        long cancellations = 0;
+        long failedRequests = 0;
+        long mismatches = 0;
+        long startNanos = System.nanoTime();
+        try (AllocationLogReader reader = AllocationLogReader.open(path)) {
+            for (AllocationRecord record = reader.next(); record != null; record = reader.next()) {
+                if (speed > 0) {
+                    waitUntil(startNanos + (long) (TimeUnit.MICROSECONDS.toNanos(record.getTimestampMicros()) / speed));
+                }
+                if (record.getType() == AllocationRecord.CANCEL) {
+                    List<SeatHold> cancelled = new ArrayList<SeatHold>(record.getSeatHoldIds().length);
+                    for (int seatHoldId : record.getSeatHoldIds()) {
+                        SeatHold seatHold = seatHolds.get(seatHoldId);
+                        if (seatHold != null) {
+                            cancelled.add(seatHold);
+                        }
+                    }
+                    int count = venue.cancelSeatHolds(cancelled);
+                    cancellations += count;
+                    mismatches += record.getSeatHoldIds().length - count;
+                    continue;
+                }
+
+                long requestNanos = System.nanoTime();
+                boolean successful;
+                if (record.getType() == AllocationRecord.RESERVE) {
+                    reservations++;
+                    successful = reserve(venue, seatHolds.get(record.getSeatHoldId()), record.getCustomerEmail());
+                } else if (record.getType() == AllocationRecord.EXTEND) {
+                    extensions++;
+                    successful = extend(seatHolds.get(record.getSeatHoldId()), record.getCustomerEmail());
+                } else {
+                    holds++;
+                    SeatHold seatHold = hold(venue, record);
+                    if (seatHold != null && record.getSeatHoldId() != 0) {
+                        seatHolds.put(record.getSeatHoldId(), seatHold);
+                    }
+                    successful = seatHold != null;
+                }
+                latency.recordSince(requestNanos);
+                if (!successful) {
+                    failedRequests++;
+                }
+                if (successful != record.isSuccessful()) {
+                    mismatches++;
+                }
+            }
+        } catch (IOException e) {
+            throw new VenueException("Unable to close allocation log " + path + ": " + e.getMessage());
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        log.debug("Replayed {} holds, {} reservations, {} extensions and {} cancellations with {} mismatches",
+            holds, reservations, extensions, cancellations, mismatches);
+
+        return ReplayReport.builder()
+            .holds(holds)
+            .reservations(reservations)
+            .extensions(extensions)
+            .cancellations(cancellations)
+            .failedRequests(failedRequests)
+            .mismatches(mismatches)
+            .elapsedNanos(elapsedNanos)
+            .latency(latency)
+            .seatStates(venue.getSeatStates())
+            .availableSeats(venue.getNumberOfAvailableSeats())
+            .build();
+    }
+
+    /**
+     * Replays a hold request.
+     *
+     * @param venue  the venue replayed against.
+     * @param record the hold record.
+     * @return the replayed hold, or null if the seats couldn't be held.
+     */
+    private static SeatHold hold(final Venue venue, final AllocationRecord record) {
+        try {
+            return record.getQuery() == null
+                ? venue.getAvailableSeats(record.getCustomerEmail(), record.getNumSeats(), record.getAllocationMode())
+                : venue.getAvailableSeats(record.getCustomerEmail(), record.getNumSeats(), record.getQuery());
+        } catch (VenueException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replays a reserve request.
+     *
+     * @param venue         the venue replayed against.
+     * @param seatHold      the replayed hold, null if it was never held.
+     * @param customerEmail email of the customer.
+     * @return true if the hold was reserved.
+     */
+    private static boolean reserve(final Venue venue, final SeatHold seatHold, final String customerEmail) {
+        return seatHold != null && seatHold.isHeldBy(customerEmail)
+            && venue.updateSeatHoldState(seatHold, ReservationState.RESERVED);
+    }
+
+    /**
+     * Replays an extend request, which only uses up one of the hold's extensions since expirations are replayed
+     * from their cancel records.
+     *
+     * @param seatHold      the replayed hold, null if it was never held.
+     * @param customerEmail email of the customer.
+     * @return true if the hold was extended.
+     */
+    private static boolean extend(final SeatHold seatHold, final String customerEmail) {
+        return seatHold != null && seatHold.isHeldBy(customerEmail)
+            && seatHold.getState() == ReservationState.HOLD && seatHold.tryExtend(Venue.MAX_HOLD_EXTENSIONS);
+    }
+
+    /**
+     * Waits until the time a record is due.
+     *
+     * @param deadlineNanos the time the record is due in nanoseconds.
+     * @throws VenueException if interrupted while waiting
+     */
+    private static void waitUntil(final long deadlineNanos) {
+        long remainingNanos = deadlineNanos - System.nanoTime();
+        while (remainingNanos > 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new VenueException("Replay interrupted.");
+            }
+            LockSupport.parkNanos(remainingNanos);
+            remainingNanos = deadlineNanos - System.nanoTime();
+        }
+    }
+}
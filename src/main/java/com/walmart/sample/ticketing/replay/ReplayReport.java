@@ -0,0 +1,87 @@
+package com.walmart.sample.ticketing.replay;
+
+import com.walmart.sample.common.SeatState;
+import com.walmart.sample.ticketing.metrics.LatencyHistogram;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ReplayReport class is the outcome of replaying an allocation log against a fresh venue.
+ */
+@Getter
+@Builder
+@ToString(exclude = {"latency", "seatStates"})
+public class ReplayReport {
+
+    /**
+     * Number of hold requests replayed.
+     */
+    private long holds;
+
+    /**
+     * Number of reserve requests replayed.
+     */
+    private long reservations;
+
+    /**
+     * Number of extend requests replayed.
+     */
+    private long extensions;
+
+    /**
+     * Number of seat holds cancelled by replayed releases and expirations.
+     */
+    private long cancellations;
+
+    /**
+     * Number of replayed requests that failed.
+     */
+    private long failedRequests;
+
+    /**
+     * Number of replayed requests and cancellations whose outcome differs from the recorded one.
+     */
+    private long mismatches;
+
+    /**
+     * Time the replay took in nanoseconds.
+     */
+    private long elapsedNanos;
+
+    /**
+     * Latencies of the replayed requests in nanoseconds.
+     */
+    private LatencyHistogram latency;
+
+    /**
+     * State of every seat at the end of the replay, in the venue's seat order.
+     */
+    private SeatState[] seatStates;
+
+    /**
+     * Number of seats available at the end of the replay.
+     */
+    private int availableSeats;
+
+    /**
+     * Finds the number of hold, reserve and extend requests replayed.
+     *
+     * @return count of the requests.
+     */
+    public long getRequests() {
+        return holds + reservations + extensions;
+    }
+
+    /**
+     * Finds the rate the requests were replayed at, including any time spent waiting to keep the recorded pace.
+     *
+     * @return requests per second.
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : getRequests() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+}
@@ -0,0 +1,47 @@
+package com.walmart.sample.ticketing.seatmap;
+
+import com.walmart.sample.common.SeatState;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The SeatChangeBatch class holds the seats whose state changed during one interval of a {@link SeatChangeStream}.
+ *
+ * Each seat appears once with its latest state, however many times it changed during the interval.
+ */
+@Getter
+@Builder
+@ToString(exclude = { "seatIndexes", "states" })
+public class SeatChangeBatch {
+
+    /**
+     * Order of the batch among the batches of its subscriber, starting at 0.
+     */
+    private long sequence;
+
+    /**
+     * Whether the batch holds every seat of the venue, as the first batch of a subscriber does.
+     */
+    private boolean snapshot;
+
+    /**
+     * Indexes of the changed seats in the venue, in ascending order.
+     */
+    private int[] seatIndexes;
+
+    /**
+     * The latest state of each changed seat.
+     */
+    private SeatState[] states;
+
+    /**
+     * Finds the number of changed seats.
+     *
+     * @return count of the seats in the batch.
+     */
+    public int size() {
+        return seatIndexes.length;
+    }
+}
@@ -0,0 +1,377 @@
+package com.walmart.sample.ticketing.seatmap;
+
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.SeatState;
+import com.walmart.sample.common.Venue;
+import com.walmart.sample.common.VenueListener;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A publisher of the seat state changes of a venue, for pushing live seat maps.
+ *
+ * The stream listens to the venue and records the latest state of every seat. Each subscriber has a bitset of the
+ * seats that changed since its last batch, and every run of the stream turns the bitset into one batch per
+ * subscriber, so a seat that changes many times in an interval is sent once. A subscriber that has not requested
+ * another batch is skipped and its changes keep coalescing in its bitset, so a slow subscriber costs a bitset rather
+ * than a growing queue, and the first batch of every subscriber is a snapshot of the whole venue.
+ */
+@Slf4j
+public class SeatChangeStream implements VenueListener, Flow.Publisher<SeatChangeBatch>, Runnable, AutoCloseable {
+
+    /**
+     * Default interval between batches in milliseconds.
+     */
+    public static final long DEFAULT_INTERVAL_MILLIS = 250;
+
+    /**
+     * Every seat state, indexed by ordinal.
+     */
+    private static final SeatState[] SEAT_STATES = SeatState.values();
+
+    /**
+     * The venue.
+     */
+    private final Venue venue;
+
+    /**
+     * Latest state of each seat as its ordinal plus one, 0 until it is known.
+     */
+    private final AtomicIntegerArray seatStates;
+
+    /**
+     * The active subscriptions.
+     */
+    private final List<SeatSubscription> subscriptions = new CopyOnWriteArrayList<SeatSubscription>();
+
+    /**
+     * Number of seat state changes heard from the venue.
+     */
+    private final LongAdder seatChanges = new LongAdder();
+
+    /**
+     * Number of seats sent in batches to all subscribers.
+     */
+    private final LongAdder publishedSeats = new LongAdder();
+
+    /**
+     * Number of batches sent to all subscribers.
+     */
+    private final LongAdder publishedBatches = new LongAdder();
+
+    /**
+     * Constructs a stream and starts listening to a venue.
+     *
+     * @param venue the venue.
+     */
+    public SeatChangeStream(final Venue venue) {
+        this.venue = venue;
+        seatStates = new AtomicIntegerArray(venue.getNumberOfSeats());
+        // Listen first so no change is missed, changes heard while reading the venue are newer than what was read.
+        venue.addVenueListener(this);
+        SeatState[] states = venue.getSeatStates();
+        for (int index = 0; index < states.length; index++) {
+            seatStates.compareAndSet(index, 0, states[index].ordinal() + 1);
+        }
+    }
+
+    /**
+     * Starts publishing a batch to each subscriber every interval.
+     *
+     * @param scheduler      the scheduler that runs the stream.
+     * @param intervalMillis the interval between batches in milliseconds.
+     * @return the future of the periodic run, cancel it to stop publishing.
+     */
+    public ScheduledFuture<?> start(final ScheduledExecutorService scheduler, final long intervalMillis) {
+        return scheduler.scheduleAtFixedRate(this, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Subscribes to the changes, the first batch is a snapshot of every seat.
+     *
+     * @param subscriber the subscriber.
+     */
+    @Override
+    public void subscribe(final Flow.Subscriber<? super SeatChangeBatch> subscriber) {
+        SeatSubscription subscription = new SeatSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscriptions.add(subscription);
+    }
+
+    /**
+     * Publishes the changes since the last run to every subscriber that has requested a batch.
+     */
+    @Override
+    public void run() {
+        for (SeatSubscription subscription : subscriptions) {
+            subscription.publish();
+        }
+    }
+
+    /**
+     * Stops listening to the venue and completes every subscription.
+     */
+    @Override
+    public void close() {
+        venue.removeVenueListener(this);
+        for (SeatSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * Records seats of a new seat hold as held.
+     *
+     * @param seatHold the new seat hold.
+     */
+    @Override
+    public void seatHoldCreated(final SeatHold seatHold) {
+        changed(seatHold.getSeatIndexes(), SeatState.HELD);
+    }
+
+    /**
+     * Records seats of a reserved seat hold as reserved.
+     *
+     * @param seatHold the reserved seat hold.
+     */
+    @Override
+    public void seatHoldReserved(final SeatHold seatHold) {
+        changed(seatHold.getSeatIndexes(), SeatState.RESERVED);
+    }
+
+    /**
+     * Records seats of cancelled seat holds as available.
+     *
+     * @param seatHolds the cancelled seat holds.
+     */
+    @Override
+    public void seatHoldsCancelled(final List<SeatHold> seatHolds) {
+        for (SeatHold seatHold : seatHolds) {
+            changed(seatHold.getSeatIndexes(), SeatState.AVAILABLE);
+        }
+    }
+
+    /**
+     * Records the new state of seats and marks them changed for every subscriber.
+     *
+     * @param seatIndexes the indexes of the seats.
+     * @param state       the new state.
+     */
+    private void changed(final int[] seatIndexes, final SeatState state) {
+        for (int index : seatIndexes) {
+            // The state is written before the seat is marked, so a batch never sends an older state than its mark.
+            seatStates.set(index, state.ordinal() + 1);
+        }
+        for (SeatSubscription subscription : subscriptions) {
+            subscription.mark(seatIndexes);
+        }
+        seatChanges.add(seatIndexes.length);
+    }
+
+    /**
+     * Finds the venue of the stream.
+     *
+     * @return the venue.
+     */
+    public Venue getVenue() {
+        return venue;
+    }
+
+    /**
+     * Finds the number of active subscriptions.
+     *
+     * @return count of the subscribers.
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Finds the number of seat state changes heard from the venue.
+     *
+     * @return count of the changes.
+     */
+    public long getSeatChanges() {
+        return seatChanges.sum();
+    }
+
+    /**
+     * Finds the number of seats sent in batches to all subscribers, lower than the changes times the subscribers
+     * when changes were coalesced.
+     *
+     * @return count of the published seats.
+     */
+    public long getPublishedSeats() {
+        return publishedSeats.sum();
+    }
+
+    /**
+     * Finds the number of batches sent to all subscribers.
+     *
+     * @return count of the published batches.
+     */
+    public long getPublishedBatches() {
+        return publishedBatches.sum();
+    }
+
+    /**
+     * The subscription of one subscriber, its signals are sent under the subscription's monitor so they never
+     * overlap.
+     */
+    private final class SeatSubscription implements Flow.Subscription {
+
+        /**
+         * The subscriber.
+         */
+        private final Flow.Subscriber<? super SeatChangeBatch> subscriber;
+
+        /**
+         * Bitset of the seats changed since the last batch.
+         */
+        private final AtomicLongArray changedSeats;
+
+        /**
+         * Number of batches requested and not yet sent.
+         */
+        private final AtomicLong demand = new AtomicLong();
+
+        /**
+         * Order of the next batch, guarded by the monitor.
+         */
+        private long sequence;
+
+        /**
+         * Whether the subscription has been cancelled or completed, guarded by the monitor.
+         */
+        private boolean done;
+
+        /**
+         * Constructs a subscription with every seat marked changed.
+         *
+         * @param subscriber the subscriber.
+         */
+        private SeatSubscription(final Flow.Subscriber<? super SeatChangeBatch> subscriber) {
+            this.subscriber = subscriber;
+            int seats = seatStates.length();
+            changedSeats = new AtomicLongArray((seats + Long.SIZE - 1) / Long.SIZE);
+            for (int word = 0; word < changedSeats.length(); word++) {
+                int bits = Math.min(Long.SIZE, seats - word * Long.SIZE);
+                changedSeats.set(word, bits == Long.SIZE ? -1L : (1L << bits) - 1);
+            }
+        }
+
+        /**
+         * Adds to the number of batches the subscriber can take.
+         *
+         * @param n the number of batches.
+         */
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                cancel();
+                synchronized (this) {
+                    subscriber.onError(new IllegalArgumentException("Must request at least 1 batch."));
+                }
+                return;
+            }
+            demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+        }
+
+        /**
+         * Stops sending batches.
+         */
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                done = true;
+            }
+            subscriptions.remove(this);
+        }
+
+        /**
+         * Marks seats changed.
+         *
+         * @param seatIndexes the indexes of the seats.
+         */
+        private void mark(final int[] seatIndexes) {
+            for (int index : seatIndexes) {
+                long bit = 1L << index;
+                int word = index / Long.SIZE;
+                if ((changedSeats.get(word) & bit) == 0) {
+                    changedSeats.accumulateAndGet(word, bit, (current, added) -> current | added);
+                }
+            }
+        }
+
+        /**
+         * Sends the seats changed since the last batch if the subscriber has requested a batch.
+         */
+        private synchronized void publish() {
+            if (done || demand.get() == 0) {
+                return;
+            }
+            long[] taken = new long[changedSeats.length()];
+            int count = 0;
+            for (int word = 0; word < taken.length; word++) {
+                if (changedSeats.get(word) != 0) {
+                    taken[word] = changedSeats.getAndSet(word, 0);
+                    count += Long.bitCount(taken[word]);
+                }
+            }
+            if (count == 0) {
+                return;
+            }
+            int[] seatIndexes = new int[count];
+            SeatState[] states = new SeatState[count];
+            int next = 0;
+            for (int word = 0; word < taken.length; word++) {
+                for (long bits = taken[word]; bits != 0; bits &= bits - 1) {
+                    int index = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                    seatIndexes[next] = index;
+                    states[next++] = SEAT_STATES[seatStates.get(index) - 1];
+                }
+            }
+            SeatChangeBatch batch = SeatChangeBatch.builder()
+                .sequence(sequence)
+                .snapshot(sequence == 0)
+                .seatIndexes(seatIndexes)
+                .states(states)
+                .build();
+            sequence++;
+            if (demand.get() != Long.MAX_VALUE) {
+                demand.decrementAndGet();
+            }
+            publishedBatches.increment();
+            publishedSeats.add(count);
+            try {
+                subscriber.onNext(batch);
+            } catch (RuntimeException e) {
+                log.warn("Cancelling seat change subscriber {} that failed on a batch", subscriber, e);
+                done = true;
+                subscriptions.remove(this);
+            }
+        }
+
+        /**
+         * Completes the subscription.
+         */
+        private synchronized void complete() {
+            if (!done) {
+                done = true;
+                subscriptions.remove(this);
+                subscriber.onComplete();
+            }
+        }
+    }
+}
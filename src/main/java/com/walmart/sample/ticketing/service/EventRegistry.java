@@ -0,0 +1,131 @@
+package com.walmart.sample.ticketing.service;
+
+import com.walmart.sample.common.Venue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The EventRegistry maps events to their ticket services, sharded by event id.
+ *
+ * Events are looked up by id for holds and by venue for reservations, which only carry a seat hold id. Each shard
+ * keeps both maps for the events whose id hashes to it, so registering one event never contends with lookups of
+ * events in other shards.
+ */
+public class EventRegistry {
+
+    /**
+     * Default number of shards.
+     */
+    public static final int DEFAULT_SHARDS = 16;
+
+    /**
+     * Ticket services by event id, one map per shard.
+     */
+    private final List<Map<String, TicketServiceImpl>> eventShards;
+
+    /**
+     * Ticket services by venue, one map per shard.
+     */
+    private final List<Map<Venue, TicketServiceImpl>> venueShards;
+
+    /**
+     * Mask for finding the shard of a hash.
+     */
+    private final int mask;
+
+    /**
+     * Constructs an empty registry.
+     *
+     * @param shards number of shards, rounded up to a power of two.
+     */
+    public EventRegistry(final int shards) {
+        int size = Integer.highestOneBit(Math.max(1, shards));
+        if (size < shards) {
+            size <<= 1;
+        }
+        eventShards = new ArrayList<Map<String, TicketServiceImpl>>(size);
+        venueShards = new ArrayList<Map<Venue, TicketServiceImpl>>(size);
+        for (int i = 0; i < size; i++) {
+            eventShards.add(new ConcurrentHashMap<String, TicketServiceImpl>());
+            venueShards.add(new ConcurrentHashMap<Venue, TicketServiceImpl>());
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Registers an event.
+     *
+     * @param eventId       unique identifier of the event.
+     * @param ticketService the ticket service of the event.
+     * @return false if the event id is already registered.
+     */
+    public boolean register(final String eventId, final TicketServiceImpl ticketService) {
+        if (eventShards.get(shard(eventId.hashCode())).putIfAbsent(eventId, ticketService) != null) {
+            return false;
+        }
+        venueShards.get(shard(System.identityHashCode(ticketService.getVenue()))).put(ticketService.getVenue(),
+            ticketService);
+        return true;
+    }
+
+    /**
+     * Removes an event.
+     *
+     * @param eventId unique identifier of the event.
+     * @return the ticket service of the event, or null if it was not registered.
+     */
+    public TicketServiceImpl unregister(final String eventId) {
+        TicketServiceImpl ticketService = eventShards.get(shard(eventId.hashCode())).remove(eventId);
+        if (ticketService != null) {
+            venueShards.get(shard(System.identityHashCode(ticketService.getVenue()))).remove(ticketService.getVenue());
+        }
+        return ticketService;
+    }
+
+    /**
+     * Finds the ticket service of an event.
+     *
+     * @param eventId unique identifier of the event.
+     * @return the ticket service, or null if the event is not registered.
+     */
+    public TicketServiceImpl get(final String eventId) {
+        return eventShards.get(shard(eventId.hashCode())).get(eventId);
+    }
+
+    /**
+     * Finds the ticket service of a venue.
+     *
+     * @param venue the venue.
+     * @return the ticket service, or null if the venue's event is not registered.
+     */
+    public TicketServiceImpl get(final Venue venue) {
+        return venueShards.get(shard(System.identityHashCode(venue))).get(venue);
+    }
+
+    /**
+     * Finds every registered ticket service.
+     *
+     * @return the ticket services.
+     */
+    public Collection<TicketServiceImpl> getAll() {
+        List<TicketServiceImpl> ticketServices = new ArrayList<TicketServiceImpl>();
+        for (Map<String, TicketServiceImpl> shard : eventShards) {
+            ticketServices.addAll(shard.values());
+        }
+        return ticketServices;
+    }
+
+    /**
+     * Finds the shard of a hash.
+     *
+     * @param hash the hash.
+     * @return the shard index.
+     */
+    private int shard(final int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -1,45 +1,457 @@
 package com.walmart.sample.ticketing.service;
 
+import com.walmart.sample.common.HoldTimeout;
 import com.walmart.sample.common.ReservationState;
 import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.Venue;
 import com.walmart.sample.common.VenueException;
+import com.walmart.sample.ticketing.metrics.LatencyHistogram;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * The runnable class that handles Hold Expiration task executor.
+ *
+ * Pending expirations are kept in a hashed timing wheel, a ring of buckets each covering one tick. Scheduling,
+ * cancelling and rescheduling a hold are O(1) under the lock of a bucket, cancelled holds are unlinked rather than
+ * left for the wheel to skip, and each run of the service expires every hold whose tick has passed, returning their
+ * seats to the venue in bulk.
+ *
+ * One service can expire the holds of many venues, each venue's expired holds are cancelled as a separate task on
+ * the service's executor.
  */
 @Slf4j
 public class HoldExpirationService implements Runnable {
 
     /**
-     * SeatHold that will be cancelled upon expiration.
+     * Default duration of a tick of the wheel in milliseconds.
+     */
+    public static final long DEFAULT_TICK_MILLIS = 100;
+
+    /**
+     * Default number of buckets in the wheel.
+     */
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    /**
+     * Duration of a tick in nanoseconds.
+     */
+    private final long tickNanos;
+
+    /**
+     * Time the wheel started in nanoseconds.
+     */
+    private final long startNanos;
+
+    /**
+     * Buckets of the wheel, the bucket of a tick is the tick masked by the wheel size.
+     */
+    private final Bucket[] wheel;
+
+    /**
+     * Mask for finding the bucket of a tick.
+     */
+    private final int mask;
+
+    /**
+     * Executor the expired holds of each venue are cancelled on.
+     */
+    private final Executor executor;
+
+    /**
+     * Last tick that has been processed.
+     */
+    private volatile long processedTick;
+
+    /**
+     * Number of holds waiting in the wheel.
+     */
+    private final LongAdder pendingExpirations = new LongAdder();
+
+    /**
+     * Number of holds cancelled by expiration.
      */
-    private SeatHold seatHold;
+    private final LongAdder expiredSeatHolds = new LongAdder();
+
+    /**
+     * Time in nanoseconds between the end of a hold's tick and the run that expired it.
+     */
+    private final LatencyHistogram expirationLag = new LatencyHistogram();
+
+    /**
+     * Constructs a hold expiration service with the default tick and wheel size.
+     */
+    public HoldExpirationService() {
+        this(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+    }
 
     /**
      * Constructs a hold expiration service.
      *
-     * @param seatHold to check hold expiration.
+     * @param tickMillis duration of a tick in milliseconds, the precision of expirations.
+     * @param wheelSize  number of buckets in the wheel, rounded up to a power of two.
      */
-    public HoldExpirationService(final SeatHold seatHold) {
-        this.seatHold = seatHold;
+    public HoldExpirationService(final long tickMillis, final int wheelSize) {
+        this(tickMillis, wheelSize, Runnable::run);
     }
 
     /**
-     * Run method for scheduled task executor.
+     * Constructs a hold expiration service that cancels expired holds on an executor.
+     *
+     * @param tickMillis duration of a tick in milliseconds, the precision of expirations.
+     * @param wheelSize  number of buckets in the wheel, rounded up to a power of two.
+     * @param executor   executor the expired holds of each venue are cancelled on.
+     */
+    public HoldExpirationService(final long tickMillis, final int wheelSize, final Executor executor) {
+        if (tickMillis < 1 || wheelSize < 1) {
+            throw new VenueException("Tick and wheel size must be positive.");
+        }
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        startNanos = System.nanoTime();
+        wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        mask = size - 1;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts running the wheel once per tick.
+     *
+     * @param scheduler the scheduler that runs the wheel.
+     * @return the future of the periodic run, cancel it to stop the wheel.
+     */
+    public ScheduledFuture<?> start(final ScheduledExecutorService scheduler) {
+        return scheduler.scheduleAtFixedRate(this, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Finds the duration of a tick.
+     *
+     * @return duration of a tick in milliseconds.
+     */
+    public long getTickMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(tickNanos);
+    }
+
+    /**
+     * Finds the number of holds waiting in the wheel.
+     *
+     * @return count of the pending expirations.
+     */
+    public long getPendingExpirations() {
+        return pendingExpirations.sum();
+    }
+
+    /**
+     * Finds the number of holds cancelled by expiration.
+     *
+     * @return count of the expired seat holds.
+     */
+    public long getExpiredSeatHolds() {
+        return expiredSeatHolds.sum();
+    }
+
+    /**
+     * Finds the delay between the end of a hold's tick and the run that expired it.
+     *
+     * @return histogram of the lag in nanoseconds.
+     */
+    public LatencyHistogram getExpirationLag() {
+        return expirationLag;
+    }
+
+    /**
+     * Schedules the expiration of a seat hold.
+     *
+     * @param seatHold the seat hold to expire.
+     * @param delay    the time until the hold expires.
+     * @param unit     the unit of the delay.
+     */
+    public void schedule(final SeatHold seatHold, final long delay, final TimeUnit unit) {
+        Timeout timeout = new Timeout(seatHold);
+        seatHold.setExpiration(timeout);
+        insert(timeout, tickOf(System.nanoTime() + unit.toNanos(delay)));
+    }
+
+    /**
+     * Schedules the expiration of seat holds that expire together.
+     *
+     * @param seatHolds the seat holds to expire.
+     * @param delay     the time until the holds expire.
+     * @param unit      the unit of the delay.
+     */
+    public void schedule(final List<SeatHold> seatHolds, final long delay, final TimeUnit unit) {
+        long tick = tickOf(System.nanoTime() + unit.toNanos(delay));
+        for (SeatHold seatHold : seatHolds) {
+            Timeout timeout = new Timeout(seatHold);
+            seatHold.setExpiration(timeout);
+            insert(timeout, tick);
+        }
+    }
+
+    /**
+     * Moves the pending expiration of a seat hold to a new delay from now, unlinking it from its bucket in O(1).
+     *
+     * @param seatHold the seat hold.
+     * @param delay    the time from now until the hold expires.
+     * @param unit     the unit of the delay.
+     * @return false if no expiration was pending, the hold has already expired or was never scheduled.
+     */
+    public boolean reschedule(final SeatHold seatHold, final long delay, final TimeUnit unit) {
+        if (!cancel(seatHold)) {
+            return false;
+        }
+        schedule(seatHold, delay, unit);
+        return true;
+    }
+
+    /**
+     * Cancels the pending expiration of a seat hold.
+     *
+     * @param seatHold the seat hold.
+     * @return true if an expiration was pending and is now cancelled.
+     */
+    public boolean cancel(final SeatHold seatHold) {
+        HoldTimeout timeout = seatHold.getExpiration();
+        return timeout != null && timeout.cancel();
+    }
+
+    /**
+     * Finds the tick a time falls in, rounding up so holds never expire early.
+     *
+     * @param nanos the time in nanoseconds.
+     * @return the tick.
+     */
+    private long tickOf(final long nanos) {
+        return (nanos - startNanos + tickNanos - 1) / tickNanos;
+    }
+
+    /**
+     * Inserts a timeout into the bucket of a tick, or the next unprocessed tick if that tick has already passed.
+     *
+     * @param timeout the timeout.
+     * @param tick    the tick the timeout expires in.
+     */
+    private void insert(final Timeout timeout, final long tick) {
+        while (true) {
+            long target = Math.max(tick, processedTick + 1);
+            Bucket bucket = wheel[(int) (target & mask)];
+            synchronized (bucket) {
+                // processedTick only moves while the bucket of that tick is locked.
+                if (target > processedTick) {
+                    timeout.tick = target;
+                    bucket.add(timeout);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Run method for scheduled task executor, expires the holds of every tick that has passed.
      */
     @Override
     public void run() {
         try {
-            log.debug("Checking seat hold id " + seatHold.getSeatHoldId() + " for expiration.");
+            long nowNanos = System.nanoTime();
+            long currentTick = (nowNanos - startNanos) / tickNanos;
+            List<SeatHold> expired = new ArrayList<SeatHold>();
+            for (long tick = processedTick + 1; tick <= currentTick; tick++) {
+                Bucket bucket = wheel[(int) (tick & mask)];
+                int previouslyExpired = expired.size();
+                synchronized (bucket) {
+                    bucket.expire(tick, expired);
+                    processedTick = tick;
+                }
+                long lag = nowNanos - startNanos - tick * tickNanos;
+                for (int i = previouslyExpired; i < expired.size(); i++) {
+                    expirationLag.record(lag);
+                }
+            }
+            if (!expired.isEmpty()) {
+                log.debug("Expiring {} seat holds", expired.size());
+                expire(expired);
+            }
+        } catch (RuntimeException e) {
+            // An exception escaping run() would cancel the fixed rate task and no hold would expire again.
+            log.error("Unable to expire seat holds", e);
+        }
+    }
 
+    /**
+     * Cancels expired holds, grouped by venue so each venue releases its seats once. A venue that fails to cancel
+     * its holds, or whose task is rejected by the executor, is logged without holding up the other venues.
+     *
+     * @param expired the expired holds.
+     */
+    private void expire(final List<SeatHold> expired) {
+        Map<Venue, List<SeatHold>> holdsByVenue = new IdentityHashMap<Venue, List<SeatHold>>();
+        for (SeatHold seatHold : expired) {
             // Only cancel if seat is on hold
             if (seatHold.getState() == ReservationState.HOLD) {
-                log.debug("Seat hold " + seatHold.getSeatHoldId() + " Hold expired");
-                seatHold.getVenue().cancelSeatHold(seatHold);
+                List<SeatHold> venueHolds = holdsByVenue.get(seatHold.getVenue());
+                if (venueHolds == null) {
+                    venueHolds = new ArrayList<SeatHold>();
+                    holdsByVenue.put(seatHold.getVenue(), venueHolds);
+                }
+                venueHolds.add(seatHold);
+            }
+        }
+        for (Map.Entry<Venue, List<SeatHold>> entry : holdsByVenue.entrySet()) {
+            Venue venue = entry.getKey();
+            List<SeatHold> venueHolds = entry.getValue();
+            try {
+                executor.execute(() -> {
+                    try {
+                        expiredSeatHolds.add(venue.cancelSeatHolds(venueHolds));
+                    } catch (RuntimeException e) {
+                        log.error("Unable to cancel {} expired seat holds", venueHolds.size(), e);
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.error("Unable to submit {} expired seat holds for cancellation", venueHolds.size(), e);
+            }
+        }
+    }
+
+    /**
+     * A bucket of the wheel, a doubly linked list of timeouts guarded by the bucket's monitor.
+     */
+    private final class Bucket {
+
+        /**
+         * First timeout in the bucket.
+         */
+        private Timeout head;
+
+        /**
+         * Adds a timeout to the bucket.
+         *
+         * @param timeout the timeout.
+         */
+        private void add(final Timeout timeout) {
+            timeout.bucket = this;
+            timeout.next = head;
+            if (head != null) {
+                head.previous = timeout;
+            }
+            head = timeout;
+            pendingExpirations.increment();
+        }
+
+        /**
+         * Removes a timeout from the bucket.
+         *
+         * @param timeout the timeout.
+         */
+        private void remove(final Timeout timeout) {
+            if (timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            pendingExpirations.decrement();
+        }
+
+        /**
+         * Removes the timeouts due by a tick, timeouts for later rotations of the wheel stay.
+         *
+         * @param tick    the tick being processed.
+         * @param expired the list the expired holds are added to.
+         */
+        private void expire(final long tick, final List<SeatHold> expired) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.tick <= tick) {
+                    remove(timeout);
+                    timeout.seatHold.setExpiration(null);
+                    expired.add(timeout.seatHold);
+                }
+                timeout = next;
+            }
+        }
+    }
+
+    /**
+     * The pending expiration of one seat hold.
+     */
+    private final class Timeout implements HoldTimeout {
+
+        /**
+         * The seat hold to expire.
+         */
+        private final SeatHold seatHold;
+
+        /**
+         * The tick the hold expires in, guarded by the bucket.
+         */
+        private long tick;
+
+        /**
+         * The bucket holding the timeout, null once removed.
+         */
+        private volatile Bucket bucket;
+
+        /**
+         * Previous timeout in the bucket.
+         */
+        private Timeout previous;
+
+        /**
+         * Next timeout in the bucket.
+         */
+        private Timeout next;
+
+        /**
+         * Constructs a timeout.
+         *
+         * @param seatHold the seat hold to expire.
+         */
+        private Timeout(final SeatHold seatHold) {
+            this.seatHold = seatHold;
+        }
+
+        /**
+         * Cancels the timeout by unlinking it from its bucket.
+         *
+         * @return true if the timeout was still pending.
+         */
+        @Override
+        public boolean cancel() {
+            Bucket current = bucket;
+            if (current == null) {
+                return false;
+            }
+            synchronized (current) {
+                if (bucket != current) {
+                    return false;
+                }
+                current.remove(this);
             }
-        } catch (VenueException e) {
-            e.printStackTrace();
+            seatHold.setExpiration(null);
+            return true;
         }
     }
 }
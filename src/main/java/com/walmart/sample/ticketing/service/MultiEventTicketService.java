@@ -0,0 +1,290 @@
+package com.walmart.sample.ticketing.service;
+
+import com.walmart.sample.common.AllocationMode;
+import com.walmart.sample.common.HoldRetentionPolicy;
+import com.walmart.sample.common.Seat;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.SeatHoldIdAllocator;
+import com.walmart.sample.common.SeatQuery;
+import com.walmart.sample.common.Venue;
+import com.walmart.sample.common.VenueException;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * A ticket service for many events in one JVM.
+ *
+ * Every event has its own {@link Venue} and {@link TicketServiceImpl}, but they share one seat hold id allocator,
+ * so hold ids are unique across events and a reservation is routed to its event from the id alone, and one hold
+ * expiration wheel driven by a bounded scheduler pool.
+ */
+@Slf4j
+public class MultiEventTicketService {
+
+    /**
+     * Default number of background threads shared by all events.
+     */
+    public static final int DEFAULT_THREADS = 2;
+
+    /**
+     * Registered events.
+     */
+    private final EventRegistry eventRegistry;
+
+    /**
+     * Allocator of seat hold ids shared by every venue.
+     */
+    private final SeatHoldIdAllocator seatHoldIdAllocator = new SeatHoldIdAllocator();
+
+    /**
+     * Background threads shared by all events.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Hold expiration shared by all events.
+     */
+    private final HoldExpirationService holdExpirationService;
+
+    /**
+     * The periodic run of the hold expiration wheel.
+     */
+    private final ScheduledFuture<?> expirationTask;
+
+    /**
+     * Creates a multi event ticket service with the default number of threads.
+     */
+    public MultiEventTicketService() {
+        this(DEFAULT_THREADS, EventRegistry.DEFAULT_SHARDS);
+    }
+
+    /**
+     * Creates a multi event ticket service.
+     *
+     * @param threads number of background threads shared by all events.
+     * @param shards  number of shards of the event registry.
+     */
+    public MultiEventTicketService(final int threads, final int shards) {
+        eventRegistry = new EventRegistry(shards);
+        scheduler = Executors.newScheduledThreadPool(threads);
+        holdExpirationService = new HoldExpirationService(HoldExpirationService.DEFAULT_TICK_MILLIS,
+            HoldExpirationService.DEFAULT_WHEEL_SIZE, scheduler);
+        expirationTask = holdExpirationService.start(scheduler);
+    }
+
+    /**
+     * Registers an event.
+     *
+     * @param eventId unique identifier of the event.
+     * @param seats   the seats of the event's venue.
+     * @return the ticket service of the event.
+     * @throws VenueException when the event is already registered
+     */
+    public TicketService registerEvent(final String eventId, final List<Seat> seats) {
+        return registerEvent(eventId, seats, HoldRetentionPolicy.DEFAULT);
+    }
+
+    /**
+     * Registers an event with a seat hold retention policy.
+     *
+     * @param eventId         unique identifier of the event.
+     * @param seats           the seats of the event's venue.
+     * @param retentionPolicy how long seat holds are kept once they are no longer active.
+     * @return the ticket service of the event.
+     * @throws VenueException when the event is already registered
+     */
+    public TicketService registerEvent(final String eventId, final List<Seat> seats,
+                                       final HoldRetentionPolicy retentionPolicy) {
+        if (eventRegistry.get(eventId) != null) {
+            throw new VenueException("Event " + eventId + " is already registered.");
+        }
+        Venue venue = new Venue(seats, retentionPolicy, seatHoldIdAllocator);
+        TicketServiceImpl ticketService = new TicketServiceImpl(venue, holdExpirationService);
+        if (!eventRegistry.register(eventId, ticketService)) {
+            throw new VenueException("Event " + eventId + " is already registered.");
+        }
+        log.debug("Registered event {} with {} seats", eventId, seats.size());
+        return ticketService;
+    }
+
+    /**
+     * Removes an event, its holds can no longer be reserved and its id blocks are released so the venue can be
+     * garbage collected once its pending holds have left the expiration wheel.
+     *
+     * @param eventId unique identifier of the event.
+     * @return false if the event was not registered.
+     */
+    public boolean unregisterEvent(final String eventId) {
+        TicketServiceImpl ticketService = eventRegistry.unregister(eventId);
+        if (ticketService == null) {
+            return false;
+        }
+        int released = seatHoldIdAllocator.releaseBlocks(ticketService.getVenue());
+        log.debug("Unregistered event {} and released {} id blocks", eventId, released);
+        return true;
+    }
+
+    /**
+     * Finds the ticket service of an event.
+     *
+     * @param eventId unique identifier of the event.
+     * @return the ticket service of the event.
+     * @throws VenueException when the event is not registered
+     */
+    public TicketService getTicketService(final String eventId) {
+        TicketServiceImpl ticketService = eventRegistry.get(eventId);
+        if (ticketService == null) {
+            throw new VenueException("Event " + eventId + " is not registered.");
+        }
+        return ticketService;
+    }
+
+    /**
+     * Find the number of seats available for an event.
+     *
+     * @param eventId unique identifier of the event.
+     * @return number of available seats
+     */
+    public int numSeatsAvailable(final String eventId) {
+        return getTicketService(eventId).numSeatsAvailable();
+    }
+
+    /**
+     * Find and hold the best available seats of an event for a customer.
+     *
+     * @param eventId unique identifier of the event.
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold object identifying the specific seats and related information
+     */
+    public SeatHold findAndHoldSeats(final String eventId, final int numSeats, final String customerEmail) {
+        return getTicketService(eventId).findAndHoldSeats(numSeats, customerEmail);
+    }
+
+    /**
+     * Find and hold the best available seats of an event for a customer, or join the event's waitlist.
+     *
+     * @param eventId unique identifier of the event.
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param maxWaitMillis how long to wait for seats to be freed
+     * @return a future of the SeatHold, failing with a VenueException if no seats were freed in time
+     */
+    public CompletableFuture<SeatHold> findAndHoldSeatsOrWait(final String eventId, final int numSeats,
+                                                              final String customerEmail, final long maxWaitMillis) {
+        return getTicketService(eventId).findAndHoldSeatsOrWait(numSeats, customerEmail, maxWaitMillis);
+    }
+
+    /**
+     * Find and hold seats of an event for a customer, chosen by an allocation mode.
+     *
+     * @param eventId unique identifier of the event.
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param allocationMode how the seats are chosen
+     * @return a SeatHold object identifying the specific seats and related information
+     */
+    public SeatHold findAndHoldSeats(final String eventId, final int numSeats, final String customerEmail,
+                                     final AllocationMode allocationMode) {
+        return getTicketService(eventId).findAndHoldSeats(numSeats, customerEmail, allocationMode);
+    }
+
+    /**
+     * Find and hold the best available seats of an event matching a search for a customer.
+     *
+     * @param eventId unique identifier of the event.
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param query the constraints on the seats and how they are chosen
+     * @return a SeatHold object identifying the specific seats and related information
+     */
+    public SeatHold findAndHoldSeats(final String eventId, final int numSeats, final String customerEmail,
+                                     final SeatQuery query) {
+        return getTicketService(eventId).findAndHoldSeats(numSeats, customerEmail, query);
+    }
+
+    /**
+     * Commit seats held for a specific customer, the event is found from the seat hold id.
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     * @return a reservation confirmation code
+     */
+    public String reserveSeats(final int seatHoldId, final String customerEmail) {
+        return getTicketService(seatHoldId, "Unable to reserve seats, hold not found")
+            .reserveSeats(seatHoldId, customerEmail);
+    }
+
+    /**
+     * Find the seat holds and reservations of a customer for an event.
+     *
+     * @param eventId unique identifier of the event.
+     * @param customerEmail unique identifier for the customer
+     * @return the customer's held, reserved and recently cancelled SeatHolds of the event
+     */
+    public List<SeatHold> findSeatHolds(final String eventId, final String customerEmail) {
+        return getTicketService(eventId).findSeatHolds(customerEmail);
+    }
+
+    /**
+     * Release seats held for a specific customer, the event is found from the seat hold id.
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     */
+    public void releaseHold(final int seatHoldId, final String customerEmail) {
+        getTicketService(seatHoldId, "Unable to release seats, hold not found").releaseHold(seatHoldId, customerEmail);
+    }
+
+    /**
+     * Push out the expiration of seats held for a specific customer, the event is found from the seat hold id.
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     */
+    public void extendHold(final int seatHoldId, final String customerEmail) {
+        getTicketService(seatHoldId, "Unable to extend hold, hold not found").extendHold(seatHoldId, customerEmail);
+    }
+
+    /**
+     * Finds the ticket service of the event a seat hold belongs to.
+     *
+     * @param seatHoldId the seat hold identifier
+     * @return the ticket service of the event.
+     * @throws VenueException when the seat hold does not belong to a registered event
+     */
+    public TicketService getTicketService(final int seatHoldId) {
+        return getTicketService(seatHoldId, "Seat hold " + seatHoldId + " does not belong to a registered event.");
+    }
+
+    /**
+     * Finds the ticket service of the event a seat hold belongs to.
+     *
+     * @param seatHoldId      the seat hold identifier.
+     * @param notFoundMessage the error when the hold does not belong to a registered event.
+     * @return the ticket service of the event.
+     * @throws VenueException when the seat hold does not belong to a registered event
+     */
+    private TicketServiceImpl getTicketService(final int seatHoldId, final String notFoundMessage) {
+        Venue venue = seatHoldIdAllocator.getOwner(seatHoldId);
+        TicketServiceImpl ticketService = venue == null ? null : eventRegistry.get(venue);
+        if (ticketService == null) {
+            throw new VenueException(notFoundMessage);
+        }
+        return ticketService;
+    }
+
+    /**
+     * Stops the background threads, pending holds no longer expire.
+     */
+    public void shutdown() {
+        expirationTask.cancel(false);
+        scheduler.shutdown();
+    }
+}
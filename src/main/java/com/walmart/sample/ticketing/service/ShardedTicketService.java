@@ -0,0 +1,438 @@
+package com.walmart.sample.ticketing.service;
+
+import com.walmart.sample.common.AllocationMode;
+import com.walmart.sample.common.CustomerHoldIndex;
+import com.walmart.sample.common.HoldRequest;
+import com.walmart.sample.common.HoldResult;
+import com.walmart.sample.common.HoldRetentionPolicy;
+import com.walmart.sample.common.ReserveRequest;
+import com.walmart.sample.common.ReserveResult;
+import com.walmart.sample.common.Seat;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.SeatHoldIdAllocator;
+import com.walmart.sample.common.SeatQuery;
+import com.walmart.sample.common.Venue;
+import com.walmart.sample.common.VenueException;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * A ticket service for one event whose venue is split into independent shards.
+ *
+ * Every shard has its own {@link Venue}, with its own seat inventory, hold registry and waitlist, and its own hold
+ * expiration wheel, so callers holding seats in different shards never touch the same structures. A venue with
+ * sections has one shard per section. A venue without sections deals its rows round robin to the shards, so every
+ * shard has seats of every quality and callers asking for the best seats can be spread across shards.
+ *
+ * A request is sent to the shard with the best available seat that has enough seats, ties going to a shard chosen
+ * by the calling thread, and falls back to the next best shard when it loses the seats to another caller. A hold
+ * is always taken within one shard. The shards share a seat hold id allocator, so a reservation is routed to its
+ * shard from the hold id alone, and a customer index, so the retention policy's per customer limit counts a
+ * customer's holds in every shard.
+ */
+@Slf4j
+public class ShardedTicketService implements TicketService {
+
+    /**
+     * Default number of background threads running the expiration wheels.
+     */
+    public static final int DEFAULT_THREADS = 2;
+
+    /**
+     * Allocator of seat hold ids shared by every shard.
+     */
+    private final SeatHoldIdAllocator seatHoldIdAllocator = new SeatHoldIdAllocator();
+
+    /**
+     * Index of every customer's seat holds and reservations shared by every shard.
+     */
+    private final CustomerHoldIndex customerHolds = new CustomerHoldIndex();
+
+    /**
+     * Most seat holds one customer may have in the HOLD state across the shards.
+     */
+    private final int maxHoldsPerCustomer;
+
+    /**
+     * Background threads shared by the expiration wheels of every shard.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * The shards.
+     */
+    private final TicketServiceImpl[] shards;
+
+    /**
+     * Shards by their venue.
+     */
+    private final Map<Venue, TicketServiceImpl> shardsByVenue = new IdentityHashMap<Venue, TicketServiceImpl>();
+
+    /**
+     * The periodic runs of the expiration wheels, one per shard.
+     */
+    private final ScheduledFuture<?>[] expirationTasks;
+
+    /**
+     * Creates a sharded ticket service with one shard per available processor for a venue without sections.
+     *
+     * @param seats the seats of the venue.
+     */
+    public ShardedTicketService(final List<Seat> seats) {
+        this(seats, HoldRetentionPolicy.DEFAULT, Runtime.getRuntime().availableProcessors(), DEFAULT_THREADS);
+    }
+
+    /**
+     * Creates a sharded ticket service.
+     *
+     * @param seats           the seats of the venue.
+     * @param retentionPolicy how long seat holds are kept once they are no longer active.
+     * @param shards          number of shards of a venue without sections, a venue with sections has one shard
+     *                        per section.
+     * @param threads         number of background threads running the expiration wheels.
+     * @throws VenueException when the venue has no seats
+     */
+    public ShardedTicketService(final List<Seat> seats, final HoldRetentionPolicy retentionPolicy, final int shards,
+                                final int threads) {
+        List<List<Seat>> partitions = partition(seats, shards);
+        if (partitions.isEmpty()) {
+            throw new VenueException("A venue must have at least one seat.");
+        }
+        maxHoldsPerCustomer = retentionPolicy.getMaxHoldsPerCustomer();
+        scheduler = Executors.newScheduledThreadPool(threads);
+        this.shards = new TicketServiceImpl[partitions.size()];
+        expirationTasks = new ScheduledFuture<?>[partitions.size()];
+        for (int shard = 0; shard < partitions.size(); shard++) {
+            Venue venue = new Venue(partitions.get(shard), retentionPolicy, seatHoldIdAllocator, customerHolds);
+            HoldExpirationService holdExpirationService = new HoldExpirationService(
+                HoldExpirationService.DEFAULT_TICK_MILLIS, HoldExpirationService.DEFAULT_WHEEL_SIZE, scheduler);
+            expirationTasks[shard] = holdExpirationService.start(scheduler);
+            this.shards[shard] = new TicketServiceImpl(venue, holdExpirationService);
+            shardsByVenue.put(venue, this.shards[shard]);
+        }
+        log.debug("Created {} shards for {} seats", this.shards.length, seats.size());
+    }
+
+    /**
+     * Splits the seats of a venue into shards, one per section, or rows dealt round robin when the venue has no
+     * sections.
+     *
+     * @param seats  the seats of the venue.
+     * @param shards number of shards of a venue without sections.
+     * @return the seats of each shard.
+     */
+    static List<List<Seat>> partition(final List<Seat> seats, final int shards) {
+        boolean sectioned = seats.stream().anyMatch(seat -> seat.getSection() != null);
+        List<Integer> rowNumbers = new ArrayList<Integer>(
+            seats.stream().map(Seat::getRowNumber).collect(Collectors.toCollection(TreeSet::new)));
+        Map<Object, List<Seat>> partitions = new LinkedHashMap<Object, List<Seat>>();
+        for (Seat seat : seats) {
+            Object key = sectioned
+                ? seat.getSection()
+                : Integer.valueOf(Collections.binarySearch(rowNumbers, seat.getRowNumber()) % shards);
+            partitions.computeIfAbsent(key, shard -> new ArrayList<Seat>()).add(seat);
+        }
+        return new ArrayList<List<Seat>>(partitions.values());
+    }
+
+    /**
+     * Find the number of seats available in every shard.
+     *
+     * @return number of available seats
+     */
+    @Override
+    public int numSeatsAvailable() {
+        int available = 0;
+        for (TicketServiceImpl shard : shards) {
+            available += shard.numSeatsAvailable();
+        }
+        return available;
+    }
+
+    /**
+     * Find and hold the best available seats for a customer.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @return a SeatHold object identifying the specific seats and related information
+     */
+    @Override
+    public SeatHold findAndHoldSeats(final int numSeats, final String customerEmail) {
+        return findAndHoldSeats(numSeats, customerEmail, AllocationMode.BEST_AVAILABLE);
+    }
+
+    /**
+     * Find and hold seats for a customer in the best shard that has enough, chosen by an allocation mode.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param allocationMode how the seats are chosen
+     * @return a SeatHold object identifying the specific seats and related information
+     */
+    @Override
+    public SeatHold findAndHoldSeats(final int numSeats, final String customerEmail,
+                                     final AllocationMode allocationMode) {
+        return hold(numSeats, customerEmail, TicketServiceImpl::numSeatsAvailable,
+            shard -> shard.findAndHoldSeats(numSeats, customerEmail, allocationMode));
+    }
+
+    /**
+     * Find and hold the best available seats for a customer, or join the waitlist of one shard when no shard has
+     * enough seats. Seats freed in other shards don't serve the request.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param maxWaitMillis how long to wait for seats to be freed
+     * @return a future of the SeatHold, failing with a VenueException if no seats were freed in time
+     */
+    @Override
+    public CompletableFuture<SeatHold> findAndHoldSeatsOrWait(final int numSeats, final String customerEmail,
+                                                              final long maxWaitMillis) {
+        List<TicketServiceImpl> ranked = rankShards(numSeats, TicketServiceImpl::numSeatsAvailable);
+        TicketServiceImpl shard = ranked.isEmpty()
+            ? Collections.max(Arrays.asList(shards),
+                Comparator.comparingInt(candidate -> candidate.getVenue().getNumberOfSeats()))
+            : ranked.get(0);
+        return shard.findAndHoldSeatsOrWait(numSeats, customerEmail, maxWaitMillis);
+    }
+
+    /**
+     * Find the number of available seats matching a search in every shard.
+     *
+     * @param query the constraints on the seats
+     * @return number of matching available seats
+     */
+    @Override
+    public int numSeatsAvailable(final SeatQuery query) {
+        int available = 0;
+        for (TicketServiceImpl shard : shards) {
+            available += shard.numSeatsAvailable(query);
+        }
+        return available;
+    }
+
+    /**
+     * Find and hold the best available seats matching a search for a customer, in the best shard that has enough.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param query the constraints on the seats and how they are chosen
+     * @return a SeatHold object identifying the specific seats and related information
+     */
+    @Override
+    public SeatHold findAndHoldSeats(final int numSeats, final String customerEmail, final SeatQuery query) {
+        return hold(numSeats, customerEmail, shard -> shard.numSeatsAvailable(query),
+            shard -> shard.findAndHoldSeats(numSeats, customerEmail, query));
+    }
+
+    /**
+     * Commit seats held for a specific customer, the shard is found from the seat hold id.
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     * @return a reservation confirmation code
+     */
+    @Override
+    public String reserveSeats(final int seatHoldId, final String customerEmail) {
+        return getShard(seatHoldId, "Unable to reserve seats, hold not found").reserveSeats(seatHoldId, customerEmail);
+    }
+
+    /**
+     * Release seats held for a specific customer, the shard is found from the seat hold id.
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     */
+    @Override
+    public void releaseHold(final int seatHoldId, final String customerEmail) {
+        getShard(seatHoldId, "Unable to release seats, hold not found").releaseHold(seatHoldId, customerEmail);
+    }
+
+    /**
+     * Push out the expiration of seats held for a specific customer, the shard is found from the seat hold id.
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     */
+    @Override
+    public void extendHold(final int seatHoldId, final String customerEmail) {
+        getShard(seatHoldId, "Unable to extend hold, hold not found").extendHold(seatHoldId, customerEmail);
+    }
+
+    /**
+     * Find the seat holds and reservations of a customer in every shard.
+     *
+     * @param customerEmail unique identifier for the customer
+     * @return the customer's held, reserved and recently cancelled SeatHolds, in seat hold id order
+     */
+    @Override
+    public List<SeatHold> findSeatHolds(final String customerEmail) {
+        int[] seatHoldIds = customerHolds.getSeatHoldIds(customerEmail);
+        List<SeatHold> seatHolds = new ArrayList<SeatHold>(seatHoldIds.length);
+        for (int seatHoldId : seatHoldIds) {
+            Venue venue = seatHoldIdAllocator.getOwner(seatHoldId);
+            SeatHold seatHold = venue == null ? null : venue.getSeatHold(seatHoldId);
+            // A hold evicted since the ids were read is skipped.
+            if (seatHold != null) {
+                seatHolds.add(seatHold);
+            }
+        }
+        return seatHolds;
+    }
+
+    /**
+     * Find and hold seats for many customers, each request in the best shard that has enough.
+     *
+     * @param holdRequests the requests, each held all or nothing
+     * @return the result of each request, in the order of the requests
+     */
+    @Override
+    public List<HoldResult> findAndHoldSeatsBatch(final List<HoldRequest> holdRequests) {
+        log.debug("FindAndHoldSeatsBatch of {} requests", holdRequests.size());
+        List<HoldResult> holdResults = new ArrayList<HoldResult>(holdRequests.size());
+        for (HoldRequest holdRequest : holdRequests) {
+            try {
+                SeatHold seatHold = findAndHoldSeats(holdRequest.getNumSeats(), holdRequest.getCustomerEmail(),
+                    holdRequest.getAllocationMode());
+                holdResults.add(HoldResult.builder().request(holdRequest).seatHold(seatHold).build());
+            } catch (VenueException e) {
+                holdResults.add(HoldResult.builder().request(holdRequest).error(e.getMessage()).build());
+            }
+        }
+        return holdResults;
+    }
+
+    /**
+     * Commit seats held for many customers, each in its own shard.
+     *
+     * @param reserveRequests the requests, each reserved independently
+     * @return the result of each request, in the order of the requests
+     */
+    @Override
+    public List<ReserveResult> reserveSeatsBatch(final List<ReserveRequest> reserveRequests) {
+        log.debug("reserveSeatsBatch of {} requests", reserveRequests.size());
+        List<ReserveResult> reserveResults = new ArrayList<ReserveResult>(reserveRequests.size());
+        for (ReserveRequest reserveRequest : reserveRequests) {
+            try {
+                String confirmationCode = reserveSeats(reserveRequest.getSeatHoldId(),
+                    reserveRequest.getCustomerEmail());
+                reserveResults.add(ReserveResult.builder().request(reserveRequest)
+                    .confirmationCode(confirmationCode).build());
+            } catch (VenueException e) {
+                reserveResults.add(ReserveResult.builder().request(reserveRequest).error(e.getMessage()).build());
+            }
+        }
+        return reserveResults;
+    }
+
+    /**
+     * Holds seats in the best shard that has enough, falling back to the next best when a shard loses the seats.
+     *
+     * @param numSeats      the number of seats to hold.
+     * @param customerEmail the email of the customer.
+     * @param available     the number of seats of a shard that would satisfy the request.
+     * @param hold          holds the seats in a shard.
+     * @return the seat hold.
+     * @throws VenueException when the customer has the most holds allowed or no shard could hold the seats
+     */
+    private SeatHold hold(final int numSeats, final String customerEmail,
+                          final ToIntFunction<TicketServiceImpl> available,
+                          final Function<TicketServiceImpl, SeatHold> hold) {
+        VenueException failure = null;
+        for (TicketServiceImpl shard : rankShards(numSeats, available)) {
+            try {
+                return hold.apply(shard);
+            } catch (VenueException e) {
+                if (customerHolds.getActiveHolds(customerEmail) >= maxHoldsPerCustomer) {
+                    // The shards share the customer's count, so every other shard would reject the hold too.
+                    throw e;
+                }
+                // Another caller took the seats since the shards were ranked.
+                log.debug("Falling back to the next shard: {}", e.getMessage());
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        // No shard has enough seats, the shard with the most reports why.
+        return hold.apply(Collections.max(Arrays.asList(shards), Comparator.comparingInt(available)));
+    }
+
+    /**
+     * Orders the shards that have enough seats for a request by the quality of their best available seat, shards
+     * of equal quality starting from one chosen by the calling thread.
+     *
+     * @param numSeats  the number of seats requested.
+     * @param available the number of seats of a shard that would satisfy the request.
+     * @return the shards to try, best first.
+     */
+    private List<TicketServiceImpl> rankShards(final int numSeats, final ToIntFunction<TicketServiceImpl> available) {
+        int start = (int) (Thread.currentThread().threadId() % shards.length);
+        List<TicketServiceImpl> ranked = new ArrayList<TicketServiceImpl>(shards.length);
+        Map<TicketServiceImpl, Integer> qualities = new IdentityHashMap<TicketServiceImpl, Integer>();
+        for (int i = 0; i < shards.length; i++) {
+            TicketServiceImpl shard = shards[(start + i) % shards.length];
+            if (available.applyAsInt(shard) >= numSeats) {
+                ranked.add(shard);
+                qualities.put(shard, shard.getVenue().getBestAvailableQuality());
+            }
+        }
+        // The sort is stable, so shards of equal quality keep the thread's rotation.
+        ranked.sort(Comparator.comparing(qualities::get, Comparator.reverseOrder()));
+        return ranked;
+    }
+
+    /**
+     * Finds the shard a seat hold belongs to.
+     *
+     * @param seatHoldId      the seat hold identifier.
+     * @param notFoundMessage the error when the hold does not belong to a shard.
+     * @return the shard.
+     * @throws VenueException when the hold does not belong to a shard
+     */
+    private TicketServiceImpl getShard(final int seatHoldId, final String notFoundMessage) {
+        Venue venue = seatHoldIdAllocator.getOwner(seatHoldId);
+        TicketServiceImpl shard = venue == null ? null : shardsByVenue.get(venue);
+        if (shard == null) {
+            throw new VenueException(notFoundMessage);
+        }
+        return shard;
+    }
+
+    /**
+     * Finds the shards, each a ticket service of its own venue with its own metrics.
+     *
+     * @return the shards.
+     */
+    public List<TicketServiceImpl> getShards() {
+        return Collections.unmodifiableList(Arrays.asList(shards));
+    }
+
+    /**
+     * Stops the background threads, pending holds no longer expire.
+     */
+    public void shutdown() {
+        for (ScheduledFuture<?> expirationTask : expirationTasks) {
+            expirationTask.cancel(false);
+        }
+        scheduler.shutdown();
+    }
+}
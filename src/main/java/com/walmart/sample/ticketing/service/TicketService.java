@@ -1,6 +1,15 @@
 package com.walmart.sample.ticketing.service;
 
+import com.walmart.sample.common.AllocationMode;
+import com.walmart.sample.common.HoldRequest;
+import com.walmart.sample.common.HoldResult;
+import com.walmart.sample.common.ReserveRequest;
+import com.walmart.sample.common.ReserveResult;
 import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.SeatQuery;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface TicketService {
     /**
@@ -17,6 +26,40 @@ public interface TicketService {
      * @return a SeatHold object identifying the specific seats and related information
      */
     SeatHold findAndHoldSeats(int numSeats, String customerEmail);
+    /**
+     * Find and hold seats for a customer, chosen by an allocation mode
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param allocationMode how the seats are chosen, such as keeping the party together in one row
+     * @return a SeatHold object identifying the specific seats and related information
+     */
+    SeatHold findAndHoldSeats(int numSeats, String customerEmail, AllocationMode allocationMode);
+    /**
+     * Find and hold the best available seats for a customer, or join the waitlist when there are not enough
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param maxWaitMillis how long to wait for seats to be freed
+     * @return a future of the SeatHold, failing with a VenueException if no seats were freed in time
+     */
+    CompletableFuture<SeatHold> findAndHoldSeatsOrWait(int numSeats, String customerEmail, long maxWaitMillis);
+    /**
+     * The number of seats matching a search that are neither held nor reserved
+     *
+     * @param query the constraints on the seats, such as a quality range, row range or section
+     * @return the number of matching tickets available in the venue
+     */
+    int numSeatsAvailable(SeatQuery query);
+    /**
+     * Find and hold the best available seats matching a search for a customer
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param query the constraints on the seats, such as a quality range, row range or section, and how they are chosen
+     * @return a SeatHold object identifying the specific seats and related information
+     */
+    SeatHold findAndHoldSeats(int numSeats, String customerEmail, SeatQuery query);
     /**
      * Commit seats held for a specific customer
      *
@@ -26,4 +69,39 @@ public interface TicketService {
      * @return a reservation confirmation code
      */
     String reserveSeats(int seatHoldId, String customerEmail);
+    /**
+     * Release seats held for a specific customer, returning them to the venue at once
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     */
+    void releaseHold(int seatHoldId, String customerEmail);
+    /**
+     * Push out the expiration of seats held for a specific customer to a full hold period from now
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     */
+    void extendHold(int seatHoldId, String customerEmail);
+    /**
+     * Find the seat holds and reservations of a customer
+     *
+     * @param customerEmail unique identifier for the customer
+     * @return the customer's held, reserved and recently cancelled SeatHolds
+     */
+    List<SeatHold> findSeatHolds(String customerEmail);
+    /**
+     * Find and hold seats for many customers in a single pass over the venue
+     *
+     * @param holdRequests the requests, each held all or nothing
+     * @return the result of each request, in the order of the requests
+     */
+    List<HoldResult> findAndHoldSeatsBatch(List<HoldRequest> holdRequests);
+    /**
+     * Commit seats held for many customers
+     *
+     * @param reserveRequests the requests, each reserved independently
+     * @return the result of each request, in the order of the requests
+     */
+    List<ReserveResult> reserveSeatsBatch(List<ReserveRequest> reserveRequests);
 }
@@ -1,14 +1,24 @@
 package com.walmart.sample.ticketing.service;
 
+import com.walmart.sample.common.AllocationMode;
+import com.walmart.sample.common.HoldRequest;
+import com.walmart.sample.common.HoldResult;
 import com.walmart.sample.common.ReservationState;
+import com.walmart.sample.common.ReserveRequest;
+import com.walmart.sample.common.ReserveResult;
 import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.SeatQuery;
 import com.walmart.sample.common.Venue;
 import com.walmart.sample.common.VenueException;
+import com.walmart.sample.ticketing.metrics.TicketMetrics;
 
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -27,17 +37,44 @@ public class TicketServiceImpl implements TicketService {
     private Venue venue;
 
     /**
-     * The scheduled executor service for hold expiration.
+     * The scheduled executor service for hold expiration, null when the hold expiration service is shared.
      */
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    private final ScheduledExecutorService scheduler;
 
     /**
-     * Creates a TicketServiceImpl.
+     * The timing wheel of pending hold expirations.
+     */
+    private final HoldExpirationService holdExpirationService;
+
+    /**
+     * Counters and latencies of the ticket service.
+     */
+    private final TicketMetrics metrics;
+
+    /**
+     * Creates a TicketServiceImpl with its own hold expiration thread.
      *
      * @param venue for ticket service
      */
     public TicketServiceImpl(Venue venue) {
         this.venue = venue;
+        this.scheduler = Executors.newScheduledThreadPool(1);
+        this.holdExpirationService = new HoldExpirationService();
+        this.metrics = new TicketMetrics(venue, holdExpirationService);
+        holdExpirationService.start(scheduler);
+    }
+
+    /**
+     * Creates a TicketServiceImpl sharing a hold expiration service that is run by its owner.
+     *
+     * @param venue for ticket service
+     * @param holdExpirationService the shared timing wheel of pending hold expirations
+     */
+    public TicketServiceImpl(Venue venue, HoldExpirationService holdExpirationService) {
+        this.venue = venue;
+        this.scheduler = null;
+        this.holdExpirationService = holdExpirationService;
+        this.metrics = new TicketMetrics(venue, holdExpirationService);
     }
 
     /**
@@ -60,11 +97,107 @@ public class TicketServiceImpl implements TicketService {
      */
     @Override
     public SeatHold findAndHoldSeats(int numSeats, String customerEmail) {
-        log.debug("FindAndHoldSeats " + numSeats + " for " + customerEmail);
-        SeatHold seatHold = venue.getAvailableSeats(customerEmail, numSeats);
-        log.debug("SeatHold " + seatHold.getSeatHoldId() + " created");
-        scheduler.schedule(new HoldExpirationService(seatHold), Venue.HOLD_EXPIRATION_SECONDS, TimeUnit.SECONDS);
-        log.debug("Scheduled HoldExpirationService for seatHold " + seatHold.getSeatHoldId());
+        return findAndHoldSeats(numSeats, customerEmail, AllocationMode.BEST_AVAILABLE);
+    }
+
+    /**
+     * Find and hold seats for a customer, chosen by an allocation mode.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param allocationMode how the seats are chosen
+     * @return a SeatHold object identifying the specific seats and related information
+     */
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail, AllocationMode allocationMode) {
+        long startNanos = System.nanoTime();
+        log.debug("FindAndHoldSeats {} for {} {}", numSeats, customerEmail, allocationMode);
+        SeatHold seatHold;
+        try {
+            seatHold = venue.getAvailableSeats(customerEmail, numSeats, allocationMode);
+        } catch (VenueException e) {
+            metrics.holdsFailed(1);
+            throw e;
+        }
+        log.debug("SeatHold {} created", seatHold.getSeatHoldId());
+        holdExpirationService.schedule(seatHold, Venue.HOLD_EXPIRATION_SECONDS, TimeUnit.SECONDS);
+        log.debug("Scheduled HoldExpirationService for seatHold {}", seatHold.getSeatHoldId());
+        metrics.holdCreated(startNanos);
+        return seatHold;
+    }
+
+    /**
+     * Find and hold the best available seats for a customer, or join the waitlist when there are not enough.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param maxWaitMillis how long to wait for seats to be freed
+     * @return a future of the SeatHold, failing with a VenueException if no seats were freed in time
+     */
+    @Override
+    public CompletableFuture<SeatHold> findAndHoldSeatsOrWait(int numSeats, String customerEmail,
+                                                              long maxWaitMillis) {
+        long startNanos = System.nanoTime();
+        log.debug("FindAndHoldSeatsOrWait {} for {}", numSeats, customerEmail);
+        CompletableFuture<SeatHold> seatHold;
+        try {
+            seatHold = venue.getAvailableSeatsOrWait(customerEmail, numSeats, maxWaitMillis);
+        } catch (VenueException e) {
+            metrics.holdsFailed(1);
+            throw e;
+        }
+        // Runs on the thread that freed the seats when the request had to wait.
+        CompletableFuture<SeatHold> scheduled = seatHold.whenComplete((held, e) -> {
+            if (held != null) {
+                holdExpirationService.schedule(held, Venue.HOLD_EXPIRATION_SECONDS, TimeUnit.SECONDS);
+                metrics.holdCreated(startNanos);
+            } else {
+                metrics.holdsFailed(1);
+            }
+        });
+        // Cancelling the returned future gives up the place on the waitlist.
+        scheduled.whenComplete((held, e) -> {
+            if (scheduled.isCancelled()) {
+                seatHold.cancel(false);
+            }
+        });
+        return scheduled;
+    }
+
+    /**
+     * Find the number of available seats matching a search.
+     *
+     * @param query the constraints on the seats
+     * @return number of matching available seats
+     */
+    @Override
+    public int numSeatsAvailable(SeatQuery query) {
+        return venue.getNumberOfAvailableSeats(query);
+    }
+
+    /**
+     * Find and hold the best available seats matching a search for a customer.
+     *
+     * @param numSeats the number of seats to find and hold
+     * @param customerEmail unique identifier for the customer
+     * @param query the constraints on the seats and how they are chosen
+     * @return a SeatHold object identifying the specific seats and related information
+     */
+    @Override
+    public SeatHold findAndHoldSeats(int numSeats, String customerEmail, SeatQuery query) {
+        long startNanos = System.nanoTime();
+        log.debug("FindAndHoldSeats {} for {} matching {}", numSeats, customerEmail, query);
+        SeatHold seatHold;
+        try {
+            seatHold = venue.getAvailableSeats(customerEmail, numSeats, query);
+        } catch (VenueException e) {
+            metrics.holdsFailed(1);
+            throw e;
+        }
+        log.debug("SeatHold {} created", seatHold.getSeatHoldId());
+        holdExpirationService.schedule(seatHold, Venue.HOLD_EXPIRATION_SECONDS, TimeUnit.SECONDS);
+        log.debug("Scheduled HoldExpirationService for seatHold {}", seatHold.getSeatHoldId());
+        metrics.holdCreated(startNanos);
         return seatHold;
     }
 
@@ -77,13 +210,137 @@ public class TicketServiceImpl implements TicketService {
      */
     @Override
     public String reserveSeats(int seatHoldId, String customerEmail) {
-        log.debug("reserveSeats for seatHold " + seatHoldId + " for " + customerEmail);
+        long startNanos = System.nanoTime();
+        log.debug("reserveSeats for seatHold {} for {}", seatHoldId, customerEmail);
         SeatHold seatHold = venue.getSeatHold(seatHoldId);
-        if (!venue.updateSeatHoldState(seatHold, ReservationState.RESERVED)) {
+        // A hold of another customer is reported as not found, so hold ids can't be probed for their owners.
+        if (seatHold == null || !seatHold.isHeldBy(customerEmail)) {
+            log.debug("Unable to reserve seats, hold not found");
+            metrics.reserveFailed();
+            throw new VenueException("Unable to reserve seats, hold not found");
+        }
+        boolean reserved;
+        try {
+            reserved = venue.updateSeatHoldState(seatHold, ReservationState.RESERVED);
+        } catch (RuntimeException e) {
+            // The venue rolled the reservation back and released the seats, so the hold has nothing left to expire.
+            holdExpirationService.cancel(seatHold);
+            metrics.reserveFailed();
+            throw e;
+        }
+        if (!reserved) {
             log.debug("Unable to reserve seats, hold expired");
+            metrics.reserveFailed();
             throw new VenueException("Unable to reserve seats, hold expired");
         } else {
+            holdExpirationService.cancel(seatHold);
+            metrics.reserved(startNanos);
             return seatHold.getConfirmationCode();
         }
     }
+
+    /**
+     * Release seats held for a specific customer, returning them to the venue at once.
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     */
+    @Override
+    public void releaseHold(int seatHoldId, String customerEmail) {
+        log.debug("releaseHold for seatHold {} for {}", seatHoldId, customerEmail);
+        SeatHold seatHold = venue.getSeatHold(seatHoldId);
+        if (seatHold == null || !seatHold.isHeldBy(customerEmail)) {
+            throw new VenueException("Unable to release seats, hold not found");
+        }
+        if (!venue.cancelSeatHold(seatHold)) {
+            throw new VenueException("Unable to release seats, hold is no longer held");
+        }
+        // Unlinks the hold from the wheel now rather than leaving it to be skipped when its tick comes.
+        holdExpirationService.cancel(seatHold);
+        metrics.holdReleased();
+    }
+
+    /**
+     * Push out the expiration of seats held for a specific customer to a full hold period from now.
+     *
+     * @param seatHoldId the seat hold identifier
+     * @param customerEmail the email address of the customer to which the seat hold is assigned
+     */
+    @Override
+    public void extendHold(int seatHoldId, String customerEmail) {
+        log.debug("extendHold for seatHold {} for {}", seatHoldId, customerEmail);
+        SeatHold seatHold = venue.getSeatHold(seatHoldId);
+        if (seatHold == null || !seatHold.isHeldBy(customerEmail)) {
+            throw new VenueException("Unable to extend hold, hold not found");
+        }
+        if (seatHold.getState() != ReservationState.HOLD) {
+            throw new VenueException("Unable to extend hold, hold is no longer held");
+        }
+        if (!seatHold.tryExtend(Venue.MAX_HOLD_EXTENSIONS)) {
+            throw new VenueException("Unable to extend hold, no extensions left");
+        }
+        if (!holdExpirationService.reschedule(seatHold, Venue.HOLD_EXPIRATION_SECONDS, TimeUnit.SECONDS)) {
+            // The extension is claimed first so concurrent requests can't exceed the limit, and given back here.
+            seatHold.returnExtension();
+            throw new VenueException("Unable to extend hold, hold is no longer held");
+        }
+        metrics.holdExtended();
+    }
+
+    /**
+     * Find the seat holds and reservations of a customer.
+     *
+     * @param customerEmail unique identifier for the customer
+     * @return the customer's held, reserved and recently cancelled SeatHolds
+     */
+    @Override
+    public List<SeatHold> findSeatHolds(String customerEmail) {
+        return venue.getSeatHolds(customerEmail);
+    }
+
+    /**
+     * Find and hold seats for many customers in a single pass over the venue.
+     *
+     * @param holdRequests the requests, each held all or nothing
+     * @return the result of each request, in the order of the requests
+     */
+    @Override
+    public List<HoldResult> findAndHoldSeatsBatch(List<HoldRequest> holdRequests) {
+        log.debug("FindAndHoldSeatsBatch of {} requests", holdRequests.size());
+        List<HoldResult> holdResults = venue.getAvailableSeats(holdRequests);
+
+        // Every hold in the batch expires in the same tick, so they are scheduled together.
+        List<SeatHold> seatHolds = new ArrayList<SeatHold>(holdResults.size());
+        for (HoldResult holdResult : holdResults) {
+            if (holdResult.isSuccessful()) {
+                seatHolds.add(holdResult.getSeatHold());
+            }
+        }
+        holdExpirationService.schedule(seatHolds, Venue.HOLD_EXPIRATION_SECONDS, TimeUnit.SECONDS);
+        log.debug("Scheduled HoldExpirationService for {} seatHolds", seatHolds.size());
+        metrics.holdsCreated(seatHolds.size());
+        metrics.holdsFailed(holdResults.size() - seatHolds.size());
+        return holdResults;
+    }
+
+    /**
+     * Commit seats held for many customers.
+     *
+     * @param reserveRequests the requests, each reserved independently
+     * @return the result of each request, in the order of the requests
+     */
+    @Override
+    public List<ReserveResult> reserveSeatsBatch(List<ReserveRequest> reserveRequests) {
+        log.debug("reserveSeatsBatch of {} requests", reserveRequests.size());
+        List<ReserveResult> reserveResults = new ArrayList<ReserveResult>(reserveRequests.size());
+        for (ReserveRequest reserveRequest : reserveRequests) {
+            try {
+                String confirmationCode = reserveSeats(reserveRequest.getSeatHoldId(), reserveRequest.getCustomerEmail());
+                reserveResults.add(ReserveResult.builder().request(reserveRequest).confirmationCode(confirmationCode).build());
+            } catch (VenueException e) {
+                reserveResults.add(ReserveResult.builder().request(reserveRequest).error(e.getMessage()).build());
+            }
+        }
+        return reserveResults;
+    }
 }
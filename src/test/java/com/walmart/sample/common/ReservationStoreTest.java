@@ -0,0 +1,104 @@
+package com.walmart.sample.common;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Unit test for ReservationStore.
+ */
+public class ReservationStoreTest {
+
+    /**
+     * Inventory the reservations' seats are rebuilt from.
+     */
+    SeatInventory inventory;
+
+    /**
+     * Create an inventory of 100 seats.
+     */
+    @BeforeClass
+    public void setUp() {
+        List<Seat> seats = new ArrayList<Seat>();
+        IntStream.range(0, 100).forEach(seatNumber ->
+            seats.add(Seat.builder().rowNumber(1).seatNumber(seatNumber).seatQuality(1).build()));
+        inventory = new SeatInventory(seats);
+    }
+
+    /**
+     * Tests reservations are found by id and by confirmation code as the stripes grow, and a restored reservation
+     * with a new code is only found by the new code.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testPutGet() {
+        ReservationStore store = new ReservationStore();
+        int count = 5000;
+        IntStream.rangeClosed(1, count).forEach(id -> store.put(reservation(id, "code-" + id)));
+        Assert.assertEquals(store.size(), count);
+
+        IntStream.rangeClosed(1, count).forEach(id -> {
+            SeatHold byId = store.get(id, null, inventory);
+            Assert.assertEquals(byId.getConfirmationCode(), "code-" + id);
+            Assert.assertEquals(byId.getState(), ReservationState.RESERVED);
+            Assert.assertEquals(byId.getSeatIndexes(), new int[] {id % 100, (id + 1) % 100});
+            Assert.assertEquals(store.get("code-" + id, null, inventory).getSeatHoldId(), id);
+        });
+        Assert.assertNull(store.get(count + 1, null, inventory));
+        Assert.assertNull(store.get("code-" + (count + 1), null, inventory));
+        Assert.assertNull(store.get((String) null, null, inventory));
+
+        store.put(reservation(7, "restored-7"));
+        Assert.assertEquals(store.size(), count);
+        Assert.assertEquals(store.get("restored-7", null, inventory).getSeatHoldId(), 7);
+        Assert.assertNull(store.get("code-7", null, inventory));
+    }
+
+    /**
+     * Tests reservations stored by many threads at once are found by every thread.
+     *
+     * @throws InterruptedException if interrupted waiting for the threads
+     */
+    @Test(groups = {"unit"})
+    public void testConcurrentPutsAndLookups() throws InterruptedException {
+        ReservationStore store = new ReservationStore();
+        AtomicInteger missing = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        IntStream.rangeClosed(1, 20000).forEach(id -> executor.execute(() -> {
+            store.put(reservation(id, "code-" + id));
+            SeatHold byCode = store.get("code-" + id, null, inventory);
+            if (byCode == null || byCode.getSeatHoldId() != id || store.get(id, null, inventory) == null) {
+                missing.incrementAndGet();
+            }
+        }));
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        Assert.assertEquals(missing.get(), 0, "Reservations not found after they were stored");
+        Assert.assertEquals(store.size(), 20000);
+    }
+
+    /**
+     * Creates a reserved seat hold of two seats.
+     *
+     * @param seatHoldId       the seat hold id.
+     * @param confirmationCode the confirmation code.
+     * @return the seat hold.
+     */
+    private SeatHold reservation(final int seatHoldId, final String confirmationCode) {
+        return SeatHold.builder()
+            .seatHoldId(seatHoldId)
+            .customerEmail("email@test.com")
+            .confirmationCode(confirmationCode)
+            .seatIndexes(new int[] {seatHoldId % 100, (seatHoldId + 1) % 100})
+            .state(ReservationState.RESERVED)
+            .build();
+    }
+}
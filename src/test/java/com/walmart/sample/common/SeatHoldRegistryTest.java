@@ -0,0 +1,85 @@
+package com.walmart.sample.common;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Unit test for SeatHoldRegistry.
+ */
+public class SeatHoldRegistryTest {
+
+    /**
+     * Tests seat holds are found until they are removed, as the stripes grow and entries shift back.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testPutGetRemove() {
+        SeatHoldRegistry registry = new SeatHoldRegistry();
+        int count = 10000;
+        IntStream.rangeClosed(1, count).forEach(id -> registry.put(SeatHold.builder().seatHoldId(id).build()));
+        Assert.assertEquals(registry.size(), count);
+        Assert.assertNull(registry.get(count + 1));
+
+        // Remove every third id, the rest must still be found past the holes.
+        IntStream.rangeClosed(1, count).filter(id -> id % 3 == 0).forEach(id ->
+            Assert.assertEquals(registry.remove(id).getSeatHoldId(), id));
+        Assert.assertNull(registry.remove(3));
+        IntStream.rangeClosed(1, count).forEach(id -> {
+            SeatHold seatHold = registry.get(id);
+            if (id % 3 == 0) {
+                Assert.assertNull(seatHold);
+            } else {
+                Assert.assertEquals(seatHold.getSeatHoldId(), id);
+            }
+        });
+        Assert.assertEquals(registry.size(), count - count / 3);
+        Assert.assertEquals(registry.values().size(), count - count / 3);
+    }
+
+    /**
+     * Tests ids handed out to many threads at once are unique and registered holds are found by every thread.
+     */
+    @Test(groups = {"unit"})
+    public void testConcurrentIdsAndLookups() throws InterruptedException {
+        SeatHoldRegistry registry = new SeatHoldRegistry();
+        SeatHoldIdRanges ranges = new SeatHoldIdRanges(new SeatHoldIdAllocator(), null);
+        int threads = 8;
+        int perThread = 5000;
+        List<Thread> workers = new ArrayList<Thread>();
+        List<int[]> ids = new ArrayList<int[]>();
+        for (int t = 0; t < threads; t++) {
+            int[] threadIds = new int[perThread];
+            ids.add(threadIds);
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    threadIds[i] = ranges.nextId();
+                    registry.put(SeatHold.builder().seatHoldId(threadIds[i]).build());
+                    Assert.assertNotNull(registry.get(threadIds[i]));
+                    if (i % 2 == 1) {
+                        Assert.assertNotNull(registry.remove(threadIds[i - 1]));
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        Set<Integer> unique = new HashSet<Integer>();
+        for (int[] threadIds : ids) {
+            for (int i = 0; i < perThread; i++) {
+                Assert.assertTrue(unique.add(threadIds[i]));
+                Assert.assertEquals(registry.get(threadIds[i]) != null, i % 2 == 1);
+            }
+        }
+        Assert.assertEquals(registry.size(), threads * perThread / 2);
+    }
+}
@@ -0,0 +1,241 @@
+package com.walmart.sample.common;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Unit test for SeatInventory.
+ */
+public class SeatInventoryTest {
+
+    /**
+     * Seats used in all tests in SeatInventoryTest.
+     */
+    private List<Seat> seats = new ArrayList<Seat>();
+
+    /**
+     * Rows in test venue.
+     */
+    static final int ROWS = 20;
+
+    /**
+     * Seats in each row of test venue.
+     */
+    static final int SEATS_PER_ROW = 50;
+
+    /**
+     * Initialize venue seats for use in tests.
+     */
+    @BeforeClass
+    public void setUp() {
+        IntStream.rangeClosed(1, ROWS).forEach(row -> {
+            IntStream.rangeClosed(1, SEATS_PER_ROW).forEach(seatNumber -> {
+                seats.add(Seat.builder().rowNumber(row).seatNumber(seatNumber).seatQuality(ROWS - row).build());
+            });
+        });
+    }
+
+    /**
+     * Tests claim returns the best seats in priority order.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testClaimInPriorityOrder() {
+        SeatInventory inventory = new SeatInventory(seats);
+        int[] claimed = inventory.claim(3);
+        Assert.assertEquals(claimed.length, 3);
+        for (int i = 0; i < claimed.length; i++) {
+            Seat seat = inventory.getSeat(claimed[i]);
+            Assert.assertEquals(seat.getRowNumber(), 1);
+            Assert.assertEquals(seat.getSeatNumber(), i + 1);
+        }
+        Assert.assertEquals(inventory.getAvailableCount(), seats.size() - 3);
+    }
+
+    /**
+     * Tests claim is all or nothing when not enough seats are available.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testClaimMoreThanAvailable() {
+        SeatInventory inventory = new SeatInventory(seats);
+        Assert.assertNotNull(inventory.claim(seats.size() - 1));
+        Assert.assertNull(inventory.claim(2));
+        Assert.assertEquals(inventory.getAvailableCount(), 1);
+    }
+
+    /**
+     * Tests released seats are claimed again first.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testRelease() {
+        SeatInventory inventory = new SeatInventory(seats);
+        int[] best = inventory.claim(5);
+        inventory.claim(5);
+        inventory.release(best);
+        Assert.assertEquals(inventory.claim(5), best);
+    }
+
+    /**
+     * Tests seats are grouped into quality tiers with their own counts and best available seat.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testTiers() {
+        SeatInventory inventory = new SeatInventory(seats);
+        Assert.assertEquals(inventory.getTierCount(), ROWS);
+        Assert.assertEquals(inventory.getTierQuality(0), ROWS - 1);
+        Assert.assertEquals(inventory.findTier(ROWS - 2), 1);
+        Assert.assertEquals(inventory.findTier(ROWS), -1);
+
+        inventory.claim(SEATS_PER_ROW + 10);
+        Assert.assertEquals(inventory.getAvailableCount(0), 0);
+        Assert.assertEquals(inventory.getAvailableCount(1), SEATS_PER_ROW - 10);
+        Assert.assertEquals(inventory.findBestAvailable(0), -1);
+        Seat best = inventory.getSeat(inventory.findBestAvailable(1));
+        Assert.assertEquals(best.getRowNumber(), 2);
+        Assert.assertEquals(best.getSeatNumber(), 11);
+
+        // All or nothing within the tier, the next tier is not used to make up the difference.
+        Assert.assertNull(inventory.claimInTier(1, SEATS_PER_ROW - 9));
+        Assert.assertEquals(inventory.getAvailableCount(1), SEATS_PER_ROW - 10);
+        Assert.assertEquals(inventory.getAvailableCount(), seats.size() - SEATS_PER_ROW - 10);
+
+        int[] claimed = inventory.claimInTier(1, SEATS_PER_ROW - 10);
+        for (int index : claimed) {
+            Assert.assertEquals(inventory.getSeat(index).getRowNumber(), 2);
+        }
+        Assert.assertEquals(inventory.findBestAvailable(1), -1);
+        inventory.release(claimed);
+        Assert.assertEquals(inventory.getAvailableCount(1), SEATS_PER_ROW - 10);
+        Assert.assertEquals(inventory.findBestAvailable(1), claimed[0]);
+    }
+
+    /**
+     * Tests the row and section counts follow claims and releases and answer queries as a search would.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testRowAndSectionCounts() {
+        List<Seat> sectionSeats = new ArrayList<Seat>();
+        for (String section : new String[] {"A", "B"}) {
+            IntStream.rangeClosed(1, ROWS).forEach(row -> {
+                IntStream.rangeClosed(1, SEATS_PER_ROW).forEach(seatNumber -> {
+                    sectionSeats.add(Seat.builder().rowNumber(row).seatNumber(seatNumber).seatQuality(ROWS - row)
+                        .section(section).build());
+                });
+            });
+        }
+        SeatInventory inventory = new SeatInventory(sectionSeats);
+        Assert.assertEquals(inventory.getAvailableCountInSection("A"), ROWS * SEATS_PER_ROW);
+        Assert.assertEquals(inventory.getAvailableCountInSection("C"), 0);
+        Assert.assertEquals(inventory.getAvailableCountInRow("B", 1), SEATS_PER_ROW);
+        Assert.assertEquals(inventory.getAvailableCountInRow("B", ROWS + 1), 0);
+
+        int[] claimed = inventory.claim(SEATS_PER_ROW + 10);
+        Assert.assertEquals(inventory.getAvailableCountInRow(1), SEATS_PER_ROW - 10);
+        Assert.assertEquals(inventory.getAvailableCountInRow("A", 1) + inventory.getAvailableCountInRow("B", 1),
+            SEATS_PER_ROW - 10);
+        Assert.assertEquals(inventory.getAvailableCountInSection("A") + inventory.getAvailableCountInSection("B"),
+            sectionSeats.size() - SEATS_PER_ROW - 10);
+
+        SeatSearch search = new SeatSearch(inventory);
+        SeatQuery[] queries = {
+            SeatQuery.builder().section("A").build(),
+            SeatQuery.builder().section("B").minRow(1).maxRow(1).build(),
+            SeatQuery.builder().minRow(1).maxRow(1).build(),
+            SeatQuery.builder().minQuality(ROWS - 2).build(),
+            SeatQuery.builder().minQuality(3).maxQuality(5).build(),
+        };
+        for (SeatQuery query : queries) {
+            Assert.assertEquals(inventory.getAvailableCount(query), search.countAvailable(query), query.toString());
+        }
+
+        inventory.release(claimed);
+        Assert.assertEquals(inventory.getAvailableCountInRow(1), 2 * SEATS_PER_ROW);
+        Assert.assertEquals(inventory.getAvailableCountInSection("B"), ROWS * SEATS_PER_ROW);
+    }
+
+    /**
+     * Tests tier counts and scan hints stay consistent with the seats under concurrent claims and releases.
+     *
+     * @throws InterruptedException if interrupted waiting for the claims
+     */
+    @Test(groups = {"unit"})
+    public void testConcurrentClaimsAndReleases() throws InterruptedException {
+        SeatInventory inventory = new SeatInventory(seats);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        IntStream.range(0, 2000).forEach(i -> executor.execute(() -> {
+            int[] claimed = i % 3 == 0 ? inventory.claimInTier(i % ROWS, 1 + i % 4) : inventory.claim(1 + i % 7);
+            if (claimed != null && i % 2 == 0) {
+                inventory.release(claimed);
+            }
+        }));
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        int available = 0;
+        for (int tier = 0; tier < inventory.getTierCount(); tier++) {
+            int tierAvailable = 0;
+            int best = -1;
+            for (int index = tier * SEATS_PER_ROW; index < (tier + 1) * SEATS_PER_ROW; index++) {
+                if (inventory.isAvailable(index)) {
+                    tierAvailable++;
+                    best = best == -1 ? index : best;
+                }
+            }
+            Assert.assertEquals(inventory.getAvailableCount(tier), tierAvailable);
+            Assert.assertEquals(inventory.getAvailableCountInRow(null, tier + 1), tierAvailable);
+            Assert.assertEquals(inventory.findBestAvailable(tier), best);
+            available += tierAvailable;
+        }
+        Assert.assertEquals(inventory.getAvailableCount(), available);
+        Assert.assertEquals(inventory.getAvailableCountInSection(null), available);
+        Assert.assertNotNull(inventory.claim(available));
+    }
+
+    /**
+     * Tests concurrent claims never hand out a seat twice or leave a caller short.
+     *
+     * @throws InterruptedException if interrupted waiting for the claims
+     */
+    @Test(groups = {"unit"})
+    public void testConcurrentClaims() throws InterruptedException {
+        SeatInventory inventory = new SeatInventory(seats);
+        BitSet claimedSeats = new BitSet(seats.size());
+        AtomicInteger shortClaims = new AtomicInteger();
+        AtomicInteger duplicateClaims = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        IntStream.range(0, 400).forEach(i -> executor.execute(() -> {
+            int[] claimed = inventory.claim(3);
+            if (claimed != null) {
+                if (claimed.length != 3) {
+                    shortClaims.incrementAndGet();
+                }
+                synchronized (claimedSeats) {
+                    for (int index : claimed) {
+                        if (claimedSeats.get(index)) {
+                            duplicateClaims.incrementAndGet();
+                        }
+                        claimedSeats.set(index);
+                    }
+                }
+            }
+        }));
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        Assert.assertEquals(shortClaims.get(), 0, "Claims left short");
+        Assert.assertEquals(duplicateClaims.get(), 0, "Seats claimed twice");
+        Assert.assertEquals(claimedSeats.cardinality() + inventory.getAvailableCount(), seats.size());
+        Assert.assertEquals(inventory.getAvailableCount(), seats.size() % 3);
+    }
+}
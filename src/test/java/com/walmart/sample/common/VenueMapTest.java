@@ -0,0 +1,106 @@
+package com.walmart.sample.common;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Unit test for VenueMap.
+ */
+public class VenueMapTest {
+
+    /**
+     * Initial seats used in venue creation.
+     */
+    List<Seat> seats = new ArrayList<Seat>();
+
+    /**
+     * Test email.
+     */
+    static final String TEST_EMAIL = "email@test.com";
+
+    /**
+     * Create a seat list with a partial last word of the bitset, one row has no section.
+     */
+    @BeforeClass
+    public void setUp() {
+        IntStream.rangeClosed(1, 10).forEach(row -> {
+            IntStream.rangeClosed(1, 13).forEach(seatNumber -> {
+                seats.add(Seat.builder().rowNumber(row).seatNumber(seatNumber).seatQuality(seatNumber % 3)
+                    .section(row == 10 ? null : seatNumber <= 6 ? "Left" : "Right").build());
+            });
+        });
+    }
+
+    /**
+     * Tests a venue map keeps the seats in priority order and the reserved seats unavailable.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testWriteAndLoad() throws IOException {
+        Venue venue = new Venue(seats);
+        SeatHold reserved = venue.getAvailableSeats(TEST_EMAIL, 5);
+        Assert.assertTrue(venue.updateSeatHoldState(reserved, ReservationState.RESERVED));
+        SeatHold held = venue.getAvailableSeats(TEST_EMAIL, 7);
+
+        Path path = Files.createTempFile("venue", ".map");
+        try {
+            VenueMap.write(venue, path);
+
+            Venue loaded = VenueMap.load(path, true);
+            Assert.assertEquals(loaded.getNumberOfSeats(), seats.size());
+            Assert.assertEquals(loaded.getNumberOfAvailableSeats(), seats.size() - 5);
+            SeatInventory original = venue.getSeatInventory();
+            SeatInventory inventory = loaded.getSeatInventory();
+            for (int index = 0; index < seats.size(); index++) {
+                Assert.assertEquals(inventory.getRowNumber(index), original.getRowNumber(index));
+                Assert.assertEquals(inventory.getSeatNumber(index), original.getSeatNumber(index));
+                Assert.assertEquals(inventory.getSeatQuality(index), original.getSeatQuality(index));
+                Assert.assertEquals(inventory.getSection(index), original.getSection(index));
+            }
+            for (int seatIndex : reserved.getSeatIndexes()) {
+                Assert.assertFalse(inventory.isAvailable(seatIndex));
+            }
+
+            // The held seats were released with their hold, so they are the best available seats again.
+            SeatHold seatHold = loaded.getAvailableSeats(TEST_EMAIL, 7);
+            Assert.assertEquals(seatHold.getSeatIndexes(), held.getSeatIndexes());
+
+            Venue empty = VenueMap.load(path, false);
+            Assert.assertEquals(empty.getNumberOfAvailableSeats(), seats.size());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Tests a damaged venue map is rejected.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testCorruptMap() throws IOException {
+        Path path = Files.createTempFile("venue", ".map");
+        try {
+            VenueMap.write(new Venue(seats), path);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[] { 1, 2, 3, 4 }), 40);
+            }
+            try {
+                VenueMap.load(path, true);
+                Assert.fail("Corrupt venue map should fail.");
+            } catch (VenueException e) {
+                Assert.assertEquals(e.getMessage(), "Venue map " + path + " is corrupt.");
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
@@ -5,7 +5,12 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 import org.testng.Assert;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.IntStream;
 
 /**
@@ -194,4 +199,373 @@ public class VenueTest {
         }
     }
 
+    /**
+     * Tests getAvailableSeats method in {@code Venue} keeps a party together in one row.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testGetAvailableSeatsTogether() {
+        Venue venue = new Venue(seats);
+
+        // Leave only part of the best row available
+        SeatHold scattered = venue.getAvailableSeats(TEST_EMAIL, SEATS_PER_ROW / 2);
+        int bestRow = scattered.getSeats().get(0).getRowNumber();
+
+        SeatHold together = venue.getAvailableSeats(TEST_EMAIL, SEATS_PER_ROW / 2, AllocationMode.SEATS_TOGETHER);
+        Assert.assertEquals(together.getSeats().size(), SEATS_PER_ROW / 2);
+        int row = together.getSeats().get(0).getRowNumber();
+        Assert.assertNotEquals(row, bestRow, "Best row no longer has enough adjacent seats");
+        for (int i = 1; i < together.getSeats().size(); i++) {
+            Seat seat = together.getSeats().get(i);
+            Assert.assertEquals(seat.getRowNumber(), row);
+            Assert.assertEquals(seat.getSeatNumber(), together.getSeats().get(i - 1).getSeatNumber() + 1);
+        }
+
+        // Cancelled seats can be held together again
+        venue.cancelSeatHold(together);
+        SeatHold again = venue.getAvailableSeats(TEST_EMAIL, SEATS_PER_ROW / 2, AllocationMode.SEATS_TOGETHER);
+        Assert.assertEquals(again.getSeats().get(0).getRowNumber(), row);
+    }
+
+    /**
+     * Tests seats held together are the free run of the best quality, not a run in the row with the best seat.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testGetAvailableSeatsTogetherByRunQuality() {
+        List<Seat> runSeats = new ArrayList<Seat>();
+        int[][] qualities = {{10, 1, 1, 1}, {4, 5, 6, 7}};
+        IntStream.range(0, qualities.length).forEach(row -> {
+            IntStream.range(0, qualities[row].length).forEach(seat -> {
+                runSeats.add(Seat.builder().rowNumber(row + 1).seatNumber(seat + 1)
+                    .seatQuality(qualities[row][seat]).build());
+            });
+        });
+        Venue venue = new Venue(runSeats);
+
+        // Row 1 keeps its best seat's rank but only has its poor seats left.
+        Assert.assertEquals(venue.getAvailableSeats(TEST_EMAIL, 1).getSeats().get(0).getSeatQuality(), 10);
+        List<Seat> pair = venue.getAvailableSeats(TEST_EMAIL, 2, AllocationMode.SEATS_TOGETHER).getSeats();
+        Assert.assertEquals(pair.get(0).getRowNumber(), 2);
+        Assert.assertEquals(pair.get(0).getSeatNumber(), 3);
+        Assert.assertEquals(pair.get(1).getSeatNumber(), 4);
+
+        // Only row 1 has three free seats together.
+        List<Seat> triple = venue.getAvailableSeats(TEST_EMAIL, 3, AllocationMode.SEATS_TOGETHER).getSeats();
+        Assert.assertEquals(triple.get(0).getRowNumber(), 1);
+        Assert.assertEquals(triple.get(0).getSeatNumber(), 2);
+    }
+
+    /**
+     * Tests getAvailableSeats method in {@code Venue} when no row has enough adjacent seats.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testGetAvailableSeatsTogetherLargerThanRow() {
+        Venue venue = new Venue(seats);
+        int initialAvailable = venue.getNumberOfAvailableSeats();
+        try {
+            venue.getAvailableSeats(TEST_EMAIL, SEATS_PER_ROW, AllocationMode.SEATS_TOGETHER);
+            Assert.fail("Seat request larger than a row should fail.");
+        } catch (VenueException e) {
+            Assert.assertEquals(e.getMessage(), "Number of adjacent seats requested exceeds available seats together.");
+        }
+        Assert.assertEquals(venue.getNumberOfAvailableSeats(), initialAvailable);
+    }
+
+    /**
+     * Tests seat holds are evicted, compacted and capped by the retention policy in {@code Venue}.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testHoldRetention() {
+        Venue venue = new Venue(seats, new HoldRetentionPolicy(60000, 2));
+        HoldRetention retention = venue.getHoldRetention();
+
+        SeatHold cancelled = venue.getAvailableSeats(TEST_EMAIL, 1);
+        SeatHold reserved = venue.getAvailableSeats(TEST_EMAIL, 2);
+        try {
+            venue.getAvailableSeats(TEST_EMAIL, 1);
+            Assert.fail("Seat request beyond the cap should fail.");
+        } catch (VenueException e) {
+            Assert.assertEquals(e.getMessage(), "Too many seat holds, try again later.");
+        }
+        Assert.assertEquals(retention.getRejectedSeatHolds(), 1);
+
+        // Reserved holds move to the reservation store and still resolve by id
+        Assert.assertTrue(venue.updateSeatHoldState(reserved, ReservationState.RESERVED));
+        Assert.assertEquals(retention.getRetainedSeatHolds(), 1);
+        Assert.assertEquals(retention.getReservationCount(), 1);
+        SeatHold stored = venue.getSeatHold(reserved.getSeatHoldId());
+        Assert.assertEquals(stored.getState(), ReservationState.RESERVED);
+        Assert.assertEquals(stored.getConfirmationCode(), reserved.getConfirmationCode());
+        Assert.assertEquals(stored.getSeatIndexes(), reserved.getSeatIndexes());
+
+        // Cancelled holds are evicted early once the cap is reached
+        venue.cancelSeatHold(cancelled);
+        venue.getAvailableSeats(TEST_EMAIL, 1);
+        Assert.assertNotNull(venue.getSeatHold(cancelled.getSeatHoldId()));
+        venue.getAvailableSeats(TEST_EMAIL, 1);
+        Assert.assertNull(venue.getSeatHold(cancelled.getSeatHoldId()));
+        Assert.assertEquals(retention.getEvictedSeatHolds(), 1);
+        Assert.assertEquals(retention.getRetainedSeatHolds(), 2);
+    }
+
+    /**
+     * Tests a customer's holds and reservations are listed and limited by the retention policy in {@code Venue}.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testSeatHoldsByCustomer() {
+        Venue venue = new Venue(seats, new HoldRetentionPolicy(0, Integer.MAX_VALUE, 2));
+        HoldRetention retention = venue.getHoldRetention();
+
+        SeatHold reserved = venue.getAvailableSeats(TEST_EMAIL, 2);
+        SeatHold cancelled = venue.getAvailableSeats(TEST_EMAIL, 1);
+        SeatHold other = venue.getAvailableSeats("other" + TEST_EMAIL, 1);
+        try {
+            venue.getAvailableSeats(TEST_EMAIL, 1);
+            Assert.fail("Seat request beyond the customer limit should fail.");
+        } catch (VenueException e) {
+            Assert.assertEquals(e.getMessage(), "Too many seat holds for " + TEST_EMAIL
+                + ", reserve or release a hold first.");
+        }
+        Assert.assertEquals(retention.getRejectedCustomerHolds(), 1);
+        Assert.assertEquals(retention.getActiveHolds(TEST_EMAIL), 2);
+
+        // Reserving a hold frees a place under the limit and keeps the reservation listed
+        Assert.assertTrue(venue.updateSeatHoldState(reserved, ReservationState.RESERVED));
+        SeatHold held = venue.getAvailableSeats(TEST_EMAIL, 1);
+        List<SeatHold> seatHolds = venue.getSeatHolds(TEST_EMAIL);
+        Assert.assertEquals(seatHolds.size(), 3);
+        Assert.assertEquals(venue.getSeatHolds("other" + TEST_EMAIL).get(0), other);
+        Assert.assertTrue(venue.getSeatHolds("unknown" + TEST_EMAIL).isEmpty());
+
+        // Cancelled holds stay listed until they are evicted
+        Assert.assertTrue(venue.cancelSeatHold(cancelled));
+        Assert.assertEquals(retention.getActiveHolds(TEST_EMAIL), 1);
+        retention.evictExpired();
+        seatHolds = venue.getSeatHolds(TEST_EMAIL);
+        Assert.assertEquals(seatHolds.size(), 2);
+        Assert.assertTrue(seatHolds.contains(held));
+        Assert.assertEquals(venue.getSeatHold(reserved.getSeatHoldId()), reserved);
+        Assert.assertTrue(seatHolds.contains(reserved));
+    }
+
+    /**
+     * Tests requests that can't be satisfied wait and are handed freed seats oldest first in {@code Venue}.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testWaitlist() throws Exception {
+        Venue venue = new Venue(seats);
+        SeatWaitlist waitlist = venue.getSeatWaitlist();
+        venue.getAvailableSeats(TEST_EMAIL, seats.size() - 7);
+        SeatHold three = venue.getAvailableSeats(TEST_EMAIL, 3);
+        SeatHold four = venue.getAvailableSeats(TEST_EMAIL, 4);
+
+        CompletableFuture<SeatHold> first = venue.getAvailableSeatsOrWait("first" + TEST_EMAIL, 5, 10000);
+        CompletableFuture<SeatHold> second = venue.getAvailableSeatsOrWait("second" + TEST_EMAIL, 2, 10000);
+        CompletableFuture<SeatHold> third = venue.getAvailableSeatsOrWait("third" + TEST_EMAIL, 5, 200);
+        Assert.assertEquals(waitlist.getWaitingRequests(), 3);
+
+        // Only the party of two fits the three freed seats, the best two are handed to it
+        venue.cancelSeatHold(three);
+        SeatHold secondHold = second.getNow(null);
+        Assert.assertNotNull(secondHold);
+        Assert.assertEquals(secondHold.getSeatIndexes(), Arrays.copyOf(three.getSeatIndexes(), 2));
+        Assert.assertFalse(first.isDone());
+        Assert.assertEquals(venue.getNumberOfAvailableSeats(), 1);
+
+        // Five seats are now free and go to the oldest party of five
+        venue.cancelSeatHold(four);
+        Assert.assertEquals(first.getNow(null).getCustomerEmail(), "first" + TEST_EMAIL);
+        Assert.assertFalse(third.isDone());
+        Assert.assertEquals(venue.getNumberOfAvailableSeats(), 0);
+
+        try {
+            third.get();
+            Assert.fail("Waiting beyond the maximum wait should fail.");
+        } catch (ExecutionException e) {
+            Assert.assertEquals(e.getCause().getMessage(), "Timed out on the waitlist, try again later.");
+        }
+        Assert.assertEquals(waitlist.getWaitingRequests(), 0);
+        Assert.assertEquals(waitlist.getServedRequests(), 2);
+        Assert.assertEquals(waitlist.getAbandonedRequests(), 1);
+        Assert.assertEquals(venue.getHoldRetention().getActiveHolds("third" + TEST_EMAIL), 0);
+    }
+
+    /**
+     * Tests a seat hold only leaves the HOLD state once in {@code Venue}.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testUpdateSeatHoldStateOnlyFromHold() {
+        Venue venue = new Venue(seats);
+        int initialSize = venue.getNumberOfAvailableSeats();
+
+        SeatHold reserved = venue.getAvailableSeats(TEST_EMAIL, 2);
+        Assert.assertTrue(venue.updateSeatHoldState(reserved, ReservationState.RESERVED));
+        Assert.assertFalse(venue.cancelSeatHold(reserved), "Reserved hold should not expire");
+        Assert.assertEquals(reserved.getState(), ReservationState.RESERVED);
+
+        SeatHold cancelled = venue.getAvailableSeats(TEST_EMAIL, 2);
+        Assert.assertTrue(venue.cancelSeatHold(cancelled));
+        Assert.assertFalse(venue.cancelSeatHold(cancelled), "Cancelled hold should not release seats twice");
+        Assert.assertFalse(venue.updateSeatHoldState(cancelled, ReservationState.RESERVED));
+
+        Assert.assertEquals(venue.getNumberOfAvailableSeats(), initialSize - 2);
+    }
+
+    /**
+     * Tests the best available seats of one seat quality in {@code Venue}.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testGetAvailableSeatsInTier() {
+        // Three rows of each quality, quality 3 is the best.
+        List<Seat> tieredSeats = new ArrayList<Seat>();
+        IntStream.range(1, ROWS).forEach(row -> {
+            IntStream.range(1, SEATS_PER_ROW).forEach(seatNumber -> {
+                tieredSeats.add(Seat.builder().rowNumber(row).seatNumber(seatNumber).seatQuality(3 - (row - 1) / 3)
+                    .build());
+            });
+        });
+        Venue venue = new Venue(tieredSeats);
+        int tierSize = 3 * (SEATS_PER_ROW - 1);
+        Assert.assertEquals(venue.getNumberOfAvailableSeats(2), tierSize);
+        Assert.assertEquals(venue.getNumberOfAvailableSeats(7), 0);
+        Assert.assertEquals(venue.getBestAvailableSeat(2).getRowNumber(), 4);
+
+        SeatHold seatHold = venue.getAvailableSeatsInTier(TEST_EMAIL, 4, 2);
+        for (Seat seat : seatHold.getSeats()) {
+            Assert.assertEquals(seat.getSeatQuality(), 2);
+            Assert.assertEquals(seat.getRowNumber(), 4);
+        }
+        Assert.assertEquals(venue.getNumberOfAvailableSeats(2), tierSize - 4);
+        Assert.assertEquals(venue.getNumberOfAvailableSeats(3), tierSize);
+        Assert.assertEquals(venue.getBestAvailableSeat(2).getSeatNumber(), 5);
+
+        try {
+            venue.getAvailableSeatsInTier(TEST_EMAIL, tierSize - 3, 2);
+            Assert.fail("Request larger than the tier should fail.");
+        } catch (VenueException e) {
+            Assert.assertEquals(e.getMessage(), "Number of tickets requested exceeds available tickets of quality 2.");
+        }
+
+        venue.cancelSeatHold(seatHold);
+        Assert.assertEquals(venue.getNumberOfAvailableSeats(2), tierSize);
+        Assert.assertEquals(venue.getBestAvailableSeat(2).getSeatNumber(), 1);
+    }
+
+    /**
+     * Tests the best available seats matching a search in {@code Venue}.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testGetAvailableSeatsMatchingSearch() {
+        // Three rows of each quality, quality 3 is the best, seats 1 to 4 of every row are on the left.
+        List<Seat> sectionSeats = new ArrayList<Seat>();
+        IntStream.range(1, ROWS).forEach(row -> {
+            IntStream.range(1, SEATS_PER_ROW).forEach(seatNumber -> {
+                sectionSeats.add(Seat.builder().rowNumber(row).seatNumber(seatNumber).seatQuality(3 - (row - 1) / 3)
+                    .section(seatNumber <= 4 ? "Left" : "Right").build());
+            });
+        });
+        Venue venue = new Venue(sectionSeats);
+        Assert.assertEquals(venue.getNumberOfAvailableSeats(
+            SeatQuery.builder().minQuality(2).maxQuality(2).section("Left").build()), 12);
+        Assert.assertEquals(venue.getNumberOfAvailableSeats(
+            SeatQuery.builder().minRow(5).maxRow(8).section("Right").build()), 20);
+        Assert.assertEquals(venue.getNumberOfAvailableSeats(SeatQuery.builder().section("Balcony").build()), 0);
+
+        SeatHold seatHold = venue.getAvailableSeats(TEST_EMAIL, 3,
+            SeatQuery.builder().minQuality(2).maxQuality(2).section("Right").build());
+        for (Seat seat : seatHold.getSeats()) {
+            Assert.assertEquals(seat.getSeatQuality(), 2);
+            Assert.assertEquals(seat.getRowNumber(), 4);
+            Assert.assertEquals(seat.getSection(), "Right");
+        }
+        Assert.assertEquals(venue.getNumberOfAvailableSeats(
+            SeatQuery.builder().minQuality(2).maxQuality(2).section("Right").build()), 12);
+
+        SeatQuery together = SeatQuery.builder().minRow(2).section("Left")
+            .allocationMode(AllocationMode.SEATS_TOGETHER).build();
+        List<Seat> row2 = venue.getAvailableSeats(TEST_EMAIL, 4, together).getSeats();
+        List<Seat> row3 = venue.getAvailableSeats(TEST_EMAIL, 4, together).getSeats();
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(row2.get(i).getRowNumber(), 2);
+            Assert.assertEquals(row2.get(i).getSeatNumber(), i + 1);
+            Assert.assertEquals(row3.get(i).getRowNumber(), 3);
+        }
+
+        try {
+            venue.getAvailableSeats(TEST_EMAIL, 5, together);
+            Assert.fail("Request larger than the section of a row should fail.");
+        } catch (VenueException e) {
+            Assert.assertEquals(e.getMessage(),
+                "Number of tickets requested exceeds available tickets matching the search.");
+        }
+        try {
+            venue.getAvailableSeats(TEST_EMAIL, 1, SeatQuery.builder().section("Balcony").build());
+            Assert.fail("Request for an unknown section should fail.");
+        } catch (VenueException e) {
+            Assert.assertEquals(e.getMessage(),
+                "Number of tickets requested exceeds available tickets matching the search.");
+        }
+        Assert.assertEquals(venue.getNumberOfAvailableSeats(), sectionSeats.size() - 11);
+    }
+
+    /**
+     * Tests seats held together never span two sections that share a row number.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testGetAvailableSeatsTogetherWithinSection() {
+        List<Seat> sectionSeats = new ArrayList<Seat>();
+        for (String section : Arrays.asList("A", "B")) {
+            IntStream.rangeClosed(1, 3).forEach(seatNumber -> {
+                sectionSeats.add(Seat.builder().rowNumber(1).seatNumber(seatNumber).seatQuality(1)
+                    .section(section).build());
+            });
+        }
+        SeatQuery anyRow = SeatQuery.builder().allocationMode(AllocationMode.SEATS_TOGETHER).build();
+        SeatQuery firstRow = SeatQuery.builder().maxRow(1).allocationMode(AllocationMode.SEATS_TOGETHER).build();
+        for (SeatQuery together : Arrays.asList(anyRow, firstRow)) {
+            // Leaves A3, B2 and B3 free, A3 and B2 share a row number and have adjacent seat numbers.
+            Venue venue = new Venue(sectionSeats);
+            venue.getAvailableSeats(TEST_EMAIL, 2, SeatQuery.builder().section("A").build());
+            venue.getAvailableSeats(TEST_EMAIL, 1, SeatQuery.builder().section("B").build());
+
+            List<Seat> pair = venue.getAvailableSeats(TEST_EMAIL, 2, together).getSeats();
+            Assert.assertEquals(pair.get(0).getSection(), "B");
+            Assert.assertEquals(pair.get(0).getSeatNumber(), 2);
+            Assert.assertEquals(pair.get(1).getSection(), "B");
+            Assert.assertEquals(pair.get(1).getSeatNumber(), 3);
+            try {
+                venue.getAvailableSeats(TEST_EMAIL, 2, together);
+                Assert.fail("Seats in different sections should not be held together.");
+            } catch (VenueException e) {
+                Assert.assertEquals(venue.getNumberOfAvailableSeats(), 1);
+            }
+        }
+    }
+
+    /**
+     * Tests reservations are found by confirmation code and holds are not.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testGetReservationByConfirmationCode() {
+        Venue venue = new Venue(seats);
+        List<SeatHold> reserved = new ArrayList<SeatHold>();
+        IntStream.range(0, 50).forEach(i -> {
+            SeatHold seatHold = venue.getAvailableSeats(i + TEST_EMAIL, 1);
+            Assert.assertTrue(venue.updateSeatHoldState(seatHold, ReservationState.RESERVED));
+            reserved.add(seatHold);
+        });
+        SeatHold held = venue.getAvailableSeats(TEST_EMAIL, 1);
+
+        Set<String> confirmationCodes = new HashSet<String>();
+        for (SeatHold seatHold : reserved) {
+            Assert.assertTrue(seatHold.getConfirmationCode().matches("[0-9A-HJKMNP-TV-Z]{16}"));
+            Assert.assertTrue(confirmationCodes.add(seatHold.getConfirmationCode()));
+            SeatHold reservation = venue.getReservation(seatHold.getConfirmationCode());
+            Assert.assertEquals(reservation.getSeatHoldId(), seatHold.getSeatHoldId());
+            Assert.assertEquals(reservation.getCustomerEmail(), seatHold.getCustomerEmail());
+            Assert.assertEquals(reservation.getSeatIndexes(), seatHold.getSeatIndexes());
+        }
+        Assert.assertNull(venue.getReservation(held.getConfirmationCode()));
+        Assert.assertNull(venue.getReservation("unknown"));
+    }
+
 }
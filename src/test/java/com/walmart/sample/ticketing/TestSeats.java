@@ -0,0 +1,72 @@
+package com.walmart.sample.ticketing;
+
+import com.walmart.sample.common.Seat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Seats and customer shared by the ticketing tests.
+ */
+public final class TestSeats {
+
+    /**
+     * Rows in the test venue.
+     */
+    public static final int ROWS = 10;
+
+    /**
+     * Seats in each row of the test venue.
+     */
+    public static final int SEATS_PER_ROW = 10;
+
+    /**
+     * Test email.
+     */
+    public static final String TEST_EMAIL = "email@test.com";
+
+    /**
+     * Not instantiated.
+     */
+    private TestSeats() {
+    }
+
+    /**
+     * Create a simple seat list for venue creation in test cases, front rows having the better seats.
+     *
+     * @return a new list of the seats.
+     */
+    public static List<Seat> seats() {
+        return seats(false);
+    }
+
+    /**
+     * Create the same seats split into a floor section of the front half of the rows and a balcony of the rest.
+     *
+     * @return a new list of the seats.
+     */
+    public static List<Seat> sectionSeats() {
+        return seats(true);
+    }
+
+    /**
+     * Creates the seats of the test venue.
+     *
+     * @param sections whether the seats are split into floor and balcony sections.
+     * @return a new list of the seats.
+     */
+    private static List<Seat> seats(final boolean sections) {
+        List<Seat> seats = new ArrayList<Seat>();
+        IntStream.rangeClosed(1, ROWS).forEach(row -> {
+            IntStream.rangeClosed(1, SEATS_PER_ROW).forEach(seatNumber -> {
+                Seat.SeatBuilder seat = Seat.builder().rowNumber(row).seatNumber(seatNumber).seatQuality(ROWS - row);
+                if (sections) {
+                    seat.section(row <= ROWS / 2 ? "floor" : "balcony");
+                }
+                seats.add(seat.build());
+            });
+        });
+        return seats;
+    }
+}
@@ -0,0 +1,94 @@
+package com.walmart.sample.ticketing.eventloop;
+
+import com.walmart.sample.common.ReservationState;
+import com.walmart.sample.common.Seat;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.Venue;
+import com.walmart.sample.common.VenueException;
+import com.walmart.sample.ticketing.TestSeats;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Unit test for EventLoopTicketService.
+ */
+public class EventLoopTicketServiceTest {
+
+    /**
+     * Initial seats used in venue creation.
+     */
+    List<Seat> seats = TestSeats.seats();
+
+    /**
+     * Tests holds, reservations and releases are applied through the event loop and failures complete the future.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testHoldAndReserve() {
+        EventLoopTicketService service = new EventLoopTicketService(new Venue(seats));
+        try {
+            SeatHold seatHold = service.findAndHoldSeats(4, TestSeats.TEST_EMAIL).join();
+            SeatHold released = service.findAndHoldSeats(2, TestSeats.TEST_EMAIL).join();
+            Assert.assertEquals(service.numSeatsAvailable(), seats.size() - 6);
+            Assert.assertNotNull(service.reserveSeats(seatHold.getSeatHoldId(), TestSeats.TEST_EMAIL).join());
+            service.releaseHold(released.getSeatHoldId(), TestSeats.TEST_EMAIL).join();
+            Assert.assertEquals(seatHold.getState(), ReservationState.RESERVED);
+            Assert.assertEquals(service.numSeatsAvailable(), seats.size() - 4);
+            Assert.assertEquals(service.findSeatHolds(TestSeats.TEST_EMAIL).join().size(), 2);
+
+            try {
+                service.findAndHoldSeats(seats.size(), TestSeats.TEST_EMAIL).join();
+                Assert.fail("Holding more seats than available should fail.");
+            } catch (CompletionException e) {
+                Assert.assertTrue(e.getCause() instanceof VenueException);
+            }
+        } finally {
+            service.close();
+        }
+        Assert.assertEquals(service.getEventLoop().getPendingCommands(), 0);
+        CompletableFuture<SeatHold> closed = service.findAndHoldSeats(1, TestSeats.TEST_EMAIL);
+        Assert.assertTrue(closed.isCompletedExceptionally());
+    }
+
+    /**
+     * Tests many callers through a ring much smaller than the number of requests sell out the venue exactly once.
+     *
+     * @throws InterruptedException if interrupted waiting for the callers
+     */
+    @Test(groups = {"unit"})
+    public void testConcurrentHoldsThroughSmallRing() throws InterruptedException {
+        EventLoopTicketService service = new EventLoopTicketService(new Venue(seats), 4);
+        List<SeatHold> seatHolds = new CopyOnWriteArrayList<SeatHold>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            IntStream.range(0, 200).forEach(i -> executor.execute(() -> {
+                try {
+                    seatHolds.add(service.findAndHoldSeats(1, "customer" + i + "@test.com").join());
+                } catch (CompletionException e) {
+                    Assert.assertTrue(e.getCause() instanceof VenueException);
+                }
+            }));
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        } finally {
+            service.close();
+        }
+
+        Assert.assertEquals(seatHolds.size(), seats.size());
+        Assert.assertEquals(service.numSeatsAvailable(), 0);
+        Set<Integer> seatIndexes = new HashSet<Integer>();
+        seatHolds.forEach(seatHold -> Assert.assertTrue(seatIndexes.add(seatHold.getSeatIndexes()[0])));
+        Assert.assertEquals(service.getEventLoop().getCompletedCommands(), 200);
+    }
+}
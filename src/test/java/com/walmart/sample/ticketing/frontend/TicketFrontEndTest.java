@@ -0,0 +1,128 @@
+package com.walmart.sample.ticketing.frontend;
+
+import com.walmart.sample.common.ReservationState;
+import com.walmart.sample.common.Seat;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.Venue;
+import com.walmart.sample.common.VenueException;
+import com.walmart.sample.ticketing.TestSeats;
+import com.walmart.sample.ticketing.service.HoldExpirationService;
+import com.walmart.sample.ticketing.service.TicketServiceImpl;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+
+/**
+ * Unit test for TicketFrontEnd.
+ */
+public class TicketFrontEndTest {
+
+    /**
+     * Initial seats used in venue creation.
+     */
+    List<Seat> seats = TestSeats.seats();
+
+    /**
+     * Tests requests of many customers are served on virtual threads.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testHoldAndReserve() {
+        // The expiration wheel is not started, holds stay pending for the length of the test.
+        TicketServiceImpl ticketService = new TicketServiceImpl(new Venue(seats), new HoldExpirationService());
+        try (TicketFrontEnd frontEnd = new TicketFrontEnd(ticketService, new AdmissionPolicy(4, 1000, 10000, 5, 2,
+            1000))) {
+            List<CompletableFuture<SeatHold>> holds = new ArrayList<CompletableFuture<SeatHold>>();
+            IntStream.range(0, 50).forEach(i -> holds.add(frontEnd.findAndHoldSeats(2, i + TestSeats.TEST_EMAIL)));
+            for (CompletableFuture<SeatHold> hold : holds) {
+                SeatHold seatHold = hold.join();
+                Assert.assertNotNull(frontEnd.reserveSeats(seatHold.getSeatHoldId(), seatHold.getCustomerEmail())
+                    .join());
+                Assert.assertEquals(seatHold.getState(), ReservationState.RESERVED);
+            }
+            Assert.assertEquals(frontEnd.numSeatsAvailable(), 0);
+            Assert.assertEquals(frontEnd.getWaitLatency().getCount(), 100);
+            Assert.assertEquals(frontEnd.getRateLimitedRequests(), 0);
+        }
+    }
+
+    /**
+     * Tests a customer making requests faster than their rate is rejected without affecting other customers.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testCustomerRateLimit() {
+        // The expiration wheel is not started, holds stay pending for the length of the test.
+        TicketServiceImpl ticketService = new TicketServiceImpl(new Venue(seats), new HoldExpirationService());
+        try (TicketFrontEnd frontEnd = new TicketFrontEnd(ticketService, new AdmissionPolicy(4, 1000, 10000, 0.1, 2,
+            1000))) {
+            frontEnd.findAndHoldSeats(1, TestSeats.TEST_EMAIL).join();
+            frontEnd.findAndHoldSeats(1, TestSeats.TEST_EMAIL).join();
+            try {
+                frontEnd.findAndHoldSeats(1, TestSeats.TEST_EMAIL).join();
+                Assert.fail("Request beyond the customer's burst should fail.");
+            } catch (CompletionException e) {
+                Assert.assertEquals(e.getCause().getMessage(), "Too many requests from " + TestSeats.TEST_EMAIL
+                    + ", try again later.");
+            }
+            frontEnd.findAndHoldSeats(1, "other" + TestSeats.TEST_EMAIL).join();
+            Assert.assertEquals(frontEnd.getRateLimitedRequests(), 1);
+            Assert.assertEquals(frontEnd.numSeatsAvailable(), seats.size() - 3);
+        }
+    }
+
+    /**
+     * Tests a request without a customer email fails its future instead of throwing.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testMissingCustomerEmail() {
+        TicketServiceImpl ticketService = new TicketServiceImpl(new Venue(seats), new HoldExpirationService());
+        try (TicketFrontEnd frontEnd = new TicketFrontEnd(ticketService, AdmissionPolicy.DEFAULT)) {
+            List<CompletableFuture<?>> futures = List.of(frontEnd.findAndHoldSeats(1, null),
+                frontEnd.reserveSeats(1, ""));
+            for (CompletableFuture<?> future : futures) {
+                try {
+                    future.join();
+                    Assert.fail("A request without a customer email should fail.");
+                } catch (CompletionException e) {
+                    Assert.assertTrue(e.getCause() instanceof VenueException);
+                    Assert.assertEquals(e.getCause().getMessage(), "Customer email is required.");
+                }
+            }
+            Assert.assertEquals(frontEnd.numSeatsAvailable(), seats.size());
+        }
+    }
+
+    /**
+     * Tests requests are rejected when the waiting room is full or they wait too long.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testWaitingRoom() throws InterruptedException {
+        WaitingRoom waitingRoom = new WaitingRoom(1, 0, 50);
+        waitingRoom.enter();
+        try {
+            waitingRoom.enter();
+            Assert.fail("Entering a full waiting room should fail.");
+        } catch (VenueException e) {
+            Assert.assertEquals(e.getMessage(), "Waiting room is full, try again later.");
+        }
+
+        WaitingRoom queue = new WaitingRoom(1, 1, 50);
+        queue.enter();
+        try {
+            queue.enter();
+            Assert.fail("Waiting beyond the maximum wait should fail.");
+        } catch (VenueException e) {
+            Assert.assertEquals(e.getMessage(), "Timed out in the waiting room, try again later.");
+        }
+        Thread.ofVirtual().start(queue::leave).join();
+        queue.enter();
+        Assert.assertEquals(waitingRoom.getRejected(), 1);
+        Assert.assertEquals(queue.getTimedOut(), 1);
+        Assert.assertEquals(queue.getWaiting(), 0);
+    }
+}
@@ -0,0 +1,215 @@
+package com.walmart.sample.ticketing.journal;
+
+import com.walmart.sample.common.ReservationState;
+import com.walmart.sample.common.Seat;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.Venue;
+import com.walmart.sample.common.VenueException;
+import com.walmart.sample.ticketing.TestSeats;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Unit test for VenueJournal.
+ */
+public class VenueJournalTest {
+
+    /**
+     * Initial seats used in venue creation.
+     */
+    List<Seat> seats = TestSeats.seats();
+
+    /**
+     * Journal directories created by a test.
+     */
+    List<Path> directories = new ArrayList<Path>();
+
+    /**
+     * Tests reservations are recovered after a restart and pending or cancelled holds are not.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testRecovery() throws IOException {
+        Path directory = Files.createTempDirectory("journal");
+        directories.add(directory);
+        Venue venue = new Venue(seats);
+        List<SeatHold> reserved = new ArrayList<SeatHold>();
+        try (VenueJournal journal = VenueJournal.open(directory, JournalPolicy.DEFAULT, venue)) {
+            reserved.add(venue.getAvailableSeats(TestSeats.TEST_EMAIL, 3));
+            SeatHold cancelled = venue.getAvailableSeats(TestSeats.TEST_EMAIL, 4);
+            reserved.add(venue.getAvailableSeats(TestSeats.TEST_EMAIL, 2));
+            venue.getAvailableSeats(TestSeats.TEST_EMAIL, 5);
+            for (SeatHold seatHold : reserved) {
+                Assert.assertTrue(venue.updateSeatHoldState(seatHold, ReservationState.RESERVED));
+            }
+            venue.cancelSeatHolds(Arrays.asList(cancelled));
+        }
+
+        Venue recovered = new Venue(seats);
+        try (VenueJournal journal = VenueJournal.open(directory, JournalPolicy.DEFAULT, recovered)) {
+            assertRecovered(recovered, reserved);
+
+            // New holds don't reuse the ids of recovered reservations.
+            SeatHold seatHold = recovered.getAvailableSeats(TestSeats.TEST_EMAIL, 1);
+            for (SeatHold reservation : reserved) {
+                Assert.assertNotEquals(seatHold.getSeatHoldId(), reservation.getSeatHoldId());
+            }
+        }
+    }
+
+    /**
+     * Tests reservations are recovered from a snapshot and the segments written after it.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testRecoveryFromSnapshot() throws IOException {
+        Path directory = Files.createTempDirectory("journal");
+        directories.add(directory);
+        JournalPolicy policy = new JournalPolicy(JournalSegment.MIN_SEGMENT_BYTES, 1, 100);
+        Venue venue = new Venue(seats);
+        List<SeatHold> reserved = new ArrayList<SeatHold>();
+        try (VenueJournal journal = VenueJournal.open(directory, policy, venue)) {
+            // Enough holds to fill several segments.
+            for (int i = 0; i < 200; i++) {
+                SeatHold seatHold = venue.getAvailableSeats(TestSeats.TEST_EMAIL, 1);
+                venue.cancelSeatHold(seatHold);
+            }
+            for (int i = 0; i < 10; i++) {
+                SeatHold seatHold = venue.getAvailableSeats(TestSeats.TEST_EMAIL, 2);
+                Assert.assertTrue(venue.updateSeatHoldState(seatHold, ReservationState.RESERVED));
+                reserved.add(seatHold);
+            }
+            journal.compact();
+            SeatHold seatHold = venue.getAvailableSeats(TestSeats.TEST_EMAIL, 3);
+            Assert.assertTrue(venue.updateSeatHoldState(seatHold, ReservationState.RESERVED));
+            reserved.add(seatHold);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            Assert.assertEquals(files.filter(file -> file.getFileName().toString().startsWith(JournalSnapshot.PREFIX))
+                .count(), 1);
+        }
+
+        Venue recovered = new Venue(seats);
+        try (VenueJournal journal = VenueJournal.open(directory, policy, recovered)) {
+            assertRecovered(recovered, reserved);
+        }
+    }
+
+    /**
+     * Tests records appended by concurrent threads across many segments are all recovered.
+     *
+     * @throws IOException          when the journal can't be written
+     * @throws InterruptedException if interrupted waiting for the appends
+     */
+    @Test(groups = {"unit"})
+    public void testConcurrentAppends() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("journal");
+        directories.add(directory);
+        JournalPolicy policy = new JournalPolicy(JournalSegment.MIN_SEGMENT_BYTES, 1, 100);
+        Venue venue = new Venue(seats);
+        List<SeatHold> reserved = Collections.synchronizedList(new ArrayList<SeatHold>());
+        try (VenueJournal journal = VenueJournal.open(directory, policy, venue)) {
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            IntStream.range(0, 400).forEach(i -> executor.execute(() -> {
+                SeatHold seatHold = venue.getAvailableSeats(TestSeats.TEST_EMAIL + i, 1);
+                if (i % 5 == 0 && venue.updateSeatHoldState(seatHold, ReservationState.RESERVED)) {
+                    reserved.add(seatHold);
+                } else {
+                    venue.cancelSeatHold(seatHold);
+                }
+            }));
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        }
+        Assert.assertEquals(reserved.size(), 80);
+
+        Venue recovered = new Venue(seats);
+        try (VenueJournal journal = VenueJournal.open(directory, policy, recovered)) {
+            assertRecovered(recovered, reserved);
+        }
+    }
+
+    /**
+     * Tests a reservation whose record can't be flushed is rolled back and not recovered.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testFlushFailure() throws IOException {
+        Path directory = Files.createTempDirectory("journal");
+        directories.add(directory);
+        Venue venue = new Venue(seats);
+        List<SeatHold> reserved = new ArrayList<SeatHold>();
+        try (VenueJournal journal = VenueJournal.open(directory, JournalPolicy.DEFAULT, venue)) {
+            SeatHold seatHold = venue.getAvailableSeats(TestSeats.TEST_EMAIL, 3);
+            journal.failFlushes(new UncheckedIOException(new IOException("No space left on device")));
+            try {
+                venue.updateSeatHoldState(seatHold, ReservationState.RESERVED);
+                Assert.fail("Reserving should fail when the reservation can't be flushed.");
+            } catch (VenueException e) {
+                Assert.assertTrue(e.getMessage().startsWith("Unable to flush journal"));
+            }
+            Assert.assertEquals(seatHold.getState(), ReservationState.CANCELLED);
+            Assert.assertNull(venue.getReservation(seatHold.getConfirmationCode()));
+            Assert.assertEquals(venue.getNumberOfAvailableSeats(), seats.size());
+
+            journal.failFlushes(null);
+            SeatHold retried = venue.getAvailableSeats(TestSeats.TEST_EMAIL, 3);
+            Assert.assertTrue(venue.updateSeatHoldState(retried, ReservationState.RESERVED));
+            reserved.add(retried);
+        }
+
+        Venue recovered = new Venue(seats);
+        try (VenueJournal journal = VenueJournal.open(directory, JournalPolicy.DEFAULT, recovered)) {
+            assertRecovered(recovered, reserved);
+        }
+    }
+
+    /**
+     * Deletes the journal directories created by a test.
+     */
+    @AfterMethod(alwaysRun = true)
+    public void deleteJournal() throws IOException {
+        for (Path directory : directories) {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+        directories.clear();
+    }
+
+    /**
+     * Asserts a recovered venue has exactly the reservations of the journaled venue.
+     *
+     * @param recovered the recovered venue.
+     * @param reserved  the reservations of the journaled venue.
+     */
+    private void assertRecovered(final Venue recovered, final List<SeatHold> reserved) {
+        int reservedSeats = 0;
+        for (SeatHold reservation : reserved) {
+            SeatHold seatHold = recovered.getSeatHold(reservation.getSeatHoldId());
+            Assert.assertNotNull(seatHold);
+            Assert.assertEquals(seatHold.getState(), ReservationState.RESERVED);
+            Assert.assertEquals(seatHold.getConfirmationCode(), reservation.getConfirmationCode());
+            Assert.assertEquals(seatHold.getSeatIndexes(), reservation.getSeatIndexes());
+            reservedSeats += reservation.getSeats().size();
+        }
+        Assert.assertEquals(recovered.getNumberOfAvailableSeats(), seats.size() - reservedSeats);
+    }
+}
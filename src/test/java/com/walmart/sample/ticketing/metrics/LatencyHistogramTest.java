@@ -0,0 +1,58 @@
+package com.walmart.sample.ticketing.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit test for LatencyHistogram.
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * Tests small values are recorded exactly.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testSmallValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10; value++) {
+            histogram.record(value);
+        }
+        Assert.assertEquals(histogram.getCount(), 10);
+        Assert.assertEquals(histogram.getMean(), 5.5);
+        Assert.assertEquals(histogram.getMax(), 10);
+        Assert.assertEquals(histogram.getValueAtPercentile(50), 5);
+        Assert.assertEquals(histogram.getValueAtPercentile(90), 9);
+        Assert.assertEquals(histogram.getValueAtPercentile(100), 10);
+    }
+
+    /**
+     * Tests large values are reported within the precision of their bucket.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testLargeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1000; value <= 100000; value += 1000) {
+            histogram.record(value);
+        }
+        long median = histogram.getValueAtPercentile(50);
+        Assert.assertTrue(median >= 50000 && median <= 50000 * 1.07, "Median " + median);
+        long p99 = histogram.getValueAtPercentile(99);
+        Assert.assertTrue(p99 >= 99000 && p99 <= 99000 * 1.07, "99th percentile " + p99);
+        Assert.assertEquals(histogram.getValueAtPercentile(100), 100000);
+
+        histogram.record(Long.MAX_VALUE);
+        Assert.assertEquals(histogram.getMax(), Long.MAX_VALUE);
+        Assert.assertEquals(histogram.getValueAtPercentile(100), Long.MAX_VALUE);
+    }
+
+    /**
+     * Tests an empty histogram reports zeros.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(histogram.getCount(), 0);
+        Assert.assertEquals(histogram.getMean(), 0.0);
+        Assert.assertEquals(histogram.getValueAtPercentile(99), 0);
+    }
+}
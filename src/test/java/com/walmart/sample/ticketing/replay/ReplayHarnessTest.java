@@ -0,0 +1,139 @@
+package com.walmart.sample.ticketing.replay;
+
+import com.walmart.sample.common.AllocationMode;
+import com.walmart.sample.common.Seat;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.SeatQuery;
+import com.walmart.sample.common.Venue;
+import com.walmart.sample.common.VenueException;
+import com.walmart.sample.ticketing.TestSeats;
+import com.walmart.sample.ticketing.service.TicketServiceImpl;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit test for AllocationRecorder and ReplayHarness.
+ */
+public class ReplayHarnessTest {
+
+    /**
+     * Initial seats used in venue creation.
+     */
+    List<Seat> seats = TestSeats.seats();
+
+    /**
+     * Allocation logs created by a test.
+     */
+    List<Path> logs = new ArrayList<Path>();
+
+    /**
+     * Tests a recorded request stream replays to the same seat layout with the same outcomes.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testReplayReproducesLayout() throws IOException {
+        Path path = newLog();
+        Venue venue = new Venue(seats);
+        record(venue, path);
+
+        ReplayReport report = new ReplayHarness(seats).replay(path, ReplayHarness.AS_FAST_AS_POSSIBLE);
+        Assert.assertEquals(report.getHolds(), 4);
+        Assert.assertEquals(report.getReservations(), 2);
+        Assert.assertEquals(report.getExtensions(), 1);
+        Assert.assertEquals(report.getCancellations(), 1);
+        Assert.assertEquals(report.getFailedRequests(), 2);
+        Assert.assertEquals(report.getMismatches(), 0);
+        Assert.assertEquals(report.getLatency().getCount(), report.getRequests());
+        Assert.assertTrue(report.getThroughput() > 0);
+        Assert.assertEquals(report.getAvailableSeats(), venue.getNumberOfAvailableSeats());
+        Assert.assertTrue(Arrays.equals(report.getSeatStates(), venue.getSeatStates()));
+    }
+
+    /**
+     * Tests a log cut short in its last record replays the records before it.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testTruncatedLog() throws IOException {
+        Path path = newLog();
+        record(new Venue(seats), path);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+
+        ReplayReport report = new ReplayHarness(seats).replay(path, ReplayHarness.AS_FAST_AS_POSSIBLE);
+        Assert.assertEquals(report.getReservations(), 1);
+        Assert.assertEquals(report.getMismatches(), 0);
+
+        Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        try {
+            new ReplayHarness(seats).replay(path, ReplayHarness.AS_FAST_AS_POSSIBLE);
+            Assert.fail("Replaying a file that is not an allocation log should fail.");
+        } catch (VenueException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Not an allocation log"));
+        }
+    }
+
+    /**
+     * Records holds, a query hold, reservations, a release, an extension and failed requests.
+     *
+     * @param venue the venue recorded on.
+     * @param path  the allocation log.
+     * @throws IOException when the log can't be written
+     */
+    private void record(final Venue venue, final Path path) throws IOException {
+        TicketServiceImpl ticketService = new TicketServiceImpl(venue);
+        AllocationRecorder recorder = AllocationRecorder.create(path);
+        try (RecordingTicketService service = new RecordingTicketService(ticketService, recorder)) {
+            SeatHold best = service.findAndHoldSeats(4, TestSeats.TEST_EMAIL);
+            SeatHold together = service.findAndHoldSeats(3, "other@test.com", AllocationMode.SEATS_TOGETHER);
+            SeatHold rear = service.findAndHoldSeats(2, TestSeats.TEST_EMAIL, SeatQuery.builder().minRow(5).build());
+            service.reserveSeats(best.getSeatHoldId(), TestSeats.TEST_EMAIL);
+            service.releaseHold(together.getSeatHoldId(), "other@test.com");
+            service.extendHold(rear.getSeatHoldId(), TestSeats.TEST_EMAIL);
+            try {
+                service.findAndHoldSeats(seats.size(), TestSeats.TEST_EMAIL);
+                Assert.fail("Holding more seats than available should fail.");
+            } catch (VenueException e) {
+                // Recorded as a failed hold.
+            }
+            try {
+                service.reserveSeats(together.getSeatHoldId(), "other@test.com");
+                Assert.fail("Reserving a released hold should fail.");
+            } catch (VenueException e) {
+                // Recorded as a failed reservation.
+            }
+        } finally {
+            ticketService.getScheduler().shutdownNow();
+        }
+    }
+
+    /**
+     * Creates an allocation log file deleted after the test.
+     *
+     * @return the log file.
+     * @throws IOException when the file can't be created
+     */
+    private Path newLog() throws IOException {
+        Path path = Files.createTempFile("allocations", ".log");
+        logs.add(path);
+        return path;
+    }
+
+    /**
+     * Deletes the allocation logs created by a test.
+     */
+    @AfterMethod(alwaysRun = true)
+    public void deleteLogs() throws IOException {
+        for (Path path : logs) {
+            Files.deleteIfExists(path);
+        }
+        logs.clear();
+    }
+}
@@ -0,0 +1,141 @@
+package com.walmart.sample.ticketing.seatmap;
+
+import com.walmart.sample.common.ReservationState;
+import com.walmart.sample.common.Seat;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.SeatState;
+import com.walmart.sample.common.Venue;
+import com.walmart.sample.ticketing.TestSeats;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.stream.IntStream;
+
+/**
+ * Unit test for SeatChangeStream.
+ */
+public class SeatChangeStreamTest {
+
+    /**
+     * Initial seats used in venue creation.
+     */
+    List<Seat> seats = TestSeats.seats();
+
+    /**
+     * Tests the first batch is a snapshot and later batches hold each changed seat once with its latest state.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testSnapshotAndCoalescedChanges() {
+        Venue venue = new Venue(seats);
+        SeatHold before = venue.getAvailableSeats(TestSeats.TEST_EMAIL, 2);
+        SeatChangeStream stream = new SeatChangeStream(venue);
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        stream.subscribe(subscriber);
+
+        stream.run();
+        Assert.assertEquals(subscriber.batches.size(), 1);
+        SeatChangeBatch snapshot = subscriber.batches.get(0);
+        Assert.assertTrue(snapshot.isSnapshot());
+        Assert.assertEquals(snapshot.size(), seats.size());
+        Assert.assertEquals(snapshot.getStates()[before.getSeatIndexes()[0]], SeatState.HELD);
+        Assert.assertEquals(snapshot.getStates()[seats.size() - 1], SeatState.AVAILABLE);
+
+        // Without demand the changes coalesce until the subscriber asks for more
+        SeatHold reserved = venue.getAvailableSeats(TestSeats.TEST_EMAIL, 3);
+        Assert.assertTrue(venue.updateSeatHoldState(reserved, ReservationState.RESERVED));
+        SeatHold cancelled = venue.getAvailableSeats(TestSeats.TEST_EMAIL, 2);
+        Assert.assertTrue(venue.cancelSeatHold(cancelled));
+        stream.run();
+        Assert.assertEquals(subscriber.batches.size(), 1);
+
+        subscriber.subscription.request(1);
+        stream.run();
+        Assert.assertEquals(subscriber.batches.size(), 2);
+        SeatChangeBatch changes = subscriber.batches.get(1);
+        Assert.assertFalse(changes.isSnapshot());
+        Assert.assertEquals(changes.getSequence(), 1);
+        Assert.assertEquals(changes.size(), 5);
+        for (int i = 0; i < changes.size(); i++) {
+            int seatIndex = changes.getSeatIndexes()[i];
+            boolean isReserved = IntStream.of(reserved.getSeatIndexes()).anyMatch(index -> index == seatIndex);
+            Assert.assertEquals(changes.getStates()[i], isReserved ? SeatState.RESERVED : SeatState.AVAILABLE);
+        }
+        Assert.assertEquals(stream.getSeatChanges(), 10);
+        Assert.assertEquals(stream.getPublishedSeats(), seats.size() + 5);
+
+        // Nothing changed, nothing is sent
+        subscriber.subscription.request(1);
+        stream.run();
+        Assert.assertEquals(subscriber.batches.size(), 2);
+
+        stream.close();
+        Assert.assertTrue(subscriber.completed);
+        Assert.assertEquals(stream.getSubscriberCount(), 0);
+        venue.getAvailableSeats(TestSeats.TEST_EMAIL, 1);
+        Assert.assertEquals(stream.getSeatChanges(), 10);
+    }
+
+    /**
+     * A subscriber that keeps every batch, requesting one batch when subscribed.
+     */
+    private static final class CollectingSubscriber implements Flow.Subscriber<SeatChangeBatch> {
+
+        /**
+         * The batches received.
+         */
+        private final List<SeatChangeBatch> batches = new ArrayList<SeatChangeBatch>();
+
+        /**
+         * The subscription.
+         */
+        private Flow.Subscription subscription;
+
+        /**
+         * Whether the stream completed.
+         */
+        private boolean completed;
+
+        /**
+         * Keeps the subscription and requests the first batch.
+         *
+         * @param subscription the subscription.
+         */
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        /**
+         * Keeps a batch.
+         *
+         * @param batch the batch.
+         */
+        @Override
+        public void onNext(final SeatChangeBatch batch) {
+            batches.add(batch);
+        }
+
+        /**
+         * Fails the test.
+         *
+         * @param throwable the error.
+         */
+        @Override
+        public void onError(final Throwable throwable) {
+            Assert.fail("Unexpected error", throwable);
+        }
+
+        /**
+         * Records the stream completed.
+         */
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
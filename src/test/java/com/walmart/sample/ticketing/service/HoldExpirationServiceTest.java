@@ -0,0 +1,167 @@
+package com.walmart.sample.ticketing.service;
+
+import com.walmart.sample.common.ReservationState;
+import com.walmart.sample.common.Seat;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.Venue;
+import com.walmart.sample.common.VenueListener;
+import com.walmart.sample.ticketing.TestSeats;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Unit test for HoldExpirationService.
+ */
+public class HoldExpirationServiceTest {
+
+    /**
+     * Initial seats used in venue creation.
+     */
+    List<Seat> seats = TestSeats.seats();
+
+    /**
+     * Tick of the wheel in tests.
+     */
+    static final long TICK_MILLIS = 10;
+
+    /**
+     * Runs the wheel until a duration has passed.
+     *
+     * @param service the service being run.
+     * @param millis  the duration.
+     */
+    private void runFor(final HoldExpirationService service, final long millis) {
+        long end = System.currentTimeMillis() + millis;
+        while (System.currentTimeMillis() < end) {
+            service.run();
+            try {
+                Thread.sleep(TICK_MILLIS);
+            } catch (InterruptedException e) {
+                Assert.fail("Interrupted running wheel");
+            }
+        }
+        service.run();
+    }
+
+    /**
+     * Tests holds expire in bulk and their seats return to the venue.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testExpiration() {
+        Venue venue = new Venue(seats);
+        HoldExpirationService service = new HoldExpirationService(TICK_MILLIS, 8);
+
+        List<SeatHold> seatHolds = new ArrayList<SeatHold>();
+        IntStream.range(0, 10).forEach(i -> seatHolds.add(venue.getAvailableSeats(TestSeats.TEST_EMAIL, 5)));
+        service.schedule(seatHolds, 100, TimeUnit.MILLISECONDS);
+
+        // Delay spans more than one rotation of the wheel
+        service.run();
+        Assert.assertEquals(venue.getNumberOfAvailableSeats(), seats.size() - 50);
+
+        runFor(service, 150);
+        seatHolds.forEach(seatHold -> Assert.assertEquals(seatHold.getState(), ReservationState.CANCELLED));
+        Assert.assertEquals(venue.getNumberOfAvailableSeats(), seats.size());
+    }
+
+    /**
+     * Tests cancelled expirations leave the hold alone.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testCancel() {
+        Venue venue = new Venue(seats);
+        HoldExpirationService service = new HoldExpirationService(TICK_MILLIS, 8);
+
+        SeatHold kept = venue.getAvailableSeats(TestSeats.TEST_EMAIL, 5);
+        SeatHold expired = venue.getAvailableSeats(TestSeats.TEST_EMAIL, 5);
+        service.schedule(kept, 50, TimeUnit.MILLISECONDS);
+        service.schedule(expired, 50, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(service.cancel(kept));
+        Assert.assertFalse(service.cancel(kept), "Expiration cancelled twice");
+
+        runFor(service, 100);
+        Assert.assertEquals(kept.getState(), ReservationState.HOLD);
+        Assert.assertEquals(expired.getState(), ReservationState.CANCELLED);
+        Assert.assertEquals(venue.getNumberOfAvailableSeats(), seats.size() - 5);
+    }
+
+    /**
+     * Tests rescheduled expirations move without leaving the old one pending.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testReschedule() {
+        Venue venue = new Venue(seats);
+        HoldExpirationService service = new HoldExpirationService(TICK_MILLIS, 8);
+
+        SeatHold extended = venue.getAvailableSeats(TestSeats.TEST_EMAIL, 5);
+        SeatHold expired = venue.getAvailableSeats(TestSeats.TEST_EMAIL, 5);
+        service.schedule(extended, 50, TimeUnit.MILLISECONDS);
+        service.schedule(expired, 50, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(service.reschedule(extended, 300, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(service.getPendingExpirations(), 2);
+        SeatHold unscheduled = venue.getAvailableSeats(TestSeats.TEST_EMAIL, 1);
+        Assert.assertFalse(service.reschedule(unscheduled, 50, TimeUnit.MILLISECONDS), "Hold that was never scheduled");
+
+        runFor(service, 100);
+        Assert.assertEquals(extended.getState(), ReservationState.HOLD);
+        Assert.assertEquals(expired.getState(), ReservationState.CANCELLED);
+        Assert.assertEquals(service.getPendingExpirations(), 1);
+
+        runFor(service, 250);
+        Assert.assertEquals(extended.getState(), ReservationState.CANCELLED);
+        Assert.assertEquals(service.getPendingExpirations(), 0);
+    }
+
+    /**
+     * Tests a venue that fails to cancel its expired holds doesn't stop the other venues' holds or later ticks from
+     * expiring, and a rejected cancellation doesn't escape the run.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testExpirationFailure() {
+        Venue broken = new Venue(seats);
+        broken.addVenueListener(new VenueListener() {
+            @Override
+            public void seatHoldCreated(final SeatHold seatHold) {
+            }
+
+            @Override
+            public void seatHoldReserved(final SeatHold seatHold) {
+            }
+
+            @Override
+            public void seatHoldsCancelled(final List<SeatHold> seatHolds) {
+                throw new IllegalStateException("Listener failed");
+            }
+        });
+        Venue venue = new Venue(seats);
+        HoldExpirationService service = new HoldExpirationService(TICK_MILLIS, 8);
+
+        service.schedule(broken.getAvailableSeats(TestSeats.TEST_EMAIL, 5), 20, TimeUnit.MILLISECONDS);
+        SeatHold first = venue.getAvailableSeats(TestSeats.TEST_EMAIL, 5);
+        service.schedule(first, 20, TimeUnit.MILLISECONDS);
+        runFor(service, 50);
+        Assert.assertEquals(first.getState(), ReservationState.CANCELLED);
+
+        SeatHold second = venue.getAvailableSeats(TestSeats.TEST_EMAIL, 5);
+        service.schedule(second, 20, TimeUnit.MILLISECONDS);
+        runFor(service, 50);
+        Assert.assertEquals(second.getState(), ReservationState.CANCELLED);
+        Assert.assertEquals(venue.getNumberOfAvailableSeats(), seats.size());
+
+        HoldExpirationService rejecting = new HoldExpirationService(TICK_MILLIS, 8, command -> {
+            throw new RejectedExecutionException("Executor closed");
+        });
+        rejecting.schedule(venue.getAvailableSeats(TestSeats.TEST_EMAIL, 5), 20, TimeUnit.MILLISECONDS);
+        runFor(rejecting, 50);
+        Assert.assertEquals(rejecting.getPendingExpirations(), 0);
+    }
+}
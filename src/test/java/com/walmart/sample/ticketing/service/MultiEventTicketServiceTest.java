@@ -0,0 +1,150 @@
+package com.walmart.sample.ticketing.service;
+
+import com.walmart.sample.common.HoldRetentionPolicy;
+import com.walmart.sample.common.ReservationState;
+import com.walmart.sample.common.Seat;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.SeatHoldIdAllocator;
+import com.walmart.sample.common.Venue;
+import com.walmart.sample.common.VenueException;
+import com.walmart.sample.ticketing.TestSeats;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Unit test for MultiEventTicketService.
+ */
+public class MultiEventTicketServiceTest {
+
+    /**
+     * Initial seats used in venue creation.
+     */
+    List<Seat> seats = TestSeats.seats();
+
+    /**
+     * Tests holds of different events have unique ids and are reserved through their own event.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testReserveRoutedByHoldId() {
+        MultiEventTicketService service = new MultiEventTicketService();
+        try {
+            service.registerEvent("concert", seats);
+            service.registerEvent("game", seats);
+
+            List<SeatHold> concertHolds = new ArrayList<SeatHold>();
+            List<SeatHold> gameHolds = new ArrayList<SeatHold>();
+            IntStream.range(0, 5).forEach(i -> {
+                concertHolds.add(service.findAndHoldSeats("concert", 2, TestSeats.TEST_EMAIL));
+                gameHolds.add(service.findAndHoldSeats("game", 3, TestSeats.TEST_EMAIL));
+            });
+            concertHolds.forEach(concertHold -> gameHolds.forEach(gameHold ->
+                Assert.assertNotEquals(concertHold.getSeatHoldId(), gameHold.getSeatHoldId())));
+
+            gameHolds.forEach(gameHold -> service.reserveSeats(gameHold.getSeatHoldId(), TestSeats.TEST_EMAIL));
+            gameHolds.forEach(gameHold -> Assert.assertEquals(gameHold.getState(), ReservationState.RESERVED));
+            concertHolds.forEach(concertHold -> Assert.assertEquals(concertHold.getState(), ReservationState.HOLD));
+
+            Assert.assertEquals(service.numSeatsAvailable("concert"), seats.size() - 10);
+            Assert.assertEquals(service.numSeatsAvailable("game"), seats.size() - 15);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    /**
+     * Tests unknown events and hold ids are rejected.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testUnknownEventAndHold() {
+        MultiEventTicketService service = new MultiEventTicketService();
+        try {
+            service.registerEvent("concert", seats);
+            try {
+                service.registerEvent("concert", seats);
+                Assert.fail("Duplicate event should fail.");
+            } catch (VenueException e) {
+                Assert.assertEquals(e.getMessage(), "Event concert is already registered.");
+            }
+            try {
+                service.findAndHoldSeats("game", 1, TestSeats.TEST_EMAIL);
+                Assert.fail("Unknown event should fail.");
+            } catch (VenueException e) {
+                Assert.assertEquals(e.getMessage(), "Event game is not registered.");
+            }
+
+            SeatHold seatHold = service.findAndHoldSeats("concert", 1, TestSeats.TEST_EMAIL);
+            service.unregisterEvent("concert");
+            try {
+                service.reserveSeats(seatHold.getSeatHoldId(), TestSeats.TEST_EMAIL);
+                Assert.fail("Hold of an unregistered event should fail.");
+            } catch (VenueException e) {
+                Assert.assertEquals(e.getMessage(), "Unable to reserve seats, hold not found");
+            }
+            try {
+                service.releaseHold(seatHold.getSeatHoldId(), TestSeats.TEST_EMAIL);
+                Assert.fail("Hold of an unregistered event should fail.");
+            } catch (VenueException e) {
+                Assert.assertEquals(e.getMessage(), "Unable to release seats, hold not found");
+            }
+            try {
+                service.extendHold(seatHold.getSeatHoldId(), TestSeats.TEST_EMAIL);
+                Assert.fail("Hold of an unregistered event should fail.");
+            } catch (VenueException e) {
+                Assert.assertEquals(e.getMessage(), "Unable to extend hold, hold not found");
+            }
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    /**
+     * Tests holds of every event expire on the shared expiration wheel.
+     */
+    @Test(groups = {"unit"})
+    public void testSharedHoldExpiration() {
+        MultiEventTicketService service = new MultiEventTicketService();
+        try {
+            service.registerEvent("concert", seats);
+            service.registerEvent("game", seats);
+            SeatHold concertHold = service.findAndHoldSeats("concert", 4, TestSeats.TEST_EMAIL);
+            SeatHold gameHold = service.findAndHoldSeats("game", 4, TestSeats.TEST_EMAIL);
+
+            // Wait until hold expires
+            try {
+                Thread.sleep((Venue.HOLD_EXPIRATION_SECONDS + 1) * 1000);
+            } catch (InterruptedException e) {
+                Assert.fail("Failed to sleep beyond HOLD_EXPIRATION_SECONDS");
+            }
+
+            Assert.assertEquals(concertHold.getState(), ReservationState.CANCELLED);
+            Assert.assertEquals(gameHold.getState(), ReservationState.CANCELLED);
+            Assert.assertEquals(service.numSeatsAvailable("concert"), seats.size());
+            Assert.assertEquals(service.numSeatsAvailable("game"), seats.size());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    /**
+     * Tests releasing a venue's id blocks forgets the venue without touching the blocks of other venues.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testReleaseIdBlocks() {
+        SeatHoldIdAllocator allocator = new SeatHoldIdAllocator();
+        Venue released = new Venue(seats, HoldRetentionPolicy.DEFAULT, allocator);
+        Venue kept = new Venue(seats, HoldRetentionPolicy.DEFAULT, allocator);
+        SeatHold releasedHold = released.getAvailableSeats(TestSeats.TEST_EMAIL, 1);
+        SeatHold keptHold = kept.getAvailableSeats(TestSeats.TEST_EMAIL, 1);
+        Assert.assertSame(allocator.getOwner(releasedHold.getSeatHoldId()), released);
+
+        Assert.assertEquals(allocator.releaseBlocks(released), 1);
+        Assert.assertNull(allocator.getOwner(releasedHold.getSeatHoldId()));
+        Assert.assertSame(allocator.getOwner(keptHold.getSeatHoldId()), kept);
+        Assert.assertEquals(allocator.releaseBlocks(released), 0);
+    }
+}
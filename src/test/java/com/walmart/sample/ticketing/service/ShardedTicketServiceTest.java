@@ -0,0 +1,144 @@
+package com.walmart.sample.ticketing.service;
+
+import com.walmart.sample.common.HoldRetentionPolicy;
+import com.walmart.sample.common.ReservationState;
+import com.walmart.sample.common.Seat;
+import com.walmart.sample.common.SeatHold;
+import com.walmart.sample.common.SeatQuery;
+import com.walmart.sample.common.VenueException;
+import com.walmart.sample.ticketing.TestSeats;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+/**
+ * Unit test for ShardedTicketService.
+ */
+public class ShardedTicketServiceTest {
+
+    /**
+     * Initial seats used in venue creation.
+     */
+    List<Seat> seats = TestSeats.seats();
+
+    /**
+     * Seats of a venue with two sections.
+     */
+    List<Seat> sectionSeats = TestSeats.sectionSeats();
+
+    /**
+     * Tests rows are dealt round robin to the shards of a venue without sections and sections are shards of their
+     * own.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testPartition() {
+        List<List<Seat>> partitions = ShardedTicketService.partition(seats, 4);
+        Assert.assertEquals(partitions.size(), 4);
+        partitions.get(0).forEach(seat -> Assert.assertEquals((seat.getRowNumber() - 1) % 4, 0));
+        Assert.assertEquals(partitions.get(0).size(), 30);
+        Assert.assertEquals(partitions.get(3).size(), 20);
+
+        partitions = ShardedTicketService.partition(sectionSeats, 4);
+        Assert.assertEquals(partitions.size(), 2);
+        partitions.get(1).forEach(seat -> Assert.assertEquals(seat.getSection(), "balcony"));
+    }
+
+    /**
+     * Tests holds go to the shard with the best seats, fall back to a shard that has enough, and are reserved,
+     * released and extended through their own shard.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testHoldInBestShard() {
+        ShardedTicketService service = new ShardedTicketService(seats, HoldRetentionPolicy.DEFAULT, 2, 1);
+        try {
+            Assert.assertEquals(service.getShards().size(), 2);
+            SeatHold first = service.findAndHoldSeats(10, TestSeats.TEST_EMAIL);
+            first.getSeats().forEach(seat -> Assert.assertEquals(seat.getRowNumber(), 1));
+            // Row 2 of the other shard is now the best row.
+            SeatHold second = service.findAndHoldSeats(2, TestSeats.TEST_EMAIL);
+            second.getSeats().forEach(seat -> Assert.assertEquals(seat.getRowNumber(), 2));
+            Assert.assertEquals(service.numSeatsAvailable(), seats.size() - 12);
+
+            // Only the second shard still has 45 seats.
+            SeatHold large = service.findAndHoldSeats(45, TestSeats.TEST_EMAIL);
+            large.getSeats().forEach(seat -> Assert.assertEquals(seat.getRowNumber() % 2, 0));
+            try {
+                service.findAndHoldSeats(41, TestSeats.TEST_EMAIL);
+                Assert.fail("No shard has enough seats.");
+            } catch (VenueException e) {
+                Assert.assertEquals(e.getMessage(), "Number of tickets requested exceeds available tickets.");
+            }
+
+            Assert.assertNotNull(service.reserveSeats(first.getSeatHoldId(), TestSeats.TEST_EMAIL));
+            service.releaseHold(second.getSeatHoldId(), TestSeats.TEST_EMAIL);
+            service.extendHold(large.getSeatHoldId(), TestSeats.TEST_EMAIL);
+            Assert.assertEquals(first.getState(), ReservationState.RESERVED);
+            Assert.assertEquals(second.getState(), ReservationState.CANCELLED);
+            Assert.assertEquals(large.getState(), ReservationState.HOLD);
+            Assert.assertEquals(service.findSeatHolds(TestSeats.TEST_EMAIL).size(), 3);
+            try {
+                service.reserveSeats(Integer.MAX_VALUE, TestSeats.TEST_EMAIL);
+                Assert.fail("Unknown hold should fail.");
+            } catch (VenueException e) {
+                Assert.assertEquals(e.getMessage(), "Unable to reserve seats, hold not found");
+            }
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    /**
+     * Tests the per customer limit counts a customer's holds in every shard, and a rejected hold is not retried in
+     * another shard.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testMaxHoldsPerCustomerAcrossShards() {
+        HoldRetentionPolicy policy = new HoldRetentionPolicy(HoldRetentionPolicy.DEFAULT_CANCELLED_GRACE_MILLIS,
+            Integer.MAX_VALUE, 1);
+        ShardedTicketService service = new ShardedTicketService(seats, policy, 2, 1);
+        try {
+            SeatHold seatHold = service.findAndHoldSeats(2, TestSeats.TEST_EMAIL);
+            try {
+                service.findAndHoldSeats(2, TestSeats.TEST_EMAIL);
+                Assert.fail("A second hold should be rejected in every shard.");
+            } catch (VenueException e) {
+                Assert.assertTrue(e.getMessage().startsWith("Too many seat holds for " + TestSeats.TEST_EMAIL));
+            }
+            Assert.assertEquals(service.numSeatsAvailable(), seats.size() - 2);
+            long rejected = 0;
+            for (TicketServiceImpl shard : service.getShards()) {
+                rejected += shard.getVenue().getHoldRetention().getRejectedCustomerHolds();
+            }
+            Assert.assertEquals(rejected, 1);
+
+            Assert.assertNotNull(service.findAndHoldSeats(2, "other@test.com"));
+            service.releaseHold(seatHold.getSeatHoldId(), TestSeats.TEST_EMAIL);
+            SeatHold next = service.findAndHoldSeats(2, TestSeats.TEST_EMAIL);
+            Assert.assertEquals(service.findSeatHolds(TestSeats.TEST_EMAIL).size(), 2);
+            Assert.assertEquals(service.findSeatHolds(TestSeats.TEST_EMAIL).get(1).getSeatHoldId(),
+                next.getSeatHoldId());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    /**
+     * Tests a search for a section is answered by the section's shard.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testSectionQuery() {
+        ShardedTicketService service = new ShardedTicketService(sectionSeats, HoldRetentionPolicy.DEFAULT, 4, 1);
+        try {
+            SeatQuery balcony = SeatQuery.builder().section("balcony").build();
+            Assert.assertEquals(service.numSeatsAvailable(balcony), 50);
+            SeatHold seatHold = service.findAndHoldSeats(4, TestSeats.TEST_EMAIL, balcony);
+            seatHold.getSeats().forEach(seat -> Assert.assertEquals(seat.getRowNumber(), 6));
+            Assert.assertEquals(service.numSeatsAvailable(balcony), 46);
+            Assert.assertEquals(service.numSeatsAvailable(), sectionSeats.size() - 4);
+        } finally {
+            service.shutdown();
+        }
+    }
+}
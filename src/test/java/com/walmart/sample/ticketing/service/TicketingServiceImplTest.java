@@ -1,19 +1,28 @@
 package com.walmart.sample.ticketing.service;
 
+import com.walmart.sample.common.HoldRequest;
+import com.walmart.sample.common.HoldResult;
 import com.walmart.sample.common.ReservationState;
+import com.walmart.sample.common.ReserveRequest;
+import com.walmart.sample.common.ReserveResult;
 import com.walmart.sample.common.Seat;
 import com.walmart.sample.common.SeatHold;
 import com.walmart.sample.common.Venue;
 import com.walmart.sample.common.VenueException;
+import com.walmart.sample.ticketing.metrics.TicketMetrics;
 
 import lombok.extern.slf4j.Slf4j;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.IntStream;
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 /**
  * Unit test for TicketServiceImpl
@@ -209,4 +218,194 @@ public class TicketingServiceImplTest {
         Assert.assertEquals(ticketService.numSeatsAvailable(), initialSeatCount);
     }
 
+    /**
+     * Tests the findAndHoldSeatsBatch and reserveSeatsBatch methods in {@code TicketServiceImpl}.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testBatchHoldAndReserve() {
+
+        // Reset the venue
+        ticketService = new TicketServiceImpl(new Venue(seats));
+        int initialSeatCount = ticketService.numSeatsAvailable();
+
+        List<HoldResult> holdResults = ticketService.findAndHoldSeatsBatch(Arrays.asList(
+            HoldRequest.builder().numSeats(5).customerEmail(TEST_EMAIL).build(),
+            HoldRequest.builder().numSeats(0).customerEmail(TEST_EMAIL).build(),
+            HoldRequest.builder().numSeats(initialSeatCount).customerEmail(TEST_EMAIL).build(),
+            HoldRequest.builder().numSeats(3).customerEmail(TEST_EMAIL).build()));
+
+        Assert.assertEquals(holdResults.size(), 4);
+        Assert.assertTrue(holdResults.get(0).isSuccessful());
+        Assert.assertEquals(holdResults.get(1).getError(), "Must request at least 1 seat.");
+        Assert.assertEquals(holdResults.get(2).getError(), "Number of tickets requested exceeds available tickets.");
+        Assert.assertTrue(holdResults.get(3).isSuccessful());
+        Assert.assertEquals(holdResults.get(0).getSeatHold().getSeats().size(), 5);
+        Assert.assertEquals(holdResults.get(3).getSeatHold().getSeats().size(), 3);
+        Assert.assertEquals(ticketService.numSeatsAvailable(), initialSeatCount - 8);
+
+        // Earlier requests get the better seats
+        Assert.assertTrue(holdResults.get(0).getSeatHold().getSeats().get(4).getSeatQuality()
+            >= holdResults.get(3).getSeatHold().getSeats().get(0).getSeatQuality());
+
+        List<ReserveResult> reserveResults = ticketService.reserveSeatsBatch(Arrays.asList(
+            ReserveRequest.builder().seatHoldId(holdResults.get(0).getSeatHold().getSeatHoldId())
+                .customerEmail(TEST_EMAIL).build(),
+            ReserveRequest.builder().seatHoldId(-1).customerEmail(TEST_EMAIL).build()));
+
+        Assert.assertEquals(reserveResults.get(0).getConfirmationCode(),
+            holdResults.get(0).getSeatHold().getConfirmationCode());
+        Assert.assertEquals(reserveResults.get(1).getError(), "Unable to reserve seats, hold not found");
+        Assert.assertEquals(holdResults.get(0).getSeatHold().getState(), ReservationState.RESERVED);
+        Assert.assertEquals(holdResults.get(3).getSeatHold().getState(), ReservationState.HOLD);
+    }
+
+    /**
+     * Tests holds are released at once and extended a limited number of times.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testReleaseAndExtendHold() {
+        TicketServiceImpl ticketServiceImpl = new TicketServiceImpl(new Venue(seats));
+        TicketMetrics metrics = ticketServiceImpl.getMetrics();
+
+        SeatHold released = ticketServiceImpl.findAndHoldSeats(4, TEST_EMAIL);
+        try {
+            ticketServiceImpl.releaseHold(released.getSeatHoldId(), "other" + TEST_EMAIL);
+            Assert.fail("Release by another customer should fail.");
+        } catch (VenueException e) {
+            Assert.assertEquals(e.getMessage(), "Unable to release seats, hold not found");
+        }
+        ticketServiceImpl.releaseHold(released.getSeatHoldId(), TEST_EMAIL);
+        Assert.assertEquals(released.getState(), ReservationState.CANCELLED);
+        Assert.assertEquals(ticketServiceImpl.numSeatsAvailable(), seats.size());
+        Assert.assertEquals(metrics.getPendingExpirations(), 0);
+        try {
+            ticketServiceImpl.extendHold(released.getSeatHoldId(), TEST_EMAIL);
+            Assert.fail("Extending a released hold should fail.");
+        } catch (VenueException e) {
+            Assert.assertEquals(e.getMessage(), "Unable to extend hold, hold is no longer held");
+        }
+
+        SeatHold extended = ticketServiceImpl.findAndHoldSeats(2, TEST_EMAIL);
+        IntStream.range(0, Venue.MAX_HOLD_EXTENSIONS).forEach(i ->
+            ticketServiceImpl.extendHold(extended.getSeatHoldId(), TEST_EMAIL));
+        try {
+            ticketServiceImpl.extendHold(extended.getSeatHoldId(), TEST_EMAIL);
+            Assert.fail("Extending beyond the limit should fail.");
+        } catch (VenueException e) {
+            Assert.assertEquals(e.getMessage(), "Unable to extend hold, no extensions left");
+        }
+        Assert.assertEquals(metrics.getPendingExpirations(), 1);
+        Assert.assertEquals(metrics.getHoldsReleased(), 1);
+        Assert.assertEquals(metrics.getHoldsExtended(), Venue.MAX_HOLD_EXTENSIONS);
+
+        // A hold whose expiration can't be rescheduled keeps its extensions.
+        SeatHold unscheduled = ticketServiceImpl.getVenue().getAvailableSeats(TEST_EMAIL, 1);
+        try {
+            ticketServiceImpl.extendHold(unscheduled.getSeatHoldId(), TEST_EMAIL);
+            Assert.fail("Extending a hold that is not pending expiration should fail.");
+        } catch (VenueException e) {
+            Assert.assertEquals(e.getMessage(), "Unable to extend hold, hold is no longer held");
+        }
+        Assert.assertEquals(unscheduled.getExtensions(), 0);
+
+        ticketServiceImpl.reserveSeats(extended.getSeatHoldId(), TEST_EMAIL);
+        try {
+            ticketServiceImpl.releaseHold(extended.getSeatHoldId(), TEST_EMAIL);
+            Assert.fail("Releasing a reservation should fail.");
+        } catch (VenueException e) {
+            Assert.assertEquals(e.getMessage(), "Unable to release seats, hold is no longer held");
+        }
+    }
+
+    /**
+     * Tests a hold can only be reserved by the customer who made it.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testReserveByAnotherCustomer() {
+        TicketServiceImpl ticketServiceImpl = new TicketServiceImpl(new Venue(seats));
+        SeatHold seatHold = ticketServiceImpl.findAndHoldSeats(2, TEST_EMAIL);
+        try {
+            ticketServiceImpl.reserveSeats(seatHold.getSeatHoldId(), "other" + TEST_EMAIL);
+            Assert.fail("Reservation by another customer should fail.");
+        } catch (VenueException e) {
+            Assert.assertEquals(e.getMessage(), "Unable to reserve seats, hold not found");
+        }
+        Assert.assertEquals(seatHold.getState(), ReservationState.HOLD);
+        Assert.assertEquals(ticketServiceImpl.getMetrics().getReservationsFailed(), 1);
+
+        String confirmationCode = ticketServiceImpl.reserveSeats(seatHold.getSeatHoldId(), TEST_EMAIL);
+        Assert.assertEquals(confirmationCode, seatHold.getConfirmationCode());
+        Assert.assertEquals(ticketServiceImpl.getVenue().getReservation(confirmationCode), seatHold);
+    }
+
+    /**
+     * Tests holds without a customer email are rejected with a VenueException.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testHoldWithoutCustomerEmail() {
+        TicketServiceImpl ticketServiceImpl = new TicketServiceImpl(new Venue(seats));
+        for (String customerEmail : Arrays.asList(null, "")) {
+            try {
+                ticketServiceImpl.findAndHoldSeats(2, customerEmail);
+                Assert.fail("Hold without a customer email should fail.");
+            } catch (VenueException e) {
+                Assert.assertEquals(e.getMessage(), "Customer email is required to hold seats.");
+            }
+        }
+        List<HoldResult> holdResults = ticketServiceImpl.findAndHoldSeatsBatch(Arrays.asList(
+            HoldRequest.builder().numSeats(1).build(),
+            HoldRequest.builder().numSeats(1).customerEmail(TEST_EMAIL).build()));
+        Assert.assertEquals(holdResults.get(0).getError(), "Customer email is required to hold seats.");
+        Assert.assertTrue(holdResults.get(1).isSuccessful());
+        Assert.assertTrue(ticketServiceImpl.findSeatHolds(null).isEmpty());
+        Assert.assertEquals(ticketServiceImpl.numSeatsAvailable(), seats.size() - 1);
+    }
+
+    /**
+     * Tests the metrics of {@code TicketServiceImpl} count holds, reservations and their failures.
+     */
+    @Test(groups = {"fast", "unit"})
+    public void testMetrics() {
+
+        // Reset the venue
+        TicketServiceImpl ticketServiceImpl = new TicketServiceImpl(new Venue(seats));
+        TicketMetrics metrics = ticketServiceImpl.getMetrics();
+
+        SeatHold seatHold = ticketServiceImpl.findAndHoldSeats(4, TEST_EMAIL);
+        ticketServiceImpl.findAndHoldSeats(2, TEST_EMAIL);
+        try {
+            ticketServiceImpl.findAndHoldSeats(0, TEST_EMAIL);
+            Assert.fail("Empty hold should fail.");
+        } catch (VenueException e) {
+            Assert.assertEquals(e.getMessage(), "Must request at least 1 seat.");
+        }
+        ticketServiceImpl.reserveSeats(seatHold.getSeatHoldId(), TEST_EMAIL);
+        try {
+            ticketServiceImpl.reserveSeats(seatHold.getSeatHoldId(), TEST_EMAIL);
+            Assert.fail("Second reservation should fail.");
+        } catch (VenueException e) {
+            Assert.assertEquals(e.getMessage(), "Unable to reserve seats, hold expired");
+        }
+
+        Assert.assertEquals(metrics.getHoldsCreated(), 2);
+        Assert.assertEquals(metrics.getHoldsFailed(), 1);
+        Assert.assertEquals(metrics.getReservations(), 1);
+        Assert.assertEquals(metrics.getReservationsFailed(), 1);
+        Assert.assertEquals(metrics.getPendingExpirations(), 1);
+        Assert.assertEquals(metrics.getAvailableSeats(), seats.size() - 6);
+        Assert.assertEquals(metrics.getHoldLatency().getCount(), 2);
+        Assert.assertTrue(metrics.getHoldLatencyMax() >= metrics.getHoldLatencyP50());
+        Assert.assertEquals(metrics.getReserveLatency().getCount(), 1);
+
+        metrics.register("testMetrics");
+        try {
+            Assert.assertEquals(ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName(
+                TicketMetrics.JMX_DOMAIN + ":type=TicketMetrics,name=\"testMetrics\""), "HoldsCreated"), 2L);
+        } catch (JMException e) {
+            Assert.fail("Metrics should be registered.", e);
+        } finally {
+            metrics.unregister();
+        }
+    }
+
 }